@@ -6,55 +6,490 @@
 
 package com.almasb.fxgl.core.collection
 
+import java.util.function.ToIntFunction
+
 /**
  * A map with where K is an unordered pair (order doesn't matter).
  *
+ * Each distinct key (by equals()) is given a stable int id while it is part of at least one pair,
+ * so a pair is stored under an exact long key made of two ids, rather than a combined hash code.
+ * Both keys and pairs are stored in open-addressing tables with primitive arrays,
+ * so lookups do not allocate, and a dense list of occupied slots keeps iterating over values cheap.
+ *
+ * If keys already have stable ids, e.g. entities, [keyId] can be given to use them directly,
+ * which skips the key table lookup.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 class UnorderedPairMap<K, V>
-@JvmOverloads constructor(capacity: Int = 16) {
-    
-    private val map = HashMap<Int, V>(capacity)
+@JvmOverloads constructor(
+        capacity: Int = 16,
+
+        /**
+         * Returns a non-negative id of a key, which must be unique among keys in this map
+         * and must not change while the key is in this map.
+         * If null, ids are assigned to keys by this map.
+         */
+        private val keyId: ToIntFunction<in K>? = null) {
+
+    // key table: key -> id
+    private var keyTable: kotlin.Array<Any?>
+    private var keyHashes: IntArray
+    private var keyIds: IntArray
+    private var keyMask: Int
+    private var numKeys = 0
+
+    // id -> key and the number of pairs that use the key (twice if the key is paired with itself)
+    private var keysById: kotlin.Array<Any?>
+    private var numPairsById: IntArray
+    private var freeIds: IntArray
+    private var numFreeIds = 0
+    private var nextId = 0
+
+    // pair table: pair key -> value
+    private var pairKeys: LongArray
+    private var pairValues: kotlin.Array<Any?>
+    private var pairDenseIndices: IntArray
+    private var pairMask: Int
+
+    /**
+     * Slots of the pair table that hold a value, in no particular order.
+     */
+    private var denseSlots: IntArray
+    private var size = 0
+
+    private var modCount = 0
+
+    init {
+        val tableSize = tableSizeFor(capacity)
+
+        keyTable = arrayOfNulls(tableSize)
+        keyHashes = IntArray(tableSize)
+        keyIds = IntArray(tableSize)
+        keyMask = tableSize - 1
+
+        keysById = arrayOfNulls(tableSize / 2)
+        numPairsById = IntArray(tableSize / 2)
+        freeIds = IntArray(tableSize / 2)
+
+        pairKeys = LongArray(tableSize)
+        pairKeys.fill(EMPTY)
+        pairValues = arrayOfNulls(tableSize)
+        pairDenseIndices = IntArray(tableSize)
+        pairMask = tableSize - 1
+
+        denseSlots = IntArray(tableSize / 2)
+    }
+
+    /**
+     * A live view of values in this map.
+     * Its iterator supports remove().
+     */
+    val values: MutableCollection<V> = Values()
 
-    val values
-        get() = map.values
-    
     /**
      * Clear all key-value pairs in the map.
      */
     fun clear() {
-        map.clear()
+        keyTable.fill(null)
+        numKeys = 0
+
+        keysById.fill(null)
+        numPairsById.fill(0)
+        numFreeIds = 0
+        nextId = 0
+
+        pairKeys.fill(EMPTY)
+        pairValues.fill(null)
+        size = 0
+
+        modCount++
     }
 
     /**
      * @return a value for [key1] [key2] pair or null if no such key exists
      */
     fun get(key1: K, key2: K): V? {
-        return map[hash(key1, key2)]
+        val id1 = findId(key1)
+        if (id1 == -1)
+            return null
+
+        val id2 = findId(key2)
+        if (id2 == -1)
+            return null
+
+        val slot = findPairSlot(pairKey(id1, id2))
+
+        return if (slot == -1) null else valueAt(slot)
     }
 
     /**
      * Add a new mapping from [key1] [key2] to [value].
      */
     fun put(key1: K, key2: K, value: V) {
-        map[hash(key1, key2)] = value
+        val id1 = getOrCreateId(key1)
+        val id2 = getOrCreateId(key2)
+
+        val pairKey = pairKey(id1, id2)
+        val existingSlot = findPairSlot(pairKey)
+
+        if (existingSlot != -1) {
+            pairValues[existingSlot] = value
+            return
+        }
+
+        if ((size + 1) * 2 > pairKeys.size) {
+            rehashPairs(pairKeys.size * 2)
+        }
+
+        var slot = pairSlotFor(pairKey)
+        while (pairKeys[slot] != EMPTY) {
+            slot = (slot + 1) and pairMask
+        }
+
+        pairKeys[slot] = pairKey
+        pairValues[slot] = value
+        pairDenseIndices[slot] = size
+        denseSlots[size] = slot
+        size++
+
+        if (keyId == null) {
+            numPairsById[id1]++
+            numPairsById[id2]++
+        }
+
+        modCount++
     }
 
     /**
      * Remove an existing mapping whose key is [key1] [key2].
      */
     fun remove(key1: K, key2: K) {
-        map.remove(hash(key1, key2))
+        val id1 = findId(key1)
+        if (id1 == -1)
+            return
+
+        val id2 = findId(key2)
+        if (id2 == -1)
+            return
+
+        val slot = findPairSlot(pairKey(id1, id2))
+
+        if (slot != -1) {
+            removePair(slot)
+        }
+    }
+
+    /**
+     * @return id of given key or -1 if the key is not part of any pair
+     */
+    private fun findId(key: K): Int {
+        if (keyId != null)
+            return keyId.applyAsInt(key)
+
+        val k: Any = key ?: NULL_KEY
+        val hash = k.hashCode()
+
+        var slot = keySlotFor(hash)
+
+        while (true) {
+            val other = keyTable[slot] ?: return -1
+
+            if (other === k || (keyHashes[slot] == hash && other == k))
+                return keyIds[slot]
+
+            slot = (slot + 1) and keyMask
+        }
+    }
+
+    private fun getOrCreateId(key: K): Int {
+        val id = findId(key)
+        if (id != -1 || keyId != null)
+            return id
+
+        if ((numKeys + 1) * 2 > keyTable.size) {
+            rehashKeys(keyTable.size * 2)
+        }
+
+        val newId = if (numFreeIds > 0) freeIds[--numFreeIds] else nextId++
+
+        if (newId == keysById.size) {
+            keysById = keysById.copyOf(newId * 2)
+            numPairsById = numPairsById.copyOf(newId * 2)
+        }
+
+        val k: Any = key ?: NULL_KEY
+
+        insertKey(k, k.hashCode(), newId)
+        keysById[newId] = k
+        numKeys++
+
+        return newId
+    }
+
+    private fun insertKey(key: Any, hash: Int, id: Int) {
+        var slot = keySlotFor(hash)
+        while (keyTable[slot] != null) {
+            slot = (slot + 1) and keyMask
+        }
+
+        keyTable[slot] = key
+        keyHashes[slot] = hash
+        keyIds[slot] = id
+    }
+
+    private fun releaseId(id: Int) {
+        if (keyId != null)
+            return
+
+        numPairsById[id]--
+
+        if (numPairsById[id] > 0)
+            return
+
+        val key = keysById[id]!!
+        keysById[id] = null
+
+        var slot = keySlotFor(key.hashCode())
+        while (keyIds[slot] != id || keyTable[slot] == null) {
+            slot = (slot + 1) and keyMask
+        }
+
+        removeKeySlot(slot)
+        numKeys--
+
+        if (numFreeIds == freeIds.size) {
+            freeIds = freeIds.copyOf(numFreeIds * 2)
+        }
+
+        freeIds[numFreeIds++] = id
     }
 
-    private fun hash(key1: K, key2: K): Int {
-        val hash1 = key1.hashCode()
-        val hash2 = key2.hashCode()
+    /**
+     * Backward shift deletion, so no tombstones are needed.
+     */
+    private fun removeKeySlot(slot: Int) {
+        var gap = slot
+        var i = (slot + 1) and keyMask
+
+        while (keyTable[i] != null) {
+            val home = keySlotFor(keyHashes[i])
+
+            // move the key into the gap if its home slot is not between the gap and its current slot
+            if (((i - home) and keyMask) >= ((i - gap) and keyMask)) {
+                keyTable[gap] = keyTable[i]
+                keyHashes[gap] = keyHashes[i]
+                keyIds[gap] = keyIds[i]
+                gap = i
+            }
+
+            i = (i + 1) and keyMask
+        }
+
+        keyTable[gap] = null
+    }
+
+    /**
+     * @return slot of the pair with given key or -1 if not present
+     */
+    private fun findPairSlot(pairKey: Long): Int {
+        var slot = pairSlotFor(pairKey)
+
+        while (true) {
+            val other = pairKeys[slot]
+
+            if (other == pairKey)
+                return slot
+
+            if (other == EMPTY)
+                return -1
+
+            slot = (slot + 1) and pairMask
+        }
+    }
+
+    private fun removePair(slot: Int) {
+        val pairKey = pairKeys[slot]
+        val denseIndex = pairDenseIndices[slot]
+
+        removePairSlot(slot)
+
+        // keep the dense list compact by moving the last slot into the gap
+        val last = size - 1
+
+        if (denseIndex != last) {
+            val movedSlot = denseSlots[last]
+
+            denseSlots[denseIndex] = movedSlot
+            pairDenseIndices[movedSlot] = denseIndex
+        }
+
+        size--
+
+        releaseId((pairKey ushr 32).toInt())
+        releaseId(pairKey.toInt())
+
+        modCount++
+    }
+
+    /**
+     * Backward shift deletion, so no tombstones are needed.
+     */
+    private fun removePairSlot(slot: Int) {
+        var gap = slot
+        var i = (slot + 1) and pairMask
+
+        while (pairKeys[i] != EMPTY) {
+            val home = pairSlotFor(pairKeys[i])
+
+            if (((i - home) and pairMask) >= ((i - gap) and pairMask)) {
+                pairKeys[gap] = pairKeys[i]
+                pairValues[gap] = pairValues[i]
+                pairDenseIndices[gap] = pairDenseIndices[i]
+                denseSlots[pairDenseIndices[gap]] = gap
+                gap = i
+            }
+
+            i = (i + 1) and pairMask
+        }
+
+        pairKeys[gap] = EMPTY
+        pairValues[gap] = null
+    }
+
+    private fun rehashKeys(newTableSize: Int) {
+        val oldTable = keyTable
+        val oldHashes = keyHashes
+        val oldIds = keyIds
+
+        keyTable = arrayOfNulls(newTableSize)
+        keyHashes = IntArray(newTableSize)
+        keyIds = IntArray(newTableSize)
+        keyMask = newTableSize - 1
+
+        for (i in oldTable.indices) {
+            val key = oldTable[i] ?: continue
+
+            insertKey(key, oldHashes[i], oldIds[i])
+        }
+    }
+
+    private fun rehashPairs(newTableSize: Int) {
+        val oldKeys = pairKeys
+        val oldValues = pairValues
+
+        pairKeys = LongArray(newTableSize)
+        pairKeys.fill(EMPTY)
+        pairValues = arrayOfNulls(newTableSize)
+        pairDenseIndices = IntArray(newTableSize)
+        pairMask = newTableSize - 1
+
+        denseSlots = denseSlots.copyOf(newTableSize / 2)
+
+        for (i in 0 until size) {
+            val oldSlot = denseSlots[i]
+
+            var slot = pairSlotFor(oldKeys[oldSlot])
+            while (pairKeys[slot] != EMPTY) {
+                slot = (slot + 1) and pairMask
+            }
+
+            pairKeys[slot] = oldKeys[oldSlot]
+            pairValues[slot] = oldValues[oldSlot]
+            pairDenseIndices[slot] = i
+            denseSlots[i] = slot
+        }
+    }
+
+    private fun keySlotFor(hash: Int): Int {
+        val h = hash * -0x61c88647
+
+        return (h xor (h ushr 16)) and keyMask
+    }
+
+    private fun pairSlotFor(pairKey: Long): Int {
+        val h = pairKey * -0x61c8864680b583ebL
+
+        return (h xor (h ushr 32)).toInt() and pairMask
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun valueAt(slot: Int): V = pairValues[slot] as V
+
+    private inner class Values : AbstractMutableCollection<V>() {
+        override val size: Int
+            get() = this@UnorderedPairMap.size
+
+        override fun add(element: V): Boolean {
+            throw UnsupportedOperationException("Use UnorderedPairMap.put()")
+        }
+
+        override fun clear() {
+            this@UnorderedPairMap.clear()
+        }
+
+        override fun iterator(): MutableIterator<V> = ValuesIterator()
+    }
+
+    private inner class ValuesIterator : MutableIterator<V> {
+        private var index = 0
+        private var lastIndex = -1
+        private var expectedModCount = modCount
+
+        override fun hasNext(): Boolean = index < size
+
+        override fun next(): V {
+            checkModCount()
+
+            if (index >= size)
+                throw NoSuchElementException()
+
+            lastIndex = index++
+            return valueAt(denseSlots[lastIndex])
+        }
+
+        override fun remove() {
+            check(lastIndex != -1) { "next() must be called before remove()" }
+            checkModCount()
+
+            removePair(denseSlots[lastIndex])
+
+            // the last value was moved into the removed position, so visit it next
+            index = lastIndex
+            lastIndex = -1
+            expectedModCount = modCount
+        }
+
+        private fun checkModCount() {
+            if (modCount != expectedModCount)
+                throw ConcurrentModificationException()
+        }
+    }
+
+    private companion object {
+
+        /**
+         * Ids are non-negative, so a valid pair key is never negative.
+         */
+        private const val EMPTY = -1L
+
+        private val NULL_KEY = Any()
+
+        private fun pairKey(id1: Int, id2: Int): Long {
+            return if (id1 < id2) {
+                (id1.toLong() shl 32) or id2.toLong()
+            } else {
+                (id2.toLong() shl 32) or id1.toLong()
+            }
+        }
+
+        private fun tableSizeFor(capacity: Int): Int {
+            var size = 8
+            while (size < capacity * 2) {
+                size = size shl 1
+            }
 
-        return if (hash1 > hash2) {
-            31 * (31 + hash1) + hash2
-        } else {
-            31 * (31 + hash2) + hash1
+            return size
         }
     }
-}
\ No newline at end of file
+}
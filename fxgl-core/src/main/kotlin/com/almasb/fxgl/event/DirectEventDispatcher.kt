@@ -0,0 +1,84 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.event
+
+import javafx.event.Event
+import javafx.event.EventHandler
+import javafx.event.EventType
+
+/**
+ * Dispatches events directly to handlers, without the JavaFX event dispatch chain.
+ * Handlers are called in the same order as by a JavaFX node: handlers registered for the event type first,
+ * then handlers of its super types, each in the order they were added.
+ * For each event type, the array of handlers to call (including super type handlers)
+ * is resolved once and cached until handlers change, so firing an event does not allocate.
+ * Handlers added or removed while an event is dispatched take effect from the next event.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class DirectEventDispatcher {
+
+    private val handlers = hashMapOf<EventType<*>, Array<EventHandler<in Event>>>()
+
+    private val resolvedHandlers = hashMapOf<EventType<*>, Array<EventHandler<in Event>>>()
+
+    fun addEventHandler(eventType: EventType<*>, eventHandler: EventHandler<in Event>) {
+        val existing = handlers[eventType] ?: NO_HANDLERS
+
+        // same as JavaFX, a handler is only registered once per type
+        if (existing.any { it === eventHandler })
+            return
+
+        handlers[eventType] = existing + eventHandler
+        resolvedHandlers.clear()
+    }
+
+    fun removeEventHandler(eventType: EventType<*>, eventHandler: EventHandler<in Event>) {
+        val existing = handlers[eventType] ?: return
+
+        if (existing.none { it === eventHandler })
+            return
+
+        val remaining = existing.filter { it !== eventHandler }.toTypedArray()
+
+        if (remaining.isEmpty()) {
+            handlers.remove(eventType)
+        } else {
+            handlers[eventType] = remaining
+        }
+
+        resolvedHandlers.clear()
+    }
+
+    fun fireEvent(event: Event) {
+        val eventType = event.eventType
+
+        val handlers = resolvedHandlers[eventType] ?: resolve(eventType)
+
+        for (i in handlers.indices) {
+            handlers[i].handle(event)
+        }
+    }
+
+    private fun resolve(eventType: EventType<*>): Array<EventHandler<in Event>> {
+        val result = arrayListOf<EventHandler<in Event>>()
+
+        var type: EventType<*>? = eventType
+
+        while (type != null) {
+            handlers[type]?.let { result.addAll(it) }
+
+            type = type.superType
+        }
+
+        return result.toTypedArray().also { resolvedHandlers[eventType] = it }
+    }
+
+    companion object {
+        private val NO_HANDLERS = emptyArray<EventHandler<in Event>>()
+    }
+}
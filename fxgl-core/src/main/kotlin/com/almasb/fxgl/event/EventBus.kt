@@ -13,36 +13,74 @@ import javafx.event.EventType
 import javafx.scene.Group
 
 /**
- * FXGL event dispatcher that uses JavaFX event system.
+ * FXGL event dispatcher.
  * Allows firing events and listening for events.
+ * By default, uses JavaFX event system, see [DispatchMode] for alternatives.
  *
  * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
  */
-class EventBus {
+class EventBus
+@JvmOverloads constructor(val dispatchMode: DispatchMode = DispatchMode.SCENE_GRAPH) {
+
+    enum class DispatchMode {
+
+        /**
+         * Events are fired via a (hidden) JavaFX node, so handlers receive a copy of the event
+         * whose source and target is that node.
+         */
+        SCENE_GRAPH,
+
+        /**
+         * Events are passed directly to handlers, without building a JavaFX event dispatch chain
+         * or copying the event, so handlers receive the fired event as is.
+         * Handlers are called in the same order as in [SCENE_GRAPH] mode.
+         * Use this mode when firing many events per frame.
+         */
+        DIRECT
+    }
 
     private val log = Logger.get(javaClass)
 
-    private val eventHandlers = Group()
+    // only created in scene graph mode
+    private val eventHandlers by lazy { Group() }
+
+    private val directDispatcher = DirectEventDispatcher()
 
     private val subscribers = arrayListOf<Subscriber>()
 
-    var isLoggingEnabled = true
+    /**
+     * If true, each fired event is logged at debug level.
+     * Disabled by default in [DispatchMode.DIRECT] mode, which is meant for firing many events per frame.
+     * Even if enabled, the log message is only created if there is a debug level logger output.
+     */
+    var isLoggingEnabled = dispatchMode != DispatchMode.DIRECT
 
     /**
      * Register [eventHandler] for [eventType].
      */
     fun <T : Event> addEventHandler(eventType: EventType<T>, eventHandler: EventHandler<in T>): Subscriber {
-        eventHandlers.addEventHandler(eventType, eventHandler)
-
         @Suppress("UNCHECKED_CAST")
-        return Subscriber(this, eventType, eventHandler as EventHandler<in Event>).also { subscribers.add(it) }
+        val handler = eventHandler as EventHandler<in Event>
+
+        if (dispatchMode == DispatchMode.DIRECT) {
+            directDispatcher.addEventHandler(eventType, handler)
+        } else {
+            eventHandlers.addEventHandler(eventType, eventHandler)
+        }
+
+        return Subscriber(this, eventType, handler).also { subscribers.add(it) }
     }
 
     /**
      * Remove [eventHandler] for [eventType].
      */
     fun <T : Event> removeEventHandler(eventType: EventType<T>, eventHandler: EventHandler<in T>) {
-        eventHandlers.removeEventHandler(eventType, eventHandler)
+        if (dispatchMode == DispatchMode.DIRECT) {
+            @Suppress("UNCHECKED_CAST")
+            directDispatcher.removeEventHandler(eventType, eventHandler as EventHandler<in Event>)
+        } else {
+            eventHandlers.removeEventHandler(eventType, eventHandler)
+        }
     }
 
     fun removeAllEventHandlers() {
@@ -59,10 +97,14 @@ class EventBus {
      * i.e. synchronous.
      */
     fun fireEvent(event: Event) {
-        if (isLoggingEnabled) {
+        if (isLoggingEnabled && log.isDebugEnabled) {
             log.debug("Firing event: $event")
         }
 
-        eventHandlers.fireEvent(event)
+        if (dispatchMode == DispatchMode.DIRECT) {
+            directDispatcher.fireEvent(event)
+        } else {
+            eventHandlers.fireEvent(event)
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,316 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.logging
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Passes log records from any number of threads to a single background thread.
+ * Records are stored in a preallocated ring buffer, so logging a message does not allocate
+ * and does not format anything on the caller's thread.
+ * When the buffer is full, records are dropped or the caller waits, depending on [overflowPolicy].
+ * Waiting callers are parked and unparked by the writer thread as it handles records.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class AsyncLogWriter(
+        capacity: Int,
+        private val overflowPolicy: LoggerOverflowPolicy,
+        private val handler: RecordHandler) {
+
+    interface RecordHandler {
+
+        /**
+         * Called on the writer thread for each record, in the order records were logged.
+         */
+        fun handle(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String)
+
+        /**
+         * Called on the writer thread when there are no more records to handle for now.
+         */
+        fun flush()
+    }
+
+    private val size: Int
+    private val mask: Int
+
+    // record fields, indexed by sequence and mask
+    private val times: LongArray
+    private val threadNames: Array<String?>
+    private val levels: Array<LoggerLevel?>
+    private val loggerNames: Array<String?>
+    private val messages: Array<String?>
+
+    /**
+     * Sequence + 1 of the record that was last published in each slot.
+     */
+    private val published: AtomicLongArray
+
+    /**
+     * Next sequence to be claimed by a caller.
+     */
+    private val claimed = AtomicLong()
+
+    /**
+     * Next sequence to be handled by the writer thread.
+     */
+    @Volatile private var consumed = 0L
+
+    /**
+     * Sequence up to which (excl.) records were handled and flushed.
+     */
+    @Volatile private var flushed = 0L
+
+    /**
+     * Sequence up to which (excl.) records should be flushed as soon as they are handled.
+     */
+    private val flushRequested = AtomicLong()
+
+    /**
+     * Callers parked until there is space in the buffer or until their record is flushed.
+     */
+    private val waiters = ConcurrentLinkedQueue<Thread>()
+
+    private val numDropped = AtomicLong()
+
+    @Volatile private var isRunning = true
+    @Volatile private var isWaiting = false
+
+    private val thread: Thread
+
+    init {
+        var s = 2
+        while (s < capacity) {
+            s = s shl 1
+        }
+
+        size = s
+        mask = s - 1
+
+        times = LongArray(size)
+        threadNames = arrayOfNulls(size)
+        levels = arrayOfNulls(size)
+        loggerNames = arrayOfNulls(size)
+        messages = arrayOfNulls(size)
+        published = AtomicLongArray(size)
+
+        thread = Thread(this::run, "FXGL Logger")
+        thread.isDaemon = true
+        thread.start()
+    }
+
+    /**
+     * @return number of records logged but not yet handled
+     */
+    val numPending: Long
+        get() = claimed.get() - consumed
+
+    /**
+     * Adds a record to the buffer.
+     *
+     * @return false if the record was dropped
+     */
+    fun offer(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String): Boolean {
+        return claim(time, threadName, level, loggerName, message, overflowPolicy) >= 0
+    }
+
+    /**
+     * Adds a record to the buffer, waiting for space if the buffer is full regardless of [overflowPolicy],
+     * and then waits until the writer thread has handled and flushed the record.
+     *
+     * @return false if the record was dropped because the writer is closed
+     */
+    fun offerAndFlush(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String): Boolean {
+        val seq = claim(time, threadName, level, loggerName, message, LoggerOverflowPolicy.BLOCK)
+
+        if (seq < 0)
+            return false
+
+        // the writer thread cannot wait for itself
+        if (Thread.currentThread() === thread)
+            return true
+
+        flushRequested.accumulateAndGet(seq + 1) { a, b -> maxOf(a, b) }
+
+        await { flushed > seq }
+
+        return true
+    }
+
+    /**
+     * @return sequence of the added record or -1 if it was dropped
+     */
+    private fun claim(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String, policy: LoggerOverflowPolicy): Long {
+        while (isRunning) {
+            val seq = claimed.get()
+
+            if (seq - consumed >= size) {
+                // the writer thread cannot wait for itself to make space
+                if (policy == LoggerOverflowPolicy.DROP || Thread.currentThread() === thread) {
+                    numDropped.incrementAndGet()
+                    return -1
+                }
+
+                await { claimed.get() - consumed < size || !isRunning }
+                continue
+            }
+
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                val i = (seq and mask.toLong()).toInt()
+
+                times[i] = time
+                threadNames[i] = threadName
+                levels[i] = level
+                loggerNames[i] = loggerName
+                messages[i] = message
+
+                published.set(i, seq + 1)
+
+                if (isWaiting) {
+                    LockSupport.unpark(thread)
+                }
+
+                return seq
+            }
+        }
+
+        return -1
+    }
+
+    /**
+     * Parks the calling thread until [isDone] is true or the writer thread stops.
+     */
+    private inline fun await(isDone: () -> Boolean) {
+        val current = Thread.currentThread()
+
+        waiters.add(current)
+
+        try {
+            LockSupport.unpark(thread)
+
+            while (!isDone() && thread.isAlive) {
+                LockSupport.parkNanos(this, MAX_WAIT_NANOS)
+            }
+        } finally {
+            waiters.remove(current)
+        }
+    }
+
+    private fun unparkWaiters() {
+        if (!waiters.isEmpty()) {
+            waiters.forEach(LockSupport::unpark)
+        }
+    }
+
+    /**
+     * Handles all records logged so far and stops the writer thread.
+     * Records logged after this call are dropped.
+     */
+    fun close() {
+        if (!isRunning)
+            return
+
+        isRunning = false
+        LockSupport.unpark(thread)
+
+        if (Thread.currentThread() !== thread) {
+            thread.join(CLOSE_TIMEOUT_MILLIS)
+        }
+    }
+
+    private fun run() {
+        var hasHandled = false
+
+        while (true) {
+            val seq = consumed
+            val i = (seq and mask.toLong()).toInt()
+
+            if (published.get(i) == seq + 1) {
+                val time = times[i]
+                val threadName = threadNames[i]!!
+                val level = levels[i]!!
+                val loggerName = loggerNames[i]!!
+                val message = messages[i]!!
+
+                threadNames[i] = null
+                loggerNames[i] = null
+                messages[i] = null
+
+                consumed = seq + 1
+
+                handle(time, threadName, level, loggerName, message)
+                hasHandled = true
+
+                // a caller is waiting for this record to be written out
+                if (consumed >= flushRequested.get() && flushed < flushRequested.get()) {
+                    flush()
+                    hasHandled = false
+                }
+
+                // space was made for callers waiting on a full buffer
+                unparkWaiters()
+                continue
+            }
+
+            // the slot was claimed, but the record is not yet published
+            if (claimed.get() > seq) {
+                Thread.onSpinWait()
+                continue
+            }
+
+            val dropped = numDropped.getAndSet(0)
+            if (dropped > 0) {
+                handle(System.currentTimeMillis(), thread.name, LoggerLevel.WARN, "Logger", "Dropped $dropped messages, log buffer was full")
+                hasHandled = true
+            }
+
+            if (hasHandled) {
+                flush()
+                hasHandled = false
+            }
+
+            if (!isRunning)
+                break
+
+            isWaiting = true
+
+            // a record may have been published before isWaiting was set
+            if (claimed.get() == seq && isRunning) {
+                LockSupport.parkNanos(this, MAX_WAIT_NANOS)
+            }
+
+            isWaiting = false
+        }
+    }
+
+    private fun handle(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String) {
+        try {
+            handler.handle(time, threadName, level, loggerName, message)
+        } catch (e: Exception) {
+            System.err.println("Failed to write log message: $e")
+        }
+    }
+
+    private fun flush() {
+        try {
+            handler.flush()
+        } catch (e: Exception) {
+            System.err.println("Failed to flush log: $e")
+        }
+
+        flushed = consumed
+        unparkWaiters()
+    }
+
+    companion object {
+        private const val MAX_WAIT_NANOS = 100_000_000L
+        private const val CLOSE_TIMEOUT_MILLIS = 5000L
+    }
+}
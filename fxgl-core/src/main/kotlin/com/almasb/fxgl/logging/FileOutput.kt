@@ -6,15 +6,20 @@
 
 package com.almasb.fxgl.logging
 
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.nio.file.StandardOpenOption
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
 import java.util.stream.Collectors
 
 /**
- * Stores all incoming messages in memory, then saves the messages to a file on [close].
+ * Streams incoming messages to a log file through a buffer.
+ * The buffer is written to the file when it is full, on [flush] and on [close].
+ * When the file reaches [maxFileSize], a new file is started.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
@@ -34,25 +39,105 @@ class FileOutput
         /**
          * Maximum number of log files to keep in the given directory.
          */
-        private val maxLogFiles: Int = 10) : LoggerOutput {
+        private val maxLogFiles: Int = 10,
 
-    private val data = arrayListOf<String>()
+        /**
+         * Maximum size of a log file in bytes, after which a new file is started.
+         */
+        private val maxFileSize: Long = 10L * 1024 * 1024) : LoggerOutput {
+
+    private val logDir: Path = getOrCreateLogDir()
+
+    private val buffer = ByteBuffer.allocate(BUFFER_SIZE)
+    private val lineSeparator = System.lineSeparator().toByteArray()
+
+    private var channel: FileChannel
+    private var fileSize = 0L
+
+    private var isClosed = false
 
     init {
-        val logDir = getOrCreateLogDir()
+        channel = openNewFile()
+    }
 
-        cleanOldLogs(logDir)
+    @Synchronized override fun append(message: String) {
+        if (isClosed)
+            return
+
+        val bytes = message.toByteArray()
+        val length = bytes.size + lineSeparator.size
+
+        if (fileSize > 0 && fileSize + length > maxFileSize) {
+            rotate()
+        }
+
+        if (length > buffer.remaining()) {
+            writeBuffer()
+        }
+
+        if (length > buffer.capacity()) {
+            write(ByteBuffer.wrap(bytes))
+            write(ByteBuffer.wrap(lineSeparator))
+        } else {
+            buffer.put(bytes)
+            buffer.put(lineSeparator)
+        }
+
+        fileSize += length
+    }
+
+    @Synchronized override fun flush() {
+        if (isClosed)
+            return
+
+        writeBuffer()
+    }
+
+    @Synchronized override fun close() {
+        if (isClosed)
+            return
+
+        writeBuffer()
+        channel.close()
+
+        isClosed = true
+    }
+
+    private fun rotate() {
+        writeBuffer()
+        channel.close()
+
+        channel = openNewFile()
+        fileSize = 0
+    }
+
+    private fun writeBuffer() {
+        buffer.flip()
+        write(buffer)
+        buffer.clear()
     }
 
-    override fun append(message: String) {
-        data.add(message)
+    private fun write(bytes: ByteBuffer) {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes)
+        }
     }
 
-    override fun close() {
+    private fun openNewFile(): FileChannel {
+        cleanOldLogs(logDir)
+
         val stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MMM-yyyy-HH.mm.ss"))
-        val file = Paths.get("$logDirectory$baseFileName-$stamp.log")
 
-        Files.write(file, data)
+        var file = Paths.get("$logDirectory$baseFileName-$stamp.log")
+
+        // files rotated within the same second
+        var index = 1
+        while (Files.exists(file)) {
+            file = Paths.get("$logDirectory$baseFileName-$stamp-$index.log")
+            index++
+        }
+
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
     }
 
     private fun getOrCreateLogDir(): Path {
@@ -77,4 +162,8 @@ class FileOutput
             }
         }
     }
-}
\ No newline at end of file
+
+    companion object {
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+}
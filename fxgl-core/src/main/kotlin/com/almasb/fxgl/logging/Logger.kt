@@ -8,11 +8,15 @@ package com.almasb.fxgl.logging
 
 import java.io.PrintWriter
 import java.io.StringWriter
+import java.time.Instant
 import java.time.LocalTime
+import java.time.ZoneId
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * A flexible logger that can be obtained by calling [Logger.get].
  * The above call is safe to be made even before calling [Logger.configure].
+ * If configured with [LoggerConfig.isAsync], messages are passed to outputs on a background thread.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
@@ -21,17 +25,30 @@ private constructor(private val name: String) {
 
     companion object {
 
-        private val outputs = ArrayList<LoggerOutput>()
+        // outputs may be iterated by the async writer thread while being modified
+        private val outputs = CopyOnWriteArrayList<LoggerOutput>()
 
-        private val debug = ArrayList<LoggerOutput>()
-        private val info = ArrayList<LoggerOutput>()
-        private val warning = ArrayList<LoggerOutput>()
-        private val fatal = ArrayList<LoggerOutput>()
+        private val debug = CopyOnWriteArrayList<LoggerOutput>()
+        private val info = CopyOnWriteArrayList<LoggerOutput>()
+        private val warning = CopyOnWriteArrayList<LoggerOutput>()
+        private val fatal = CopyOnWriteArrayList<LoggerOutput>()
 
         private var config = LoggerConfig()
         private var isConfigured = false
         private var isClosed = false
 
+        @Volatile private var asyncWriter: AsyncLogWriter? = null
+
+        private val recordHandler = object : AsyncLogWriter.RecordHandler {
+            override fun handle(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String) {
+                appendMessage(time, threadName, loggerName, message, level)
+            }
+
+            override fun flush() {
+                outputs.forEach(LoggerOutput::flush)
+            }
+        }
+
         @JvmStatic fun isConfigured(): Boolean = isConfigured
 
         /**
@@ -48,6 +65,10 @@ private constructor(private val name: String) {
             this.config = config.copy()
             isConfigured = true
 
+            if (this.config.isAsync) {
+                asyncWriter = AsyncLogWriter(this.config.asyncBufferSize, this.config.overflowPolicy, recordHandler)
+            }
+
             doLog("Logger", "Configured Logger", LoggerLevel.DEBUG)
         }
 
@@ -123,7 +144,32 @@ private constructor(private val name: String) {
         }
 
         private fun doLog(loggerName: String, loggerMessage: String, level: LoggerLevel) {
-            val message = lazy { makeMessage(loggerName, loggerMessage, level) }
+            val time = System.currentTimeMillis()
+            val threadName = Thread.currentThread().name
+
+            val writer = asyncWriter
+
+            // so that warnings and errors are not lost if the application crashes
+            val isFlushed = level == LoggerLevel.WARN || level == LoggerLevel.FATAL
+
+            if (writer != null) {
+                if (isFlushed) {
+                    writer.offerAndFlush(time, threadName, level, loggerName, loggerMessage)
+                } else {
+                    writer.offer(time, threadName, level, loggerName, loggerMessage)
+                }
+                return
+            }
+
+            appendMessage(time, threadName, loggerName, loggerMessage, level)
+
+            if (isFlushed) {
+                outputs.forEach(LoggerOutput::flush)
+            }
+        }
+
+        private fun appendMessage(time: Long, threadName: String, loggerName: String, loggerMessage: String, level: LoggerLevel) {
+            val message = lazy { makeMessage(time, threadName, loggerName, loggerMessage, level) }
 
             when(level) {
                 LoggerLevel.DEBUG -> {
@@ -144,10 +190,9 @@ private constructor(private val name: String) {
             }
         }
 
-        private fun makeMessage(loggerName: String, loggerMessage: String, level: LoggerLevel): String {
-            val time = LocalTime.now().format(config.dateTimeFormatter)
-            val threadName = Thread.currentThread().name
-            return config.messageFormatter.makeMessage(time, threadName, "$level", loggerName, loggerMessage)
+        private fun makeMessage(time: Long, threadName: String, loggerName: String, loggerMessage: String, level: LoggerLevel): String {
+            val dateTime = LocalTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).format(config.dateTimeFormatter)
+            return config.messageFormatter.makeMessage(dateTime, threadName, "$level", loggerName, loggerMessage)
         }
 
         @JvmStatic fun get(name: String): Logger {
@@ -167,11 +212,22 @@ private constructor(private val name: String) {
 
             doLog("Logger", "Closing Logger", LoggerLevel.DEBUG)
 
+            // writes out all pending messages
+            asyncWriter?.close()
+            asyncWriter = null
+
             outputs.forEach(LoggerOutput::close)
             isClosed = true
         }
     }
 
+    /**
+     * True if there is an output for debug level messages,
+     * so that callers can avoid building debug messages that would not be logged.
+     */
+    val isDebugEnabled: Boolean
+        get() = debug.isNotEmpty()
+
     /**
      * Log an info level message.
      *
@@ -18,10 +18,30 @@ class LoggerConfig {
     var dateTimeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
     var messageFormatter = DefaultMessageFormatter()
 
+    /**
+     * If true, logging a message only places it in a buffer, and a background thread
+     * formats the message and passes it to outputs.
+     * Default is false.
+     */
+    var isAsync = false
+
+    /**
+     * Max number of messages in the buffer of an asynchronous logger.
+     */
+    var asyncBufferSize = 8192
+
+    /**
+     * What an asynchronous logger does when the buffer is full.
+     */
+    var overflowPolicy = LoggerOverflowPolicy.DROP
+
     internal fun copy(): LoggerConfig {
         val copy = LoggerConfig()
         copy.dateTimeFormatter = dateTimeFormatter
         copy.messageFormatter = messageFormatter
+        copy.isAsync = isAsync
+        copy.asyncBufferSize = asyncBufferSize
+        copy.overflowPolicy = overflowPolicy
         return copy
     }
 }
\ No newline at end of file
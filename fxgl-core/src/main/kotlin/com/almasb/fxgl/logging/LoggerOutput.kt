@@ -18,6 +18,11 @@ interface LoggerOutput {
      */
     fun append(message: String)
 
+    /**
+     * Called to write out messages this output has buffered, e.g. when there are no more messages to log for now.
+     */
+    fun flush() {}
+
     /**
      * Called to allow this output to clean up / serialize / shut down.
      */
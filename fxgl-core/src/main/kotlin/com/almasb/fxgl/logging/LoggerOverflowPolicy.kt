@@ -0,0 +1,27 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.logging
+
+/**
+ * What an asynchronous logger does when its buffer is full,
+ * i.e. messages are logged faster than they can be written.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+enum class LoggerOverflowPolicy {
+
+    /**
+     * New messages are dropped, so logging never blocks the caller.
+     * The number of dropped messages is logged once there is space again.
+     */
+    DROP,
+
+    /**
+     * The caller waits until there is space in the buffer, so no messages are lost.
+     */
+    BLOCK
+}
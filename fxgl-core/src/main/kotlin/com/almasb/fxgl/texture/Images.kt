@@ -20,6 +20,8 @@ import javafx.scene.shape.Rectangle
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+import java.util.stream.IntStream
 import javax.imageio.ImageIO
 import kotlin.math.abs
 import kotlin.math.max
@@ -79,16 +81,9 @@ fun toPixels(image: Image): List<Pixel> {
 }
 
 fun fromPixels(width: Int, height: Int, pixels: List<Pixel>): Image {
-    val image = WritableImage(width, height)
-    var index = 0
+    val argb = IntArray(width * height) { toArgb(pixels[it].color) }
 
-    for (y in 0 until height) {
-        for (x in 0 until width) {
-            image.pixelWriter.setColor(x, y, pixels[index++].color)
-        }
-    }
-
-    return image
+    return fromArgb(width, height, argb)
 }
 
 /**
@@ -156,43 +151,50 @@ fun resize(image: Image, targetWidth: Int, targetHeight: Int, isPreserveRatio: B
 }
 
 fun flipHorizontally(image: Image): Image {
-    // indices start at 0, hence -1
-    val maxX = image.width.toInt() - 1
+    val w = image.width.toInt()
+    val h = image.height.toInt()
 
-    return image.map {
-        val srcX = maxX - it.x
-        val srcY = it.y
-        val color = image.pixelReader.getColor(srcX, srcY)
+    val src = image.toArgb()
+    val dst = IntArray(src.size)
 
-        it.copy(color)
+    for (y in 0 until h) {
+        val row = y * w
+
+        for (x in 0 until w) {
+            dst[row + x] = src[row + w - 1 - x]
+        }
     }
+
+    return fromArgb(w, h, dst)
 }
 
 fun flipVertically(image: Image): Image {
-    // indices start at 0, hence -1
-    val maxY = image.height.toInt() - 1
+    val w = image.width.toInt()
+    val h = image.height.toInt()
 
-    return image.map {
-        val srcX = it.x
-        val srcY = maxY - it.y
-        val color = image.pixelReader.getColor(srcX, srcY)
+    val src = image.toArgb()
+    val dst = IntArray(src.size)
 
-        it.copy(color)
+    for (y in 0 until h) {
+        System.arraycopy(src, (h - 1 - y) * w, dst, y * w, w)
     }
+
+    return fromArgb(w, h, dst)
 }
 
 fun flipDiagonally(image: Image): Image {
-    // indices start at 0, hence -1
-    val maxX = image.width.toInt() - 1
-    val maxY = image.height.toInt() - 1
+    val w = image.width.toInt()
+    val h = image.height.toInt()
 
-    return image.map {
-        val srcX = maxX - it.x
-        val srcY = maxY - it.y
-        val color = image.pixelReader.getColor(srcX, srcY)
+    val src = image.toArgb()
+    val dst = IntArray(src.size)
 
-        it.copy(color)
+    // flipping both ways reverses the pixel order
+    for (i in src.indices) {
+        dst[i] = src[src.size - 1 - i]
     }
+
+    return fromArgb(w, h, dst)
 }
 
 data class Pixel(val x: Int, val y: Int, val color: Color, val parent: Image) {
@@ -229,6 +231,31 @@ fun BlendMode.operation(): (Pixel, Pixel) -> Pixel {
     }
 }
 
+/**
+ * @return a kernel that produces the same pixels as [operation], without allocating per pixel
+ */
+fun BlendMode.argbOperation(): ArgbBlendKernel {
+    return when (this) {
+        BlendMode.SRC_OVER -> SRC_OVER_ARGB
+        BlendMode.SRC_ATOP -> SRC_ATOP_ARGB
+        BlendMode.ADD -> ADD_ARGB
+        BlendMode.MULTIPLY -> MULTIPLY_ARGB
+        BlendMode.SCREEN -> SCREEN_ARGB
+        BlendMode.OVERLAY -> OVERLAY_ARGB
+        BlendMode.DARKEN -> DARKEN_ARGB
+        BlendMode.LIGHTEN -> LIGHTEN_ARGB
+        BlendMode.COLOR_DODGE -> COLOR_DODGE_ARGB
+        BlendMode.COLOR_BURN -> COLOR_BURN_ARGB
+        BlendMode.HARD_LIGHT -> HARD_LIGHT_ARGB
+        BlendMode.SOFT_LIGHT -> SOFT_LIGHT_ARGB
+        BlendMode.DIFFERENCE -> DIFFERENCE_ARGB
+        BlendMode.EXCLUSION -> EXCLUSION_ARGB
+        BlendMode.RED -> RED_ARGB
+        BlendMode.GREEN -> GREEN_ARGB
+        BlendMode.BLUE -> BLUE_ARGB
+    }
+}
+
 /*
  * In blending functions below, bot is the existing color (dst)
  * and top is the new color (src).
@@ -516,6 +543,105 @@ internal val BLUE_BLEND: (Pixel, Pixel) -> Pixel = { bot, top ->
     }
 }
 
+/*
+ * ARGB versions of the blending functions above.
+ * A fully transparent top pixel makes the result transparent, as above.
+ */
+
+/**
+ * Blends each channel using [f] and uses the usual "over" alpha.
+ */
+private inline fun blendChannels(bot: Int, top: Int, f: (Double, Double) -> Double): Int {
+    if (top == 0)
+        return 0
+
+    val topA = alphaOf(top)
+
+    return argbOf(
+            f(redOf(bot), redOf(top)),
+            f(greenOf(bot), greenOf(top)),
+            f(blueOf(bot), blueOf(top)),
+            topA + alphaOf(bot) * (1 - topA)
+    )
+}
+
+internal val SRC_OVER_ARGB = ArgbBlendKernel { bot, top ->
+    if (top == 0) {
+        0
+    } else {
+        argbOf(
+                redOf(top) + redOf(bot) * (1 - redOf(top)),
+                greenOf(top) + greenOf(bot) * (1 - greenOf(top)),
+                blueOf(top) + blueOf(bot) * (1 - blueOf(top)),
+                alphaOf(top) + alphaOf(bot) * (1 - alphaOf(top))
+        )
+    }
+}
+
+internal val SRC_ATOP_ARGB = ArgbBlendKernel { bot, top ->
+    if (top == 0) {
+        0
+    } else {
+        argbOf(
+                redOf(top) * alphaOf(bot) + redOf(bot) * (1 - redOf(top)),
+                greenOf(top) * alphaOf(bot) + greenOf(bot) * (1 - greenOf(top)),
+                blueOf(top) * alphaOf(bot) + blueOf(bot) * (1 - blueOf(top)),
+                alphaOf(bot)
+        )
+    }
+}
+
+internal val ADD_ARGB = ArgbBlendKernel { bot, top ->
+    if (top == 0) {
+        0
+    } else {
+        argbOf(
+                minOf(1.0, redOf(bot) + redOf(top)),
+                minOf(1.0, greenOf(bot) + greenOf(top)),
+                minOf(1.0, blueOf(bot) + blueOf(top)),
+                minOf(1.0, alphaOf(bot) + alphaOf(top))
+        )
+    }
+}
+
+internal val MULTIPLY_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> t * b } }
+
+internal val SCREEN_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> 1 - (1 - t) * (1 - b) } }
+
+internal val OVERLAY_ARGB = ArgbBlendKernel { bot, top ->
+    blendChannels(bot, top) { b, t -> if (b < 0.5) 2 * b * t else 1 - 2 * (1 - b) * (1 - t) }
+}
+
+internal val DARKEN_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> min(t, b) } }
+
+internal val LIGHTEN_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> max(t, b) } }
+
+internal val COLOR_DODGE_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> b / (1 - t) } }
+
+internal val COLOR_BURN_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> 1 - ((1 - b) / t) } }
+
+internal val HARD_LIGHT_ARGB = ArgbBlendKernel { bot, top -> OVERLAY_ARGB.apply(top, bot) }
+
+internal val SOFT_LIGHT_ARGB = ArgbBlendKernel { bot, top ->
+    blendChannels(bot, top) { b, t -> (1 - 2 * t) * b * b + 2 * t * b }
+}
+
+internal val DIFFERENCE_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> abs(t - b) } }
+
+internal val EXCLUSION_ARGB = ArgbBlendKernel { bot, top -> blendChannels(bot, top) { b, t -> t + b - 2 * t * b } }
+
+internal val RED_ARGB = ArgbBlendKernel { bot, top ->
+    if (top == 0) 0 else argbOf(redOf(top), greenOf(bot), blueOf(bot), alphaOf(top) + alphaOf(bot) * (1 - alphaOf(top)))
+}
+
+internal val GREEN_ARGB = ArgbBlendKernel { bot, top ->
+    if (top == 0) 0 else argbOf(redOf(bot), greenOf(top), blueOf(bot), alphaOf(top) + alphaOf(bot) * (1 - alphaOf(top)))
+}
+
+internal val BLUE_ARGB = ArgbBlendKernel { bot, top ->
+    if (top == 0) 0 else argbOf(redOf(bot), greenOf(bot), blueOf(top), alphaOf(top) + alphaOf(bot) * (1 - alphaOf(top)))
+}
+
 private fun newColor(r: Double, g: Double, b: Double, a: Double): Color {
     return Color.color(
             max(0.0, min(1.0, r)),
@@ -534,51 +660,186 @@ fun Image.getPixel(x: Int, y: Int): Pixel {
 
 /**
  * Map pixels of this image using [f] to produce a new image.
+ * Pixels are mapped one by one, in row order, on the calling thread.
+ * For heavy use prefer [mapArgb], which does not allocate per pixel.
  */
 fun Image.map(f: (Pixel) -> Pixel): Image {
-
     val w = this.width.toInt()
     val h = this.height.toInt()
 
-    val reader = this.pixelReader
-    val newImage = WritableImage(w, h)
-    val writer = newImage.pixelWriter
+    val pixels = this.toArgb()
 
     for (y in 0 until h) {
         for (x in 0 until w) {
+            val index = y * w + x
 
-            val pixel = Pixel(x, y, reader.getColor(x, y), this)
-            val newPixel = f.invoke(pixel)
+            val pixel = Pixel(x, y, toColor(pixels[index]), this)
 
-            writer.setColor(x, y, newPixel.color)
+            pixels[index] = toArgb(f.invoke(pixel).color)
         }
     }
 
-    return newImage
+    return fromArgb(w, h, pixels)
 }
 
 fun Image.map(overlay: Image, f: (Pixel, Pixel) -> Pixel): Image {
-
     val w = this.width.toInt()
     val h = this.height.toInt()
 
-    val reader = this.pixelReader
-    val overlayReader = overlay.pixelReader
-    val newImage = WritableImage(w, h)
-    val writer = newImage.pixelWriter
+    val pixels = this.toArgb()
+    val overlayPixels = overlay.toArgb(w, h)
 
     for (y in 0 until h) {
         for (x in 0 until w) {
+            val index = y * w + x
 
-            val pixel1 = Pixel(x, y, reader.getColor(x, y), this)
-            val pixel2 = Pixel(x, y, overlayReader.getColor(x, y), overlay)
-            val newPixel = f.invoke(pixel1, pixel2)
+            val pixel1 = Pixel(x, y, toColor(pixels[index]), this)
+            val pixel2 = Pixel(x, y, toColor(overlayPixels[index]), overlay)
 
-            writer.setColor(x, y, newPixel.color)
+            pixels[index] = toArgb(f.invoke(pixel1, pixel2).color)
         }
     }
 
-    return newImage
+    return fromArgb(w, h, pixels)
+}
+
+/**
+ * Maps a non-premultiplied ARGB value of a pixel to a new value.
+ * A kernel may be called from multiple threads at the same time,
+ * so it must not modify shared state.
+ */
+fun interface ArgbKernel {
+    fun apply(argb: Int): Int
+}
+
+/**
+ * Maps non-premultiplied ARGB values of a pixel ([bot]) and the pixel drawn over it ([top]) to a new value.
+ * A kernel may be called from multiple threads at the same time,
+ * so it must not modify shared state.
+ */
+fun interface ArgbBlendKernel {
+    fun apply(bot: Int, top: Int): Int
+}
+
+/**
+ * Images with fewer pixels than this are processed on the calling thread.
+ */
+private const val MIN_PIXELS_PER_BAND = 32 * 1024
+
+/**
+ * @return non-premultiplied ARGB values of pixels in the top-left [w] x [h] area of this image, row by row
+ */
+@JvmOverloads
+fun Image.toArgb(w: Int = this.width.toInt(), h: Int = this.height.toInt()): IntArray {
+    val pixels = IntArray(w * h)
+
+    this.pixelReader.getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), pixels, 0, w)
+
+    return pixels
+}
+
+/**
+ * @return a new image from non-premultiplied ARGB values of pixels, row by row
+ */
+fun fromArgb(width: Int, height: Int, pixels: IntArray): Image {
+    val image = WritableImage(width, height)
+
+    image.pixelWriter.setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width)
+
+    return image
+}
+
+/**
+ * Map pixels of this image using [kernel] to produce a new image.
+ * Pixels are read and written in bulk, and large images are mapped in row bands in parallel.
+ */
+fun Image.mapArgb(kernel: ArgbKernel): Image {
+    val w = this.width.toInt()
+    val h = this.height.toInt()
+
+    val pixels = this.toArgb()
+
+    forEachRowBand(w, h) { from, to ->
+        for (i in from until to) {
+            pixels[i] = kernel.apply(pixels[i])
+        }
+    }
+
+    return fromArgb(w, h, pixels)
+}
+
+/**
+ * Map pixels of this image and pixels of [overlay] drawn over this image using [kernel] to produce a new image.
+ * Pixels are read and written in bulk, and large images are mapped in row bands in parallel.
+ */
+fun Image.mapArgb(overlay: Image, kernel: ArgbBlendKernel): Image {
+    val w = this.width.toInt()
+    val h = this.height.toInt()
+
+    val pixels = this.toArgb()
+    val overlayPixels = overlay.toArgb(w, h)
+
+    forEachRowBand(w, h) { from, to ->
+        for (i in from until to) {
+            pixels[i] = kernel.apply(pixels[i], overlayPixels[i])
+        }
+    }
+
+    return fromArgb(w, h, pixels)
+}
+
+/**
+ * Calls [action] with [from, to) pixel index ranges that cover whole rows of a [w] x [h] image.
+ * Ranges are processed in parallel on the common fork-join pool if the image is large enough.
+ */
+private inline fun forEachRowBand(w: Int, h: Int, crossinline action: (Int, Int) -> Unit) {
+    val numBands = minOf(h, (w * h) / MIN_PIXELS_PER_BAND, ForkJoinPool.getCommonPoolParallelism() * 4)
+
+    if (numBands <= 1) {
+        action(0, w * h)
+        return
+    }
+
+    IntStream.range(0, numBands).parallel().forEach { band ->
+        val fromRow = band * h / numBands
+        val toRow = (band + 1) * h / numBands
+
+        action(fromRow * w, toRow * w)
+    }
+}
+
+/*
+ * Channel values below are the same as those of a Color read from an image,
+ * and new values are rounded the same way as when a Color is written to an image,
+ * so ARGB kernels produce the same pixels as their Pixel-based versions.
+ */
+
+private val CHANNEL_VALUES = DoubleArray(256) { (it / 255.0).toFloat().toDouble() }
+
+internal fun alphaOf(argb: Int): Double = CHANNEL_VALUES[argb ushr 24]
+internal fun redOf(argb: Int): Double = CHANNEL_VALUES[(argb shr 16) and 0xFF]
+internal fun greenOf(argb: Int): Double = CHANNEL_VALUES[(argb shr 8) and 0xFF]
+internal fun blueOf(argb: Int): Double = CHANNEL_VALUES[argb and 0xFF]
+
+/**
+ * @return ARGB value of a color with given components, clamped to [0..1]
+ */
+internal fun argbOf(r: Double, g: Double, b: Double, a: Double): Int {
+    return (toChannel(a) shl 24) or (toChannel(r) shl 16) or (toChannel(g) shl 8) or toChannel(b)
+}
+
+private fun toChannel(value: Double): Int {
+    val clamped = max(0.0, min(1.0, value)).toFloat().toDouble()
+
+    return Math.round(clamped * 255).toInt()
+}
+
+private fun toColor(argb: Int): Color {
+    return Color.rgb((argb shr 16) and 0xFF, (argb shr 8) and 0xFF, argb and 0xFF, (argb ushr 24) / 255.0)
+}
+
+private fun toArgb(color: Color): Int {
+    return argbOf(color.red, color.green, color.blue, color.opacity)
 }
 
 /**
@@ -20,6 +20,10 @@ import javafx.scene.image.WritableImage
 import javafx.scene.paint.Color
 import javafx.util.Duration
 
+private const val ALPHA_MASK = 0xFF000000.toInt()
+private const val BLACK = 0xFF000000.toInt()
+private const val WHITE = 0xFFFFFFFF.toInt()
+
 /**
  * Represents a 2D image view.
  *
@@ -162,23 +166,26 @@ open class Texture : ImageView, View, Copyable<Texture> {
     /**
      * @return grayscale version of the texture
      */
-    fun toGrayscale() = Texture(image.map { it.copy(it.color.grayscale()) })
+    fun toGrayscale() = Texture(image.mapArgb {
+        // same as Color.grayscale()
+        val gray = 0.21 * redOf(it) + 0.71 * greenOf(it) + 0.07 * blueOf(it)
+
+        argbOf(gray, gray, gray, alphaOf(it))
+    })
 
     /**
      * @return binary (in black and white) version of the texture
      */
-    fun toBlackWhite() = Texture(image.map {
+    fun toBlackWhite() = Texture(image.mapArgb {
         // given max sum is 3.0, we check if the sum is closer to black or white
-        val c = if (it.color.rgbSum() < 1.5) {
-            Color.BLACK
+        if (redOf(it) + greenOf(it) + blueOf(it) < 1.5) {
+            BLACK
         } else {
-            Color.WHITE
+            WHITE
         }
-
-        it.copy(c)
     })
 
-    fun invert() = Texture(image.map { it.copy(it.color.invert()) })
+    fun invert() = Texture(image.mapArgb { argbOf(1 - redOf(it), 1 - greenOf(it), 1 - blueOf(it), alphaOf(it)) })
 
     fun brighter() = Texture(image.map { it.copy(it.color.brighter()) })
 
@@ -194,7 +201,7 @@ open class Texture : ImageView, View, Copyable<Texture> {
      *
      * @return texture with image discolored
      */
-    fun discolor() = Texture(image.map { it.copy(Color.color(1.0, 1.0, 1.0, it.A)) })
+    fun discolor() = Texture(image.mapArgb { (it and ALPHA_MASK) or 0x00FFFFFF })
 
     /**
      * Multiplies this texture's pixel color with given color.
@@ -203,12 +210,17 @@ open class Texture : ImageView, View, Copyable<Texture> {
      * @return new colorized texture
      */
     fun multiplyColor(color: Color): Texture {
-        return Texture(image.map { it.copy(Color.color(
-                it.R * color.red,
-                it.G * color.green,
-                it.B * color.blue,
-                it.A * color.opacity
-        )) })
+        val red = color.red
+        val green = color.green
+        val blue = color.blue
+        val opacity = color.opacity
+
+        return Texture(image.mapArgb { argbOf(
+                redOf(it) * red,
+                greenOf(it) * green,
+                blueOf(it) * blue,
+                alphaOf(it) * opacity
+        ) })
     }
 
     /**
@@ -229,14 +241,17 @@ open class Texture : ImageView, View, Copyable<Texture> {
      * Replaces all [oldColor] pixels with [newColor] pixels.
      */
     fun replaceColor(oldColor: Color, newColor: Color): Texture {
-        val newImage = image.map {
-            val c = if (it.color == oldColor) {
-                newColor
-            } else {
-                it.color
-            }
-
-            it.copy(c)
+        val oldArgb = argbOf(oldColor.red, oldColor.green, oldColor.blue, oldColor.opacity)
+        val newArgb = argbOf(newColor.red, newColor.green, newColor.blue, newColor.opacity)
+
+        // a color that cannot be read from an image does not match any pixel
+        val isReadable = alphaOf(oldArgb) == oldColor.opacity
+                && redOf(oldArgb) == oldColor.red
+                && greenOf(oldArgb) == oldColor.green
+                && blueOf(oldArgb) == oldColor.blue
+
+        val newImage = image.mapArgb {
+            if (isReadable && it == oldArgb) newArgb else it
         }
 
         return Texture(newImage)
@@ -258,7 +273,7 @@ open class Texture : ImageView, View, Copyable<Texture> {
      * @param blendMode blend mode
      * @return new texture using a blended image of this texture
      */
-    fun blend(backgroundImage: Image, blendMode: BlendMode) = Texture(backgroundImage.map(image, blendMode.operation()))
+    fun blend(backgroundImage: Image, blendMode: BlendMode) = Texture(backgroundImage.mapArgb(image, blendMode.argbOperation()))
 
     @JvmOverloads fun outline(color: Color, offset: Int = 1): Texture {
         val view = Group()
@@ -8,17 +8,35 @@ package com.almasb.fxgl.time
 
 import javafx.beans.property.ReadOnlyBooleanProperty
 import javafx.util.Duration
-import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * Timer that supports running actions at an interval and with a delay.
  * Runs on the same thread that updates the timer.
+ * Scheduled actions are kept in a binary min-heap ordered by the time they are next due,
+ * so an update only touches actions that are due, and scheduling or cancelling an action is O(log n).
+ * Actions due in the same update run in the order of their due time, then in the order they were scheduled.
+ * Actions scheduled during an update (including ones that have just run) are not run until the next update.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 class Timer {
 
-    private val timerActions = CopyOnWriteArrayList<TimerAction>()
+    private var queue = arrayOfNulls<TimerAction>(16)
+    private var queueSize = 0
+
+    /**
+     * Actions scheduled during an update, added to the queue after it.
+     */
+    private val pendingActions = ArrayList<TimerAction>()
+    private val pausedActions = LinkedHashSet<TimerAction>()
+
+    private var isUpdating = false
+
+    /**
+     * Action that is being run by an update, which is not in the queue while it runs.
+     */
+    private var runningAction: TimerAction? = null
+    private var nextSequence = 0L
 
     /**
      * @return time in seconds accumulated by this timer
@@ -34,11 +52,35 @@ class Timer {
     fun update(tpf: Double) {
         now += tpf
 
-        timerActions.forEach {
-            it.update(tpf)
+        isUpdating = true
+
+        try {
+            while (queueSize > 0 && queue[0]!!.dueTime <= now + EPSILON) {
+                val action = poll()
+
+                action.dueTime = now + action.interval
+
+                runningAction = action
+                action.fire()
+                runningAction = null
+
+                // the action may have been expired, paused, rescheduled or cleared while running
+                if (action.timer === this && !action.isExpired && !action.isPaused && action.queueIndex == NOT_QUEUED) {
+                    schedule(action)
+                }
+            }
+        } finally {
+            isUpdating = false
+            runningAction = null
 
-            if (it.isExpired)
-                timerActions.remove(it)
+            pendingActions.forEach {
+                if (it.queueIndex == PENDING) {
+                    it.queueIndex = NOT_QUEUED
+                    offer(it)
+                }
+            }
+
+            pendingActions.clear()
         }
     }
 
@@ -64,7 +106,7 @@ class Timer {
      */
     fun runAtInterval(action: Runnable, interval: Duration, limit: Int): TimerAction {
         val act = TimerAction(interval, action, limit)
-        timerActions.add(act)
+        add(act)
         return act
     }
 
@@ -85,7 +127,7 @@ class Timer {
         }
 
         val act = TimerAction(interval, action)
-        timerActions.add(act)
+        add(act)
 
         whileCondition.addListener { _, _, isTrue ->
             if (!isTrue)
@@ -119,7 +161,21 @@ class Timer {
      * Remove all scheduled actions.
      */
     fun clear() {
-        timerActions.clear()
+        for (i in 0 until queueSize) {
+            detach(queue[i]!!)
+            queue[i] = null
+        }
+
+        queueSize = 0
+
+        pendingActions.forEach { detach(it) }
+        pendingActions.clear()
+
+        pausedActions.forEach { detach(it) }
+        pausedActions.clear()
+
+        // so that it is not scheduled again after it has run
+        runningAction?.let { detach(it) }
     }
 
     /**
@@ -145,4 +201,171 @@ class Timer {
         override fun elapsed(duration: Duration) =
                 now - time >= duration.toSeconds()
     }
-}
\ No newline at end of file
+
+    private fun add(action: TimerAction) {
+        if (action.isExpired)
+            return
+
+        action.timer = this
+        action.dueTime = now + action.interval
+
+        schedule(action)
+    }
+
+    private fun schedule(action: TimerAction) {
+        action.sequence = nextSequence++
+
+        if (isUpdating) {
+            if (action.queueIndex != PENDING) {
+                action.queueIndex = PENDING
+                pendingActions.add(action)
+            }
+        } else {
+            offer(action)
+        }
+    }
+
+    private fun unschedule(action: TimerAction) {
+        if (action.queueIndex >= 0) {
+            removeAt(action.queueIndex)
+        }
+
+        // pending actions are skipped when they are added to the queue
+        action.queueIndex = NOT_QUEUED
+    }
+
+    private fun detach(action: TimerAction) {
+        action.timer = null
+        action.queueIndex = NOT_QUEUED
+    }
+
+    internal fun onPaused(action: TimerAction) {
+        unschedule(action)
+
+        action.dueTime -= now
+        pausedActions.add(action)
+    }
+
+    internal fun onResumed(action: TimerAction) {
+        pausedActions.remove(action)
+
+        action.dueTime += now
+        schedule(action)
+    }
+
+    internal fun onExpired(action: TimerAction) {
+        unschedule(action)
+
+        pausedActions.remove(action)
+        detach(action)
+    }
+
+    private fun offer(action: TimerAction) {
+        if (queueSize == queue.size) {
+            queue = queue.copyOf(queueSize * 2)
+        }
+
+        queue[queueSize] = action
+        action.queueIndex = queueSize
+        queueSize++
+
+        siftUp(queueSize - 1)
+    }
+
+    private fun poll(): TimerAction {
+        val action = queue[0]!!
+
+        removeAt(0)
+
+        return action
+    }
+
+    private fun removeAt(index: Int) {
+        val action = queue[index]!!
+        action.queueIndex = NOT_QUEUED
+
+        queueSize--
+
+        if (index == queueSize) {
+            queue[index] = null
+            return
+        }
+
+        val last = queue[queueSize]!!
+        queue[queueSize] = null
+
+        queue[index] = last
+        last.queueIndex = index
+
+        siftDown(index)
+
+        if (queue[index] === last) {
+            siftUp(index)
+        }
+    }
+
+    private fun siftUp(index: Int) {
+        var pos = index
+        val action = queue[pos]!!
+
+        while (pos > 0) {
+            val parentPos = (pos - 1) ushr 1
+            val parent = queue[parentPos]!!
+
+            if (!isBefore(action, parent))
+                break
+
+            queue[pos] = parent
+            parent.queueIndex = pos
+            pos = parentPos
+        }
+
+        queue[pos] = action
+        action.queueIndex = pos
+    }
+
+    private fun siftDown(index: Int) {
+        var pos = index
+        val action = queue[pos]!!
+
+        val half = queueSize ushr 1
+
+        while (pos < half) {
+            var childPos = 2 * pos + 1
+            var child = queue[childPos]!!
+
+            val rightPos = childPos + 1
+
+            if (rightPos < queueSize && isBefore(queue[rightPos]!!, child)) {
+                childPos = rightPos
+                child = queue[childPos]!!
+            }
+
+            if (!isBefore(child, action))
+                break
+
+            queue[pos] = child
+            child.queueIndex = pos
+            pos = childPos
+        }
+
+        queue[pos] = action
+        action.queueIndex = pos
+    }
+
+    private fun isBefore(a1: TimerAction, a2: TimerAction): Boolean {
+        return a1.dueTime < a2.dueTime || (a1.dueTime == a2.dueTime && a1.sequence < a2.sequence)
+    }
+
+    companion object {
+
+        /**
+         * Absorbs rounding errors of time accumulated from many tpf values,
+         * so that an action is not run a frame late.
+         */
+        private const val EPSILON = 1e-9
+
+        internal const val NOT_QUEUED = -1
+        private const val PENDING = -2
+    }
+}
@@ -12,6 +12,8 @@ import javafx.util.Duration
  * A wrapper for Runnable which is executed at given intervals.
  * The timer can be made to expire, in which case the action
  * will not execute.
+ * Actions created by a [Timer] are scheduled by that timer, so they are not updated
+ * every frame, but only run when they are due.
  *
  * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
  */
@@ -34,7 +36,7 @@ internal constructor(
          */
         private val limit: Int = Int.MAX_VALUE) {
 
-    private val interval = interval.toSeconds()
+    internal val interval = interval.toSeconds()
 
     /**
      * @return true if the timer has expired, false if active
@@ -50,6 +52,27 @@ internal constructor(
 
     private var timesFired = 0
 
+    /**
+     * The timer that schedules this action, or null if the action is not scheduled.
+     */
+    internal var timer: Timer? = null
+
+    /**
+     * Timer time when this action is next due.
+     * While paused, time remaining until this action is due.
+     */
+    internal var dueTime = 0.0
+
+    /**
+     * Index in the timer's queue, or -1 if not queued.
+     */
+    internal var queueIndex = -1
+
+    /**
+     * Used to run actions that are due at the same time in the order they were scheduled.
+     */
+    internal var sequence = 0L
+
     /**
      * Updates the state of this timer action.
      * If the difference between current time
@@ -76,12 +99,32 @@ internal constructor(
         }
     }
 
+    /**
+     * Runs the action when it is due in the timer.
+     */
+    internal fun fire() {
+        action.run()
+        timesFired++
+
+        if (timesFired == limit) {
+            expire()
+        }
+    }
+
     fun pause() {
+        if (isPaused)
+            return
+
         isPaused = true
+        timer?.onPaused(this)
     }
 
     fun resume() {
+        if (!isPaused)
+            return
+
         isPaused = false
+        timer?.onResumed(this)
     }
 
     /**
@@ -89,6 +132,10 @@ internal constructor(
      * be executed.
      */
     fun expire() {
+        if (isExpired)
+            return
+
         isExpired = true
+        timer?.onExpired(this)
     }
 }
@@ -10,8 +10,10 @@ import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.nullValue
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder
+import org.junit.jupiter.api.Assertions.assertThrows
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.util.*
 
 /**
  *
@@ -69,5 +71,113 @@ class UnorderedPairMapTest {
         assertThat(map2.get(key1, CustomObject()), nullValue())
     }
 
+    @Test
+    fun `Keys with colliding hash codes are distinct`() {
+        val map2 = UnorderedPairMap<HashKey, String>()
+
+        // old implementation combined hash codes, so these pairs would overwrite each other
+        map2.put(HashKey(1, 1), HashKey(2, 2), "A")
+        map2.put(HashKey(3, 1), HashKey(4, 2), "B")
+        map2.put(HashKey(1, 1), HashKey(1, 1), "C")
+
+        assertThat(map2.get(HashKey(2, 2), HashKey(1, 1)), `is`("A"))
+        assertThat(map2.get(HashKey(3, 1), HashKey(4, 2)), `is`("B"))
+        assertThat(map2.get(HashKey(1, 1), HashKey(1, 1)), `is`("C"))
+        assertThat(map2.get(HashKey(1, 1), HashKey(4, 2)), nullValue())
+        assertThat(map2.values.size, `is`(3))
+
+        map2.remove(HashKey(1, 1), HashKey(2, 2))
+
+        assertThat(map2.get(HashKey(1, 1), HashKey(2, 2)), nullValue())
+        assertThat(map2.get(HashKey(1, 1), HashKey(1, 1)), `is`("C"))
+        assertThat(map2.values, containsInAnyOrder("B", "C"))
+    }
+
+    @Test
+    fun `Remove values during iteration`() {
+        for (i in 0 until 10) {
+            map.put("A$i", "B$i", i)
+        }
+
+        val it = map.values.iterator()
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove()
+            }
+        }
+
+        assertThat(map.values, containsInAnyOrder(1, 3, 5, 7, 9))
+        assertThat(map.get("B3", "A3"), `is`(3))
+        assertThat(map.get("A4", "B4"), nullValue())
+
+        map.put("A4", "B4", 44)
+
+        assertThat(map.get("B4", "A4"), `is`(44))
+        assertThat(map.values.size, `is`(6))
+
+        assertThrows(ConcurrentModificationException::class.java) {
+            for (value in map.values) {
+                map.put("C", "D", value)
+            }
+        }
+    }
+
+    @Test
+    fun `Matches HashMap under random operations`() {
+        val random = Random(7)
+        val map2 = UnorderedPairMap<Int, Int>(4)
+        val expected = HashMap<Pair<Int, Int>, Int>()
+
+        repeat(20000) {
+            val a = random.nextInt(60)
+            val b = random.nextInt(60)
+            val key = if (a < b) a to b else b to a
+
+            when (random.nextInt(3)) {
+                0 -> {
+                    map2.put(a, b, it)
+                    expected[key] = it
+                }
+
+                1 -> {
+                    map2.remove(b, a)
+                    expected.remove(key)
+                }
+
+                else -> assertThat(map2.get(b, a), `is`(expected[key]))
+            }
+
+            if (it % 5000 == 0) {
+                map2.clear()
+                expected.clear()
+            }
+        }
+
+        assertThat(map2.values, containsInAnyOrder(*expected.values.toTypedArray()))
+    }
+
+    @Test
+    fun `Keys with own ids`() {
+        val map2 = UnorderedPairMap<HashKey, String>(4) { it.id }
+
+        for (i in 0 until 50) {
+            map2.put(HashKey(i, 0), HashKey(i + 1, 0), "$i")
+        }
+
+        assertThat(map2.get(HashKey(11, 5), HashKey(10, 7)), `is`("10"))
+        assertThat(map2.get(HashKey(10, 0), HashKey(12, 0)), nullValue())
+
+        map2.remove(HashKey(11, 0), HashKey(10, 0))
+
+        assertThat(map2.get(HashKey(10, 0), HashKey(11, 0)), nullValue())
+        assertThat(map2.values.size, `is`(49))
+    }
+
     private class CustomObject
+
+    private class HashKey(val id: Int, val hash: Int) {
+        override fun hashCode(): Int = hash
+
+        override fun equals(other: Any?): Boolean = other is HashKey && other.id == id
+    }
 }
\ No newline at end of file
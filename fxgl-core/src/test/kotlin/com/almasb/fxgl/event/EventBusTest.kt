@@ -15,6 +15,8 @@ import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.function.Executable
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
 
 /**
  *
@@ -81,6 +83,90 @@ class EventBusTest {
         )
     }
 
+    @ParameterizedTest
+    @EnumSource(EventBus.DispatchMode::class)
+    fun `Handlers are called for event type and its super types`(mode: EventBus.DispatchMode) {
+        val bus = EventBus(mode)
+        bus.isLoggingEnabled = false
+
+        val calls = arrayListOf<String>()
+
+        val handlerA = EventHandler<Event> { calls += "A" }
+
+        bus.addEventHandler(EventType.ROOT, EventHandler { calls += "root" })
+        bus.addEventHandler(CHILD, handlerA)
+        bus.addEventHandler(CHILD, EventHandler { calls += "B" })
+        bus.addEventHandler(PARENT, EventHandler { calls += "parent" })
+        bus.addEventHandler(OTHER, EventHandler { calls += "other" })
+
+        // added twice, but only called once
+        bus.addEventHandler(CHILD, handlerA)
+
+        bus.fireEvent(Event(CHILD))
+
+        assertThat(calls, `is`(listOf("A", "B", "parent", "root")))
+
+        calls.clear()
+        bus.fireEvent(Event(PARENT))
+
+        assertThat(calls, `is`(listOf("parent", "root")))
+
+        calls.clear()
+        bus.removeEventHandler(CHILD, handlerA)
+        bus.fireEvent(Event(CHILD))
+
+        assertThat(calls, `is`(listOf("B", "parent", "root")))
+
+        calls.clear()
+        bus.removeAllEventHandlers()
+        bus.fireEvent(Event(CHILD))
+
+        assertTrue(calls.isEmpty())
+    }
+
+    @Test
+    fun `Direct dispatch passes the fired event to handlers`() {
+        val bus = EventBus(EventBus.DispatchMode.DIRECT)
+
+        assertThat(bus.dispatchMode, `is`(EventBus.DispatchMode.DIRECT))
+
+        // no log message is built per fired event
+        assertFalse(bus.isLoggingEnabled)
+
+        val event = Event(CHILD)
+        var received: Event? = null
+
+        val sub = bus.addEventHandler(CHILD, EventHandler { received = it })
+
+        bus.fireEvent(event)
+
+        assertTrue(received === event)
+
+        received = null
+        sub.unsubscribe()
+        bus.fireEvent(event)
+
+        assertNull(received)
+    }
+
+    @Test
+    fun `Direct dispatch applies handler changes from the next event`() {
+        val bus = EventBus(EventBus.DispatchMode.DIRECT)
+
+        var count = 0
+        val handler = EventHandler<Event> { count++ }
+
+        bus.addEventHandler(CHILD, EventHandler {
+            bus.addEventHandler(PARENT, handler)
+        })
+
+        bus.fireEvent(Event(CHILD))
+        assertThat(count, `is`(0))
+
+        bus.fireEvent(Event(CHILD))
+        assertThat(count, `is`(1))
+    }
+
     @Test
     fun `EventBus logging enabled by default`() {
         assertThat(eventBus.isLoggingEnabled, `is`(true))
@@ -94,4 +180,10 @@ class EventBusTest {
             eventBus.fireEvent(Event(EventType.ROOT))
         }
     }
-}
\ No newline at end of file
+
+    companion object {
+        private val PARENT = EventType<Event>(EventType.ROOT, "EVENT_BUS_TEST_PARENT")
+        private val CHILD = EventType<Event>(PARENT, "EVENT_BUS_TEST_CHILD")
+        private val OTHER = EventType<Event>(EventType.ROOT, "EVENT_BUS_TEST_OTHER")
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.logging
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.containsString
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AsyncLogWriterTest {
+
+    private class TestHandler(private val latch: CountDownLatch? = null) : AsyncLogWriter.RecordHandler {
+        val messages = arrayListOf<String>()
+        val threadNames = hashSetOf<String>()
+        var numFlushes = 0
+
+        override fun handle(time: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String) {
+            latch?.await()
+
+            threadNames += Thread.currentThread().name
+            messages += "$level $loggerName $message"
+        }
+
+        override fun flush() {
+            numFlushes++
+        }
+    }
+
+    @Test
+    fun `Records are handled in order on the writer thread`() {
+        val handler = TestHandler()
+        val writer = AsyncLogWriter(16, LoggerOverflowPolicy.BLOCK, handler)
+
+        for (i in 0 until 100) {
+            assertTrue(writer.offer(0L, "main", LoggerLevel.INFO, "Test", "$i"))
+        }
+
+        writer.close()
+
+        assertThat(handler.messages, `is`((0 until 100).map { "INFO Test $it" }))
+        assertThat(handler.threadNames, `is`(setOf("FXGL Logger")))
+        assertThat(writer.numPending, `is`(0L))
+        assertTrue(handler.numFlushes > 0)
+
+        // dropped after close
+        assertFalse(writer.offer(0L, "main", LoggerLevel.INFO, "Test", "Hello"))
+    }
+
+    @Test
+    fun `Records are not lost with block policy and many threads`() {
+        val handler = TestHandler()
+        val writer = AsyncLogWriter(8, LoggerOverflowPolicy.BLOCK, handler)
+
+        val threads = (0 until 4).map { t ->
+            Thread {
+                for (i in 0 until 5000) {
+                    writer.offer(0L, "T$t", LoggerLevel.DEBUG, "T$t", "$i")
+                }
+            }
+        }
+
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        writer.close()
+
+        assertThat(handler.messages.size, `is`(20000))
+
+        // records of each thread are in order
+        for (t in 0 until 4) {
+            val messages = handler.messages.filter { it.startsWith("DEBUG T$t ") }
+
+            assertThat(messages, `is`((0 until 5000).map { "DEBUG T$t $it" }))
+        }
+    }
+
+    @Test
+    fun `Records are dropped when buffer is full with drop policy`() {
+        val latch = CountDownLatch(1)
+        val handler = TestHandler(latch)
+        val writer = AsyncLogWriter(4, LoggerOverflowPolicy.DROP, handler)
+
+        // the writer thread takes the first record and waits, so the buffer fills up
+        writer.offer(0L, "main", LoggerLevel.INFO, "Test", "first")
+
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (writer.numPending > 0 && System.nanoTime() < deadline) {
+            Thread.yield()
+        }
+
+        var numAccepted = 0
+        for (i in 0 until 10) {
+            if (writer.offer(0L, "main", LoggerLevel.INFO, "Test", "$i"))
+                numAccepted++
+        }
+
+        assertThat(numAccepted, `is`(4))
+
+        latch.countDown()
+        writer.close()
+
+        assertThat(handler.messages.size, `is`(1 + 4 + 1))
+        assertThat(handler.messages.last(), containsString("Dropped 6 messages"))
+    }
+
+    @Test
+    fun `Flushed records are written out before the call returns`() {
+        val handler = TestHandler()
+        val writer = AsyncLogWriter(4, LoggerOverflowPolicy.DROP, handler)
+
+        for (i in 0 until 3) {
+            writer.offer(0L, "main", LoggerLevel.INFO, "Test", "$i")
+        }
+
+        // not dropped, even if the buffer is full
+        assertTrue(writer.offerAndFlush(0L, "main", LoggerLevel.FATAL, "Test", "crash"))
+
+        assertThat(handler.messages.last(), `is`("FATAL Test crash"))
+        assertTrue(handler.numFlushes > 0)
+
+        writer.close()
+
+        assertFalse(writer.offerAndFlush(0L, "main", LoggerLevel.FATAL, "Test", "Hello"))
+    }
+}
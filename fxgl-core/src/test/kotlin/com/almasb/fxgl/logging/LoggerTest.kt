@@ -33,6 +33,8 @@ class LoggerTest {
         @AfterAll
         @JvmStatic fun cleanUp() {
             Paths.get("testDir").toFile().deleteRecursively()
+            Paths.get("testLogStream").toFile().deleteRecursively()
+            Paths.get("testLogRotation").toFile().deleteRecursively()
 
             assertTrue(!Files.exists(Paths.get("testDir")), "test dir is present before")
         }
@@ -218,4 +220,55 @@ class LoggerTest {
         assertThat(lines[0], `is`("Hello Test World"))
         assertThat(lines[1], `is`("Hello Test World 2"))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `FileOutput writes messages before close`() {
+        val output = FileOutput("stream", "testLogStream/", 5)
+
+        output.append("Hello Test World")
+
+        val logFile = Files.list(Paths.get("testLogStream")).findAny().get()
+
+        output.flush()
+
+        assertThat(Files.readAllLines(logFile), `is`(listOf("Hello Test World")))
+
+        // larger than the buffer
+        val longMessage = "a".repeat(100_000)
+        output.append(longMessage)
+        output.append("Hello Test World 2")
+
+        output.close()
+
+        assertThat(Files.readAllLines(logFile), `is`(listOf("Hello Test World", longMessage, "Hello Test World 2")))
+
+        // no-op after close
+        output.append("Hello")
+        output.flush()
+        output.close()
+    }
+
+    @Test
+    fun `FileOutput rotates files when max size is reached`() {
+        val logDir = Paths.get("testLogRotation")
+
+        val output = FileOutput("rotation", "testLogRotation/", 3, 100)
+
+        for (i in 0 until 30) {
+            output.append("Message %02d".format(i))
+        }
+
+        output.close()
+
+        val logs = Files.list(logDir).sorted().toList()
+
+        assertThat(logs.size, `is`(3))
+
+        val lines = logs.flatMap { Files.readAllLines(it) }.sorted()
+
+        // each file has at most 100 bytes, the oldest files are deleted
+        logs.forEach { assertTrue(Files.size(it) <= 100) }
+        assertThat(lines.last(), `is`("Message 29"))
+        assertTrue(lines.size < 30)
+    }
+}
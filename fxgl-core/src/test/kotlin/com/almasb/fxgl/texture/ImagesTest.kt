@@ -8,10 +8,18 @@ package com.almasb.fxgl.texture
 
 import javafx.geometry.HorizontalDirection
 import javafx.geometry.VerticalDirection
+import javafx.scene.effect.BlendMode
+import javafx.scene.image.Image
+import javafx.scene.image.PixelFormat
+import javafx.scene.image.WritableImage
 import javafx.scene.paint.Color
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertArrayEquals
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
+import java.util.*
 
 /**
  *
@@ -77,4 +85,114 @@ class ImagesTest {
         assertThat(result[11], `is`(img2))
         assertThat(result[22], `is`(img3))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Pixel map reads and writes the same pixels as per pixel access`() {
+        val image = randomImage(64, 48, 1)
+
+        val result = image.map { it.copy(it.color.brighter()) }
+
+        assertArrayEquals(mapPerPixel(image) { it.copy(it.color.brighter()) }.toArgb(), result.toArgb())
+        assertArrayEquals(image.toArgb(), fromPixels(64, 48, toPixels(image)).toArgb())
+    }
+
+    @Test
+    fun `ARGB kernels produce same pixels as Pixel based operations`() {
+        // large enough to be processed in parallel bands
+        val texture = Texture(randomImage(512, 256, 2))
+        val image = texture.image
+
+        assertSamePixels(mapPerPixel(image) { it.copy(it.color.grayscale()) }, texture.toGrayscale().image)
+        assertSamePixels(mapPerPixel(image) { it.copy(it.color.invert()) }, texture.invert().image)
+        assertSamePixels(mapPerPixel(image) { it.copy(Color.color(1.0, 1.0, 1.0, it.A)) }, texture.discolor().image)
+
+        assertSamePixels(mapPerPixel(image) {
+            it.copy(if (it.color.rgbSum() < 1.5) Color.BLACK else Color.WHITE)
+        }, texture.toBlackWhite().image)
+
+        val color = Color.color(0.3, 0.6, 0.9, 0.7)
+
+        assertSamePixels(mapPerPixel(image) {
+            it.copy(Color.color(it.R * color.red, it.G * color.green, it.B * color.blue, it.A * color.opacity))
+        }, texture.multiplyColor(color).image)
+
+        val oldColor = image.getPixel(10, 10).color
+
+        assertSamePixels(mapPerPixel(image) {
+            it.copy(if (it.color == oldColor) Color.GREEN else it.color)
+        }, texture.replaceColor(oldColor, Color.GREEN).image)
+
+        // cannot be read from an image, so nothing is replaced
+        assertSamePixels(image, texture.replaceColor(Color.color(0.5, 0.5, 0.5), Color.GREEN).image)
+    }
+
+    @ParameterizedTest
+    @EnumSource(BlendMode::class)
+    fun `ARGB blend produces same pixels as Pixel based blend`(blendMode: BlendMode) {
+        val background = randomImage(300, 200, 3)
+        val texture = Texture(randomImage(300, 200, 4))
+
+        val expected = mapPerPixel(background, texture.image, blendMode.operation())
+
+        assertSamePixels(expected, texture.blend(background, blendMode).image)
+    }
+
+    private fun assertSamePixels(expected: Image, actual: Image) {
+        assertArrayEquals(expected.toArgb(), actual.toArgb())
+    }
+
+    /**
+     * Random pixels, with some fully transparent and some fully opaque.
+     */
+    private fun randomImage(width: Int, height: Int, seed: Long): Image {
+        val random = Random(seed)
+
+        val pixels = IntArray(width * height) {
+            when (random.nextInt(10)) {
+                0 -> 0
+                1 -> random.nextInt() or 0xFF000000.toInt()
+                else -> random.nextInt()
+            }
+        }
+
+        val image = WritableImage(width, height)
+        image.pixelWriter.setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width)
+        return image
+    }
+
+    /**
+     * Maps pixels one by one via Color, as Image.map used to.
+     */
+    private fun mapPerPixel(image: Image, f: (Pixel) -> Pixel): Image {
+        val w = image.width.toInt()
+        val h = image.height.toInt()
+
+        val result = WritableImage(w, h)
+
+        for (y in 0 until h) {
+            for (x in 0 until w) {
+                result.pixelWriter.setColor(x, y, f(Pixel(x, y, image.pixelReader.getColor(x, y), image)).color)
+            }
+        }
+
+        return result
+    }
+
+    private fun mapPerPixel(image: Image, overlay: Image, f: (Pixel, Pixel) -> Pixel): Image {
+        val w = image.width.toInt()
+        val h = image.height.toInt()
+
+        val result = WritableImage(w, h)
+
+        for (y in 0 until h) {
+            for (x in 0 until w) {
+                val pixel1 = Pixel(x, y, image.pixelReader.getColor(x, y), image)
+                val pixel2 = Pixel(x, y, overlay.pixelReader.getColor(x, y), overlay)
+
+                result.pixelWriter.setColor(x, y, f(pixel1, pixel2).color)
+            }
+        }
+
+        return result
+    }
+}
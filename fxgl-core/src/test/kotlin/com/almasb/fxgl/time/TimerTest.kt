@@ -123,6 +123,146 @@ class TimerTest {
         assertThat(count, `is`(0))
     }
 
+    @Test
+    fun `Paused actions do not accumulate time`() {
+        var count = 0
+
+        val action = timer.runAtInterval(Runnable { count++ }, Duration.seconds(1.0))
+
+        timer.update(0.5)
+        action.pause()
+
+        timer.update(5.0)
+        assertThat(count, `is`(0))
+
+        action.resume()
+
+        timer.update(0.4)
+        assertThat(count, `is`(0))
+
+        timer.update(0.1)
+        assertThat(count, `is`(1))
+
+        // pausing and resuming in the same frame does not change anything
+        action.pause()
+        action.resume()
+
+        timer.update(1.0)
+        assertThat(count, `is`(2))
+    }
+
+    @Test
+    fun `Expired actions are removed`() {
+        var count = 0
+
+        val action1 = timer.runAtInterval(Runnable { count++ }, Duration.seconds(1.0))
+        val action2 = timer.runAtInterval(Runnable { count += 10 }, Duration.seconds(1.0))
+
+        action1.expire()
+        assertTrue(action1.isExpired)
+
+        timer.update(1.0)
+        assertThat(count, `is`(10))
+
+        // action can expire itself
+        var action3: TimerAction? = null
+        action3 = timer.runAtInterval(Runnable { count += 100; action3!!.expire() }, Duration.seconds(0.5))
+
+        timer.update(1.0)
+        timer.update(1.0)
+        assertThat(count, `is`(130))
+
+        action2.pause()
+        action2.expire()
+        action2.resume()
+
+        timer.update(1.0)
+        assertThat(count, `is`(130))
+    }
+
+    @Test
+    fun `Actions scheduled by actions run in the next update`() {
+        val order = arrayListOf<String>()
+
+        timer.runOnceAfter({
+            order += "A"
+
+            timer.runOnceAfter({ order += "C" }, Duration.ZERO)
+        }, Duration.seconds(1.0))
+
+        timer.runOnceAfter({ order += "B" }, Duration.seconds(1.0))
+
+        timer.update(1.0)
+        assertThat(order, `is`(listOf("A", "B")))
+
+        timer.update(0.016)
+        assertThat(order, `is`(listOf("A", "B", "C")))
+    }
+
+    @Test
+    fun `Actions run in order of due time`() {
+        val order = arrayListOf<Int>()
+
+        for (i in 100 downTo 1) {
+            timer.runOnceAfter(Runnable { order += i }, Duration.seconds(i.toDouble()))
+        }
+
+        timer.update(50.0)
+        assertThat(order, `is`((1..50).toList()))
+
+        timer.update(0.5)
+        assertThat(order.size, `is`(50))
+
+        timer.update(100.0)
+        assertThat(order, `is`((1..100).toList()))
+    }
+
+    @Test
+    fun `Actions with small intervals run on time`() {
+        var count = 0
+
+        timer.runAtInterval(Runnable { count++ }, Duration.seconds(0.3))
+
+        // 0.1 + 0.1 + 0.1 is not exactly 0.3
+        repeat(30) {
+            timer.update(0.1)
+        }
+
+        assertThat(count, `is`(10))
+    }
+
+    @Test
+    fun `Clear during update`() {
+        var count = 0
+
+        timer.runOnceAfter({ count++; timer.clear() }, Duration.seconds(1.0))
+        timer.runOnceAfter({ count++ }, Duration.seconds(1.0))
+
+        val paused = timer.runOnceAfter({ count++ }, Duration.seconds(1.0))
+        paused.pause()
+
+        timer.update(1.0)
+        assertThat(count, `is`(1))
+
+        paused.resume()
+
+        timer.update(1.0)
+        assertThat(count, `is`(1))
+
+        // a repeating action that clears the timer is not run again
+        var intervalCount = 0
+
+        timer.runAtInterval(Runnable { intervalCount++; timer.clear() }, Duration.seconds(1.0))
+        timer.runAtInterval(Runnable { intervalCount++ }, Duration.seconds(1.0))
+
+        timer.update(1.0)
+        assertThat(intervalCount, `is`(1))
+
+        timer.update(1.0)
+        timer.update(1.0)
+        assertThat(intervalCount, `is`(1))
+    }
+
     @Test
     fun `Now value`() {
         timer.update(2.0)
@@ -27,6 +27,7 @@ import javafx.geometry.Rectangle2D;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.almasb.fxgl.core.reflect.ReflectionUtils.*;
 
@@ -110,6 +111,10 @@ public class Entity implements Animatable, Copyable<Entity> {
 
     private static final Logger log = Logger.get(Entity.class);
 
+    private static final AtomicInteger nextRuntimeID = new AtomicInteger();
+
+    private final int runtimeID = nextRuntimeID.getAndUpdate(id -> id == Integer.MAX_VALUE ? 0 : id + 1);
+
     private PropertyMap properties = new PropertyMap();
     private ComponentMap components = new ComponentMap();
 
@@ -141,6 +146,16 @@ public class Entity implements Animatable, Copyable<Entity> {
         addComponentNoChecks(view);
     }
 
+    /**
+     * Unlike {@link com.almasb.fxgl.entity.components.IDComponent}, this id is not saved
+     * and is only valid while the application is running.
+     *
+     * @return non-negative id, unique to this entity object, that does not change
+     */
+    public final int getRuntimeID() {
+        return runtimeID;
+    }
+
     /**
      * @return the world this entity is attached to
      */
@@ -10,6 +10,10 @@ import com.almasb.fxgl.core.collection.grid.Cell;
 import com.almasb.fxgl.pathfinding.CellState;
 
 /**
+ * A cell of {@link AStarGrid} with walkability state and movement cost.
+ * Searches keep their G, H costs and parents in {@link AStarPathfinder}'s own buffers,
+ * so the G, H, F costs and the parent of a cell are not populated by searches.
+ *
  * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
  */
 public class AStarCell extends Cell {
@@ -31,6 +35,12 @@ public class AStarCell extends Cell {
     private int gCost;
     private int hCost;
 
+    /**
+     * Grid whose cell change listeners are notified when walkability or movement cost of this cell changes.
+     * Set once a listener is added to the grid.
+     */
+    private AStarGrid grid = null;
+
     public AStarCell(int x, int y, CellState state) {
         this(x, y, state, DEFAULT_MOVEMENT_COST);
     }
@@ -42,39 +52,87 @@ public class AStarCell extends Cell {
     }
 
     public final void setMovementCost(int movementCost) {
+        boolean isChanged = this.movementCost != movementCost;
+
         this.movementCost = movementCost;
+
+        if (grid != null && isChanged) {
+            grid.notifyCellChanged(this);
+        }
     }
 
     public final int getMovementCost() {
         return movementCost;
     }
 
+    /**
+     * Parent of this cell.
+     *
+     * @deprecated searches no longer populate this value, it is only what was last set by the caller
+     */
+    @Deprecated
     public final void setParent(AStarCell parent) {
         this.parent = parent;
     }
 
+    /**
+     * Parent of this cell.
+     *
+     * @deprecated searches no longer populate this value, it is only what was last set by the caller
+     */
+    @Deprecated
     public final AStarCell getParent() {
         return parent;
     }
 
+    /**
+     * H cost of this cell.
+     *
+     * @deprecated searches no longer populate this value, it is only what was last set by the caller
+     */
+    @Deprecated
     public final void setHCost(int hCost) {
         this.hCost = hCost;
     }
 
+    /**
+     * H cost of this cell.
+     *
+     * @deprecated searches no longer populate this value, it is only what was last set by the caller
+     */
+    @Deprecated
     public final int getHCost() {
         return hCost;
     }
 
+    /**
+     * G cost of this cell.
+     *
+     * @deprecated searches no longer populate this value, it is only what was last set by the caller
+     */
+    @Deprecated
     public final void setGCost(int gCost) {
         this.gCost = gCost;
     }
 
+    /**
+     * G cost of this cell.
+     *
+     * @deprecated searches no longer populate this value, it is only what was last set by the caller
+     */
+    @Deprecated
     public final int getGCost() {
         return gCost;
     }
 
     public final void setState(CellState state) {
+        boolean wasWalkable = isWalkable();
+
         this.state = state;
+
+        if (grid != null && wasWalkable != isWalkable()) {
+            grid.notifyCellChanged(this);
+        }
     }
 
     public final CellState getState() {
@@ -85,9 +143,15 @@ public class AStarCell extends Cell {
         return state.isWalkable();
     }
 
+    final void setGrid(AStarGrid grid) {
+        this.grid = grid;
+    }
+
     /**
      * @return F cost (G + H)
+     * @deprecated searches no longer populate G and H costs, it is only what was last set by the caller
      */
+    @Deprecated
     public final int getFCost() {
         return gCost + hCost;
     }
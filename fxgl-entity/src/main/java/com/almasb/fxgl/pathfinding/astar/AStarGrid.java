@@ -6,13 +6,16 @@
 
 package com.almasb.fxgl.pathfinding.astar;
 
+import com.almasb.fxgl.core.collection.grid.CellGenerator;
 import com.almasb.fxgl.core.collection.grid.Grid;
 import com.almasb.fxgl.entity.Entity;
 import com.almasb.fxgl.entity.GameWorld;
 import com.almasb.fxgl.pathfinding.CellState;
 import javafx.geometry.Rectangle2D;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -21,6 +24,12 @@ import java.util.stream.Collectors;
  */
 public class AStarGrid extends Grid<AStarCell> {
 
+    /**
+     * Notified when walkability or movement cost of a cell changes.
+     * Used by pathfinders that precompute or copy data from the grid.
+     */
+    private final List<Consumer<AStarCell>> cellChangeListeners = new ArrayList<>();
+
     /**
      * Constructs A* grid with A* cells using given width and height.
      * All cells are initially {@link CellState#WALKABLE}.
@@ -29,6 +38,44 @@ public class AStarGrid extends Grid<AStarCell> {
         super(AStarCell.class, width, height, (x, y) -> new AStarCell(x, y, CellState.WALKABLE));
     }
 
+    private AStarGrid(int width, int height, CellGenerator<AStarCell> generator) {
+        super(AStarCell.class, width, height, generator);
+    }
+
+    /**
+     * @return a new grid with copies of cells of this grid (state and movement cost)
+     */
+    public AStarGrid copy() {
+        return new AStarGrid(getWidth(), getHeight(), (x, y) -> {
+            var cell = get(x, y);
+            return new AStarCell(x, y, cell.getState(), cell.getMovementCost());
+        });
+    }
+
+    /**
+     * Adds a listener that is notified when walkability or movement cost of a cell changes.
+     * Cells that replace cells of this grid after this call are not tracked.
+     */
+    final void addCellChangeListener(Consumer<AStarCell> listener) {
+        forEach(cell -> cell.setGrid(this));
+
+        cellChangeListeners.add(listener);
+    }
+
+    final void removeCellChangeListener(Consumer<AStarCell> listener) {
+        cellChangeListeners.remove(listener);
+    }
+
+    final int getNumCellChangeListeners() {
+        return cellChangeListeners.size();
+    }
+
+    final void notifyCellChanged(AStarCell cell) {
+        for (int i = 0; i < cellChangeListeners.size(); i++) {
+            cellChangeListeners.get(i).accept(cell);
+        }
+    }
+
     public List<AStarCell> getWalkableCells() {
         return getCells()
                 .stream()
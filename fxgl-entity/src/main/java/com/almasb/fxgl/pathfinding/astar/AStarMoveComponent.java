@@ -31,6 +31,17 @@ public final class AStarMoveComponent extends Component {
 
     private LazyValue<AStarPathfinder> pathfinder;
 
+    /**
+     * If not null, paths are requested from this queue, rather than computed by the pathfinder.
+     */
+    private AStarPathRequestQueue requestQueue = null;
+
+    /**
+     * Incremented on each path request, so that results of older requests are ignored.
+     */
+    private int pathRequestID = 0;
+    private boolean isPathPending = false;
+
     private List<AStarCell> path = new ArrayList<>();
 
     private Runnable delayedPathCalc = EmptyRunnable.INSTANCE;
@@ -62,6 +73,16 @@ public final class AStarMoveComponent extends Component {
         pathfinder = new LazyValue<>(() -> pathfinderValue);
     }
 
+    /**
+     * This ctor is for cases when paths are computed asynchronously.
+     * Paths are then available a frame or more after they are requested,
+     * and the queue must be updated every frame.
+     */
+    public AStarMoveComponent(AStarPathRequestQueue requestQueue) {
+        this.requestQueue = requestQueue;
+        pathfinder = new LazyValue<>(() -> new AStarPathfinder(requestQueue.getGrid()));
+    }
+
     @Override
     public void onAdded() {
         moveComponent = entity.getComponent(CellMoveComponent.class);
@@ -72,6 +93,10 @@ public final class AStarMoveComponent extends Component {
     @Override
     public void onRemoved() {
         moveComponent.atDestinationProperty().removeListener(isAtDestinationListener);
+
+        // ignore results of pending requests
+        pathRequestID++;
+        isPathPending = false;
     }
 
     public boolean isMoving() {
@@ -82,6 +107,13 @@ public final class AStarMoveComponent extends Component {
         return path.isEmpty();
     }
 
+    /**
+     * @return true if a path was requested asynchronously and is not yet available
+     */
+    public boolean isPathPending() {
+        return isPathPending;
+    }
+
     public ReadOnlyBooleanProperty atDestinationProperty() {
         return isAtDestinationProp.getReadOnlyProperty();
     }
@@ -113,6 +145,10 @@ public final class AStarMoveComponent extends Component {
 
     public void stopMovementAt(int cellX, int cellY) {
         path.clear();
+
+        pathRequestID++;
+        isPathPending = false;
+
         moveComponent.setPositionToCell(cellX, cellY);
 
         isAtDestinationProp.set(true);
@@ -173,15 +209,35 @@ public final class AStarMoveComponent extends Component {
         isAtDestinationProp.set(false);
 
         if (moveComponent.isAtDestination()) {
-            path = pathfinder.get().findPath(startX, startY, targetX, targetY);
+            findPath(startX, startY, targetX, targetY);
         } else {
-            delayedPathCalc = () -> path = pathfinder.get().findPath(moveComponent.getCellX(), moveComponent.getCellY(), targetX, targetY);
+            delayedPathCalc = () -> findPath(moveComponent.getCellX(), moveComponent.getCellY(), targetX, targetY);
         }
     }
 
+    private void findPath(int startX, int startY, int targetX, int targetY) {
+        if (requestQueue == null) {
+            path = pathfinder.get().findPath(startX, startY, targetX, targetY);
+            return;
+        }
+
+        path = new ArrayList<>();
+        isPathPending = true;
+
+        int requestID = ++pathRequestID;
+
+        requestQueue.requestPath(startX, startY, targetX, targetY, result -> {
+            if (requestID != pathRequestID)
+                return;
+
+            path = result;
+            isPathPending = false;
+        });
+    }
+
     @Override
     public void onUpdate(double tpf) {
-        if (!isAtDestination() && !isMoving() && isPathEmpty()) {
+        if (!isAtDestination() && !isMoving() && isPathEmpty() && !isPathPending) {
             isAtDestinationProp.set(true);
         }
 
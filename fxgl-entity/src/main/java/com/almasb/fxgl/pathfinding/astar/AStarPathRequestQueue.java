@@ -0,0 +1,321 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.Disposable;
+import com.almasb.fxgl.core.concurrent.Async;
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Computes A* paths on background threads, so that many units requesting paths
+ * at the same time do not stall the game thread.
+ * Requests made during a frame are submitted in batches on {@link #onUpdate(double)},
+ * and computed on an immutable snapshot of walkability and movement costs of the grid taken at that point.
+ * The queue keeps its own copy of these costs, which is updated as cells change,
+ * so taking a snapshot is a single array copy, and it is only taken if a cell changed since the last one.
+ * Identical requests (same start, target and direction) that are not yet completed are merged.
+ * Results are delivered via callbacks on the thread that calls {@link #onUpdate(double)}
+ * (typically the game thread), at most {@link #getMaxResultsPerFrame()} requests per call.
+ * Cells in delivered paths are cells of the original grid.
+ * Call {@link #dispose()} once the queue is no longer used, so that it stops listening to cell changes.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class AStarPathRequestQueue implements Disposable {
+
+    private static final int DEFAULT_MAX_RESULTS_PER_FRAME = 64;
+
+    /**
+     * Requests are split into tasks of at least this many requests.
+     */
+    private static final int MIN_REQUESTS_PER_TASK = 8;
+
+    private final AStarGrid grid;
+    private final Executor executor;
+
+    private int maxResultsPerFrame;
+
+    /**
+     * Incremented each time a cell of the grid changes.
+     */
+    private int gridVersion = 0;
+
+    private Snapshot snapshot = null;
+
+    /**
+     * Pathfinders are not thread-safe, so each task obtains its own.
+     * They are kept across snapshots, so that their search buffers are only allocated once per worker.
+     */
+    private final Queue<AStarPathfinder> pathfinders = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Requests that are not yet completed, by key, used to merge identical requests.
+     */
+    private final Map<RequestKey, PathRequest> activeRequests = new HashMap<>();
+
+    private final List<PathRequest> pendingRequests = new ArrayList<>();
+    private final Queue<PathRequest> completedRequests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Movement costs of cells, indexed by y * width + x, with {@link AStarPathfinder#NOT_WALKABLE} for unwalkable cells.
+     * Only accessed on the thread that changes cells.
+     */
+    private final int[] movementCosts;
+
+    private final Consumer<AStarCell> cellChangeListener = this::onCellChanged;
+
+    public AStarPathRequestQueue(AStarGrid grid) {
+        this(grid, Async.INSTANCE, DEFAULT_MAX_RESULTS_PER_FRAME);
+    }
+
+    /**
+     * @param executor executor used to compute paths
+     * @param maxResultsPerFrame max number of requests whose results are delivered per call to {@link #onUpdate(double)}
+     */
+    public AStarPathRequestQueue(AStarGrid grid, Executor executor, int maxResultsPerFrame) {
+        this.grid = grid;
+        this.executor = executor;
+        setMaxResultsPerFrame(maxResultsPerFrame);
+
+        movementCosts = new int[grid.getWidth() * grid.getHeight()];
+        grid.forEach(this::updateMovementCost);
+
+        grid.addCellChangeListener(cellChangeListener);
+    }
+
+    private void onCellChanged(AStarCell cell) {
+        updateMovementCost(cell);
+        gridVersion++;
+    }
+
+    private void updateMovementCost(AStarCell cell) {
+        movementCosts[cell.getY() * grid.getWidth() + cell.getX()] = cell.isWalkable()
+                ? cell.getMovementCost()
+                : AStarPathfinder.NOT_WALKABLE;
+    }
+
+    public AStarGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Stops listening to cell changes of the grid.
+     * Paths requested after this call may be computed on an outdated snapshot of the grid.
+     */
+    @Override
+    public void dispose() {
+        grid.removeCellChangeListener(cellChangeListener);
+    }
+
+    public int getMaxResultsPerFrame() {
+        return maxResultsPerFrame;
+    }
+
+    public void setMaxResultsPerFrame(int maxResultsPerFrame) {
+        if (maxResultsPerFrame <= 0)
+            throw new IllegalArgumentException("Max results per frame must be positive: " + maxResultsPerFrame);
+
+        this.maxResultsPerFrame = maxResultsPerFrame;
+    }
+
+    /**
+     * @return number of requests that are not yet delivered
+     */
+    public int getNumActiveRequests() {
+        return activeRequests.size();
+    }
+
+    /**
+     * Requests a path in 4 directions.
+     */
+    public void requestPath(int startX, int startY, int targetX, int targetY, Consumer<List<AStarCell>> callback) {
+        requestPath(startX, startY, targetX, targetY, NeighborDirection.FOUR_DIRECTIONS, callback);
+    }
+
+    /**
+     * Requests a path from start to target.
+     * The callback receives a list of cells from start (excl.) to target (incl.), or an empty list
+     * if no path exists. Each callback receives its own list, which it may modify.
+     */
+    public void requestPath(int startX, int startY, int targetX, int targetY, NeighborDirection neighborDirection, Consumer<List<AStarCell>> callback) {
+        var key = new RequestKey(startX, startY, targetX, targetY, neighborDirection);
+
+        var request = activeRequests.get(key);
+
+        // a submitted request can only be merged with if the grid has not changed since
+        if (request == null || (request.isSubmitted && request.gridVersion != gridVersion)) {
+            request = new PathRequest(key);
+
+            activeRequests.put(key, request);
+            pendingRequests.add(request);
+        }
+
+        request.callbacks.add(callback);
+    }
+
+    /**
+     * Delivers results of completed requests (up to the per frame limit)
+     * and submits requests made since the last call.
+     */
+    public void onUpdate(double tpf) {
+        deliverResults();
+        submitRequests();
+    }
+
+    private void deliverResults() {
+        for (int i = 0; i < maxResultsPerFrame; i++) {
+            var request = completedRequests.poll();
+
+            if (request == null)
+                break;
+
+            // only remove if the request was not replaced by a newer one
+            activeRequests.remove(request.key, request);
+
+            // map snapshot indices to cells of the grid
+            int width = grid.getWidth();
+
+            List<AStarCell> path = new ArrayList<>(request.result.length);
+            for (int index : request.result) {
+                path.add(grid.get(index % width, index / width));
+            }
+
+            for (int j = 0; j < request.callbacks.size(); j++) {
+                request.callbacks.get(j).accept(j == request.callbacks.size() - 1 ? path : new ArrayList<>(path));
+            }
+        }
+    }
+
+    private void submitRequests() {
+        if (pendingRequests.isEmpty())
+            return;
+
+        if (snapshot == null || snapshot.gridVersion != gridVersion) {
+            snapshot = new Snapshot(grid, movementCosts.clone(), gridVersion);
+        }
+
+        for (var request : pendingRequests) {
+            request.isSubmitted = true;
+            request.gridVersion = gridVersion;
+        }
+
+        int numRequests = pendingRequests.size();
+        int numTasks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), numRequests / MIN_REQUESTS_PER_TASK));
+
+        var s = snapshot;
+
+        for (int i = 0; i < numTasks; i++) {
+            var batch = new ArrayList<>(pendingRequests.subList(i * numRequests / numTasks, (i + 1) * numRequests / numTasks));
+
+            executor.execute(() -> computePaths(s, batch));
+        }
+
+        pendingRequests.clear();
+    }
+
+    private void computePaths(Snapshot snapshot, List<PathRequest> batch) {
+        var pathfinder = obtainPathfinder();
+
+        try {
+            for (var request : batch) {
+                var key = request.key;
+
+                // start or target outside of the grid give no path
+                request.result = pathfinder.findPath(snapshot.movementCosts, snapshot.width, snapshot.height,
+                        key.startX, key.startY, key.targetX, key.targetY, key.neighborDirection);
+
+                completedRequests.add(request);
+            }
+        } finally {
+            pathfinders.add(pathfinder);
+        }
+    }
+
+    private AStarPathfinder obtainPathfinder() {
+        var pathfinder = pathfinders.poll();
+
+        return pathfinder != null ? pathfinder : new AStarPathfinder(grid);
+    }
+
+    /**
+     * An immutable copy of movement costs of the grid.
+     * Pathfinders only search the copy, the grid is not accessed by worker threads.
+     */
+    private static final class Snapshot {
+        private final int[] movementCosts;
+        private final int width;
+        private final int height;
+        private final int gridVersion;
+
+        Snapshot(AStarGrid grid, int[] movementCosts, int gridVersion) {
+            this.movementCosts = movementCosts;
+            this.width = grid.getWidth();
+            this.height = grid.getHeight();
+            this.gridVersion = gridVersion;
+        }
+    }
+
+    private static final class RequestKey {
+        private final int startX;
+        private final int startY;
+        private final int targetX;
+        private final int targetY;
+        private final NeighborDirection neighborDirection;
+
+        RequestKey(int startX, int startY, int targetX, int targetY, NeighborDirection neighborDirection) {
+            this.startX = startX;
+            this.startY = startY;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.neighborDirection = neighborDirection;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RequestKey))
+                return false;
+
+            var other = (RequestKey) o;
+
+            return startX == other.startX
+                    && startY == other.startY
+                    && targetX == other.targetX
+                    && targetY == other.targetY
+                    && neighborDirection == other.neighborDirection;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startX, startY, targetX, targetY, neighborDirection);
+        }
+    }
+
+    private static final class PathRequest {
+        private final RequestKey key;
+
+        /**
+         * Only accessed on the thread that calls onUpdate().
+         */
+        private final List<Consumer<List<AStarCell>>> callbacks = new ArrayList<>(1);
+        private boolean isSubmitted = false;
+        private int gridVersion = 0;
+
+        /**
+         * Written by a worker thread before the request is added to completed requests.
+         */
+        private volatile int[] result;
+
+        PathRequest(RequestKey key) {
+            this.key = key;
+        }
+    }
+}
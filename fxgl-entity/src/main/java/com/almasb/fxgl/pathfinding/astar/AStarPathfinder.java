@@ -6,7 +6,7 @@
 
 package com.almasb.fxgl.pathfinding.astar;
 
-import com.almasb.fxgl.core.collection.grid.Cell;
+import com.almasb.fxgl.core.collection.grid.Grid;
 import com.almasb.fxgl.core.collection.grid.NeighborDirection;
 import static com.almasb.fxgl.core.collection.grid.NeighborDirection.*;
 import com.almasb.fxgl.pathfinding.CellState;
@@ -19,6 +19,11 @@ import com.almasb.fxgl.pathfinding.heuristic.OctileDistance;
 import java.util.*;
 
 /**
+ * A* search over an {@link AStarGrid}.
+ * The open set is an indexed binary heap and per-cell search data is kept in flat arrays,
+ * which are reused across searches, so a search only touches the cells it visits.
+ * As a result, an instance must not be used to search from multiple threads at the same time.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 public final class AStarPathfinder implements Pathfinder<AStarCell> {
@@ -28,8 +33,35 @@ public final class AStarPathfinder implements Pathfinder<AStarCell> {
     private final Heuristic<AStarCell> defaultHeuristic;
     private final DiagonalHeuristic<AStarCell> diagonalHeuristic;
 
+    private static final int DEFAULT_MAX_CACHE_SIZE = 1024;
+
     private boolean isCachingPaths = false;
-    private Map<CacheKey, List<AStarCell>> cache = new HashMap<>();
+    private int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+
+    /**
+     * Created when caching is first enabled, so that pathfinders that do not cache
+     * do not listen to cell changes.
+     */
+    private PathCache cache = null;
+
+    /**
+     * Neighbor offsets in the same order as {@link Grid#getNeighbors(int, int, NeighborDirection)}:
+     * left, up, right, down, then up-left, up-right, down-right, down-left.
+     */
+    private static final int[] NEIGHBOR_DX = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    private static final int[] NEIGHBOR_DY = { 0, -1, 0, 1, -1, -1, 1, 1 };
+
+    /**
+     * Movement cost of an unwalkable cell, as seen by a search.
+     */
+    static final int NOT_WALKABLE = -1;
+
+    private static final int[] NO_PATH = new int[0];
+
+    /**
+     * Search data, indexed by y * width + x.
+     */
+    private final SearchData data = new SearchData();
 
     public AStarPathfinder(AStarGrid grid) {
         this(grid, new ManhattanDistance<>(), new OctileDistance<>());
@@ -46,17 +78,105 @@ public final class AStarPathfinder implements Pathfinder<AStarCell> {
     }
 
     /**
-     * If set to true, computed paths for same start and end cells are cached.
+     * If set to true, computed paths for same start and end cells (and neighbor direction) are cached.
+     * At most {@link #getMaxCacheSize()} paths are cached, least recently used paths are evicted first.
+     * A cached path is invalidated when any cell on it changes walkability or movement cost.
+     * Searches with busy cells are not cached.
      * Default is false.
      */
     public void setCachingPaths(boolean isCachingPaths) {
         this.isCachingPaths = isCachingPaths;
+
+        if (isCachingPaths && cache == null) {
+            cache = new PathCache(grid, maxCacheSize);
+        }
+
+        // cached paths are not kept, so that the cache stops listening to cell changes
+        if (!isCachingPaths && cache != null) {
+            cache.dispose();
+            cache = null;
+        }
     }
 
     public boolean isCachingPaths() {
         return isCachingPaths;
     }
 
+    /**
+     * @return max number of cached paths, default is 1024
+     */
+    public int getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    /**
+     * Sets max number of cached paths.
+     * If more paths are cached, least recently used paths are evicted.
+     */
+    public void setMaxCacheSize(int maxCacheSize) {
+        if (maxCacheSize <= 0)
+            throw new IllegalArgumentException("Max cache size must be positive: " + maxCacheSize);
+
+        this.maxCacheSize = maxCacheSize;
+
+        if (cache != null) {
+            cache.setMaxSize(maxCacheSize);
+        }
+    }
+
+    /**
+     * @return number of currently cached paths (some may be invalidated but not yet removed)
+     */
+    public int getCacheSize() {
+        return cache != null ? cache.size() : 0;
+    }
+
+    /**
+     * Removes all cached paths.
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return number of searches answered from the cache
+     */
+    public long getNumCacheHits() {
+        return cache != null ? cache.getNumHits() : 0;
+    }
+
+    /**
+     * @return number of cacheable searches that had to be computed
+     */
+    public long getNumCacheMisses() {
+        return cache != null ? cache.getNumMisses() : 0;
+    }
+
+    /**
+     * @return number of paths evicted because the cache was full
+     */
+    public long getNumCacheEvictions() {
+        return cache != null ? cache.getNumEvictions() : 0;
+    }
+
+    /**
+     * @return number of paths removed because a cell on the path changed
+     */
+    public long getNumCacheInvalidations() {
+        return cache != null ? cache.getNumInvalidations() : 0;
+    }
+
+    /**
+     * Resets cache hit, miss, eviction and invalidation counts to 0.
+     */
+    public void resetCacheStatistics() {
+        if (cache != null) {
+            cache.resetStatistics();
+        }
+    }
+
     @Override
     public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY) {
         return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY));
@@ -105,9 +225,12 @@ public final class AStarPathfinder implements Pathfinder<AStarCell> {
         if (start == target || target.getState() == CellState.NOT_WALKABLE)
             return Collections.emptyList();
 
-        var cacheKey = new CacheKey(start.getX(), start.getY(), target.getX(), target.getY());
+        // busy cells are typically different for each search, and paths on other grids cannot be cached
+        CacheKey cacheKey = null;
+
+        if (isCachingPaths && busyNodes.length == 0 && grid == this.grid.getData()) {
+            cacheKey = new CacheKey(start.getX(), start.getY(), target.getX(), target.getY(), neighborDirection);
 
-        if (isCachingPaths) {
             var path = cache.get(cacheKey);
 
             if (path != null) {
@@ -115,113 +238,159 @@ public final class AStarPathfinder implements Pathfinder<AStarCell> {
             }
         }
 
-        Heuristic<AStarCell> heuristic = (neighborDirection == FOUR_DIRECTIONS) ? defaultHeuristic : diagonalHeuristic;
+        int width = grid.length;
+        int height = grid[0].length;
 
-        // reset grid cells data
-        for (int y = 0; y < grid[0].length; y++) {
-            for (int x = 0; x < grid.length; x++) {
-                grid[x][y].setHCost(heuristic.getCost(x, y, target.getX(), target.getY()));
-                grid[x][y].setParent(null);
-                grid[x][y].setGCost(0);
-            }
+        data.begin(width * height);
+
+        for (AStarCell busy : busyNodes) {
+            data.block(busy.getY() * width + busy.getX());
         }
 
-        Set<AStarCell> open = new HashSet<>();
-        Set<AStarCell> closed = new HashSet<>();
+        CellCosts costs = (x, y) -> {
+            AStarCell cell = grid[x][y];
+            return cell.isWalkable() ? cell.getMovementCost() : NOT_WALKABLE;
+        };
 
-        AStarCell current = start;
+        if (!search(costs, width, height, start.getY() * width + start.getX(), target.getY() * width + target.getX(), neighborDirection))
+            return Collections.emptyList();
 
-        boolean found = false;
+        return buildPath(grid, start, target, cacheKey);
+    }
 
-        while (!found && !closed.contains(target)) {
-            for (AStarCell neighbor : getValidNeighbors(current, neighborDirection, busyNodes)) {
-                if (neighbor == target) {
-                    target.setParent(current);
-                    found = true;
-                    closed.add(target);
-                    break;
-                }
+    /**
+     * Finds a path on a snapshot of movement costs of cells, indexed by y * width + x,
+     * where unwalkable cells have cost {@link #NOT_WALKABLE}.
+     * Paths found this way are not cached.
+     *
+     * @return indices of cells from start (excl) to target (incl) or empty array if no path found
+     */
+    int[] findPath(int[] movementCosts, int width, int height, int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        if (sourceX < 0 || sourceY < 0 || sourceX >= width || sourceY >= height
+                || targetX < 0 || targetY < 0 || targetX >= width || targetY >= height)
+            return NO_PATH;
 
-                if (!closed.contains(neighbor)) {
-                    int gCost = isDiagonal(current, neighbor)
-                            ? diagonalHeuristic.getDiagonalWeight()
-                            : defaultHeuristic.getWeight();
-
-                    gCost *= neighbor.getMovementCost();
-
-                    int newGCost = current.getGCost() + gCost;
-
-                    if (open.contains(neighbor)) {
-                        if (newGCost < neighbor.getGCost()) {
-                            neighbor.setParent(current);
-                            neighbor.setGCost(newGCost);
-                        }
-                    } else {
-                        neighbor.setParent(current);
-                        neighbor.setGCost(newGCost);
-                        open.add(neighbor);
-                    }
-                }
-            }
+        int startIndex = sourceY * width + sourceX;
+        int targetIndex = targetY * width + targetX;
+
+        if (startIndex == targetIndex || movementCosts[targetIndex] == NOT_WALKABLE)
+            return NO_PATH;
+
+        data.begin(width * height);
+
+        if (!search((x, y) -> movementCosts[y * width + x], width, height, startIndex, targetIndex, neighborDirection))
+            return NO_PATH;
+
+        int length = 0;
+        for (int index = targetIndex; index != startIndex; index = data.parents[index]) {
+            length++;
+        }
 
-            if (!found) {
-                closed.add(current);
-                open.remove(current);
+        int[] path = new int[length];
 
-                if (open.isEmpty())
-                    return Collections.emptyList();
+        int index = targetIndex;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = index;
+            index = data.parents[index];
+        }
 
-                AStarCell acc = null;
+        return path;
+    }
 
-                for (AStarCell a : open) {
-                    if (acc == null) {
-                        acc = a;
-                        continue;
-                    }
+    /**
+     * Searches from start to target, which must be walkable and not the same.
+     * Blocked cells must be marked in search data after it has begun.
+     *
+     * @return true if target was reached, in which case parents in search data lead from target to start
+     */
+    private boolean search(CellCosts costs, int width, int height, int startIndex, int targetIndex, NeighborDirection neighborDirection) {
+        Heuristic<AStarCell> heuristic = (neighborDirection == FOUR_DIRECTIONS) ? defaultHeuristic : diagonalHeuristic;
 
-                    acc = a.getFCost() < acc.getFCost() ? a : acc;
+        int numNeighbors = neighborDirection == FOUR_DIRECTIONS ? 4 : 8;
+
+        int targetX = targetIndex % width;
+        int targetY = targetIndex / width;
+
+        int current = startIndex;
+        data.visit(current, 0, 0, -1);
+
+        while (true) {
+            data.close(current);
+
+            int x = current % width;
+            int y = current / width;
+
+            for (int i = 0; i < numNeighbors; i++) {
+                int nx = x + NEIGHBOR_DX[i];
+                int ny = y + NEIGHBOR_DY[i];
+
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+
+                int neighbor = ny * width + nx;
+
+                if (data.isBlocked(neighbor) || data.isClosed(neighbor))
+                    continue;
+
+                int movementCost = costs.get(nx, ny);
+
+                if (movementCost == NOT_WALKABLE)
+                    continue;
+
+                // the search ends as soon as the target is reached, not when it is expanded
+                if (neighbor == targetIndex) {
+                    data.parents[targetIndex] = current;
+                    return true;
                 }
 
-                current = acc;
+                int gCost = i >= 4
+                        ? diagonalHeuristic.getDiagonalWeight()
+                        : defaultHeuristic.getWeight();
+
+                gCost *= movementCost;
+
+                int newGCost = data.gCosts[current] + gCost;
+
+                data.relax(neighbor, newGCost, heuristic.getCost(nx, ny, targetX, targetY), current);
             }
-        }
 
-        var path = buildPath(start, target);
+            if (data.isOpenEmpty())
+                return false;
 
-        if (isCachingPaths) {
-            cache.put(cacheKey, path);
+            current = data.pop();
         }
-
-        return new ArrayList<>(path);
     }
 
-    private List<AStarCell> buildPath(AStarCell start, AStarCell target) {
+    private List<AStarCell> buildPath(AStarCell[][] grid, AStarCell start, AStarCell target, CacheKey cacheKey) {
+        int width = grid.length;
+        int startIndex = start.getY() * width + start.getX();
+
         List<AStarCell> path = new ArrayList<>();
 
-        AStarCell tmp = target;
+        int index = target.getY() * width + target.getX();
         do {
-            path.add(tmp);
-            tmp = tmp.getParent();
-        } while (tmp != start);
+            path.add(grid[index % width][index / width]);
+            index = data.parents[index];
+        } while (index != startIndex);
 
         Collections.reverse(path);
-        return path;
+
+        if (cacheKey != null) {
+            cache.put(cacheKey, path);
+        }
+
+        return new ArrayList<>(path);
     }
 
     /**
-     * @param node the A* node
-     * @param busyNodes nodes which are busy, i.e. walkable but have a temporary obstacle
-     * @return neighbors of the node
+     * Movement costs of cells as seen by a search.
      */
-    private List<AStarCell> getValidNeighbors(AStarCell node, NeighborDirection neighborDirection, AStarCell... busyNodes) {
-        var result = grid.getNeighbors(node.getX(), node.getY(), neighborDirection);
-        result.removeAll(Arrays.asList(busyNodes));
-        result.removeIf(cell -> !cell.isWalkable());
-        return result;
-    }
+    @FunctionalInterface
+    private interface CellCosts {
 
-    private boolean isDiagonal(Cell current, Cell neighbor) {
-        return neighbor.getX() - current.getX() != 0 && neighbor.getY() - current.getY() != 0;
+        /**
+         * @return movement cost of the cell or {@link #NOT_WALKABLE}
+         */
+        int get(int x, int y);
     }
-
 }
@@ -0,0 +1,93 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.entity.component.Component;
+import com.almasb.fxgl.entity.component.Required;
+import com.almasb.fxgl.pathfinding.CellMoveComponent;
+
+/**
+ * Moves the entity cell by cell towards the target of a {@link FlowFieldPathfinder}.
+ * Any number of entities can share the same flow field, since each step
+ * is a single lookup in the field.
+ * If the field changes, entities follow the new field from their next cell.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+@Required(CellMoveComponent.class)
+public final class FlowFieldMoveComponent extends Component {
+
+    private CellMoveComponent moveComponent;
+
+    private FlowFieldPathfinder flowField;
+
+    public FlowFieldMoveComponent(FlowFieldPathfinder flowField) {
+        this.flowField = flowField;
+    }
+
+    @Override
+    public void onAdded() {
+        moveComponent = entity.getComponent(CellMoveComponent.class);
+    }
+
+    public FlowFieldPathfinder getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * Sets the flow field to follow, e.g. when the target changes.
+     */
+    public void setFlowField(FlowFieldPathfinder flowField) {
+        this.flowField = flowField;
+    }
+
+    public boolean isMoving() {
+        return moveComponent.isMoving();
+    }
+
+    /**
+     * @return true if the entity is in the target cell of the flow field and is no longer moving
+     */
+    public boolean isAtTarget() {
+        return moveComponent.isAtDestination()
+                && moveComponent.getCellX() == flowField.getTargetX()
+                && moveComponent.getCellY() == flowField.getTargetY();
+    }
+
+    /**
+     * @return true if the target of the flow field can be reached from the current cell
+     */
+    public boolean isTargetReachable() {
+        return flowField.isReachable(moveComponent.getCellX(), moveComponent.getCellY());
+    }
+
+    @Override
+    public void onUpdate(double tpf) {
+        if (!moveComponent.isAtDestination())
+            return;
+
+        int cellX = moveComponent.getCellX();
+        int cellY = moveComponent.getCellY();
+
+        var grid = flowField.getGrid();
+
+        if (!grid.isWithin(cellX, cellY))
+            return;
+
+        int next = flowField.getNextIndex(cellY * grid.getWidth() + cellX);
+
+        if (next == -1)
+            return;
+
+        moveComponent.moveToCell(next % grid.getWidth(), next / grid.getWidth());
+    }
+
+    @Override
+    public boolean isComponentInjectionRequired() {
+        return false;
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.Disposable;
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.heuristic.OctileDistance;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+
+/**
+ * Computes paths from every cell of an {@link AStarGrid} to a single target, which is useful
+ * when many entities move to the same target.
+ * The integration field (cost from each cell to the target) is computed by Dijkstra search from the target,
+ * and the direction field stores the next cell to move to from each cell, so following the field
+ * is O(1) per step, regardless of the number of entities.
+ * Costs are computed the same way as in {@link AStarPathfinder}, i.e. entering a cell costs
+ * the weight of the move multiplied by the movement cost of the cell.
+ * When cells change walkability or movement cost, only the affected part of the field is recomputed,
+ * the next time the field is queried or {@link #update()} is called.
+ * Call {@link #dispose()} once the field is no longer used, so that it stops listening to cell changes.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class FlowFieldPathfinder implements Disposable {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+
+    /**
+     * Same order as in {@link AStarPathfinder}: 4 straight directions, then diagonals.
+     */
+    private static final int[] NEIGHBOR_DX = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    private static final int[] NEIGHBOR_DY = { 0, -1, 0, 1, -1, -1, 1, 1 };
+
+    private final AStarGrid grid;
+    private final NeighborDirection neighborDirection;
+
+    private final int width;
+    private final int height;
+    private final int numNeighbors;
+
+    private final int weight;
+    private final int diagonalWeight;
+
+    /**
+     * Integration field: cost from each cell to the target, indexed by y * width + x.
+     */
+    private final int[] costs;
+
+    /**
+     * Direction field: index of the next cell on the way to the target.
+     */
+    private final int[] next;
+
+    private int targetIndex = NONE;
+
+    /**
+     * Cells that changed since the field was last updated.
+     */
+    private final boolean[] isDirty;
+    private final int[] dirtyCells;
+    private int numDirtyCells = 0;
+
+    /**
+     * Open set of the search, where blocked nodes mark cells invalidated during an update.
+     */
+    private final SearchData data = new SearchData();
+
+    private int[] stack;
+
+    private final Consumer<AStarCell> cellChangeListener = this::onCellChanged;
+
+    public FlowFieldPathfinder(AStarGrid grid) {
+        this(grid, FOUR_DIRECTIONS);
+    }
+
+    public FlowFieldPathfinder(AStarGrid grid, NeighborDirection neighborDirection) {
+        this.grid = grid;
+        this.neighborDirection = neighborDirection;
+
+        width = grid.getWidth();
+        height = grid.getHeight();
+        numNeighbors = neighborDirection == FOUR_DIRECTIONS ? 4 : 8;
+
+        var heuristic = new OctileDistance<AStarCell>();
+        weight = heuristic.getWeight();
+        diagonalWeight = heuristic.getDiagonalWeight();
+
+        int numCells = width * height;
+
+        costs = new int[numCells];
+        next = new int[numCells];
+        isDirty = new boolean[numCells];
+        dirtyCells = new int[numCells];
+        stack = new int[64];
+
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(next, NONE);
+
+        grid.addCellChangeListener(cellChangeListener);
+    }
+
+    /**
+     * Stops listening to cell changes of the grid.
+     * The field is no longer updated, so it must not be used after this call.
+     */
+    @Override
+    public void dispose() {
+        grid.removeCellChangeListener(cellChangeListener);
+    }
+
+    private void onCellChanged(AStarCell cell) {
+        int index = cell.getY() * width + cell.getX();
+
+        if (!isDirty[index]) {
+            isDirty[index] = true;
+            dirtyCells[numDirtyCells++] = index;
+        }
+    }
+
+    public AStarGrid getGrid() {
+        return grid;
+    }
+
+    public NeighborDirection getNeighborDirection() {
+        return neighborDirection;
+    }
+
+    public boolean hasTarget() {
+        return targetIndex != NONE;
+    }
+
+    /**
+     * @return target cell x or -1 if there is no target
+     */
+    public int getTargetX() {
+        return hasTarget() ? targetIndex % width : NONE;
+    }
+
+    /**
+     * @return target cell y or -1 if there is no target
+     */
+    public int getTargetY() {
+        return hasTarget() ? targetIndex / width : NONE;
+    }
+
+    /**
+     * Sets the target cell and recomputes the whole field.
+     */
+    public void setTarget(int targetX, int targetY) {
+        if (!grid.isWithin(targetX, targetY))
+            throw new IllegalArgumentException("Target is outside of the grid: " + targetX + "," + targetY);
+
+        targetIndex = targetY * width + targetX;
+
+        computeField();
+    }
+
+    public void setTarget(AStarCell target) {
+        setTarget(target.getX(), target.getY());
+    }
+
+    /**
+     * Recomputes parts of the field affected by cells that changed since the last update.
+     * Called automatically when the field is queried, so calling this is optional,
+     * e.g. to do the work at a predictable point in the frame.
+     */
+    public void update() {
+        if (numDirtyCells == 0)
+            return;
+
+        if (!hasTarget()) {
+            clearDirtyCells();
+            return;
+        }
+
+        // if many cells changed, recomputing everything is faster
+        if (isDirty[targetIndex] || numDirtyCells > costs.length / 8) {
+            computeField();
+        } else {
+            updateField();
+        }
+    }
+
+    /**
+     * @return true if target can be reached from given cell
+     */
+    public boolean isReachable(int x, int y) {
+        return getCost(x, y) != NONE;
+    }
+
+    /**
+     * @return cost of moving from given cell to the target, or -1 if the target cannot be reached
+     */
+    public int getCost(int x, int y) {
+        if (!grid.isWithin(x, y))
+            return NONE;
+
+        update();
+
+        int cost = costs[y * width + x];
+
+        return cost == UNREACHABLE ? NONE : cost;
+    }
+
+    /**
+     * @return next cell to move to from given cell, or empty if given cell is the target or the target cannot be reached
+     */
+    public Optional<AStarCell> getNextCell(int x, int y) {
+        if (!grid.isWithin(x, y))
+            return Optional.empty();
+
+        int index = getNextIndex(y * width + x);
+
+        return index == NONE ? Optional.empty() : Optional.of(grid.get(index % width, index / width));
+    }
+
+    /**
+     * @return index of the next cell to move to from cell with given index, or -1 if none
+     */
+    int getNextIndex(int index) {
+        update();
+
+        return next[index];
+    }
+
+    /**
+     * Follows the field from given cell.
+     *
+     * @return path as list of cells from given cell (excl) to target (incl) or empty list if target cannot be reached
+     */
+    public List<AStarCell> findPath(int x, int y) {
+        if (!isReachable(x, y))
+            return Collections.emptyList();
+
+        List<AStarCell> path = new ArrayList<>();
+
+        int index = next[y * width + x];
+
+        while (index != NONE) {
+            path.add(grid.get(index % width, index / width));
+            index = next[index];
+        }
+
+        return path;
+    }
+
+    private void computeField() {
+        clearDirtyCells();
+
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(next, NONE);
+
+        data.begin(costs.length);
+
+        if (grid.get(targetIndex % width, targetIndex / width).isWalkable()) {
+            costs[targetIndex] = 0;
+            data.relax(targetIndex, 0, 0, NONE);
+
+            propagate();
+        }
+    }
+
+    /**
+     * Cells whose path to the target goes through a changed cell (including the changed cell itself)
+     * are invalidated and recomputed from their valid neighbors.
+     * Changed cells that became cheaper to enter also lower costs of cells around them,
+     * which is handled by the same propagation.
+     */
+    private void updateField() {
+        data.begin(costs.length);
+
+        int numInvalidated = 0;
+
+        for (int i = 0; i < numDirtyCells; i++) {
+            int index = dirtyCells[i];
+
+            if (!data.isBlocked(index)) {
+                data.block(index);
+                stack = push(stack, numInvalidated++, index);
+            }
+        }
+
+        clearDirtyCells();
+
+        // collect subtrees of the direction field rooted at changed cells
+        for (int i = 0; i < numInvalidated; i++) {
+            int index = stack[i];
+
+            int x = index % width;
+            int y = index / width;
+
+            for (int j = 0; j < numNeighbors; j++) {
+                int nx = x + NEIGHBOR_DX[j];
+                int ny = y + NEIGHBOR_DY[j];
+
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+
+                int neighbor = ny * width + nx;
+
+                if (next[neighbor] == index && !data.isBlocked(neighbor)) {
+                    data.block(neighbor);
+                    stack = push(stack, numInvalidated++, neighbor);
+                }
+            }
+        }
+
+        for (int i = 0; i < numInvalidated; i++) {
+            costs[stack[i]] = UNREACHABLE;
+            next[stack[i]] = NONE;
+        }
+
+        // seed invalidated cells from their valid neighbors
+        for (int i = 0; i < numInvalidated; i++) {
+            int index = stack[i];
+
+            int x = index % width;
+            int y = index / width;
+
+            if (!grid.get(x, y).isWalkable())
+                continue;
+
+            for (int j = 0; j < numNeighbors; j++) {
+                int nx = x + NEIGHBOR_DX[j];
+                int ny = y + NEIGHBOR_DY[j];
+
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+
+                int neighbor = ny * width + nx;
+
+                if (costs[neighbor] == UNREACHABLE)
+                    continue;
+
+                int cost = costs[neighbor] + getMoveCost(j, nx, ny);
+
+                if (cost < costs[index]) {
+                    costs[index] = cost;
+                    next[index] = neighbor;
+                }
+            }
+
+            if (costs[index] != UNREACHABLE) {
+                data.relax(index, costs[index], 0, next[index]);
+            }
+        }
+
+        propagate();
+    }
+
+    /**
+     * Dijkstra search from cells in the open set.
+     * Costs of cells that are not in the open set must be valid upper bounds.
+     */
+    private void propagate() {
+        while (!data.isOpenEmpty()) {
+            int current = data.pop();
+            data.close(current);
+
+            int x = current % width;
+            int y = current / width;
+
+            for (int i = 0; i < numNeighbors; i++) {
+                int nx = x + NEIGHBOR_DX[i];
+                int ny = y + NEIGHBOR_DY[i];
+
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+                    continue;
+
+                int neighbor = ny * width + nx;
+
+                if (!grid.get(nx, ny).isWalkable())
+                    continue;
+
+                // moving from neighbor to current costs the same as in AStarPathfinder
+                int cost = costs[current] + getMoveCost(i, x, y);
+
+                if (cost < costs[neighbor]) {
+                    costs[neighbor] = cost;
+                    next[neighbor] = current;
+                    data.relax(neighbor, cost, 0, current);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return cost of entering cell (x, y) in direction with given index
+     */
+    private int getMoveCost(int direction, int x, int y) {
+        return (direction >= 4 ? diagonalWeight : weight) * grid.get(x, y).getMovementCost();
+    }
+
+    private void clearDirtyCells() {
+        for (int i = 0; i < numDirtyCells; i++) {
+            isDirty[dirtyCells[i]] = false;
+        }
+
+        numDirtyCells = 0;
+    }
+
+    private static int[] push(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2);
+        }
+
+        array[size] = value;
+        return array;
+    }
+}
@@ -0,0 +1,654 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.Disposable;
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.Pathfinder;
+import com.almasb.fxgl.pathfinding.heuristic.DiagonalHeuristic;
+import com.almasb.fxgl.pathfinding.heuristic.Heuristic;
+import com.almasb.fxgl.pathfinding.heuristic.ManhattanDistance;
+import com.almasb.fxgl.pathfinding.heuristic.OctileDistance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+
+/**
+ * Hierarchical pathfinding (HPA*, Botea et al.) over an {@link AStarGrid}.
+ * The grid is split into square clusters. Entrances between adjacent clusters are precomputed
+ * and form an abstract graph, whose edges inside a cluster are costs of local paths between entrances.
+ * A search first finds a path in the (small) abstract graph, then refines it with searches
+ * limited to single clusters, which makes it much faster than {@link AStarPathfinder} on large grids.
+ * Paths are near-optimal, since they cross cluster borders only at entrances.
+ * Costs are the same as in {@link AStarPathfinder} with default heuristics.
+ *
+ * When walkability or movement cost of a cell changes (via {@link AStarCell#setState} or
+ * {@link AStarCell#setMovementCost}), entrances and local paths of the affected clusters
+ * are recomputed lazily before the next search.
+ * Cells of the grid must not be replaced after this pathfinder is created.
+ * Searches with busy cells are delegated to {@link AStarPathfinder},
+ * since busy cells are temporary and are not part of precomputed data.
+ * An instance must not be used to search from multiple threads at the same time.
+ * Call {@link #dispose()} once the pathfinder is no longer used, so that it stops listening to cell changes.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class HierarchicalPathfinder implements Pathfinder<AStarCell>, Disposable {
+
+    private static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * Entrances narrower than this have a single transition in the middle,
+     * wider ones have a transition at each end.
+     */
+    private static final int MAX_ENTRANCE_WIDTH = 6;
+
+    private static final int NOT_FOUND = -1;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[] NEIGHBOR_DX = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    private static final int[] NEIGHBOR_DY = { 0, -1, 0, 1, -1, -1, 1, 1 };
+
+    private final AStarGrid grid;
+    private final int width;
+    private final int height;
+
+    private final int clusterSize;
+    private final int numClustersX;
+    private final int numClustersY;
+
+    private final Heuristic<AStarCell> defaultHeuristic = new ManhattanDistance<>();
+    private final DiagonalHeuristic<AStarCell> diagonalHeuristic = new OctileDistance<>();
+
+    private final Cluster[] clusters;
+
+    /**
+     * Transitions across the east (south) border of each cluster,
+     * as flat pairs (cell in cluster, cell in the east (south) cluster).
+     */
+    private final int[][] eastTransitions;
+    private final int[][] southTransitions;
+
+    private final boolean[] isClusterDirty;
+    private final boolean[] isClusterNodesDirty;
+    private boolean hasDirtyClusters = true;
+
+    private final SearchData abstractData = new SearchData();
+    private final SearchData localData = new SearchData();
+
+    private final AStarPathfinder busyCellsPathfinder;
+
+    private final Consumer<AStarCell> cellChangeListener = this::onCellChanged;
+
+    public HierarchicalPathfinder(AStarGrid grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param clusterSize width and height of a cluster in cells
+     */
+    public HierarchicalPathfinder(AStarGrid grid, int clusterSize) {
+        if (clusterSize < 2)
+            throw new IllegalArgumentException("Cluster size must be at least 2: " + clusterSize);
+
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+
+        width = grid.getWidth();
+        height = grid.getHeight();
+
+        numClustersX = (width + clusterSize - 1) / clusterSize;
+        numClustersY = (height + clusterSize - 1) / clusterSize;
+
+        int numClusters = numClustersX * numClustersY;
+
+        clusters = new Cluster[numClusters];
+        eastTransitions = new int[numClusters][];
+        southTransitions = new int[numClusters][];
+        isClusterDirty = new boolean[numClusters];
+        isClusterNodesDirty = new boolean[numClusters];
+
+        for (int cy = 0; cy < numClustersY; cy++) {
+            for (int cx = 0; cx < numClustersX; cx++) {
+                int minX = cx * clusterSize;
+                int minY = cy * clusterSize;
+
+                clusters[cy * numClustersX + cx] = new Cluster(
+                        minX, minY, Math.min(minX + clusterSize, width), Math.min(minY + clusterSize, height)
+                );
+            }
+        }
+
+        Arrays.fill(isClusterDirty, true);
+
+        busyCellsPathfinder = new AStarPathfinder(grid);
+
+        grid.addCellChangeListener(cellChangeListener);
+    }
+
+    public AStarGrid getGrid() {
+        return grid;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS);
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        int start = sourceY * width + sourceX;
+        int target = targetY * width + targetX;
+
+        if (start == target || !isWalkable(target))
+            return Collections.emptyList();
+
+        update();
+
+        boolean isDiagonal = neighborDirection != FOUR_DIRECTIONS;
+
+        var startCluster = clusters[clusterIndexOf(start)];
+
+        // paths within a single cluster do not need the abstract graph
+        if (startCluster == clusters[clusterIndexOf(target)]) {
+            if (searchCluster(startCluster, start, target, false, isDiagonal)) {
+                List<AStarCell> path = new ArrayList<>();
+                appendLocalPath(path, start, target);
+                return path;
+            }
+        }
+
+        return findAbstractPath(start, target, isDiagonal);
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, List<AStarCell> busyCells) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, busyCells);
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection, List<AStarCell> busyCells) {
+        if (busyCells.isEmpty())
+            return findPath(sourceX, sourceY, targetX, targetY, neighborDirection);
+
+        return busyCellsPathfinder.findPath(sourceX, sourceY, targetX, targetY, neighborDirection, busyCells);
+    }
+
+    /**
+     * Stops listening to cell changes of the grid.
+     * Precomputed data is no longer updated, so the pathfinder must not be used after this call.
+     */
+    @Override
+    public void dispose() {
+        grid.removeCellChangeListener(cellChangeListener);
+    }
+
+    private void onCellChanged(AStarCell cell) {
+        isClusterDirty[clusterIndexOf(cell.getY() * width + cell.getX())] = true;
+        hasDirtyClusters = true;
+    }
+
+    /**
+     * Recomputes entrances of dirty clusters and abstract nodes of clusters that share those entrances.
+     * Distances between abstract nodes of such clusters are recomputed when next needed.
+     */
+    private void update() {
+        if (!hasDirtyClusters)
+            return;
+
+        for (int cy = 0; cy < numClustersY; cy++) {
+            for (int cx = 0; cx < numClustersX; cx++) {
+                int c = cy * numClustersX + cx;
+
+                if (!isClusterDirty[c])
+                    continue;
+
+                eastTransitions[c] = computeTransitions(cx, cy, true);
+                southTransitions[c] = computeTransitions(cx, cy, false);
+
+                isClusterNodesDirty[c] = true;
+
+                if (cx > 0) {
+                    eastTransitions[c - 1] = computeTransitions(cx - 1, cy, true);
+                    isClusterNodesDirty[c - 1] = true;
+                }
+
+                if (cy > 0) {
+                    southTransitions[c - numClustersX] = computeTransitions(cx, cy - 1, false);
+                    isClusterNodesDirty[c - numClustersX] = true;
+                }
+
+                if (cx < numClustersX - 1)
+                    isClusterNodesDirty[c + 1] = true;
+
+                if (cy < numClustersY - 1)
+                    isClusterNodesDirty[c + numClustersX] = true;
+
+                isClusterDirty[c] = false;
+            }
+        }
+
+        for (int c = 0; c < clusters.length; c++) {
+            if (isClusterNodesDirty[c]) {
+                rebuildNodes(c);
+                isClusterNodesDirty[c] = false;
+            }
+        }
+
+        hasDirtyClusters = false;
+    }
+
+    /**
+     * @return transitions across the east border (if isEast) or the south border of cluster (cx, cy)
+     */
+    private int[] computeTransitions(int cx, int cy, boolean isEast) {
+        if (isEast ? cx == numClustersX - 1 : cy == numClustersY - 1)
+            return new int[0];
+
+        var cluster = clusters[cy * numClustersX + cx];
+
+        // the border is a line of cells in this cluster, each facing a cell at (dx, dy) in the next cluster
+        int dx = isEast ? 1 : 0;
+        int dy = isEast ? 0 : 1;
+
+        int x0 = isEast ? cluster.maxX - 1 : cluster.minX;
+        int y0 = isEast ? cluster.minY : cluster.maxY - 1;
+        int length = isEast ? cluster.maxY - cluster.minY : cluster.maxX - cluster.minX;
+
+        var result = new int[0];
+        int numResult = 0;
+
+        int runStart = NOT_FOUND;
+
+        for (int i = 0; i <= length; i++) {
+            int x = x0 + i * dy;
+            int y = y0 + i * dx;
+
+            boolean isOpen = i < length
+                    && isWalkable(y * width + x)
+                    && isWalkable((y + dy) * width + x + dx);
+
+            if (isOpen) {
+                if (runStart == NOT_FOUND)
+                    runStart = i;
+
+                continue;
+            }
+
+            if (runStart == NOT_FOUND)
+                continue;
+
+            int runEnd = i - 1;
+
+            if (result.length < numResult + 4)
+                result = Arrays.copyOf(result, numResult + 8);
+
+            if (runEnd - runStart + 1 < MAX_ENTRANCE_WIDTH) {
+                int mid = (runStart + runEnd) / 2;
+
+                numResult = addTransition(result, numResult, x0 + mid * dy, y0 + mid * dx, dx, dy);
+            } else {
+                numResult = addTransition(result, numResult, x0 + runStart * dy, y0 + runStart * dx, dx, dy);
+                numResult = addTransition(result, numResult, x0 + runEnd * dy, y0 + runEnd * dx, dx, dy);
+            }
+
+            runStart = NOT_FOUND;
+        }
+
+        return Arrays.copyOf(result, numResult);
+    }
+
+    private int addTransition(int[] result, int n, int x, int y, int dx, int dy) {
+        result[n] = y * width + x;
+        result[n + 1] = (y + dy) * width + x + dx;
+        return n + 2;
+    }
+
+    private void rebuildNodes(int c) {
+        var cluster = clusters[c];
+        cluster.clear();
+
+        int[] east = eastTransitions[c];
+        for (int i = 0; i < east.length; i += 2) {
+            cluster.addNode(east[i], east[i + 1]);
+        }
+
+        int[] south = southTransitions[c];
+        for (int i = 0; i < south.length; i += 2) {
+            cluster.addNode(south[i], south[i + 1]);
+        }
+
+        if (c % numClustersX > 0) {
+            int[] west = eastTransitions[c - 1];
+            for (int i = 0; i < west.length; i += 2) {
+                cluster.addNode(west[i + 1], west[i]);
+            }
+        }
+
+        if (c >= numClustersX) {
+            int[] north = southTransitions[c - numClustersX];
+            for (int i = 0; i < north.length; i += 2) {
+                cluster.addNode(north[i + 1], north[i]);
+            }
+        }
+    }
+
+    /**
+     * @return distances between abstract nodes of the cluster, computing them if needed
+     */
+    private int[] getDistances(Cluster cluster, boolean isDiagonal) {
+        int mode = isDiagonal ? 1 : 0;
+
+        if (cluster.distances[mode] == null) {
+            int n = cluster.numNodes;
+            int[] distances = new int[n * n];
+
+            for (int i = 0; i < n; i++) {
+                searchCluster(cluster, cluster.nodes[i], NOT_FOUND, false, isDiagonal);
+
+                for (int j = 0; j < n; j++) {
+                    int node = cluster.nodes[j];
+
+                    distances[i * n + j] = localData.isClosed(node) ? localData.gCosts[node] : UNREACHABLE;
+                }
+            }
+
+            cluster.distances[mode] = distances;
+        }
+
+        return cluster.distances[mode];
+    }
+
+    private List<AStarCell> findAbstractPath(int start, int target, boolean isDiagonal) {
+        var startCluster = clusters[clusterIndexOf(start)];
+        var targetCluster = clusters[clusterIndexOf(target)];
+
+        // costs from start to nodes of its cluster and from nodes of target cluster to target
+        int[] startCosts = computeCostsToNodes(startCluster, start, false, isDiagonal);
+        int[] targetCosts = computeCostsToNodes(targetCluster, target, true, isDiagonal);
+
+        Heuristic<AStarCell> heuristic = isDiagonal ? diagonalHeuristic : defaultHeuristic;
+
+        int targetX = target % width;
+        int targetY = target / width;
+
+        abstractData.begin(width * height);
+        abstractData.visit(start, 0, 0, NOT_FOUND);
+        abstractData.push(start);
+
+        while (!abstractData.isOpenEmpty()) {
+            int current = abstractData.pop();
+
+            if (current == target)
+                return refinePath(target, isDiagonal);
+
+            abstractData.close(current);
+
+            int gCost = abstractData.gCosts[current];
+
+            var cluster = clusters[clusterIndexOf(current)];
+
+            if (current == start) {
+                for (int j = 0; j < startCluster.numNodes; j++) {
+                    relaxAbstract(startCluster.nodes[j], gCost, startCosts[j], current, heuristic, targetX, targetY);
+                }
+            }
+
+            int i = cluster.indexOf(current);
+
+            if (i == NOT_FOUND)
+                continue;
+
+            int n = cluster.numNodes;
+            int[] distances = getDistances(cluster, isDiagonal);
+
+            for (int j = 0; j < n; j++) {
+                relaxAbstract(cluster.nodes[j], gCost, distances[i * n + j], current, heuristic, targetX, targetY);
+            }
+
+            int[] partners = cluster.partners[i];
+
+            for (int partner : partners) {
+                int cost = defaultHeuristic.getWeight() * cellAt(partner).getMovementCost();
+
+                relaxAbstract(partner, gCost, cost, current, heuristic, targetX, targetY);
+            }
+
+            if (cluster == targetCluster) {
+                relaxAbstract(target, gCost, targetCosts[i], current, heuristic, targetX, targetY);
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    private void relaxAbstract(int node, int gCost, int edgeCost, int parent, Heuristic<AStarCell> heuristic, int targetX, int targetY) {
+        if (edgeCost == UNREACHABLE || abstractData.isClosed(node))
+            return;
+
+        abstractData.relax(node, gCost + edgeCost, heuristic.getCost(node % width, node / width, targetX, targetY), parent);
+    }
+
+    /**
+     * @return costs from given cell to each node of the cluster (or from each node to given cell if isReverse)
+     */
+    private int[] computeCostsToNodes(Cluster cluster, int cell, boolean isReverse, boolean isDiagonal) {
+        searchCluster(cluster, cell, NOT_FOUND, isReverse, isDiagonal);
+
+        int[] costs = new int[cluster.numNodes];
+
+        for (int j = 0; j < cluster.numNodes; j++) {
+            int node = cluster.nodes[j];
+
+            costs[j] = localData.isClosed(node) ? localData.gCosts[node] : UNREACHABLE;
+        }
+
+        return costs;
+    }
+
+    /**
+     * Turns the abstract path from start to target into a path of adjacent cells.
+     */
+    private List<AStarCell> refinePath(int target, boolean isDiagonal) {
+        List<Integer> abstractPath = new ArrayList<>();
+
+        int node = target;
+
+        while (node != NOT_FOUND) {
+            abstractPath.add(node);
+            node = abstractData.parents[node];
+        }
+
+        Collections.reverse(abstractPath);
+
+        List<AStarCell> path = new ArrayList<>();
+
+        for (int i = 1; i < abstractPath.size(); i++) {
+            int from = abstractPath.get(i - 1);
+            int to = abstractPath.get(i);
+
+            var cluster = clusters[clusterIndexOf(from)];
+
+            if (cluster != clusters[clusterIndexOf(to)]) {
+                // transition between two clusters
+                path.add(cellAt(to));
+            } else {
+                searchCluster(cluster, from, to, false, isDiagonal);
+                appendLocalPath(path, from, to);
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Appends the path from start (excl) to target (incl) found by the last local search.
+     */
+    private void appendLocalPath(List<AStarCell> path, int start, int target) {
+        int size = path.size();
+
+        int cell = target;
+
+        while (cell != start) {
+            path.add(cellAt(cell));
+            cell = localData.parents[cell];
+        }
+
+        Collections.reverse(path.subList(size, path.size()));
+    }
+
+    /**
+     * Searches from start within bounds of the cluster.
+     * If target is NOT_FOUND, all reachable cells of the cluster are closed with their costs from start,
+     * otherwise the search stops when target is reached.
+     * If isReverse, costs are of moving from each cell to start, rather than from start to each cell.
+     *
+     * @return true if target was reached
+     */
+    private boolean searchCluster(Cluster cluster, int start, int target, boolean isReverse, boolean isDiagonal) {
+        localData.begin(width * height);
+        localData.visit(start, 0, 0, NOT_FOUND);
+        localData.push(start);
+
+        Heuristic<AStarCell> heuristic = isDiagonal ? diagonalHeuristic : defaultHeuristic;
+
+        int targetX = target % width;
+        int targetY = target / width;
+
+        int numNeighbors = isDiagonal ? 8 : 4;
+
+        while (!localData.isOpenEmpty()) {
+            int current = localData.pop();
+
+            localData.close(current);
+
+            if (current == target)
+                return true;
+
+            int x = current % width;
+            int y = current / width;
+
+            for (int i = 0; i < numNeighbors; i++) {
+                int nx = x + NEIGHBOR_DX[i];
+                int ny = y + NEIGHBOR_DY[i];
+
+                if (nx < cluster.minX || ny < cluster.minY || nx >= cluster.maxX || ny >= cluster.maxY)
+                    continue;
+
+                int neighbor = ny * width + nx;
+
+                if (localData.isClosed(neighbor) || !isWalkable(neighbor))
+                    continue;
+
+                int weight = i >= 4 ? diagonalHeuristic.getDiagonalWeight() : defaultHeuristic.getWeight();
+
+                // cost of entering a cell is paid by the cell being entered
+                int cost = weight * cellAt(isReverse ? current : neighbor).getMovementCost();
+
+                int hCost = target == NOT_FOUND ? 0 : heuristic.getCost(nx, ny, targetX, targetY);
+
+                localData.relax(neighbor, localData.gCosts[current] + cost, hCost, current);
+            }
+        }
+
+        return false;
+    }
+
+    private int clusterIndexOf(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+
+        return (y / clusterSize) * numClustersX + x / clusterSize;
+    }
+
+    private AStarCell cellAt(int cell) {
+        return grid.get(cell % width, cell / width);
+    }
+
+    private boolean isWalkable(int cell) {
+        return cellAt(cell).isWalkable();
+    }
+
+    /**
+     * A square area of the grid, with abstract nodes at its entrances.
+     */
+    private static final class Cluster {
+
+        final int minX;
+        final int minY;
+
+        /**
+         * Exclusive.
+         */
+        final int maxX;
+        final int maxY;
+
+        int[] nodes = new int[4];
+
+        /**
+         * Cells in adjacent clusters that each node has a transition to.
+         */
+        int[][] partners = new int[4][];
+
+        int numNodes = 0;
+
+        /**
+         * Distances from node i to node j at [i * numNodes + j], for 4 and 8 directions.
+         * Null if not yet computed.
+         */
+        final int[][] distances = new int[2][];
+
+        Cluster(int minX, int minY, int maxX, int maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        void clear() {
+            numNodes = 0;
+            distances[0] = null;
+            distances[1] = null;
+        }
+
+        void addNode(int cell, int partner) {
+            int i = indexOf(cell);
+
+            if (i == NOT_FOUND) {
+                if (numNodes == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, numNodes * 2);
+                    partners = Arrays.copyOf(partners, numNodes * 2);
+                }
+
+                i = numNodes++;
+                nodes[i] = cell;
+                partners[i] = new int[0];
+            }
+
+            partners[i] = Arrays.copyOf(partners[i], partners[i].length + 1);
+            partners[i][partners[i].length - 1] = partner;
+        }
+
+        int indexOf(int cell) {
+            for (int i = 0; i < numNodes; i++) {
+                if (nodes[i] == cell)
+                    return i;
+            }
+
+            return NOT_FOUND;
+        }
+    }
+}
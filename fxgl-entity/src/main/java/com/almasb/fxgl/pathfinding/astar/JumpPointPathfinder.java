@@ -0,0 +1,352 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.Pathfinder;
+import com.almasb.fxgl.pathfinding.heuristic.Heuristic;
+import com.almasb.fxgl.pathfinding.heuristic.ManhattanDistance;
+import com.almasb.fxgl.pathfinding.heuristic.OctileDistance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+
+/**
+ * Jump Point Search (Harabor and Grastien) over a uniform-cost {@link AStarGrid}.
+ * Instead of adding every neighbor to the open set, the search jumps along straight
+ * (and diagonal) lines and only adds cells with forced neighbors, which makes it much faster
+ * than {@link AStarPathfinder} on large open maps.
+ * Movement costs of cells are ignored, so paths are only optimal if all cells have the same cost.
+ * With 8 directions, diagonal moves are allowed whenever the diagonal cell is walkable,
+ * same as in {@link AStarPathfinder}.
+ * An instance must not be used to search from multiple threads at the same time.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class JumpPointPathfinder implements Pathfinder<AStarCell> {
+
+    private static final int NOT_FOUND = -1;
+
+    private final AStarGrid grid;
+
+    private final Heuristic<AStarCell> defaultHeuristic = new ManhattanDistance<>();
+    private final Heuristic<AStarCell> diagonalHeuristic = new OctileDistance<>();
+
+    /**
+     * Search data, indexed by y * width + x.
+     */
+    private final SearchData data = new SearchData();
+
+    /**
+     * Directions (dx, dy) to jump in from the cell being expanded.
+     */
+    private final int[] directions = new int[16];
+
+    private int targetIndex;
+
+    public JumpPointPathfinder(AStarGrid grid) {
+        this.grid = grid;
+    }
+
+    public AStarGrid getGrid() {
+        return grid;
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, Collections.emptyList());
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        return findPath(sourceX, sourceY, targetX, targetY, neighborDirection, Collections.emptyList());
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, List<AStarCell> busyCells) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, busyCells);
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection, List<AStarCell> busyCells) {
+        int width = grid.getWidth();
+
+        data.begin(width * grid.getHeight());
+
+        for (int i = 0; i < busyCells.size(); i++) {
+            var busy = busyCells.get(i);
+            data.block(busy.getY() * width + busy.getX());
+        }
+
+        int startIndex = sourceY * width + sourceX;
+        targetIndex = targetY * width + targetX;
+
+        if (startIndex == targetIndex || !isWalkable(targetX, targetY))
+            return Collections.emptyList();
+
+        boolean isDiagonal = neighborDirection != FOUR_DIRECTIONS;
+        Heuristic<AStarCell> heuristic = isDiagonal ? diagonalHeuristic : defaultHeuristic;
+
+        data.visit(startIndex, 0, 0, -1);
+
+        int current = startIndex;
+
+        while (current != targetIndex) {
+            data.close(current);
+
+            int x = current % width;
+            int y = current / width;
+
+            int numDirections = isDiagonal ? findDirectionsDiagonal(current, x, y) : findDirections(current, x, y);
+
+            for (int i = 0; i < numDirections; i += 2) {
+                int dx = directions[i];
+                int dy = directions[i + 1];
+
+                int jumpPoint = isDiagonal ? jumpDiagonal(x + dx, y + dy, dx, dy) : jump(x + dx, y + dy, dx, dy);
+
+                if (jumpPoint == NOT_FOUND || data.isClosed(jumpPoint))
+                    continue;
+
+                int jx = jumpPoint % width;
+                int jy = jumpPoint / width;
+
+                int gCost = data.gCosts[current] + heuristic.getCost(x, y, jx, jy);
+
+                data.relax(jumpPoint, gCost, heuristic.getCost(jx, jy, targetX, targetY), current);
+            }
+
+            if (data.isOpenEmpty())
+                return Collections.emptyList();
+
+            current = data.pop();
+        }
+
+        return buildPath(startIndex);
+    }
+
+    /**
+     * Fills {@code directions} with directions to jump in from given cell, when moving in 4 directions.
+     *
+     * @return number of ints written, i.e. 2 * number of directions
+     */
+    private int findDirections(int index, int x, int y) {
+        int parent = data.parents[index];
+
+        int n = 0;
+
+        if (parent == NOT_FOUND) {
+            n = addDirection(n, -1, 0);
+            n = addDirection(n, 0, -1);
+            n = addDirection(n, 1, 0);
+            n = addDirection(n, 0, 1);
+            return n;
+        }
+
+        int dx = Integer.signum(x - parent % grid.getWidth());
+        int dy = Integer.signum(y - parent / grid.getWidth());
+
+        if (dx != 0) {
+            n = addDirection(n, 0, -1);
+            n = addDirection(n, 0, 1);
+            n = addDirection(n, dx, 0);
+        } else {
+            n = addDirection(n, -1, 0);
+            n = addDirection(n, 1, 0);
+            n = addDirection(n, 0, dy);
+        }
+
+        return n;
+    }
+
+    /**
+     * Fills {@code directions} with directions to jump in from given cell, when moving in 8 directions.
+     * These are natural neighbors in the direction of travel and forced neighbors around obstacles.
+     *
+     * @return number of ints written, i.e. 2 * number of directions
+     */
+    private int findDirectionsDiagonal(int index, int x, int y) {
+        int parent = data.parents[index];
+
+        int n = 0;
+
+        if (parent == NOT_FOUND) {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx != 0 || dy != 0) {
+                        n = addDirection(n, dx, dy);
+                    }
+                }
+            }
+
+            return n;
+        }
+
+        int dx = Integer.signum(x - parent % grid.getWidth());
+        int dy = Integer.signum(y - parent / grid.getWidth());
+
+        if (dx != 0 && dy != 0) {
+            n = addDirection(n, 0, dy);
+            n = addDirection(n, dx, 0);
+            n = addDirection(n, dx, dy);
+
+            if (!isWalkable(x - dx, y))
+                n = addDirection(n, -dx, dy);
+
+            if (!isWalkable(x, y - dy))
+                n = addDirection(n, dx, -dy);
+
+        } else if (dx != 0) {
+            n = addDirection(n, dx, 0);
+
+            if (!isWalkable(x, y + 1))
+                n = addDirection(n, dx, 1);
+
+            if (!isWalkable(x, y - 1))
+                n = addDirection(n, dx, -1);
+
+        } else {
+            n = addDirection(n, 0, dy);
+
+            if (!isWalkable(x + 1, y))
+                n = addDirection(n, 1, dy);
+
+            if (!isWalkable(x - 1, y))
+                n = addDirection(n, -1, dy);
+        }
+
+        return n;
+    }
+
+    private int addDirection(int n, int dx, int dy) {
+        directions[n] = dx;
+        directions[n + 1] = dy;
+        return n + 2;
+    }
+
+    /**
+     * Jumps from (x, y) in direction (dx, dy), when moving in 4 directions.
+     *
+     * @return index of the jump point or NOT_FOUND
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!isWalkable(x, y))
+                return NOT_FOUND;
+
+            int index = y * grid.getWidth() + x;
+
+            if (index == targetIndex)
+                return index;
+
+            if (dx != 0) {
+                if ((isWalkable(x, y - 1) && !isWalkable(x - dx, y - 1))
+                        || (isWalkable(x, y + 1) && !isWalkable(x - dx, y + 1)))
+                    return index;
+
+            } else {
+                if ((isWalkable(x - 1, y) && !isWalkable(x - 1, y - dy))
+                        || (isWalkable(x + 1, y) && !isWalkable(x + 1, y - dy)))
+                    return index;
+
+                // when moving vertically, check for horizontal jump points
+                if (jump(x + 1, y, 1, 0) != NOT_FOUND || jump(x - 1, y, -1, 0) != NOT_FOUND)
+                    return index;
+            }
+
+            x += dx;
+            y += dy;
+        }
+    }
+
+    /**
+     * Jumps from (x, y) in direction (dx, dy), when moving in 8 directions.
+     *
+     * @return index of the jump point or NOT_FOUND
+     */
+    private int jumpDiagonal(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!isWalkable(x, y))
+                return NOT_FOUND;
+
+            int index = y * grid.getWidth() + x;
+
+            if (index == targetIndex)
+                return index;
+
+            if (dx != 0 && dy != 0) {
+                if ((isWalkable(x - dx, y + dy) && !isWalkable(x - dx, y))
+                        || (isWalkable(x + dx, y - dy) && !isWalkable(x, y - dy)))
+                    return index;
+
+                // when moving diagonally, check for horizontal and vertical jump points
+                if (jumpDiagonal(x + dx, y, dx, 0) != NOT_FOUND || jumpDiagonal(x, y + dy, 0, dy) != NOT_FOUND)
+                    return index;
+
+            } else if (dx != 0) {
+                if ((isWalkable(x + dx, y + 1) && !isWalkable(x, y + 1))
+                        || (isWalkable(x + dx, y - 1) && !isWalkable(x, y - 1)))
+                    return index;
+
+            } else {
+                if ((isWalkable(x + 1, y + dy) && !isWalkable(x + 1, y))
+                        || (isWalkable(x - 1, y + dy) && !isWalkable(x - 1, y)))
+                    return index;
+            }
+
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private boolean isWalkable(int x, int y) {
+        return grid.isWithin(x, y)
+                && grid.get(x, y).isWalkable()
+                && !data.isBlocked(y * grid.getWidth() + x);
+    }
+
+    /**
+     * Jump points are connected by straight or diagonal lines,
+     * so the path is built by walking each line from one jump point to the next.
+     */
+    private List<AStarCell> buildPath(int startIndex) {
+        int width = grid.getWidth();
+
+        List<AStarCell> path = new ArrayList<>();
+
+        int index = targetIndex;
+
+        while (index != startIndex) {
+            int parent = data.parents[index];
+
+            int x = index % width;
+            int y = index / width;
+
+            int px = parent % width;
+            int py = parent / width;
+
+            int dx = Integer.signum(px - x);
+            int dy = Integer.signum(py - y);
+
+            // walk back to parent, excluding it
+            while (x != px || y != py) {
+                path.add(grid.get(x, y));
+
+                x += dx;
+                y += dy;
+            }
+
+            index = parent;
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+}
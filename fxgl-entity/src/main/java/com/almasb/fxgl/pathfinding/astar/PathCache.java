@@ -0,0 +1,178 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A bounded LRU cache of paths computed on an {@link AStarGrid}.
+ * When the cache is full, the least recently used path is evicted.
+ * A path is invalidated when any cell on it changes walkability or movement cost.
+ * Invalidation is lazy: each cell records when it last changed and a cached path
+ * is checked against its cells when it is looked up, so changing a cell is O(1).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class PathCache {
+
+    private final AStarGrid grid;
+    private final int width;
+
+    /**
+     * Value of {@code changeCount} when each cell last changed, indexed by y * width + x.
+     */
+    private final int[] lastChanged;
+    private int changeCount = 0;
+
+    private int maxSize;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+            if (size() > maxSize) {
+                numEvictions++;
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    private long numHits = 0;
+    private long numMisses = 0;
+    private long numEvictions = 0;
+    private long numInvalidations = 0;
+
+    private final Consumer<AStarCell> cellChangeListener = this::onCellChanged;
+
+    PathCache(AStarGrid grid, int maxSize) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.lastChanged = new int[grid.getWidth() * grid.getHeight()];
+
+        setMaxSize(maxSize);
+
+        grid.addCellChangeListener(cellChangeListener);
+    }
+
+    /**
+     * Stops listening to cell changes of the grid.
+     */
+    void dispose() {
+        grid.removeCellChangeListener(cellChangeListener);
+    }
+
+    private void onCellChanged(AStarCell cell) {
+        lastChanged[cell.getY() * width + cell.getX()] = ++changeCount;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Max cache size must be positive: " + maxSize);
+
+        this.maxSize = maxSize;
+
+        var it = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            it.next();
+            it.remove();
+            numEvictions++;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return cached path or null if no valid path is cached for given key
+     */
+    List<AStarCell> get(CacheKey key) {
+        var entry = entries.get(key);
+
+        if (entry != null && !isValid(entry)) {
+            entries.remove(key);
+            numInvalidations++;
+            entry = null;
+        }
+
+        if (entry == null) {
+            numMisses++;
+            return null;
+        }
+
+        numHits++;
+        return entry.path;
+    }
+
+    void put(CacheKey key, List<AStarCell> path) {
+        entries.put(key, new Entry(path, changeCount));
+    }
+
+    private boolean isValid(Entry entry) {
+        // nothing changed since the path was cached
+        if (entry.changeCount == changeCount)
+            return true;
+
+        for (int i = 0; i < entry.path.size(); i++) {
+            var cell = entry.path.get(i);
+
+            if (lastChanged[cell.getY() * width + cell.getX()] > entry.changeCount)
+                return false;
+        }
+
+        return true;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    long getNumHits() {
+        return numHits;
+    }
+
+    long getNumMisses() {
+        return numMisses;
+    }
+
+    long getNumEvictions() {
+        return numEvictions;
+    }
+
+    long getNumInvalidations() {
+        return numInvalidations;
+    }
+
+    void resetStatistics() {
+        numHits = 0;
+        numMisses = 0;
+        numEvictions = 0;
+        numInvalidations = 0;
+    }
+
+    private static final class Entry {
+        private final List<AStarCell> path;
+
+        /**
+         * Value of changeCount when the path was cached.
+         */
+        private final int changeCount;
+
+        Entry(List<AStarCell> path, int changeCount) {
+            this.path = path;
+            this.changeCount = changeCount;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import java.util.Arrays;
+
+/**
+ * Per-node data of a best-first search over nodes indexed by int (typically y * width + x),
+ * kept in flat arrays that are reused across searches.
+ * Instead of resetting data for all nodes, each search increments a stamp,
+ * so data written by previous searches becomes stale.
+ * The open set is an indexed binary min-heap ordered by F cost.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class SearchData {
+
+    int[] gCosts = new int[0];
+    int[] fCosts = new int[0];
+    int[] parents = new int[0];
+
+    private int[] visitedStamps = new int[0];
+    private int[] closedStamps = new int[0];
+    private int[] blockedStamps = new int[0];
+    private int stamp = 0;
+
+    private int[] heap = new int[0];
+    private int[] heapIndices = new int[0];
+    private int heapSize = 0;
+
+    /**
+     * Prepares data for a new search over given number of nodes.
+     */
+    void begin(int numNodes) {
+        if (gCosts.length != numNodes) {
+            gCosts = new int[numNodes];
+            fCosts = new int[numNodes];
+            parents = new int[numNodes];
+            heap = new int[numNodes];
+            heapIndices = new int[numNodes];
+            visitedStamps = new int[numNodes];
+            closedStamps = new int[numNodes];
+            blockedStamps = new int[numNodes];
+            stamp = 0;
+        }
+
+        stamp++;
+
+        // on overflow, stale stamps could match again, so reset them
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamps, 0);
+            Arrays.fill(closedStamps, 0);
+            Arrays.fill(blockedStamps, 0);
+            stamp = 1;
+        }
+
+        heapSize = 0;
+    }
+
+    boolean isVisited(int index) {
+        return visitedStamps[index] == stamp;
+    }
+
+    boolean isClosed(int index) {
+        return closedStamps[index] == stamp;
+    }
+
+    void close(int index) {
+        closedStamps[index] = stamp;
+    }
+
+    /**
+     * Blocked nodes cannot be entered during the current search.
+     */
+    boolean isBlocked(int index) {
+        return blockedStamps[index] == stamp;
+    }
+
+    void block(int index) {
+        blockedStamps[index] = stamp;
+    }
+
+    /**
+     * Records data of a node seen for the first time in this search, without adding it to the open set.
+     */
+    void visit(int index, int gCost, int hCost, int parent) {
+        visitedStamps[index] = stamp;
+        gCosts[index] = gCost;
+        fCosts[index] = gCost + hCost;
+        parents[index] = parent;
+    }
+
+    /**
+     * Visits the node if seen for the first time and adds it to the open set,
+     * or updates its data if {@code gCost} is lower than the known G cost.
+     * Closed nodes are ignored.
+     */
+    void relax(int index, int gCost, int hCost, int parent) {
+        if (!isVisited(index)) {
+            visit(index, gCost, hCost, parent);
+            push(index);
+
+        } else if (gCost < gCosts[index] && !isClosed(index)) {
+            parents[index] = parent;
+            fCosts[index] += gCost - gCosts[index];
+            gCosts[index] = gCost;
+            siftUp(heapIndices[index]);
+        }
+    }
+
+    boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    void push(int index) {
+        heap[heapSize] = index;
+        heapIndices[index] = heapSize;
+        heapSize++;
+
+        siftUp(heapSize - 1);
+    }
+
+    /**
+     * @return node with the lowest F cost, removed from the open set
+     */
+    int pop() {
+        int top = heap[0];
+
+        heapSize--;
+
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndices[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    private void siftUp(int pos) {
+        int index = heap[pos];
+        int fCost = fCosts[index];
+
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parent = heap[parentPos];
+
+            if (fCosts[parent] <= fCost)
+                break;
+
+            heap[pos] = parent;
+            heapIndices[parent] = pos;
+            pos = parentPos;
+        }
+
+        heap[pos] = index;
+        heapIndices[index] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int index = heap[pos];
+        int fCost = fCosts[index];
+
+        int half = heapSize >>> 1;
+
+        while (pos < half) {
+            int childPos = 2 * pos + 1;
+            int child = heap[childPos];
+
+            int rightPos = childPos + 1;
+
+            if (rightPos < heapSize && fCosts[heap[rightPos]] < fCosts[child]) {
+                childPos = rightPos;
+                child = heap[childPos];
+            }
+
+            if (fCost <= fCosts[child])
+                break;
+
+            heap[pos] = child;
+            heapIndices[child] = pos;
+            pos = childPos;
+        }
+
+        heap[pos] = index;
+        heapIndices[index] = pos;
+    }
+}
@@ -7,8 +7,26 @@
 package com.almasb.fxgl.physics;
 
 /**
+ * Strategy used to find pairs of collidable entities that need a collision check,
+ * when at least one entity in the pair is not handled by the physics engine.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 public enum CollisionDetectionStrategy {
-    BRUTE_FORCE, GRID_INDEXING
+
+    /**
+     * Every pair of collidable entities is checked.
+     */
+    BRUTE_FORCE,
+
+    /**
+     * Entities are inserted into a uniform grid every frame and pairs within each cell are checked.
+     */
+    GRID_INDEXING,
+
+    /**
+     * Entities are kept in a dynamic AABB tree that is updated incrementally,
+     * and only pairs whose AABBs overlap are checked.
+     */
+    BROAD_PHASE_TREE
 }
@@ -327,17 +327,40 @@ public final class PhysicsComponent extends Component {
 
     private Vec2 minMeters = Pools.obtain(Vec2.class);
 
+    /**
+     * Body state before the last fixed step, used to interpolate entity transform.
+     */
+    private Vec2 prevPosition = Pools.obtain(Vec2.class);
+    private float prevAngle = 0f;
+
+    void saveBodyState() {
+        prevPosition.set(body.getPosition());
+        prevAngle = body.getAngle();
+    }
+
     @Override
     public void onUpdate(double tpf) {
         if (body == null)
             return;
 
+        float x = getBody().getPosition().x;
+        float y = getBody().getPosition().y;
+        float angle = getBody().getAngle();
+
+        float alpha = (float) getPhysicsWorld().getInterpolationAlpha();
+
+        if (alpha < 1) {
+            x = prevPosition.x + (x - prevPosition.x) * alpha;
+            y = prevPosition.y + (y - prevPosition.y) * alpha;
+            angle = prevAngle + (angle - prevAngle) * alpha;
+        }
+
         // these give us min world coordinates of the overall bbox
         // but they are not coordinates of the entity
 
         minMeters.set(
-                getBody().getPosition().x - getPhysicsWorld().toMetersF(entity.getWidth() / 2),
-                getBody().getPosition().y + getPhysicsWorld().toMetersF(entity.getHeight() / 2)
+                x - getPhysicsWorld().toMetersF(entity.getWidth() / 2),
+                y + getPhysicsWorld().toMetersF(entity.getHeight() / 2)
         );
 
         Point2D minWorld = getPhysicsWorld().toPoint(minMeters);
@@ -354,12 +377,13 @@ public final class PhysicsComponent extends Component {
                 Math.round(minWorld.getY() - entity.getBoundingBoxComponent().getMinYLocal())
         );
 
-        entity.setRotation(-Math.toDegrees(getBody().getAngle()));
+        entity.setRotation(-Math.toDegrees(angle));
     }
 
     @Override
     public void onRemoved() {
         Pools.free(minMeters);
+        Pools.free(prevPosition);
     }
 
     /**
@@ -378,6 +402,9 @@ public final class PhysicsComponent extends Component {
         ));
 
         getBody().setTransform(positionMeters, getBody().getAngle());
+
+        // do not interpolate from the old position
+        saveBodyState();
     }
 
     /**
@@ -388,6 +415,8 @@ public final class PhysicsComponent extends Component {
      */
     public void overwriteAngle(double angDegrees) {
         getBody().setTransform(getBody().getPosition(), (float) -FXGLMath.toRadians(angDegrees));
+
+        saveBodyState();
     }
 
     @Override
@@ -0,0 +1,88 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.physics;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Binary state of a physics world, taken by {@link PhysicsWorld#takeSnapshot(PhysicsSnapshot)}.
+ * A snapshot can be reused to take snapshots repeatedly (e.g. each frame for rollback)
+ * without allocating, once its buffer is large enough.
+ * A snapshot can only be restored into a physics world with the same bodies, fixtures, joints and particles.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class PhysicsSnapshot {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private ByteBuffer buffer;
+
+    public PhysicsSnapshot() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity initial size of the buffer in bytes, the buffer grows when needed
+     */
+    public PhysicsSnapshot(int capacity) {
+        buffer = ByteBuffer.allocate(Math.max(capacity, 64));
+        buffer.limit(0);
+    }
+
+    /**
+     * Clears this snapshot and passes the buffer to writer, doubling the buffer until the writer fits.
+     */
+    void write(Consumer<ByteBuffer> writer) {
+        while (true) {
+            buffer.clear();
+
+            try {
+                writer.accept(buffer);
+                buffer.flip();
+                return;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * @return a view of the snapshot data positioned at the start, so the same snapshot can be read many times
+     */
+    ByteBuffer read() {
+        return buffer.duplicate().rewind();
+    }
+
+    /**
+     * @return size of the snapshot data in bytes
+     */
+    public int getSize() {
+        return buffer.limit();
+    }
+
+    /**
+     * @return a copy of the snapshot data, e.g. to be sent over network or stored in a replay
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[buffer.limit()];
+        read().get(data);
+        return data;
+    }
+
+    /**
+     * @return snapshot with a copy of given data that was obtained from {@link #toByteArray()}
+     */
+    public static PhysicsSnapshot fromByteArray(byte[] data) {
+        var snapshot = new PhysicsSnapshot(data.length);
+        snapshot.buffer.clear();
+        snapshot.buffer.put(data);
+        snapshot.buffer.flip();
+        return snapshot;
+    }
+}
@@ -28,6 +28,7 @@ import javafx.beans.value.ChangeListener;
 import javafx.geometry.Point2D;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -54,7 +55,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     private UnorderedPairMap<Object, CollisionHandler> collisionHandlers = new UnorderedPairMap<>(16);
 
     // stores active collisions
-    private UnorderedPairMap<Entity, CollisionPair> collisionsMap = new UnorderedPairMap<>(128);
+    private UnorderedPairMap<Entity, CollisionPair> collisionsMap = new UnorderedPairMap<>(128, Entity::getRuntimeID);
 
     private CollisionDetectionStrategy strategy;
 
@@ -149,6 +150,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     @Override
     public void onEntityRemoved(Entity entity) {
         entities.removeValueByIdentity(entity);
+        collisionTree.remove(entity);
 
         if (entity.hasComponent(PhysicsComponent.class)) {
             onPhysicsEntityRemoved(entity);
@@ -172,14 +174,243 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         }
     }
 
+    private int velocityIterations = 8;
+    private int positionIterations = 3;
+
+    /**
+     * Duration of a physics step in seconds, or 0 if each frame is a single step of tpf.
+     */
+    private double fixedTimeStep = 0;
+    private int maxSubSteps = 5;
+
+    /**
+     * Time not yet simulated by fixed steps.
+     */
+    private double accumulator = 0;
+    private double interpolationAlpha = 1;
+
     public void onUpdate(double tpf) {
-        jboxWorld.step((float) tpf, 8, 3);
+        if (fixedTimeStep > 0) {
+            stepFixed(tpf);
+        } else {
+            jboxWorld.step((float) tpf, velocityIterations, positionIterations);
+        }
+
+        // once per frame, since a frame may have no fixed steps
         postStep();
 
         checkCollisions();
         notifyCollisions();
     }
 
+    private void stepFixed(double tpf) {
+        accumulator += tpf;
+
+        int numSubSteps = 0;
+
+        while (accumulator >= fixedTimeStep && numSubSteps < maxSubSteps) {
+            saveBodyStates();
+
+            jboxWorld.step((float) fixedTimeStep, velocityIterations, positionIterations);
+
+            accumulator -= fixedTimeStep;
+            numSubSteps++;
+        }
+
+        // if we cannot keep up, drop the time we are behind by,
+        // otherwise each next frame would have to do more steps (spiral of death)
+        if (accumulator >= fixedTimeStep) {
+            accumulator %= fixedTimeStep;
+        }
+
+        interpolationAlpha = accumulator / fixedTimeStep;
+    }
+
+    /**
+     * Saves states of bodies before a fixed step, so that entities can be interpolated.
+     */
+    private void saveBodyStates() {
+        for (Body body : jboxWorld.getBodies()) {
+            Entity e = body.getEntity();
+
+            if (e != null && e.hasComponent(PhysicsComponent.class)) {
+                e.getComponent(PhysicsComponent.class).saveBodyState();
+            }
+        }
+    }
+
+    /**
+     * Enables fixed timestep mode, where physics is stepped by given duration, regardless of frame rate.
+     * Time passed in each frame is accumulated, and as many steps as fit in the accumulated time are performed,
+     * up to {@link #setMaxSubSteps(int)}.
+     * Entities are interpolated between the last two body states by the remaining fraction of a step.
+     * By default, the mode is disabled, and each frame is a single step of tpf.
+     *
+     * @param seconds step duration (e.g. 1.0 / 60), or 0 to disable fixed timestep mode
+     */
+    public void setFixedTimeStep(double seconds) {
+        if (seconds < 0)
+            throw new IllegalArgumentException("Fixed time step cannot be negative: " + seconds);
+
+        fixedTimeStep = seconds;
+        accumulator = 0;
+        interpolationAlpha = 1;
+
+        if (seconds > 0) {
+            saveBodyStates();
+        }
+    }
+
+    /**
+     * @return step duration in seconds, or 0 if fixed timestep mode is disabled
+     */
+    public double getFixedTimeStep() {
+        return fixedTimeStep;
+    }
+
+    public boolean isFixedTimeStep() {
+        return fixedTimeStep > 0;
+    }
+
+    /**
+     * Sets the max number of fixed steps performed in a single frame.
+     * If a frame takes longer than this many steps, the extra time is not simulated,
+     * so that physics slows down instead of taking increasingly longer frames.
+     * The default is 5.
+     */
+    public void setMaxSubSteps(int maxSubSteps) {
+        if (maxSubSteps < 1)
+            throw new IllegalArgumentException("Max sub steps must be at least 1: " + maxSubSteps);
+
+        this.maxSubSteps = maxSubSteps;
+    }
+
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /**
+     * Sets the number of velocity constraint solver iterations per step.
+     * More iterations give more accurate results at a higher cost.
+     * The default is 8.
+     */
+    public void setVelocityIterations(int velocityIterations) {
+        this.velocityIterations = velocityIterations;
+    }
+
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * Sets the number of position constraint solver iterations per step.
+     * The default is 3.
+     */
+    public void setPositionIterations(int positionIterations) {
+        this.positionIterations = positionIterations;
+    }
+
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * @return fraction of a fixed step [0..1) that was not yet simulated, or 1 if fixed timestep mode is disabled
+     */
+    public double getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    /**
+     * @return a new snapshot of the simulation state
+     * @see #takeSnapshot(PhysicsSnapshot)
+     */
+    public PhysicsSnapshot takeSnapshot() {
+        var snapshot = new PhysicsSnapshot();
+        takeSnapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Writes the simulation state into given snapshot, replacing its previous contents.
+     * The state includes body positions, velocities and sleep state, joint and contact impulses,
+     * particles and time accumulated for fixed steps, so that restoring the snapshot and
+     * performing the same updates gives bit-identical results.
+     * Definitions of bodies, fixtures and joints are not included.
+     *
+     * @param snapshot snapshot to write to
+     */
+    public void takeSnapshot(PhysicsSnapshot snapshot) {
+        snapshot.write(buffer -> {
+            buffer.putDouble(accumulator);
+            jboxWorld.saveState(buffer);
+        });
+    }
+
+    /**
+     * Restores the simulation state from given snapshot.
+     * The physics world must have the same bodies, fixtures, joints and particles,
+     * created in the same order, as when the snapshot was taken.
+     * Collision handlers are not notified by restoring.
+     * Instead, active collisions between bodies are restored along with contacts, so that a collision
+     * that was active when the snapshot was taken continues with onCollision() without another onCollisionBegin(),
+     * and a collision that was not active is dropped without onCollisionEnd().
+     * Entities follow their bodies on next update.
+     *
+     * @param snapshot snapshot to read from
+     * @throws IllegalArgumentException if the physics world does not match the snapshot
+     */
+    public void restoreSnapshot(PhysicsSnapshot snapshot) {
+        ByteBuffer buffer = snapshot.read();
+
+        accumulator = buffer.getDouble();
+        jboxWorld.restoreState(buffer);
+
+        restoreCollisions();
+
+        if (fixedTimeStep > 0) {
+            interpolationAlpha = accumulator / fixedTimeStep;
+
+            // the state before the last step is not in the snapshot, so there is nothing to interpolate from
+            saveBodyStates();
+        }
+    }
+
+    /**
+     * Makes active collisions between bodies match the touching contacts of the jbox2d world,
+     * since such collisions only begin and end when contacts change during a step.
+     * Manually checked collisions are kept, since they are checked again on next update.
+     */
+    private void restoreCollisions() {
+        for (Iterator<CollisionPair> it = collisionsMap.getValues().iterator(); it.hasNext(); ) {
+            CollisionPair pair = it.next();
+
+            if (!needManualCheck(pair.getA(), pair.getB())) {
+                it.remove();
+                Pools.free(pair);
+            }
+        }
+
+        for (Contact contact = jboxWorld.getContactList(); contact != null; contact = contact.getNext()) {
+            if (!contact.isTouching() || contact.getFixtureA().isSensor() || contact.getFixtureB().isSensor())
+                continue;
+
+            Entity e1 = contact.getFixtureA().getBody().getEntity();
+            Entity e2 = contact.getFixtureB().getBody().getEntity();
+
+            if (!areCollidable(e1, e2) || collisionsMap.get(e1, e2) != null)
+                continue;
+
+            CollisionHandler handler = getHandler(e1, e2);
+            if (handler != null) {
+                CollisionPair pair = Pools.obtain(CollisionPair.class);
+                pair.init(e1, e2, handler);
+
+                collisionsMap.put(pair.getA(), pair.getB(), pair);
+            }
+        }
+    }
+
     private void postStep() {
         for (Entity e : delayedBodiesAdd)
             createBody(e);
@@ -201,6 +432,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
         entities.clear();
         collisionsMap.clear();
+        collisionTree.clear();
     }
 
     public void clearCollisionHandlers() {
@@ -273,12 +505,10 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     }
 
     private boolean isCollidable(Entity e) {
-        if (!e.isActive())
+        if (!e.isActive() || !e.hasComponent(CollidableComponent.class))
             return false;
 
-        return e.getComponentOptional(CollidableComponent.class)
-                .map(CollidableComponent::getValue)
-                .orElse(false);
+        return e.getComponent(CollidableComponent.class).getValue();
     }
 
     private boolean areCollidable(Entity e1, Entity e2) {
@@ -289,19 +519,11 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     private boolean needManualCheck(Entity e1, Entity e2) {
         // if no physics -> check manually
 
-        BodyType type1 = e1.getComponentOptional(PhysicsComponent.class)
-                .map(p -> p.body.getType())
-                .orElse(null);
-
-        if (type1 == null)
+        if (!e1.hasComponent(PhysicsComponent.class) || !e2.hasComponent(PhysicsComponent.class))
             return true;
 
-        BodyType type2 = e2.getComponentOptional(PhysicsComponent.class)
-                .map(p -> p.body.getType())
-                .orElse(null);
-
-        if (type2 == null)
-            return true;
+        BodyType type1 = e1.getComponent(PhysicsComponent.class).body.getType();
+        BodyType type2 = e2.getComponent(PhysicsComponent.class).body.getType();
 
         // if one is kinematic and the other is static -> check manually
         return (type1 == BodyType.KINEMATIC && type2 == BodyType.STATIC)
@@ -341,6 +563,34 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
     private CollisionGrid collisionGrid = new CollisionGrid(64, 64);
 
+    private CollisionTree collisionTree = new CollisionTree();
+
+    private int numNarrowPhaseChecks = 0;
+
+    /**
+     * @return number of narrow phase (hit box) collision checks performed during last update
+     */
+    public int getNumNarrowPhaseChecks() {
+        return numNarrowPhaseChecks;
+    }
+
+    /**
+     * Flat list of candidate pairs (e1, e2) found by the collision grid or tree.
+     */
+    private Array<Entity> candidatePairs = new Array<>(256);
+
+    /**
+     * Sets the size of a cell used by {@link CollisionDetectionStrategy#GRID_INDEXING}.
+     * Ideally, a cell is slightly larger than a typical collidable entity.
+     * The default is 64x64.
+     *
+     * @param cellWidth cell width in pixels
+     * @param cellHeight cell height in pixels
+     */
+    public void setCollisionGridCellSize(int cellWidth, int cellHeight) {
+        collisionGrid.setCellSize(cellWidth, cellHeight);
+    }
+
     /**
      * Perform collision detection for all entities that have
      * setCollidable(true) and if at least one entity does not have PhysicsComponent.
@@ -348,6 +598,8 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      * setCollidable(true).
      */
     private void checkCollisions() {
+        numNarrowPhaseChecks = 0;
+
         if (strategy == CollisionDetectionStrategy.GRID_INDEXING) {
             for (Entity e : entities) {
                 if (isCollidable(e)) {
@@ -356,11 +608,37 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
                 }
             }
 
-            collisionGrid.getCells().forEach((p, cell) -> {
-                checkCollisionsInGroup(cell.getEntities());
-            });
+            // collect pairs first, since an entity may share several cells with another
+            collisionGrid.collectPairs(candidatePairs);
+
+            for (int i = 0; i < candidatePairs.size(); i += 2) {
+                checkCollision(candidatePairs.get(i), candidatePairs.get(i + 1));
+            }
 
-            collisionGrid.getCells().clear();
+            candidatePairs.clear();
+
+            collisionGrid.clear();
+
+        } else if (strategy == CollisionDetectionStrategy.BROAD_PHASE_TREE) {
+            for (Entity e : entities) {
+                if (isCollidable(e)) {
+                    e.getBoundingBoxComponent().applyTransformToHitBoxes$fxgl_entity();
+                    collisionTree.update(e);
+                } else {
+                    collisionTree.remove(e);
+                }
+            }
+
+            // collect pairs first, since collision handlers may add or remove entities
+            collisionTree.collectPairs(candidatePairs);
+
+            for (int i = 0; i < candidatePairs.size(); i += 2) {
+                checkCollision(candidatePairs.get(i), candidatePairs.get(i + 1));
+            }
+
+            candidatePairs.clear();
+
+            endSeparatedCollisions();
 
         } else {
             for (Entity e : entities) {
@@ -381,31 +659,59 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
             Entity e1 = group.get(i);
 
             for (int j = i + 1; j < group.size(); j++) {
-                Entity e2 = group.get(j);
+                checkCollision(e1, group.get(j));
+            }
+        }
+    }
 
-                CollisionHandler handler = getHandler(e1, e2);
+    private void checkCollision(Entity e1, Entity e2) {
+        CollisionHandler handler = getHandler(e1, e2);
 
-                // if no handler registered, no need to check for this pair
-                if (handler == null)
-                    continue;
+        // if no handler registered, no need to check for this pair
+        if (handler == null)
+            return;
 
-                // if no need for manual check, let jbox handle it
-                if (!needManualCheck(e1, e2)) {
-                    continue;
-                }
+        // if no need for manual check, let jbox handle it
+        if (!needManualCheck(e1, e2)) {
+            return;
+        }
 
-                // check if e1 ignores e2, or e2 ignores e1
-                if (isIgnored(e1, e2))
-                    continue;
+        // check if e1 ignores e2, or e2 ignores e1
+        if (isIgnored(e1, e2))
+            return;
 
-                // check if colliding
-                var collision = e1.getBoundingBoxComponent().checkCollisionPAT(e2.getBoundingBoxComponent(), collisionResult);
+        numNarrowPhaseChecks++;
 
-                if (collision) {
-                    collisionBeginFor(handler, e1, e2, collisionResult.getBoxA(), collisionResult.getBoxB());
-                } else {
-                    collisionEndFor(e1, e2);
-                }
+        // check if colliding
+        var collision = e1.getBoundingBoxComponent().checkCollisionPAT(e2.getBoundingBoxComponent(), collisionResult);
+
+        if (collision) {
+            collisionBeginFor(handler, e1, e2, collisionResult.getBoxA(), collisionResult.getBoxB());
+        } else {
+            collisionEndFor(e1, e2);
+        }
+    }
+
+    /**
+     * Ends active manually checked collisions whose entities are no longer
+     * overlapping in the collision tree, since such pairs are not checked.
+     */
+    private void endSeparatedCollisions() {
+        for (Iterator<CollisionPair> it = collisionsMap.getValues().iterator(); it.hasNext(); ) {
+            CollisionPair pair = it.next();
+
+            // non-collidable pairs are handled in notifyCollisions()
+            if (!isCollidable(pair.getA()) || !isCollidable(pair.getB()))
+                continue;
+
+            if (!needManualCheck(pair.getA(), pair.getB()))
+                continue;
+
+            if (!collisionTree.isOverlapping(pair.getA(), pair.getB())) {
+                it.remove();
+
+                pair.collisionEnd();
+                Pools.free(pair);
             }
         }
     }
@@ -414,18 +720,18 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         if (!e1.hasComponent(CollidableComponent.class) || !e2.hasComponent(CollidableComponent.class))
             return false;
 
-        CollidableComponent c1 = e1.getComponent(CollidableComponent.class);
+        List<Serializable> ignoredTypes1 = e1.getComponent(CollidableComponent.class).getIgnoredTypes();
 
-        for (Serializable t1 : c1.getIgnoredTypes()) {
-            if (e2.isType(t1)) {
+        for (int i = 0; i < ignoredTypes1.size(); i++) {
+            if (e2.isType(ignoredTypes1.get(i))) {
                 return true;
             }
         }
 
-        CollidableComponent c2 = e2.getComponent(CollidableComponent.class);
+        List<Serializable> ignoredTypes2 = e2.getComponent(CollidableComponent.class).getIgnoredTypes();
 
-        for (Serializable t2 : c2.getIgnoredTypes()) {
-            if (e1.isType(t2)) {
+        for (int i = 0; i < ignoredTypes2.size(); i++) {
+            if (e1.isType(ignoredTypes2.get(i))) {
                 return true;
             }
         }
@@ -559,6 +865,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         createSensors(e);
 
         physics.body.setEntity(e);
+        physics.saveBodyState();
         physics.onInitPhysics();
     }
 
@@ -13,6 +13,8 @@ import com.almasb.fxgl.physics.box2d.callbacks.TreeRayCastCallback;
 import com.almasb.fxgl.physics.box2d.collision.AABB;
 import com.almasb.fxgl.physics.box2d.collision.RayCastInput;
 
+import java.nio.ByteBuffer;
+
 public interface BroadPhase {
 
     int NULL_PROXY = -1;
@@ -60,4 +62,15 @@ public interface BroadPhase {
      * @param callback a callback class that is called for each proxy that is hit by the ray.
      */
     void raycast(TreeRayCastCallback callback, RayCastInput input);
+
+    /**
+     * Writes proxies and proxies that moved since pairs were last updated to given buffer.
+     */
+    void saveState(ByteBuffer buffer);
+
+    /**
+     * Reads the state written by {@link #saveState(ByteBuffer)}.
+     * Proxies must be the same as when the state was saved.
+     */
+    void restoreState(ByteBuffer buffer);
 }
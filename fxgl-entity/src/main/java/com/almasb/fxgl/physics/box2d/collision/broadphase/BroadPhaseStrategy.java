@@ -12,6 +12,8 @@ import com.almasb.fxgl.physics.box2d.callbacks.TreeRayCastCallback;
 import com.almasb.fxgl.physics.box2d.collision.AABB;
 import com.almasb.fxgl.physics.box2d.collision.RayCastInput;
 
+import java.nio.ByteBuffer;
+
 public interface BroadPhaseStrategy {
 
     /**
@@ -52,4 +54,15 @@ public interface BroadPhaseStrategy {
      * @param callback a callback class that is called for each proxy that is hit by the ray.
      */
     void raycast(TreeRayCastCallback callback, RayCastInput input);
+
+    /**
+     * Writes the structure and fat AABBs of proxies to given buffer.
+     */
+    void saveState(ByteBuffer buffer);
+
+    /**
+     * Reads the structure and fat AABBs of proxies written by {@link #saveState(ByteBuffer)}.
+     * Proxies must be the same as when the state was saved.
+     */
+    void restoreState(ByteBuffer buffer);
 }
\ No newline at end of file
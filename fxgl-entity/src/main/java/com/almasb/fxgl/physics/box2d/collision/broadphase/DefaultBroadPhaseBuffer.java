@@ -12,6 +12,7 @@ import com.almasb.fxgl.physics.box2d.callbacks.TreeRayCastCallback;
 import com.almasb.fxgl.physics.box2d.collision.AABB;
 import com.almasb.fxgl.physics.box2d.collision.RayCastInput;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -140,6 +141,27 @@ public final class DefaultBroadPhaseBuffer implements TreeCallback, BroadPhase {
         tree.raycast(callback, input);
     }
 
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        tree.saveState(buffer);
+
+        buffer.putInt(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            buffer.putInt(moveBuffer[i]);
+        }
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        tree.restoreState(buffer);
+
+        moveCount = 0;
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            bufferMove(buffer.getInt());
+        }
+    }
+
     private void bufferMove(int proxyId) {
         if (moveCount == moveCapacity) {
             int[] old = moveBuffer;
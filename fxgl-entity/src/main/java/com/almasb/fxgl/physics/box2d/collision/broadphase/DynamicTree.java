@@ -13,6 +13,8 @@ import com.almasb.fxgl.physics.box2d.collision.AABB;
 import com.almasb.fxgl.physics.box2d.collision.RayCastInput;
 import com.almasb.fxgl.physics.box2d.common.JBoxSettings;
 
+import java.nio.ByteBuffer;
+
 /**
  * A dynamic tree arranges data in a binary tree to accelerate queries such as volume queries and
  * ray casts. Leafs are proxies with an AABB. In the tree we expand the proxy AABB by _fatAABBFactor
@@ -263,6 +265,61 @@ public class DynamicTree implements BroadPhaseStrategy {
         }
     }
 
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(m_nodeCapacity);
+        buffer.putInt(m_nodeCount);
+        buffer.putInt(m_freeList);
+        buffer.putInt(idOf(root));
+
+        // free nodes are linked by parent, so all nodes are written
+        for (int i = 0; i < m_nodeCapacity; i++) {
+            DynamicTreeNode node = m_nodes[i];
+            buffer.putInt(idOf(node.parent));
+            buffer.putInt(idOf(node.child1));
+            buffer.putInt(idOf(node.child2));
+            buffer.putInt(node.height);
+            buffer.putFloat(node.aabb.lowerBound.x);
+            buffer.putFloat(node.aabb.lowerBound.y);
+            buffer.putFloat(node.aabb.upperBound.x);
+            buffer.putFloat(node.aabb.upperBound.y);
+        }
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        int capacity = buffer.getInt();
+        int count = buffer.getInt();
+
+        if (capacity != m_nodeCapacity || count != m_nodeCount) {
+            throw new IllegalArgumentException("Tree has " + m_nodeCount + " of " + m_nodeCapacity
+                    + " nodes, but state has " + count + " of " + capacity);
+        }
+
+        m_freeList = buffer.getInt();
+        root = nodeOf(buffer.getInt());
+
+        for (int i = 0; i < m_nodeCapacity; i++) {
+            DynamicTreeNode node = m_nodes[i];
+            node.parent = nodeOf(buffer.getInt());
+            node.child1 = nodeOf(buffer.getInt());
+            node.child2 = nodeOf(buffer.getInt());
+            node.height = buffer.getInt();
+            node.aabb.lowerBound.x = buffer.getFloat();
+            node.aabb.lowerBound.y = buffer.getFloat();
+            node.aabb.upperBound.x = buffer.getFloat();
+            node.aabb.upperBound.y = buffer.getFloat();
+        }
+    }
+
+    private static int idOf(DynamicTreeNode node) {
+        return node != null ? node.id : NULL_NODE;
+    }
+
+    private DynamicTreeNode nodeOf(int id) {
+        return id != NULL_NODE ? m_nodes[id] : null;
+    }
+
     private DynamicTreeNode allocateNode() {
         if (m_freeList == NULL_NODE) {
             DynamicTreeNode[] old = m_nodes;
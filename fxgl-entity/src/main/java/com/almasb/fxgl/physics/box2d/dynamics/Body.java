@@ -18,6 +18,7 @@ import com.almasb.fxgl.physics.box2d.dynamics.contacts.Contact;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.ContactEdge;
 import com.almasb.fxgl.physics.box2d.dynamics.joints.JointEdge;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -1176,6 +1177,66 @@ public final class Body {
         return true;
     }
 
+    /**
+     * Writes transforms, sweep, velocities, forces and sleep state to given buffer.
+     */
+    void saveState(ByteBuffer buffer) {
+        buffer.putInt(m_flags);
+        saveTransform(buffer, m_xf);
+        saveTransform(buffer, m_xf0);
+        buffer.putFloat(m_sweep.c0.x);
+        buffer.putFloat(m_sweep.c0.y);
+        buffer.putFloat(m_sweep.c.x);
+        buffer.putFloat(m_sweep.c.y);
+        buffer.putFloat(m_sweep.a0);
+        buffer.putFloat(m_sweep.a);
+        buffer.putFloat(m_sweep.alpha0);
+        buffer.putFloat(linearVelocity.x);
+        buffer.putFloat(linearVelocity.y);
+        buffer.putFloat(angularVelocity);
+        buffer.putFloat(m_force.x);
+        buffer.putFloat(m_force.y);
+        buffer.putFloat(m_torque);
+        buffer.putFloat(sleepTime);
+    }
+
+    /**
+     * Reads the state written by {@link #saveState(ByteBuffer)}.
+     */
+    void restoreState(ByteBuffer buffer) {
+        m_flags = buffer.getInt();
+        restoreTransform(buffer, m_xf);
+        restoreTransform(buffer, m_xf0);
+        m_sweep.c0.x = buffer.getFloat();
+        m_sweep.c0.y = buffer.getFloat();
+        m_sweep.c.x = buffer.getFloat();
+        m_sweep.c.y = buffer.getFloat();
+        m_sweep.a0 = buffer.getFloat();
+        m_sweep.a = buffer.getFloat();
+        m_sweep.alpha0 = buffer.getFloat();
+        linearVelocity.x = buffer.getFloat();
+        linearVelocity.y = buffer.getFloat();
+        angularVelocity = buffer.getFloat();
+        m_force.x = buffer.getFloat();
+        m_force.y = buffer.getFloat();
+        m_torque = buffer.getFloat();
+        sleepTime = buffer.getFloat();
+    }
+
+    private static void saveTransform(ByteBuffer buffer, Transform xf) {
+        buffer.putFloat(xf.p.x);
+        buffer.putFloat(xf.p.y);
+        buffer.putFloat(xf.q.s);
+        buffer.putFloat(xf.q.c);
+    }
+
+    private static void restoreTransform(ByteBuffer buffer, Transform xf) {
+        xf.p.x = buffer.getFloat();
+        xf.p.y = buffer.getFloat();
+        xf.q.s = buffer.getFloat();
+        xf.q.c = buffer.getFloat();
+    }
+
     void advance(float t) {
         // Advance to the new safe time. This doesn't sync the broad-phase.
         m_sweep.advance(t);
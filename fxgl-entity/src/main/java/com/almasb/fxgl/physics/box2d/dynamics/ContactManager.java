@@ -9,6 +9,8 @@ package com.almasb.fxgl.physics.box2d.dynamics;
 import com.almasb.fxgl.physics.box2d.callbacks.ContactFilter;
 import com.almasb.fxgl.physics.box2d.callbacks.ContactListener;
 import com.almasb.fxgl.physics.box2d.callbacks.PairCallback;
+import com.almasb.fxgl.physics.box2d.collision.Manifold;
+import com.almasb.fxgl.physics.box2d.collision.ManifoldPoint;
 import com.almasb.fxgl.physics.box2d.collision.broadphase.BroadPhase;
 import com.almasb.fxgl.physics.box2d.collision.shapes.ShapeType;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Contact;
@@ -16,6 +18,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.contacts.ContactEdge;
 import com.almasb.fxgl.physics.box2d.pooling.IDynamicStack;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 /**
  * Delegate of World.
  *
@@ -137,12 +141,25 @@ class ContactManager implements PairCallback {
             return;
         }
 
+        insert(c);
+
         // Contact creation may swap fixtures.
         fixtureA = c.getFixtureA();
         fixtureB = c.getFixtureB();
 
-        bodyA = fixtureA.getBody();
-        bodyB = fixtureB.getBody();
+        // wake up the bodies
+        if (!fixtureA.isSensor() && !fixtureB.isSensor()) {
+            fixtureA.getBody().setAwake(true);
+            fixtureB.getBody().setAwake(true);
+        }
+    }
+
+    /**
+     * Inserts given contact at the head of the world contact list and contact lists of its bodies.
+     */
+    private void insert(Contact c) {
+        Body bodyA = c.getFixtureA().getBody();
+        Body bodyB = c.getFixtureB().getBody();
 
         // Insert into the world.
         c.m_prev = null;
@@ -176,12 +193,6 @@ class ContactManager implements PairCallback {
         }
         bodyB.m_contactList = c.m_nodeB;
 
-        // wake up the bodies
-        if (!fixtureA.isSensor() && !fixtureB.isSensor()) {
-            bodyA.setAwake(true);
-            bodyB.setAwake(true);
-        }
-
         ++contactCount;
     }
 
@@ -305,6 +316,114 @@ class ContactManager implements PairCallback {
         }
     }
 
+    /**
+     * Writes contacts with their manifolds, which hold warm starting impulses, to given buffer.
+     * Contacts are written from the tail of the contact list, so that inserting them in that order
+     * when restoring gives the same contact lists.
+     */
+    void saveState(ByteBuffer buffer) {
+        buffer.putInt(contactCount);
+
+        Contact tail = contactList;
+        while (tail != null && tail.m_next != null) {
+            tail = tail.m_next;
+        }
+
+        for (Contact c = tail; c != null; c = c.m_prev) {
+            buffer.putInt(c.getFixtureA().getProxyId(c.getChildIndexA()));
+            buffer.putInt(c.getFixtureB().getProxyId(c.getChildIndexB()));
+            buffer.putInt(c.m_flags);
+            buffer.putFloat(c.m_toiCount);
+            buffer.putFloat(c.m_toi);
+            buffer.putFloat(c.getFriction());
+            buffer.putFloat(c.getRestitution());
+            buffer.putFloat(c.getTangentSpeed());
+
+            Manifold manifold = c.getManifold();
+            buffer.put((byte) (manifold.type != null ? manifold.type.ordinal() : -1));
+            buffer.putFloat(manifold.localNormal.x);
+            buffer.putFloat(manifold.localNormal.y);
+            buffer.putFloat(manifold.localPoint.x);
+            buffer.putFloat(manifold.localPoint.y);
+            buffer.put((byte) manifold.pointCount);
+
+            for (int i = 0; i < manifold.pointCount; i++) {
+                ManifoldPoint point = manifold.points[i];
+                buffer.putFloat(point.localPoint.x);
+                buffer.putFloat(point.localPoint.y);
+                buffer.putFloat(point.normalImpulse);
+                buffer.putFloat(point.tangentImpulse);
+                buffer.put(point.id.indexA);
+                buffer.put(point.id.indexB);
+                buffer.put(point.id.typeA);
+                buffer.put(point.id.typeB);
+            }
+        }
+    }
+
+    /**
+     * Replaces contacts with those written by {@link #saveState(ByteBuffer)}.
+     * Contact listener is not notified.
+     */
+    void restoreState(ByteBuffer buffer) {
+        for (Contact c = contactList; c != null; ) {
+            Contact next = c.m_next;
+
+            c.getFixtureA().getBody().m_contactList = null;
+            c.getFixtureB().getBody().m_contactList = null;
+
+            contactStacks[c.getFixtureA().getType().ordinal()][c.getFixtureB().getType().ordinal()].creator.push(c);
+
+            c = next;
+        }
+
+        contactList = null;
+        contactCount = 0;
+
+        int count = buffer.getInt();
+
+        for (int k = 0; k < count; k++) {
+            Fixture.FixtureProxy proxyA = (Fixture.FixtureProxy) broadPhase.getUserData(buffer.getInt());
+            Fixture.FixtureProxy proxyB = (Fixture.FixtureProxy) broadPhase.getUserData(buffer.getInt());
+
+            Fixture fixtureA = proxyA.fixture;
+            Fixture fixtureB = proxyB.fixture;
+
+            Contact c = contactStacks[fixtureA.getType().ordinal()][fixtureB.getType().ordinal()].creator.pop();
+            c.init(fixtureA, proxyA.childIndex, fixtureB, proxyB.childIndex);
+
+            c.m_flags = buffer.getInt();
+            c.m_toiCount = buffer.getFloat();
+            c.m_toi = buffer.getFloat();
+            c.setFriction(buffer.getFloat());
+            c.setRestitution(buffer.getFloat());
+            c.setTangentSpeed(buffer.getFloat());
+
+            Manifold manifold = c.getManifold();
+            byte type = buffer.get();
+            manifold.type = type >= 0 ? Manifold.ManifoldType.values()[type] : null;
+            manifold.localNormal.x = buffer.getFloat();
+            manifold.localNormal.y = buffer.getFloat();
+            manifold.localPoint.x = buffer.getFloat();
+            manifold.localPoint.y = buffer.getFloat();
+            manifold.pointCount = buffer.get();
+
+            for (int i = 0; i < manifold.pointCount; i++) {
+                ManifoldPoint point = manifold.points[i];
+                point.localPoint.x = buffer.getFloat();
+                point.localPoint.y = buffer.getFloat();
+                point.normalImpulse = buffer.getFloat();
+                point.tangentImpulse = buffer.getFloat();
+                point.id.indexA = buffer.get();
+                point.id.indexB = buffer.get();
+                point.id.typeA = buffer.get();
+                point.id.typeB = buffer.get();
+            }
+
+            insert(c);
+        }
+    }
+
     private Contact popContact(Fixture fixtureA, int indexA, Fixture fixtureB, int indexB) {
         final ShapeType type1 = fixtureA.getType();
         final ShapeType type2 = fixtureB.getType();
@@ -13,6 +13,8 @@ import com.almasb.fxgl.physics.box2d.callbacks.ContactListener;
 import com.almasb.fxgl.physics.box2d.common.Sweep;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.*;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.ContactSolver.ContactSolverDef;
+import com.almasb.fxgl.physics.box2d.dynamics.joints.ConstantVolumeJoint;
+import com.almasb.fxgl.physics.box2d.dynamics.joints.GearJoint;
 import com.almasb.fxgl.physics.box2d.dynamics.joints.Joint;
 
 import static com.almasb.fxgl.physics.box2d.common.JBoxSettings.*;
@@ -144,16 +146,23 @@ class Island {
 
     private ContactListener listener;
 
-    private Body[] bodies;
-    private Contact[] contacts;
-    private Joint[] joints;
+    Body[] bodies;
+    Contact[] contacts;
+    Joint[] joints;
 
     private Position[] positions;
     private Velocity[] velocities;
 
-    private int bodyCount;
-    private int jointCount;
-    private int contactCount;
+    int bodyCount;
+    int jointCount;
+    int contactCount;
+
+    /**
+     * Island indices of contact bodies, if this island was loaded.
+     */
+    private int[] indicesA = new int[0];
+    private int[] indicesB = new int[0];
+    private boolean isLoaded = false;
 
     private int bodyCapacity;
     private int contactCapacity;
@@ -200,6 +209,59 @@ class Island {
         bodyCount = 0;
         contactCount = 0;
         jointCount = 0;
+        isLoaded = false;
+    }
+
+    /**
+     * Loads an island collected earlier, which must fit the capacity given to {@link #init}.
+     * Unlike {@link #add(Body)}, this does not assign island indices to bodies,
+     * since static bodies can be shared with islands that are solved concurrently.
+     * Instead, contacts use the given indices, which are captured when the island is collected.
+     */
+    void load(Body[] bodies, int bodyStart, int bodyCount,
+              Contact[] contacts, int[] indicesA, int[] indicesB, int contactStart, int contactCount,
+              Joint[] joints, int jointStart, int jointCount) {
+
+        System.arraycopy(bodies, bodyStart, this.bodies, 0, bodyCount);
+        System.arraycopy(contacts, contactStart, this.contacts, 0, contactCount);
+        System.arraycopy(joints, jointStart, this.joints, 0, jointCount);
+
+        if (this.indicesA.length < contactCount) {
+            this.indicesA = new int[contactCount];
+            this.indicesB = new int[contactCount];
+        }
+
+        System.arraycopy(indicesA, contactStart, this.indicesA, 0, contactCount);
+        System.arraycopy(indicesB, contactStart, this.indicesB, 0, contactCount);
+
+        this.bodyCount = bodyCount;
+        this.contactCount = contactCount;
+        this.jointCount = jointCount;
+        isLoaded = true;
+    }
+
+    /**
+     * Joints read island indices of their bodies when solved.
+     * Static bodies are shared between islands, so their indices are only valid while
+     * the island that was collected last is solved.
+     *
+     * @return true if this island can be solved concurrently with other islands
+     */
+    boolean canBeSolvedConcurrently() {
+        for (int i = 0; i < jointCount; ++i) {
+            Joint joint = joints[i];
+
+            // these also read indices of bodies other than A and B
+            if (joint instanceof GearJoint || joint instanceof ConstantVolumeJoint) {
+                return false;
+            }
+
+            if (joint.getBodyA().getType() == BodyType.STATIC || joint.getBodyB().getType() == BodyType.STATIC) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     private final ContactSolver contactSolver = new ContactSolver();
@@ -207,6 +269,23 @@ class Island {
     private final ContactSolverDef solverDef = new ContactSolverDef();
 
     void solve(TimeStep step, Vec2 gravity, boolean allowSleep) {
+        boolean positionSolved = solveConstraints(step, gravity);
+
+        report(contactSolver.getVelocityConstraints());
+
+        if (allowSleep) {
+            updateSleep(bodies, 0, bodyCount, step.dt, positionSolved);
+        }
+    }
+
+    /**
+     * Integrates velocities and positions of bodies, solves constraints and copies the results back to bodies.
+     * Static bodies are not written to, since they cannot be moved by the solver
+     * and can be shared with islands that are solved concurrently.
+     *
+     * @return true if position errors are small
+     */
+    boolean solveConstraints(TimeStep step, Vec2 gravity) {
         float h = step.dt;
 
         // Integrate velocities and apply damping. Initialize the body state.
@@ -218,9 +297,11 @@ class Island {
             final Vec2 v = b.getLinearVelocity();
             float w = b.getAngularVelocity();
 
-            // Store positions for continuous collision.
-            bm_sweep.c0.set(bm_sweep.c);
-            bm_sweep.a0 = bm_sweep.a;
+            if (b.getType() != BodyType.STATIC) {
+                // Store positions for continuous collision.
+                bm_sweep.c0.set(bm_sweep.c);
+                bm_sweep.a0 = bm_sweep.a;
+            }
 
             if (b.getType() == BodyType.DYNAMIC) {
                 // Integrate velocities.
@@ -261,6 +342,8 @@ class Island {
         solverDef.count = contactCount;
         solverDef.positions = positions;
         solverDef.velocities = velocities;
+        solverDef.indicesA = isLoaded ? indicesA : null;
+        solverDef.indicesB = isLoaded ? indicesB : null;
 
         contactSolver.init(solverDef);
         contactSolver.initializeVelocityConstraints();
@@ -337,6 +420,10 @@ class Island {
         // Copy state buffers back to the bodies
         for (int i = 0; i < bodyCount; ++i) {
             Body body = bodies[i];
+            if (body.getType() == BodyType.STATIC) {
+                continue;
+            }
+
             body.m_sweep.c.x = positions[i].c.x;
             body.m_sweep.c.y = positions[i].c.y;
             body.m_sweep.a = positions[i].a;
@@ -346,36 +433,39 @@ class Island {
             body.synchronizeTransform();
         }
 
-        report(contactSolver.getVelocityConstraints());
+        return positionSolved;
+    }
 
-        if (allowSleep) {
-            float minSleepTime = Float.MAX_VALUE;
+    /**
+     * Puts given bodies of an island to sleep if all of them have been resting long enough.
+     */
+    static void updateSleep(Body[] bodies, int start, int count, float h, boolean positionSolved) {
+        float minSleepTime = Float.MAX_VALUE;
 
-            final float linTolSqr = linearSleepTolerance * linearSleepTolerance;
-            final float angTolSqr = angularSleepTolerance * angularSleepTolerance;
+        final float linTolSqr = linearSleepTolerance * linearSleepTolerance;
+        final float angTolSqr = angularSleepTolerance * angularSleepTolerance;
 
-            for (int i = 0; i < bodyCount; ++i) {
-                Body b = bodies[i];
-                if (b.getType() == BodyType.STATIC) {
-                    continue;
-                }
-
-                if (!b.isSleepingAllowed()
-                        || b.getAngularVelocity() * b.getAngularVelocity() > angTolSqr
-                        || Vec2.dot(b.getLinearVelocity(), b.getLinearVelocity()) > linTolSqr) {
-                    b.setSleepTime(0);
-                    minSleepTime = 0.0f;
-                } else {
-                    b.setSleepTime(b.getSleepTime() + h);
-                    minSleepTime = Math.min(minSleepTime, b.getSleepTime());
-                }
+        for (int i = start; i < start + count; ++i) {
+            Body b = bodies[i];
+            if (b.getType() == BodyType.STATIC) {
+                continue;
             }
 
-            if (minSleepTime >= timeToSleep && positionSolved) {
-                for (int i = 0; i < bodyCount; ++i) {
-                    Body b = bodies[i];
-                    b.setAwake(false);
-                }
+            if (!b.isSleepingAllowed()
+                    || b.getAngularVelocity() * b.getAngularVelocity() > angTolSqr
+                    || Vec2.dot(b.getLinearVelocity(), b.getLinearVelocity()) > linTolSqr) {
+                b.setSleepTime(0);
+                minSleepTime = 0.0f;
+            } else {
+                b.setSleepTime(b.getSleepTime() + h);
+                minSleepTime = Math.min(minSleepTime, b.getSleepTime());
+            }
+        }
+
+        if (minSleepTime >= timeToSleep && positionSolved) {
+            for (int i = start; i < start + count; ++i) {
+                Body b = bodies[i];
+                b.setAwake(false);
             }
         }
     }
@@ -0,0 +1,325 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics.box2d.dynamics;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.physics.box2d.callbacks.ContactImpulse;
+import com.almasb.fxgl.physics.box2d.callbacks.ContactListener;
+import com.almasb.fxgl.physics.box2d.collision.Manifold;
+import com.almasb.fxgl.physics.box2d.dynamics.contacts.Contact;
+import com.almasb.fxgl.physics.box2d.dynamics.joints.Joint;
+import com.almasb.fxgl.physics.box2d.pooling.DefaultWorldPool;
+import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves islands of a world step concurrently.
+ * Islands are first collected by the world, then solved on a fork-join pool,
+ * where each worker thread has its own island and world pool.
+ * Contact reports and sleeping are then handled on the calling thread in the order islands were collected,
+ * so the results are identical to solving islands one after another.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ParallelIslandSolver {
+
+    /**
+     * Islands are solved in batches of at least this many bodies, so that small islands are not solved one per task.
+     */
+    private static final int MIN_BODIES_PER_TASK = 64;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private static ForkJoinPool pool;
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            var threadNum = new AtomicInteger();
+
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), p -> {
+                var thread = new SolverThread(p);
+                thread.setName("FXGL Island Solver " + threadNum.getAndIncrement());
+                return thread;
+            }, null, false);
+        }
+
+        return pool;
+    }
+
+    // collected islands, island i occupies [starts[i], starts[i + 1]) of each array
+
+    private Body[] bodies = new Body[64];
+    private Contact[] contacts = new Contact[64];
+    private int[] indicesA = new int[64];
+    private int[] indicesB = new int[64];
+    private Joint[] joints = new Joint[16];
+
+    private int[] bodyStarts = new int[17];
+    private int[] contactStarts = new int[17];
+    private int[] jointStarts = new int[17];
+
+    private boolean[] isSolved = new boolean[16];
+    private boolean[] isPositionSolved = new boolean[16];
+
+    private int numIslands = 0;
+
+    private final List<SolveTask> tasks = new ArrayList<>();
+
+    private final ContactImpulse impulse = new ContactImpulse();
+
+    int getNumIslands() {
+        return numIslands;
+    }
+
+    void clear() {
+        // release references to bodies of the previous step
+        Arrays.fill(bodies, 0, bodyStarts[numIslands], null);
+        Arrays.fill(contacts, 0, contactStarts[numIslands], null);
+        Arrays.fill(joints, 0, jointStarts[numIslands], null);
+
+        numIslands = 0;
+    }
+
+    /**
+     * Collects given island to be solved concurrently.
+     * Island indices of contact bodies are captured, since static bodies get new indices in subsequent islands.
+     */
+    void add(Island island) {
+        add(island, false, false);
+    }
+
+    /**
+     * Collects given island that has already been solved on the calling thread.
+     */
+    void addSolved(Island island, boolean positionSolved) {
+        add(island, true, positionSolved);
+    }
+
+    private void add(Island island, boolean solved, boolean positionSolved) {
+        int bodyStart = bodyStarts[numIslands];
+        int contactStart = contactStarts[numIslands];
+        int jointStart = jointStarts[numIslands];
+
+        ensureCapacity(bodyStart + island.bodyCount, contactStart + island.contactCount, jointStart + island.jointCount);
+
+        System.arraycopy(island.bodies, 0, bodies, bodyStart, island.bodyCount);
+        System.arraycopy(island.joints, 0, joints, jointStart, island.jointCount);
+
+        for (int i = 0; i < island.contactCount; i++) {
+            Contact contact = island.contacts[i];
+
+            contacts[contactStart + i] = contact;
+            indicesA[contactStart + i] = contact.m_fixtureA.getBody().m_islandIndex;
+            indicesB[contactStart + i] = contact.m_fixtureB.getBody().m_islandIndex;
+        }
+
+        isSolved[numIslands] = solved;
+        isPositionSolved[numIslands] = positionSolved;
+
+        numIslands++;
+
+        bodyStarts[numIslands] = bodyStart + island.bodyCount;
+        contactStarts[numIslands] = contactStart + island.contactCount;
+        jointStarts[numIslands] = jointStart + island.jointCount;
+    }
+
+    private void ensureCapacity(int bodyCount, int contactCount, int jointCount) {
+        if (bodies.length < bodyCount) {
+            bodies = Arrays.copyOf(bodies, Math.max(bodies.length * 2, bodyCount));
+        }
+
+        if (contacts.length < contactCount) {
+            int length = Math.max(contacts.length * 2, contactCount);
+
+            contacts = Arrays.copyOf(contacts, length);
+            indicesA = Arrays.copyOf(indicesA, length);
+            indicesB = Arrays.copyOf(indicesB, length);
+        }
+
+        if (joints.length < jointCount) {
+            joints = Arrays.copyOf(joints, Math.max(joints.length * 2, jointCount));
+        }
+
+        if (isSolved.length == numIslands) {
+            int length = numIslands * 2;
+
+            isSolved = Arrays.copyOf(isSolved, length);
+            isPositionSolved = Arrays.copyOf(isPositionSolved, length);
+            bodyStarts = Arrays.copyOf(bodyStarts, length + 1);
+            contactStarts = Arrays.copyOf(contactStarts, length + 1);
+            jointStarts = Arrays.copyOf(jointStarts, length + 1);
+        }
+    }
+
+    /**
+     * Solves collected islands, then reports contact impulses and puts resting islands to sleep,
+     * in the order islands were collected.
+     *
+     * @param callerIsland island used if a batch of islands is solved on the calling thread
+     */
+    void solve(TimeStep step, Vec2 gravity, boolean allowSleep, ContactListener listener, Island callerIsland) {
+        solveIslands(step, gravity, callerIsland);
+
+        for (int i = 0; i < numIslands; i++) {
+            if (listener != null) {
+                report(listener, i);
+            }
+
+            if (allowSleep) {
+                int bodyStart = bodyStarts[i];
+                int bodyCount = bodyStarts[i + 1] - bodyStart;
+
+                // when islands are solved one after another, static bodies shared with a previous island
+                // are woken up again after that island was put to sleep
+                for (int j = bodyStart; j < bodyStart + bodyCount; j++) {
+                    bodies[j].setAwake(true);
+                }
+
+                Island.updateSleep(bodies, bodyStart, bodyCount, step.dt, isPositionSolved[i]);
+            }
+        }
+    }
+
+    private void solveIslands(TimeStep step, Vec2 gravity, Island callerIsland) {
+        int numBodies = 0;
+
+        for (int i = 0; i < numIslands; i++) {
+            if (!isSolved[i]) {
+                numBodies += bodyStarts[i + 1] - bodyStarts[i];
+            }
+        }
+
+        if (numBodies == 0)
+            return;
+
+        int parallelism = getPool().getParallelism();
+
+        int bodiesPerTask = Math.max(MIN_BODIES_PER_TASK, numBodies / (parallelism * TASKS_PER_THREAD));
+
+        tasks.clear();
+
+        int from = 0;
+        int numTaskBodies = 0;
+
+        for (int i = 0; i < numIslands; i++) {
+            if (!isSolved[i]) {
+                numTaskBodies += bodyStarts[i + 1] - bodyStarts[i];
+            }
+
+            if (numTaskBodies >= bodiesPerTask || i == numIslands - 1) {
+                tasks.add(new SolveTask(from, i + 1, step, gravity, callerIsland));
+
+                from = i + 1;
+                numTaskBodies = 0;
+            }
+        }
+
+        if (tasks.size() == 1) {
+            tasks.get(0).solve(callerIsland);
+            return;
+        }
+
+        for (SolveTask task : tasks) {
+            getPool().execute(task);
+        }
+
+        for (SolveTask task : tasks) {
+            task.quietlyJoin();
+        }
+
+        // rethrows if solving failed, once no task is running
+        for (SolveTask task : tasks) {
+            task.join();
+        }
+    }
+
+    private void solveIsland(int index, Island island, TimeStep step, Vec2 gravity) {
+        int bodyStart = bodyStarts[index];
+        int contactStart = contactStarts[index];
+        int jointStart = jointStarts[index];
+
+        int bodyCount = bodyStarts[index + 1] - bodyStart;
+        int contactCount = contactStarts[index + 1] - contactStart;
+        int jointCount = jointStarts[index + 1] - jointStart;
+
+        island.init(bodyCount, contactCount, jointCount, null);
+        island.load(bodies, bodyStart, bodyCount,
+                contacts, indicesA, indicesB, contactStart, contactCount,
+                joints, jointStart, jointCount);
+
+        isPositionSolved[index] = island.solveConstraints(step, gravity);
+    }
+
+    /**
+     * Contact impulses are stored in manifolds when an island is solved, so they are reported from there.
+     */
+    private void report(ContactListener listener, int index) {
+        for (int i = contactStarts[index]; i < contactStarts[index + 1]; i++) {
+            Contact contact = contacts[i];
+            Manifold manifold = contact.getManifold();
+
+            impulse.count = manifold.pointCount;
+            for (int j = 0; j < manifold.pointCount; j++) {
+                impulse.normalImpulses[j] = manifold.points[j].normalImpulse;
+                impulse.tangentImpulses[j] = manifold.points[j].tangentImpulse;
+            }
+
+            listener.postSolve(contact, impulse);
+        }
+    }
+
+    private final class SolveTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final TimeStep step;
+        private final Vec2 gravity;
+        private final Island callerIsland;
+
+        SolveTask(int from, int to, TimeStep step, Vec2 gravity, Island callerIsland) {
+            this.from = from;
+            this.to = to;
+            this.step = step;
+            this.gravity = gravity;
+            this.callerIsland = callerIsland;
+        }
+
+        @Override
+        protected void compute() {
+            // the calling thread may run this task itself while waiting for it
+            solve(Thread.currentThread() instanceof SolverThread thread ? thread.island : callerIsland);
+        }
+
+        void solve(Island island) {
+            for (int i = from; i < to; i++) {
+                if (!isSolved[i]) {
+                    solveIsland(i, island, step, gravity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Has its own island and world pool, so that islands can be solved without sharing scratch state.
+     */
+    static final class SolverThread extends ForkJoinWorkerThread {
+
+        final Island island = new Island();
+        final IWorldPool pool = new DefaultWorldPool(World.WORLD_POOL_SIZE, World.WORLD_POOL_CONTAINER_SIZE);
+
+        SolverThread(ForkJoinPool pool) {
+            super(pool);
+            setDaemon(true);
+        }
+    }
+}
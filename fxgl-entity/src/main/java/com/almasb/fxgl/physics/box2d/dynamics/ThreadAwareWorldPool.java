@@ -0,0 +1,159 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics.box2d.dynamics;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.core.math.Vec3;
+import com.almasb.fxgl.physics.box2d.collision.Collision;
+import com.almasb.fxgl.physics.box2d.collision.Distance;
+import com.almasb.fxgl.physics.box2d.collision.TimeOfImpact;
+import com.almasb.fxgl.physics.box2d.common.Mat22;
+import com.almasb.fxgl.physics.box2d.common.Mat33;
+import com.almasb.fxgl.physics.box2d.common.Rotation;
+import com.almasb.fxgl.physics.box2d.dynamics.ParallelIslandSolver.SolverThread;
+import com.almasb.fxgl.physics.box2d.dynamics.contacts.Contact;
+import com.almasb.fxgl.physics.box2d.pooling.IDynamicStack;
+import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
+
+/**
+ * Pool given to joints, which use it while they are solved.
+ * On island solver threads, the pool of that thread is used, otherwise the world pool is used.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ThreadAwareWorldPool implements IWorldPool {
+
+    private final IWorldPool worldPool;
+
+    ThreadAwareWorldPool(IWorldPool worldPool) {
+        this.worldPool = worldPool;
+    }
+
+    private IWorldPool get() {
+        return Thread.currentThread() instanceof SolverThread thread ? thread.pool : worldPool;
+    }
+
+    @Override
+    public IDynamicStack<Contact> getPolyContactStack() {
+        return get().getPolyContactStack();
+    }
+
+    @Override
+    public IDynamicStack<Contact> getCircleContactStack() {
+        return get().getCircleContactStack();
+    }
+
+    @Override
+    public IDynamicStack<Contact> getPolyCircleContactStack() {
+        return get().getPolyCircleContactStack();
+    }
+
+    @Override
+    public IDynamicStack<Contact> getEdgeCircleContactStack() {
+        return get().getEdgeCircleContactStack();
+    }
+
+    @Override
+    public IDynamicStack<Contact> getEdgePolyContactStack() {
+        return get().getEdgePolyContactStack();
+    }
+
+    @Override
+    public IDynamicStack<Contact> getChainCircleContactStack() {
+        return get().getChainCircleContactStack();
+    }
+
+    @Override
+    public IDynamicStack<Contact> getChainPolyContactStack() {
+        return get().getChainPolyContactStack();
+    }
+
+    @Override
+    public Vec2 popVec2() {
+        return get().popVec2();
+    }
+
+    @Override
+    public Vec2[] popVec2(int num) {
+        return get().popVec2(num);
+    }
+
+    @Override
+    public void pushVec2(int num) {
+        get().pushVec2(num);
+    }
+
+    @Override
+    public Vec3 popVec3() {
+        return get().popVec3();
+    }
+
+    @Override
+    public Vec3[] popVec3(int num) {
+        return get().popVec3(num);
+    }
+
+    @Override
+    public void pushVec3(int num) {
+        get().pushVec3(num);
+    }
+
+    @Override
+    public Mat22 popMat22() {
+        return get().popMat22();
+    }
+
+    @Override
+    public Mat22[] popMat22(int num) {
+        return get().popMat22(num);
+    }
+
+    @Override
+    public void pushMat22(int num) {
+        get().pushMat22(num);
+    }
+
+    @Override
+    public Mat33 popMat33() {
+        return get().popMat33();
+    }
+
+    @Override
+    public void pushMat33(int num) {
+        get().pushMat33(num);
+    }
+
+    @Override
+    public Rotation popRot() {
+        return get().popRot();
+    }
+
+    @Override
+    public void pushRot(int num) {
+        get().pushRot(num);
+    }
+
+    @Override
+    public Collision getCollision() {
+        return get().getCollision();
+    }
+
+    @Override
+    public TimeOfImpact getTimeOfImpact() {
+        return get().getTimeOfImpact();
+    }
+
+    @Override
+    public Distance getDistance() {
+        return get().getDistance();
+    }
+
+    @Override
+    public Vec2[] getVec2Array(int argLength) {
+        return get().getVec2Array(argLength);
+    }
+}
@@ -31,6 +31,8 @@ import com.almasb.fxgl.physics.box2d.particle.*;
 import com.almasb.fxgl.physics.box2d.pooling.DefaultWorldPool;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 /**
  * The world class manages all physics entities, dynamic simulation, and asynchronous queries.
  * The world also contains efficient memory management facilities.
@@ -38,12 +40,13 @@ import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
  * @author Daniel Murphy
  */
 public final class World {
-    private static final int WORLD_POOL_SIZE = 100;
-    private static final int WORLD_POOL_CONTAINER_SIZE = 10;
+    static final int WORLD_POOL_SIZE = 100;
+    static final int WORLD_POOL_CONTAINER_SIZE = 10;
 
     private final ContactManager contactManager;
     private final ParticleSystem particleSystem;
     private final IWorldPool pool;
+    private final IWorldPool jointPool;
 
     private DestructionListener destructionListener = null;
     private ParticleDestructionListener particleDestructionListener = null;
@@ -60,6 +63,8 @@ public final class World {
 
     private boolean subStepping = false;
 
+    private boolean parallelIslandSolving = false;
+
     private boolean stepComplete = true;
 
     private Array<Body> bodies = new Array<>(WORLD_POOL_SIZE);
@@ -72,6 +77,7 @@ public final class World {
         this.gravity.set(gravity);
 
         pool = new DefaultWorldPool(WORLD_POOL_SIZE, WORLD_POOL_CONTAINER_SIZE);
+        jointPool = new ThreadAwareWorldPool(pool);
 
         contactManager = new ContactManager(pool, new DefaultBroadPhaseBuffer(new DynamicTree()));
         particleSystem = new ParticleSystem(this);
@@ -295,6 +301,7 @@ public final class World {
     }
 
     private final Island island = new Island();
+    private final ParallelIslandSolver parallelSolver = new ParallelIslandSolver();
     private Body[] stack = new Body[10];
 
     private void solve(TimeStep step) {
@@ -323,6 +330,10 @@ public final class World {
             stack = new Body[stackSize];
         }
 
+        if (parallelIslandSolving) {
+            parallelSolver.clear();
+        }
+
         for (Body seed : bodies) {
             if (seed.isIslandFlagOn2()) {
                 continue;
@@ -420,11 +431,25 @@ public final class World {
                     other.setIslandFlag(true);
                 }
             }
-            island.solve(step, gravity, allowSleep);
+
+            if (parallelIslandSolving) {
+                if (island.canBeSolvedConcurrently()) {
+                    parallelSolver.add(island);
+                } else {
+                    parallelSolver.addSolved(island, island.solveConstraints(step, gravity));
+                }
+            } else {
+                island.solve(step, gravity, allowSleep);
+            }
 
             island.postSolveCleanup();
         }
 
+        if (parallelIslandSolving) {
+            parallelSolver.solve(step, gravity, allowSleep, contactManager.getContactListener(), island);
+            parallelSolver.clear();
+        }
+
         // Synchronize fixtures, check for out of range bodies.
         for (Body b : bodies) {
             // If a body was not in an island then it did not move.
@@ -1032,6 +1057,21 @@ public final class World {
         return particleSystem.getParticleRadius();
     }
 
+    /**
+     * Enable/disable solving particle contacts, pressure, damping and viscosity on multiple threads.
+     * The results are the same on every run, but slightly differ from solving on a single thread.
+     * This is beneficial when the world has thousands of particles.
+     *
+     * @see ParticleSystem#setParallelSolving(boolean)
+     */
+    public void setParallelParticleSolving(boolean parallelParticleSolving) {
+        particleSystem.setParallelSolving(parallelParticleSolving);
+    }
+
+    public boolean isParallelParticleSolving() {
+        return particleSystem.isParallelSolving();
+    }
+
     /**
      * Get the particle data. Returns the pointer to the head of the particle data.
      *
@@ -1049,6 +1089,22 @@ public final class World {
         return particleSystem.getParticleVelocityBuffer();
     }
 
+    public float[] getParticlePositionX() {
+        return particleSystem.getParticlePositionX();
+    }
+
+    public float[] getParticlePositionY() {
+        return particleSystem.getParticlePositionY();
+    }
+
+    public float[] getParticleVelocityX() {
+        return particleSystem.getParticleVelocityX();
+    }
+
+    public float[] getParticleVelocityY() {
+        return particleSystem.getParticleVelocityY();
+    }
+
     public ParticleColor[] getParticleColorBuffer() {
         return particleSystem.getParticleColorBuffer();
     }
@@ -1186,8 +1242,11 @@ public final class World {
         return contactManager;
     }
 
+    /**
+     * @return pool of temporary objects, which is specific to the current thread if it solves islands
+     */
     public IWorldPool getPool() {
-        return pool;
+        return jointPool;
     }
 
     public DestructionListener getDestructionListener() {
@@ -1236,6 +1295,96 @@ public final class World {
         return subStepping;
     }
 
+    /**
+     * Enable/disable solving islands concurrently on a fork-join pool.
+     * Islands are collected first and then solved by worker threads,
+     * except islands with joints attached to static bodies, which are solved on the calling thread.
+     * The results are identical to solving islands one after another,
+     * however {@link ContactListener#postSolve} is only called once all islands are solved.
+     * This is beneficial when the world has many independent islands that are awake.
+     */
+    public void setParallelIslandSolving(boolean parallelIslandSolving) {
+        this.parallelIslandSolving = parallelIslandSolving;
+    }
+
+    public boolean isParallelIslandSolving() {
+        return parallelIslandSolving;
+    }
+
+    /**
+     * Writes the simulation state of the world to given buffer:
+     * body transforms, velocities, forces and sleep state, solver impulses of joints, the broad-phase tree,
+     * contacts with their warm starting impulses and particles.
+     * Definitions of bodies, fixtures and joints are not written.
+     *
+     * @param buffer buffer to write to
+     * @throws java.nio.BufferOverflowException if buffer is too small
+     */
+    public void saveState(ByteBuffer buffer) {
+        assertNotLocked();
+
+        buffer.put((byte) (newFixture ? 1 : 0));
+        buffer.put((byte) (stepComplete ? 1 : 0));
+        buffer.putFloat(dtInverse);
+
+        buffer.putInt(bodies.size());
+        for (Body body : bodies) {
+            body.saveState(buffer);
+        }
+
+        buffer.putInt(joints.size());
+        for (Joint joint : joints) {
+            joint.saveState(buffer);
+        }
+
+        // contacts refer to broad-phase proxies, so the broad-phase goes first
+        contactManager.broadPhase.saveState(buffer);
+        contactManager.saveState(buffer);
+
+        particleSystem.saveState(buffer);
+    }
+
+    /**
+     * Reads the state written by {@link #saveState(ByteBuffer)}, after which stepping the world
+     * gives the same results as it did after the state was saved.
+     * The world must have the same bodies, fixtures, joints and particles, created in the same order,
+     * as when the state was saved.
+     * Listeners are not notified about contacts that are removed or added by restoring.
+     *
+     * @param buffer buffer to read from
+     * @throws IllegalArgumentException if the world does not match the state
+     */
+    public void restoreState(ByteBuffer buffer) {
+        assertNotLocked();
+
+        newFixture = buffer.get() != 0;
+        stepComplete = buffer.get() != 0;
+        dtInverse = buffer.getFloat();
+
+        int bodyCount = buffer.getInt();
+        if (bodyCount != bodies.size()) {
+            throw new IllegalArgumentException("World has " + bodies.size() + " bodies, but state has " + bodyCount);
+        }
+
+        for (Body body : bodies) {
+            body.restoreState(buffer);
+        }
+
+        int jointCount = buffer.getInt();
+        if (jointCount != joints.size()) {
+            throw new IllegalArgumentException("World has " + joints.size() + " joints, but state has " + jointCount);
+        }
+
+        for (Joint joint : joints) {
+            joint.restoreState(buffer);
+        }
+
+        contactManager.broadPhase.restoreState(buffer);
+        contactManager.restoreState(buffer);
+
+        particleSystem.restoreState(buffer);
+    }
+
     public ParticleSystem getParticleSystem() {
         return particleSystem;
     }
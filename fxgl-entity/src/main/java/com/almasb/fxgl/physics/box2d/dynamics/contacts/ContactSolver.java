@@ -97,12 +97,15 @@ public final class ContactSolver {
             int pointCount = manifold.pointCount;
             assert pointCount > 0;
 
+            final int indexA = def.indicesA != null ? def.indicesA[i] : bodyA.m_islandIndex;
+            final int indexB = def.indicesB != null ? def.indicesB[i] : bodyB.m_islandIndex;
+
             ContactVelocityConstraint vc = m_velocityConstraints[i];
             vc.friction = contact.getFriction();
             vc.restitution = contact.getRestitution();
             vc.tangentSpeed = contact.getTangentSpeed();
-            vc.indexA = bodyA.m_islandIndex;
-            vc.indexB = bodyB.m_islandIndex;
+            vc.indexA = indexA;
+            vc.indexB = indexB;
             vc.invMassA = bodyA.m_invMass;
             vc.invMassB = bodyB.m_invMass;
             vc.invIA = bodyA.m_invI;
@@ -113,8 +116,8 @@ public final class ContactSolver {
             vc.normalMass.setZero();
 
             ContactPositionConstraint pc = m_positionConstraints[i];
-            pc.indexA = bodyA.m_islandIndex;
-            pc.indexB = bodyB.m_islandIndex;
+            pc.indexA = indexA;
+            pc.indexB = indexB;
             pc.invMassA = bodyA.m_invMass;
             pc.invMassB = bodyB.m_invMass;
             pc.localCenterA.set(bodyA.m_sweep.localCenter);
@@ -917,6 +920,13 @@ public final class ContactSolver {
         public int count;
         public Position[] positions;
         public Velocity[] velocities;
+
+        /**
+         * Island indices of bodies A and B of each contact.
+         * If null, {@link Body#m_islandIndex} is used.
+         */
+        public int[] indicesA;
+        public int[] indicesB;
     }
 
     private static class PositionSolverManifold {
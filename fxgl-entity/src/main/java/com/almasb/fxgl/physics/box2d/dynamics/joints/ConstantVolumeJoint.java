@@ -14,6 +14,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.World;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Position;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Velocity;
 
+import java.nio.ByteBuffer;
+
 public class ConstantVolumeJoint extends Joint {
 
     private final Body[] bodies;
@@ -235,4 +237,14 @@ public class ConstantVolumeJoint extends Joint {
     public float getReactionTorque(float inv_dt) {
         return 0;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse = buffer.getFloat();
+    }
 }
@@ -35,6 +35,8 @@ import com.almasb.fxgl.physics.box2d.common.Rotation;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //C = norm(p2 - p1) - L
 //u = (p2 - p1) / norm(p2 - p1)
 //Cdot = dot(u, v2 + cross(w2, r2) - v1 - cross(w1, r1))
@@ -332,4 +334,14 @@ public class DistanceJoint extends Joint {
 
         return FXGLMath.abs(C) < JBoxSettings.linearSlop;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse = buffer.getFloat();
+    }
 }
@@ -15,6 +15,8 @@ import com.almasb.fxgl.physics.box2d.common.Rotation;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 /**
  * @author Daniel Murphy
  */
@@ -261,4 +263,18 @@ public class FrictionJoint extends Joint {
     public boolean solvePositionConstraints(final SolverData data) {
         return true;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_linearImpulse.x);
+        buffer.putFloat(m_linearImpulse.y);
+        buffer.putFloat(m_angularImpulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_linearImpulse.x = buffer.getFloat();
+        m_linearImpulse.y = buffer.getFloat();
+        m_angularImpulse = buffer.getFloat();
+    }
 }
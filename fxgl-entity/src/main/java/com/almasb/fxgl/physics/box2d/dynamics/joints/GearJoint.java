@@ -16,6 +16,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.Body;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //Gear Joint:
 //C0 = (coordinate1 + ratio * coordinate2)_initial
 //C = (coordinate1 + ratio * coordinate2) - C0 = 0
@@ -503,4 +505,14 @@ public class GearJoint extends Joint {
         // TODO_ERIN not implemented
         return linearError < JBoxSettings.linearSlop;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse = buffer.getFloat();
+    }
 }
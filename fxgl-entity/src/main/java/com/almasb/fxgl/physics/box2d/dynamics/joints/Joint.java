@@ -11,6 +11,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.dynamics.World;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 // updated to rev 100
 
 /**
@@ -117,6 +119,21 @@ public abstract class Joint {
      */
     public abstract boolean solvePositionConstraints(SolverData data);
 
+    /**
+     * Writes solver state that carries over to the next step, such as accumulated impulses, to given buffer.
+     * Joint settings, e.g. motor speed or limits, are not written. Internal.
+     */
+    public void saveState(ByteBuffer buffer) {
+        // no default implementation
+    }
+
+    /**
+     * Reads solver state written by {@link #saveState(ByteBuffer)}. Internal.
+     */
+    public void restoreState(ByteBuffer buffer) {
+        // no default implementation
+    }
+
     /**
      * Override to handle destruction of joint
      */
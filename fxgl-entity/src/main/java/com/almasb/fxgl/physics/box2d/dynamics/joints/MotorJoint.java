@@ -13,6 +13,8 @@ import com.almasb.fxgl.physics.box2d.common.Rotation;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //Point-to-point constraint
 //Cdot = v2 - v1
 //   = v2 + cross(w2, r2) - v1 - cross(w1, r1)
@@ -344,4 +346,18 @@ public class MotorJoint extends Joint {
     public boolean solvePositionConstraints(SolverData data) {
         return true;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(linearImpulse.x);
+        buffer.putFloat(linearImpulse.y);
+        buffer.putFloat(angularImpulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        linearImpulse.x = buffer.getFloat();
+        linearImpulse.y = buffer.getFloat();
+        angularImpulse = buffer.getFloat();
+    }
 }
@@ -14,6 +14,8 @@ import com.almasb.fxgl.physics.box2d.common.Transform;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 /**
  * A mouse joint is used to make a point on a body track a specified world point. This a soft
  * constraint with a maximum force. This allows the constraint to stretch and without applying huge
@@ -240,4 +242,15 @@ public class MouseJoint extends Joint {
         pool.pushVec2(3);
     }
 
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse.x);
+        buffer.putFloat(m_impulse.y);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse.x = buffer.getFloat();
+        m_impulse.y = buffer.getFloat();
+    }
 }
@@ -16,6 +16,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.Body;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //Linear constraint (point-to-line)
 //d = p2 - p1 = x2 + r2 - x1 - r1
 //C = dot(perp, d)
@@ -787,4 +789,22 @@ public class PrismaticJoint extends Joint {
 
         return linearError <= JBoxSettings.linearSlop && angularError <= JBoxSettings.angularSlop;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse.x);
+        buffer.putFloat(m_impulse.y);
+        buffer.putFloat(m_impulse.z);
+        buffer.putFloat(m_motorImpulse);
+        buffer.put((byte) m_limitState.ordinal());
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse.x = buffer.getFloat();
+        m_impulse.y = buffer.getFloat();
+        m_impulse.z = buffer.getFloat();
+        m_motorImpulse = buffer.getFloat();
+        m_limitState = LimitState.values()[buffer.get()];
+    }
 }
@@ -15,6 +15,8 @@ import com.almasb.fxgl.physics.box2d.common.Rotation;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 /**
  * The pulley joint is connected to two bodies and two fixed ground points. The pulley supports a
  * ratio such that: length1 + ratio * length2 <= constant Yes, the force transmitted is scaled by
@@ -372,4 +374,14 @@ public class PulleyJoint extends Joint {
 
         return linearError < JBoxSettings.linearSlop;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse = buffer.getFloat();
+    }
 }
@@ -16,6 +16,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.Body;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //Point-to-point constraint
 //C = p2 - p1
 //Cdot = v2 - v1
@@ -533,4 +535,22 @@ public final class RevoluteJoint extends Joint {
             m_upperAngle = upper;
         }
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse.x);
+        buffer.putFloat(m_impulse.y);
+        buffer.putFloat(m_impulse.z);
+        buffer.putFloat(m_motorImpulse);
+        buffer.put((byte) m_limitState.ordinal());
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse.x = buffer.getFloat();
+        m_impulse.y = buffer.getFloat();
+        m_impulse.z = buffer.getFloat();
+        m_motorImpulse = buffer.getFloat();
+        m_limitState = LimitState.values()[buffer.get()];
+    }
 }
@@ -13,6 +13,8 @@ import com.almasb.fxgl.physics.box2d.common.Rotation;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 /**
  * A rope joint enforces a maximum distance between two points on two bodies. It has no other
  * effect. Warning: if you attempt to change the maximum length during the simulation you will get
@@ -267,4 +269,14 @@ public final class RopeJoint extends Joint {
     public LimitState getLimitState() {
         return m_state;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse = buffer.getFloat();
+    }
 }
@@ -17,6 +17,8 @@ import com.almasb.fxgl.physics.box2d.common.Rotation;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //Point-to-point constraint
 //C = p2 - p1
 //Cdot = v2 - v1
@@ -397,4 +399,18 @@ public class WeldJoint extends Joint {
 
         return positionError <= JBoxSettings.linearSlop && angularError <= JBoxSettings.angularSlop;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse.x);
+        buffer.putFloat(m_impulse.y);
+        buffer.putFloat(m_impulse.z);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse.x = buffer.getFloat();
+        m_impulse.y = buffer.getFloat();
+        m_impulse.z = buffer.getFloat();
+    }
 }
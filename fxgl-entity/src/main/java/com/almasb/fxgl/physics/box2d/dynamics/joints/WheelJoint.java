@@ -13,6 +13,8 @@ import com.almasb.fxgl.physics.box2d.dynamics.Body;
 import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.nio.ByteBuffer;
+
 //Linear constraint (point-to-line)
 //d = pB - pA = xB + rB - xA - rA
 //C = dot(ay, d)
@@ -467,4 +469,18 @@ public class WheelJoint extends Joint {
 
         return FXGLMath.abs(C) <= JBoxSettings.linearSlop;
     }
+
+    @Override
+    public void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_impulse);
+        buffer.putFloat(m_motorImpulse);
+        buffer.putFloat(m_springImpulse);
+    }
+
+    @Override
+    public void restoreState(ByteBuffer buffer) {
+        m_impulse = buffer.getFloat();
+        m_motorImpulse = buffer.getFloat();
+        m_springImpulse = buffer.getFloat();
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics.box2d.particle;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs passes of the particle system over ranges of particles (or contacts) on a fork-join pool.
+ * Ranges only depend on the number of items and the number of available processors,
+ * so a pass called twice with the same number of items gets the same ranges.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ParallelParticleSolver {
+
+    /**
+     * Passes over fewer items than this are run on the calling thread.
+     */
+    private static final int MIN_ITEMS_PER_RANGE = 512;
+    private static final int RANGES_PER_THREAD = 4;
+
+    private static ForkJoinPool pool;
+
+    private ParallelParticleSolver() {}
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            var threadNum = new AtomicInteger();
+
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), p -> {
+                var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("FXGL Particle Solver " + threadNum.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+
+        return pool;
+    }
+
+    /**
+     * @return number of ranges given number of items is split into
+     */
+    static int getNumRanges(int count) {
+        int numRanges = Math.min(getPool().getParallelism() * RANGES_PER_THREAD, count / MIN_ITEMS_PER_RANGE);
+
+        return Math.max(1, numRanges);
+    }
+
+    /**
+     * Splits [0, count) into {@link #getNumRanges(int)} consecutive ranges and runs action for each range.
+     * Returns once all ranges are done.
+     */
+    static void forEachRange(int count, RangeAction action) {
+        int numRanges = getNumRanges(count);
+
+        if (numRanges == 1) {
+            action.run(0, 0, count);
+            return;
+        }
+
+        var tasks = new RangeTask[numRanges];
+
+        for (int i = 0; i < numRanges; i++) {
+            int from = (int) ((long) count * i / numRanges);
+            int to = (int) ((long) count * (i + 1) / numRanges);
+
+            tasks[i] = new RangeTask(action, i, from, to);
+            getPool().execute(tasks[i]);
+        }
+
+        for (RangeTask task : tasks) {
+            task.quietlyJoin();
+        }
+
+        // rethrows if a range failed, once no range is running
+        for (RangeTask task : tasks) {
+            task.join();
+        }
+    }
+
+    @FunctionalInterface
+    interface RangeAction {
+
+        /**
+         * @param range index of the range
+         * @param from first item of the range (inclusive)
+         * @param to last item of the range (exclusive)
+         */
+        void run(int range, int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+
+        private final RangeAction action;
+        private final int range;
+        private final int from;
+        private final int to;
+
+        RangeTask(RangeAction action, int range, int from, int to) {
+            this.action = action;
+            this.range = range;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            action.run(range, from, to);
+        }
+    }
+}
@@ -9,6 +9,8 @@ package com.almasb.fxgl.physics.box2d.particle;
 import com.almasb.fxgl.core.math.Vec2;
 import com.almasb.fxgl.physics.box2d.common.Transform;
 
+import java.nio.ByteBuffer;
+
 public class ParticleGroup {
 
     ParticleSystem m_system;
@@ -102,6 +104,29 @@ public class ParticleGroup {
         m_userData = data;
     }
 
+    /**
+     * Writes the transform, which rigid groups accumulate over steps, to given buffer.
+     */
+    void saveState(ByteBuffer buffer) {
+        buffer.putFloat(m_transform.p.x);
+        buffer.putFloat(m_transform.p.y);
+        buffer.putFloat(m_transform.q.s);
+        buffer.putFloat(m_transform.q.c);
+    }
+
+    /**
+     * Reads the state written by {@link #saveState(ByteBuffer)}.
+     */
+    void restoreState(ByteBuffer buffer) {
+        m_transform.p.x = buffer.getFloat();
+        m_transform.p.y = buffer.getFloat();
+        m_transform.q.s = buffer.getFloat();
+        m_transform.q.c = buffer.getFloat();
+
+        // statistics are computed again from restored particles
+        m_timestamp = -1;
+    }
+
     public void updateStatistics() {
         if (m_timestamp != m_system.m_timestamp) {
             float m = m_system.getParticleMass();
@@ -110,12 +135,10 @@ public class ParticleGroup {
             m_linearVelocity.setZero();
             for (int i = m_firstIndex; i < m_lastIndex; i++) {
                 m_mass += m;
-                Vec2 pos = m_system.m_positionBuffer.data[i];
-                m_center.x += m * pos.x;
-                m_center.y += m * pos.y;
-                Vec2 vel = m_system.m_velocityBuffer.data[i];
-                m_linearVelocity.x += m * vel.x;
-                m_linearVelocity.y += m * vel.y;
+                m_center.x += m * m_system.m_positionX[i];
+                m_center.y += m * m_system.m_positionY[i];
+                m_linearVelocity.x += m * m_system.m_velocityX[i];
+                m_linearVelocity.y += m * m_system.m_velocityY[i];
             }
             if (m_mass > 0) {
                 m_center.x *= 1 / m_mass;
@@ -126,12 +149,10 @@ public class ParticleGroup {
             m_inertia = 0;
             m_angularVelocity = 0;
             for (int i = m_firstIndex; i < m_lastIndex; i++) {
-                Vec2 pos = m_system.m_positionBuffer.data[i];
-                Vec2 vel = m_system.m_velocityBuffer.data[i];
-                float px = pos.x - m_center.x;
-                float py = pos.y - m_center.y;
-                float vx = vel.x - m_linearVelocity.x;
-                float vy = vel.y - m_linearVelocity.y;
+                float px = m_system.m_positionX[i] - m_center.x;
+                float py = m_system.m_positionY[i] - m_center.y;
+                float vx = m_system.m_velocityX[i] - m_linearVelocity.x;
+                float vy = m_system.m_velocityY[i] - m_linearVelocity.y;
                 m_inertia += m * (px * px + py * py);
                 m_angularVelocity += m * (px * vy - py * vx);
             }
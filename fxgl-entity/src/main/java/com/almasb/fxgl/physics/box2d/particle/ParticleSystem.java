@@ -26,6 +26,7 @@ import com.almasb.fxgl.physics.box2d.dynamics.World;
 import com.almasb.fxgl.physics.box2d.particle.VoronoiDiagram.VoronoiDiagramCallback;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import static com.almasb.fxgl.physics.box2d.common.JBoxSettings.*;
@@ -79,12 +80,21 @@ public class ParticleSystem {
     private int m_internalAllocatedCapacity = 0;
     private int m_maxCount = 0;
     private ParticleBufferInt m_flagsBuffer = new ParticleBufferInt();
-    ParticleBuffer<Vec2> m_positionBuffer = new ParticleBuffer<Vec2>(Vec2.class);
-    ParticleBuffer<Vec2> m_velocityBuffer = new ParticleBuffer<Vec2>(Vec2.class);
+
+    // positions and velocities are kept as x and y arrays, so solvers only touch primitive data
+    float[] m_positionX;
+    float[] m_positionY;
+    float[] m_velocityX;
+    float[] m_velocityY;
     private float[] m_accumulationBuffer; // temporary values
-    private Vec2[] m_accumulation2Buffer; // temporary vector values
+    private float[] m_accumulation2X; // temporary vector values
+    private float[] m_accumulation2Y;
     private float[] m_depthBuffer; // distance from the surface
 
+    // copies of positions and velocities given out by getParticlePositionBuffer() and getParticleVelocityBuffer()
+    private Vec2[] m_positionVectors;
+    private Vec2[] m_velocityVectors;
+
     private ParticleBuffer<ParticleColor> m_colorBuffer = new ParticleBuffer<ParticleColor>(ParticleColor.class);
     private ParticleGroup[] m_groupBuffer;
     private ParticleBuffer<Object> m_userDataBuffer = new ParticleBuffer<Object>(Object.class);
@@ -123,6 +133,22 @@ public class ParticleSystem {
     private float m_ejectionStrength = 0.5f;
     private float m_colorMixingStrength = 0.5f;
 
+    private boolean m_parallelSolving = false;
+
+    // contacts found by each range of proxies when contacts are updated in parallel
+    private ParticleContact[][] m_rangeContactBuffers = new ParticleContact[0][];
+    private int[] m_rangeContactCounts = new int[0];
+
+    // contacts of each particle in the order they appear in m_contactBuffer,
+    // particle i has entries [m_particleContactStarts[i], m_particleContactStarts[i + 1]),
+    // an entry is 2 * contact index, plus 1 if the particle is B of the contact
+    private int[] m_particleContactStarts;
+    private int[] m_particleContacts;
+
+    // impulses of contacts, computed from velocities at the start of a parallel pass
+    private float[] m_contactImpulseX;
+    private float[] m_contactImpulseY;
+
     private final World m_world;
 
     public ParticleSystem(World world) {
@@ -134,21 +160,25 @@ public class ParticleSystem {
             int capacity = m_count != 0 ? 2 * m_count : minParticleBufferCapacity;
             capacity = limitCapacity(capacity, m_maxCount);
             capacity = limitCapacity(capacity, m_flagsBuffer.userSuppliedCapacity);
-            capacity = limitCapacity(capacity, m_positionBuffer.userSuppliedCapacity);
-            capacity = limitCapacity(capacity, m_velocityBuffer.userSuppliedCapacity);
             capacity = limitCapacity(capacity, m_colorBuffer.userSuppliedCapacity);
             capacity = limitCapacity(capacity, m_userDataBuffer.userSuppliedCapacity);
             if (m_internalAllocatedCapacity < capacity) {
                 m_flagsBuffer.data =
                         reallocateBuffer(m_flagsBuffer, m_internalAllocatedCapacity, capacity, false);
-                m_positionBuffer.data =
-                        reallocateBuffer(m_positionBuffer, m_internalAllocatedCapacity, capacity, false);
-                m_velocityBuffer.data =
-                        reallocateBuffer(m_velocityBuffer, m_internalAllocatedCapacity, capacity, false);
+                m_positionX =
+                        reallocateBuffer(m_positionX, 0, m_internalAllocatedCapacity, capacity, false);
+                m_positionY =
+                        reallocateBuffer(m_positionY, 0, m_internalAllocatedCapacity, capacity, false);
+                m_velocityX =
+                        reallocateBuffer(m_velocityX, 0, m_internalAllocatedCapacity, capacity, false);
+                m_velocityY =
+                        reallocateBuffer(m_velocityY, 0, m_internalAllocatedCapacity, capacity, false);
                 m_accumulationBuffer =
                         reallocateBuffer(m_accumulationBuffer, 0, m_internalAllocatedCapacity, capacity, false);
-                m_accumulation2Buffer =
-                        reallocateBuffer(Vec2.class, m_accumulation2Buffer, 0, m_internalAllocatedCapacity, capacity, true);
+                m_accumulation2X =
+                        reallocateBuffer(m_accumulation2X, 0, m_internalAllocatedCapacity, capacity, true);
+                m_accumulation2Y =
+                        reallocateBuffer(m_accumulation2Y, 0, m_internalAllocatedCapacity, capacity, true);
                 m_depthBuffer =
                         reallocateBuffer(m_depthBuffer, 0, m_internalAllocatedCapacity, capacity, true);
                 m_colorBuffer.data =
@@ -165,8 +195,10 @@ public class ParticleSystem {
         }
         int index = m_count++;
         m_flagsBuffer.data[index] = def.getTypeFlags();
-        m_positionBuffer.data[index].set(def.position);
-        m_velocityBuffer.data[index].set(def.velocity);
+        m_positionX[index] = def.position.x;
+        m_positionY[index] = def.position.y;
+        m_velocityX[index] = def.velocity.x;
+        m_velocityY[index] = def.velocity.y;
         m_groupBuffer[index] = null;
         if (m_depthBuffer != null) {
             m_depthBuffer[index] = 0;
@@ -313,7 +345,7 @@ public class ParticleSystem {
                     pair.indexB = b;
                     pair.flags = contact.flags;
                     pair.strength = groupDef.getStrength();
-                    pair.distance = m_positionBuffer.data[a].distanceF(m_positionBuffer.data[b]);
+                    pair.distance = distance(a, b);
                     m_pairCount++;
                 }
             }
@@ -321,7 +353,7 @@ public class ParticleSystem {
         if ((groupDef.getTypeFlags() & k_triadFlags) != 0) {
             VoronoiDiagram diagram = new VoronoiDiagram(lastIndex - firstIndex);
             for (int i = firstIndex; i < lastIndex; i++) {
-                diagram.addGenerator(m_positionBuffer.data[i], i);
+                diagram.addGenerator(m_positionX[i], m_positionY[i], i);
             }
             diagram.generate(stride / 2);
             createParticleGroupCallback.system = this;
@@ -373,7 +405,7 @@ public class ParticleSystem {
                     pair.indexB = b;
                     pair.flags = contact.flags;
                     pair.strength = Math.min(groupA.m_strength, groupB.m_strength);
-                    pair.distance = m_positionBuffer.data[a].distanceF(m_positionBuffer.data[b]);
+                    pair.distance = distance(a, b);
                     m_pairCount++;
                 }
             }
@@ -382,7 +414,7 @@ public class ParticleSystem {
             VoronoiDiagram diagram = new VoronoiDiagram(groupB.m_lastIndex - groupA.m_firstIndex);
             for (int i = groupA.m_firstIndex; i < groupB.m_lastIndex; i++) {
                 if ((m_flagsBuffer.data[i] & ParticleTypeInternal.b2_zombieParticle) == 0) {
-                    diagram.addGenerator(m_positionBuffer.data[i], i);
+                    diagram.addGenerator(m_positionX[i], m_positionY[i], i);
                 }
             }
             diagram.generate(getParticleStride() / 2);
@@ -490,12 +522,16 @@ public class ParticleSystem {
         }
     }
 
+    private float distance(int a, int b) {
+        float dx = m_positionX[b] - m_positionX[a];
+        float dy = m_positionY[b] - m_positionY[a];
+        return FXGLMath.sqrtF(dx * dx + dy * dy);
+    }
+
     private void addContact(int a, int b) {
         assert a != b;
-        Vec2 pa = m_positionBuffer.data[a];
-        Vec2 pb = m_positionBuffer.data[b];
-        float dx = pb.x - pa.x;
-        float dy = pb.y - pa.y;
+        float dx = m_positionX[b] - m_positionX[a];
+        float dy = m_positionY[b] - m_positionY[a];
         float d2 = dx * dx + dy * dy;
 
         if (d2 < m_squaredDiameter) {
@@ -507,24 +543,71 @@ public class ParticleSystem {
                                 newCapacity);
                 m_contactCapacity = newCapacity;
             }
-            float invD = d2 != 0 ? FXGLMath.sqrtF(1 / d2) : Float.MAX_VALUE;
-            ParticleContact contact = m_contactBuffer[m_contactCount];
-            contact.indexA = a;
-            contact.indexB = b;
-            contact.flags = m_flagsBuffer.data[a] | m_flagsBuffer.data[b];
-            contact.weight = 1 - d2 * invD * m_inverseDiameter;
-            contact.normal.x = invD * dx;
-            contact.normal.y = invD * dy;
+            initContact(m_contactBuffer[m_contactCount], a, b, dx, dy, d2);
             m_contactCount++;
         }
     }
 
+    /**
+     * Same as addContact() but adds to the contacts of given range of proxies.
+     *
+     * @return number of contacts of the range
+     */
+    private int addRangeContact(int range, int count, int a, int b) {
+        assert a != b;
+        float dx = m_positionX[b] - m_positionX[a];
+        float dy = m_positionY[b] - m_positionY[a];
+        float d2 = dx * dx + dy * dy;
+
+        if (d2 < m_squaredDiameter) {
+            ParticleContact[] contacts = m_rangeContactBuffers[range];
+            if (count >= contacts.length) {
+                int newCapacity = count != 0 ? 2 * count : minParticleBufferCapacity;
+                contacts = reallocateBuffer(ParticleContact.class, contacts, contacts.length, newCapacity);
+                m_rangeContactBuffers[range] = contacts;
+            }
+            initContact(contacts[count], a, b, dx, dy, d2);
+            count++;
+        }
+        return count;
+    }
+
+    private void initContact(ParticleContact contact, int a, int b, float dx, float dy, float d2) {
+        float invD = d2 != 0 ? FXGLMath.sqrtF(1 / d2) : Float.MAX_VALUE;
+        contact.indexA = a;
+        contact.indexB = b;
+        contact.flags = m_flagsBuffer.data[a] | m_flagsBuffer.data[b];
+        contact.weight = 1 - d2 * invD * m_inverseDiameter;
+        contact.normal.x = invD * dx;
+        contact.normal.y = invD * dy;
+    }
+
     private void updateContacts(boolean exceptZombie) {
+        if (m_parallelSolving) {
+            findContactsParallel();
+        } else {
+            findContacts();
+        }
+        if (exceptZombie) {
+            int j = m_contactCount;
+            for (int i = 0; i < j; i++) {
+                if ((m_contactBuffer[i].flags & ParticleTypeInternal.b2_zombieParticle) != 0) {
+                    --j;
+                    ParticleContact temp = m_contactBuffer[j];
+                    m_contactBuffer[j] = m_contactBuffer[i];
+                    m_contactBuffer[i] = temp;
+                    --i;
+                }
+            }
+            m_contactCount = j;
+        }
+    }
+
+    private void findContacts() {
         for (int p = 0; p < m_proxyCount; p++) {
             Proxy proxy = m_proxyBuffer[p];
             int i = proxy.index;
-            Vec2 pos = m_positionBuffer.data[i];
-            proxy.tag = computeTag(m_inverseDiameter * pos.x, m_inverseDiameter * pos.y);
+            proxy.tag = computeTag(m_inverseDiameter * m_positionX[i], m_inverseDiameter * m_positionY[i]);
         }
         Arrays.sort(m_proxyBuffer, 0, m_proxyCount);
         m_contactCount = 0;
@@ -556,18 +639,186 @@ public class ParticleSystem {
                 addContact(a.index, b.index);
             }
         }
-        if (exceptZombie) {
-            int j = m_contactCount;
-            for (int i = 0; i < j; i++) {
-                if ((m_contactBuffer[i].flags & ParticleTypeInternal.b2_zombieParticle) != 0) {
-                    --j;
-                    ParticleContact temp = m_contactBuffer[j];
-                    m_contactBuffer[j] = m_contactBuffer[i];
-                    m_contactBuffer[i] = temp;
-                    --i;
+    }
+
+    /**
+     * Finds the same contacts in the same order as findContacts(), with sorted proxies split into ranges.
+     * Each range finds contacts of its proxies, which are then moved to the contact buffer in range order.
+     */
+    private void findContactsParallel() {
+        ParallelParticleSolver.forEachRange(m_proxyCount, (range, from, to) -> {
+            for (int p = from; p < to; p++) {
+                Proxy proxy = m_proxyBuffer[p];
+                int i = proxy.index;
+                proxy.tag = computeTag(m_inverseDiameter * m_positionX[i], m_inverseDiameter * m_positionY[i]);
+            }
+        });
+        // stable, so the order is the same as with Arrays.sort()
+        Arrays.parallelSort(m_proxyBuffer, 0, m_proxyCount);
+
+        int numRanges = ParallelParticleSolver.getNumRanges(m_proxyCount);
+        if (m_rangeContactBuffers.length < numRanges) {
+            int oldLength = m_rangeContactBuffers.length;
+            m_rangeContactBuffers = Arrays.copyOf(m_rangeContactBuffers, numRanges);
+            m_rangeContactCounts = new int[numRanges];
+            for (int i = oldLength; i < numRanges; i++) {
+                m_rangeContactBuffers[i] = new ParticleContact[0];
+            }
+        }
+
+        ParallelParticleSolver.forEachRange(m_proxyCount, (range, from, to) -> {
+            m_rangeContactCounts[range] = findContacts(range, from, to);
+        });
+
+        m_contactCount = 0;
+        for (int i = 0; i < numRanges; i++) {
+            m_contactCount += m_rangeContactCounts[i];
+        }
+        if (m_contactCount > m_contactCapacity) {
+            int oldCapacity = m_contactCapacity;
+            int newCapacity = Math.max(2 * m_contactCapacity, m_contactCount);
+            m_contactBuffer =
+                    reallocateBuffer(ParticleContact.class, m_contactBuffer, oldCapacity,
+                            newCapacity);
+            m_contactCapacity = newCapacity;
+        }
+
+        // ranges are the same as above, so each range moves its own contacts by swapping
+        ParallelParticleSolver.forEachRange(m_proxyCount, (range, from, to) -> {
+            int first = 0;
+            for (int i = 0; i < range; i++) {
+                first += m_rangeContactCounts[i];
+            }
+            ParticleContact[] contacts = m_rangeContactBuffers[range];
+            for (int k = 0; k < m_rangeContactCounts[range]; k++) {
+                ParticleContact temp = m_contactBuffer[first + k];
+                m_contactBuffer[first + k] = contacts[k];
+                contacts[k] = temp;
+            }
+        });
+    }
+
+    /**
+     * Finds contacts of proxies [from, to), which must be sorted by tag.
+     *
+     * @return number of contacts found
+     */
+    private int findContacts(int range, int from, int to) {
+        int count = 0;
+        // tags of proxies before 'from' are less than the bottom left tag of any proxy in the range
+        int c_index = from;
+        for (int i = from; i < to; i++) {
+            Proxy a = m_proxyBuffer[i];
+            long rightTag = computeRelativeTag(a.tag, 1, 0);
+            for (int j = i + 1; j < m_proxyCount; j++) {
+                Proxy b = m_proxyBuffer[j];
+                if (rightTag < b.tag) {
+                    break;
                 }
+                count = addRangeContact(range, count, a.index, b.index);
             }
-            m_contactCount = j;
+            long bottomLeftTag = computeRelativeTag(a.tag, -1, 1);
+            for (; c_index < m_proxyCount; c_index++) {
+                Proxy c = m_proxyBuffer[c_index];
+                if (bottomLeftTag <= c.tag) {
+                    break;
+                }
+            }
+            long bottomRightTag = computeRelativeTag(a.tag, 1, 1);
+
+            for (int b_index = c_index; b_index < m_proxyCount; b_index++) {
+                Proxy b = m_proxyBuffer[b_index];
+                if (bottomRightTag < b.tag) {
+                    break;
+                }
+                count = addRangeContact(range, count, a.index, b.index);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists contacts of each particle, so that parallel passes can sum up contributions of contacts
+     * per particle in contact order, which gives the same sums as adding them contact by contact.
+     */
+    private void updateParticleContacts() {
+        if (m_particleContactStarts == null || m_particleContactStarts.length < m_count + 1) {
+            m_particleContactStarts = new int[m_internalAllocatedCapacity + 1];
+        }
+        if (m_particleContacts == null || m_particleContacts.length < 2 * m_contactCount) {
+            m_particleContacts = new int[2 * m_contactCapacity];
+        }
+        final int[] starts = m_particleContactStarts;
+        final int[] entries = m_particleContacts;
+        Arrays.fill(starts, 0, m_count + 1, 0);
+        for (int k = 0; k < m_contactCount; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            starts[contact.indexA + 1]++;
+            starts[contact.indexB + 1]++;
+        }
+        for (int i = 1; i <= m_count; i++) {
+            starts[i] += starts[i - 1];
+        }
+        // starts[i] is used as a cursor, so it ends up at the start of i + 1
+        for (int k = 0; k < m_contactCount; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            entries[starts[contact.indexA]++] = 2 * k;
+            entries[starts[contact.indexB]++] = 2 * k + 1;
+        }
+        for (int i = m_count; i > 0; i--) {
+            starts[i] = starts[i - 1];
+        }
+        starts[0] = 0;
+    }
+
+    /**
+     * Adds contact impulses to velocities of particle A and subtracts from velocities of particle B,
+     * summing up per particle in contact order.
+     * All impulses are computed from the same velocities, so with many contacts their sum can remove more than
+     * the relative velocity and make particles oscillate. Hence, if the weights of contacts that give an impulse
+     * to a particle add up to more than 1, the summed impulse of that particle is divided by that weight.
+     */
+    private void applyContactImpulsesParallel() {
+        final int[] starts = m_particleContactStarts;
+        final int[] entries = m_particleContacts;
+        final float[] impulseX = m_contactImpulseX;
+        final float[] impulseY = m_contactImpulseY;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
+        final ParticleContact[] contacts = m_contactBuffer;
+        ParallelParticleSolver.forEachRange(m_count, (range, from, to) -> {
+            for (int i = from; i < to; i++) {
+                float dvx = 0;
+                float dvy = 0;
+                float weight = 0;
+                for (int e = starts[i]; e < starts[i + 1]; e++) {
+                    int k = entries[e] >> 1;
+                    if (impulseX[k] == 0 && impulseY[k] == 0) {
+                        continue;
+                    }
+                    weight += contacts[k].weight;
+                    if ((entries[e] & 1) == 0) {
+                        dvx += impulseX[k];
+                        dvy += impulseY[k];
+                    } else {
+                        dvx -= impulseX[k];
+                        dvy -= impulseY[k];
+                    }
+                }
+                if (weight > 1) {
+                    dvx /= weight;
+                    dvy /= weight;
+                }
+                velocityX[i] += dvx;
+                velocityY[i] += dvy;
+            }
+        });
+    }
+
+    private void requestContactImpulses() {
+        if (m_contactImpulseX == null || m_contactImpulseX.length < m_contactCount) {
+            m_contactImpulseX = new float[m_contactCapacity];
+            m_contactImpulseY = new float[m_contactCapacity];
         }
     }
 
@@ -575,19 +826,24 @@ public class ParticleSystem {
 
     private void updateBodyContacts() {
         final AABB aabb = temp;
-        aabb.lowerBound.x = Float.MAX_VALUE;
-        aabb.lowerBound.y = Float.MAX_VALUE;
-        aabb.upperBound.x = -Float.MAX_VALUE;
-        aabb.upperBound.y = -Float.MAX_VALUE;
+        float lowerX = Float.MAX_VALUE;
+        float lowerY = Float.MAX_VALUE;
+        float upperX = -Float.MAX_VALUE;
+        float upperY = -Float.MAX_VALUE;
+        final float[] positionX = m_positionX;
+        final float[] positionY = m_positionY;
         for (int i = 0; i < m_count; i++) {
-            Vec2 p = m_positionBuffer.data[i];
-            Vec2.minToOut(aabb.lowerBound, p, aabb.lowerBound);
-            Vec2.maxToOut(aabb.upperBound, p, aabb.upperBound);
-        }
-        aabb.lowerBound.x -= m_particleDiameter;
-        aabb.lowerBound.y -= m_particleDiameter;
-        aabb.upperBound.x += m_particleDiameter;
-        aabb.upperBound.y += m_particleDiameter;
+            final float x = positionX[i];
+            final float y = positionY[i];
+            lowerX = lowerX < x ? lowerX : x;
+            lowerY = lowerY < y ? lowerY : y;
+            upperX = upperX > x ? upperX : x;
+            upperY = upperY > y ? upperY : y;
+        }
+        aabb.lowerBound.x = lowerX - m_particleDiameter;
+        aabb.lowerBound.y = lowerY - m_particleDiameter;
+        aabb.upperBound.x = upperX + m_particleDiameter;
+        aabb.upperBound.y = upperY + m_particleDiameter;
         m_bodyContactCount = 0;
 
         ubccallback.system = this;
@@ -598,28 +854,33 @@ public class ParticleSystem {
 
     private void solveCollision(TimeStep step) {
         final AABB aabb = temp;
-        final Vec2 lowerBound = aabb.lowerBound;
-        final Vec2 upperBound = aabb.upperBound;
-        lowerBound.x = Float.MAX_VALUE;
-        lowerBound.y = Float.MAX_VALUE;
-        upperBound.x = -Float.MAX_VALUE;
-        upperBound.y = -Float.MAX_VALUE;
+        float lowerX = Float.MAX_VALUE;
+        float lowerY = Float.MAX_VALUE;
+        float upperX = -Float.MAX_VALUE;
+        float upperY = -Float.MAX_VALUE;
+        final float dt = step.dt;
+        final float[] positionX = m_positionX;
+        final float[] positionY = m_positionY;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
         for (int i = 0; i < m_count; i++) {
-            final Vec2 v = m_velocityBuffer.data[i];
-            final Vec2 p1 = m_positionBuffer.data[i];
-            final float p1x = p1.x;
-            final float p1y = p1.y;
-            final float p2x = p1x + step.dt * v.x;
-            final float p2y = p1y + step.dt * v.y;
+            final float p1x = positionX[i];
+            final float p1y = positionY[i];
+            final float p2x = p1x + dt * velocityX[i];
+            final float p2y = p1y + dt * velocityY[i];
             final float bx = p1x < p2x ? p1x : p2x;
             final float by = p1y < p2y ? p1y : p2y;
-            lowerBound.x = lowerBound.x < bx ? lowerBound.x : bx;
-            lowerBound.y = lowerBound.y < by ? lowerBound.y : by;
+            lowerX = lowerX < bx ? lowerX : bx;
+            lowerY = lowerY < by ? lowerY : by;
             final float b1x = p1x > p2x ? p1x : p2x;
             final float b1y = p1y > p2y ? p1y : p2y;
-            upperBound.x = upperBound.x > b1x ? upperBound.x : b1x;
-            upperBound.y = upperBound.y > b1y ? upperBound.y : b1y;
+            upperX = upperX > b1x ? upperX : b1x;
+            upperY = upperY > b1y ? upperY : b1y;
         }
+        aabb.lowerBound.x = lowerX;
+        aabb.lowerBound.y = lowerY;
+        aabb.upperBound.x = upperX;
+        aabb.upperBound.y = upperY;
         sccallback.step = step;
         sccallback.system = this;
         m_world.queryAABB(sccallback, aabb);
@@ -647,16 +908,19 @@ public class ParticleSystem {
         final float gravityx = step.dt * m_gravityScale * m_world.getGravity().x;
         final float gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
         float criticalVelocytySquared = getCriticalVelocitySquared(step);
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
         for (int i = 0; i < m_count; i++) {
-            Vec2 v = m_velocityBuffer.data[i];
-            v.x += gravityx;
-            v.y += gravityy;
-            float v2 = v.x * v.x + v.y * v.y;
+            float vx = velocityX[i] + gravityx;
+            float vy = velocityY[i] + gravityy;
+            float v2 = vx * vx + vy * vy;
             if (v2 > criticalVelocytySquared) {
                 float a = v2 == 0 ? Float.MAX_VALUE : FXGLMath.sqrtF(criticalVelocytySquared / v2);
-                v.x *= a;
-                v.y *= a;
+                vx *= a;
+                vy *= a;
             }
+            velocityX[i] = vx;
+            velocityY[i] = vy;
         }
         solveCollision(step);
         if ((m_allGroupFlags & ParticleGroupType.b2_rigidParticleGroup) != 0) {
@@ -665,16 +929,24 @@ public class ParticleSystem {
         if ((m_allParticleFlags & ParticleTypeInternal.b2_wallParticle) != 0) {
             solveWall(step);
         }
+        final float dt = step.dt;
+        final float[] positionX = m_positionX;
+        final float[] positionY = m_positionY;
         for (int i = 0; i < m_count; i++) {
-            Vec2 pos = m_positionBuffer.data[i];
-            Vec2 vel = m_velocityBuffer.data[i];
-            pos.x += step.dt * vel.x;
-            pos.y += step.dt * vel.y;
+            positionX[i] += dt * velocityX[i];
+            positionY[i] += dt * velocityY[i];
         }
         updateBodyContacts();
         updateContacts(false);
+        if (m_parallelSolving) {
+            updateParticleContacts();
+        }
         if ((m_allParticleFlags & ParticleTypeInternal.b2_viscousParticle) != 0) {
-            solveViscous(step);
+            if (m_parallelSolving) {
+                solveViscousParallel();
+            } else {
+                solveViscous(step);
+            }
         }
         if ((m_allParticleFlags & ParticleTypeInternal.b2_powderParticle) != 0) {
             solvePowder(step);
@@ -694,48 +966,51 @@ public class ParticleSystem {
         if ((m_allParticleFlags & ParticleTypeInternal.b2_colorMixingParticle) != 0) {
             solveColorMixing(step);
         }
-        solvePressure(step);
-        solveDamping(step);
+        if (m_parallelSolving) {
+            solvePressureParallel(step);
+            solveDampingParallel();
+        } else {
+            solvePressure(step);
+            solveDamping(step);
+        }
     }
 
     private void solvePressure(TimeStep step) {
+        final float[] accumulation = m_accumulationBuffer;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
         // calculates the sum of contact-weights for each particle
         // that means dimensionless density
-        for (int i = 0; i < m_count; i++) {
-            m_accumulationBuffer[i] = 0;
-        }
+        Arrays.fill(accumulation, 0, m_count, 0);
         for (int k = 0; k < m_bodyContactCount; k++) {
             ParticleBodyContact contact = m_bodyContactBuffer[k];
-            int a = contact.index;
-            float w = contact.weight;
-            m_accumulationBuffer[a] += w;
+            accumulation[contact.index] += contact.weight;
         }
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
             float w = contact.weight;
-            m_accumulationBuffer[a] += w;
-            m_accumulationBuffer[b] += w;
+            accumulation[contact.indexA] += w;
+            accumulation[contact.indexB] += w;
         }
         // ignores powder particles
         if ((m_allParticleFlags & k_noPressureFlags) != 0) {
+            final int[] flags = m_flagsBuffer.data;
             for (int i = 0; i < m_count; i++) {
-                if ((m_flagsBuffer.data[i] & k_noPressureFlags) != 0) {
-                    m_accumulationBuffer[i] = 0;
+                if ((flags[i] & k_noPressureFlags) != 0) {
+                    accumulation[i] = 0;
                 }
             }
         }
         // calculates pressure as a linear function of density
         float pressurePerWeight = m_pressureStrength * getCriticalPressure(step);
         for (int i = 0; i < m_count; i++) {
-            float w = m_accumulationBuffer[i];
-            float h =
+            float w = accumulation[i];
+            accumulation[i] =
                     pressurePerWeight * Math.max(0.0f, Math.min(w, maxParticleWeight) - minParticleWeight);
-            m_accumulationBuffer[i] = h;
         }
         // applies pressure between each particles in contact
         float velocityPerPressure = step.dt / (m_density * m_particleDiameter);
+        final float particleInvMass = getParticleInvMass();
         for (int k = 0; k < m_bodyContactCount; k++) {
             ParticleBodyContact contact = m_bodyContactBuffer[k];
             int a = contact.index;
@@ -743,40 +1018,188 @@ public class ParticleSystem {
             float w = contact.weight;
             float m = contact.mass;
             Vec2 n = contact.normal;
-            Vec2 p = m_positionBuffer.data[a];
-            float h = m_accumulationBuffer[a] + pressurePerWeight * w;
+            float h = accumulation[a] + pressurePerWeight * w;
             final Vec2 f = tempVec;
             final float coef = velocityPerPressure * w * m * h;
             f.x = coef * n.x;
             f.y = coef * n.y;
-            final Vec2 velData = m_velocityBuffer.data[a];
-            final float particleInvMass = getParticleInvMass();
-            velData.x -= particleInvMass * f.x;
-            velData.y -= particleInvMass * f.y;
-            b.applyLinearImpulse(f, p, true);
+            velocityX[a] -= particleInvMass * f.x;
+            velocityY[a] -= particleInvMass * f.y;
+            b.applyLinearImpulse(f, getPosition(a, tempVec2), true);
         }
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
             int a = contact.indexA;
             int b = contact.indexB;
-            float w = contact.weight;
             Vec2 n = contact.normal;
-            float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-            final float fx = velocityPerPressure * w * h * n.x;
-            final float fy = velocityPerPressure * w * h * n.y;
-            final Vec2 velDataA = m_velocityBuffer.data[a];
-            final Vec2 velDataB = m_velocityBuffer.data[b];
-            velDataA.x -= fx;
-            velDataA.y -= fy;
-            velDataB.x += fx;
-            velDataB.y += fy;
+            float inter = velocityPerPressure * contact.weight * (accumulation[a] + accumulation[b]);
+            final float fx = inter * n.x;
+            final float fy = inter * n.y;
+            velocityX[a] -= fx;
+            velocityY[a] -= fy;
+            velocityX[b] += fx;
+            velocityY[b] += fy;
         }
     }
 
+    /**
+     * Gives the same results as solvePressure().
+     */
+    private void solvePressureParallel(TimeStep step) {
+        final float[] accumulation = m_accumulationBuffer;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
+        final int[] starts = m_particleContactStarts;
+        final int[] entries = m_particleContacts;
+        final ParticleContact[] contacts = m_contactBuffer;
+        Arrays.fill(accumulation, 0, m_count, 0);
+        for (int k = 0; k < m_bodyContactCount; k++) {
+            ParticleBodyContact contact = m_bodyContactBuffer[k];
+            accumulation[contact.index] += contact.weight;
+        }
+        final boolean hasNoPressureFlags = (m_allParticleFlags & k_noPressureFlags) != 0;
+        final int[] flags = m_flagsBuffer.data;
+        final float pressurePerWeight = m_pressureStrength * getCriticalPressure(step);
+        ParallelParticleSolver.forEachRange(m_count, (range, from, to) -> {
+            for (int i = from; i < to; i++) {
+                float w = accumulation[i];
+                for (int e = starts[i]; e < starts[i + 1]; e++) {
+                    w += contacts[entries[e] >> 1].weight;
+                }
+                if (hasNoPressureFlags && (flags[i] & k_noPressureFlags) != 0) {
+                    w = 0;
+                }
+                accumulation[i] =
+                        pressurePerWeight * Math.max(0.0f, Math.min(w, maxParticleWeight) - minParticleWeight);
+            }
+        });
+        final float velocityPerPressure = step.dt / (m_density * m_particleDiameter);
+        final float particleInvMass = getParticleInvMass();
+        for (int k = 0; k < m_bodyContactCount; k++) {
+            ParticleBodyContact contact = m_bodyContactBuffer[k];
+            int a = contact.index;
+            Body b = contact.body;
+            float w = contact.weight;
+            float m = contact.mass;
+            Vec2 n = contact.normal;
+            float h = accumulation[a] + pressurePerWeight * w;
+            final Vec2 f = tempVec;
+            final float coef = velocityPerPressure * w * m * h;
+            f.x = coef * n.x;
+            f.y = coef * n.y;
+            velocityX[a] -= particleInvMass * f.x;
+            velocityY[a] -= particleInvMass * f.y;
+            b.applyLinearImpulse(f, getPosition(a, tempVec2), true);
+        }
+        // the force of a contact is computed for both particles, as it is cheaper than storing it
+        ParallelParticleSolver.forEachRange(m_count, (range, from, to) -> {
+            for (int i = from; i < to; i++) {
+                float vx = velocityX[i];
+                float vy = velocityY[i];
+                for (int e = starts[i]; e < starts[i + 1]; e++) {
+                    ParticleContact contact = contacts[entries[e] >> 1];
+                    Vec2 n = contact.normal;
+                    float inter = velocityPerPressure * contact.weight
+                            * (accumulation[contact.indexA] + accumulation[contact.indexB]);
+                    final float fx = inter * n.x;
+                    final float fy = inter * n.y;
+                    if ((entries[e] & 1) == 0) {
+                        vx -= fx;
+                        vy -= fy;
+                    } else {
+                        vx += fx;
+                        vy += fy;
+                    }
+                }
+                velocityX[i] = vx;
+                velocityY[i] = vy;
+            }
+        });
+    }
+
+    /**
+     * Copies position of particle with given index to out.
+     *
+     * @return out
+     */
+    private Vec2 getPosition(int index, Vec2 out) {
+        out.x = m_positionX[index];
+        out.y = m_positionY[index];
+        return out;
+    }
+
     @SuppressWarnings("PMD.UnusedFormalParameter")
     private void solveDamping(TimeStep step) {
         // reduces normal velocity of each contact
         float damping = m_dampingStrength;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
+        solveDampingBodyContacts();
+        for (int k = 0; k < m_contactCount; k++) {
+            final ParticleContact contact = m_contactBuffer[k];
+            int a = contact.indexA;
+            int b = contact.indexB;
+            Vec2 n = contact.normal;
+            final float vx = velocityX[b] - velocityX[a];
+            final float vy = velocityY[b] - velocityY[a];
+            float vn = vx * n.x + vy * n.y;
+            if (vn < 0) {
+                float inter = damping * contact.weight * vn;
+                float fx = inter * n.x;
+                float fy = inter * n.y;
+                velocityX[a] += fx;
+                velocityY[a] += fy;
+                velocityX[b] -= fx;
+                velocityY[b] -= fy;
+            }
+        }
+    }
+
+    /**
+     * Same as solveDamping(), except that impulses between particles are computed from velocities
+     * at the start of the pass and averaged per particle (see applyContactImpulsesParallel()),
+     * rather than computed from velocities already changed by preceding contacts.
+     */
+    private void solveDampingParallel() {
+        final float damping = m_dampingStrength;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
+        solveDampingBodyContacts();
+        requestContactImpulses();
+        final float[] impulseX = m_contactImpulseX;
+        final float[] impulseY = m_contactImpulseY;
+        final ParticleContact[] contacts = m_contactBuffer;
+        ParallelParticleSolver.forEachRange(m_contactCount, (range, from, to) -> {
+            for (int k = from; k < to; k++) {
+                final ParticleContact contact = contacts[k];
+                int a = contact.indexA;
+                int b = contact.indexB;
+                Vec2 n = contact.normal;
+                final float vx = velocityX[b] - velocityX[a];
+                final float vy = velocityY[b] - velocityY[a];
+                float vn = vx * n.x + vy * n.y;
+                if (vn < 0) {
+                    float inter = damping * contact.weight * vn;
+                    impulseX[k] = inter * n.x;
+                    impulseY[k] = inter * n.y;
+                } else {
+                    impulseX[k] = 0;
+                    impulseY[k] = 0;
+                }
+            }
+        });
+        applyContactImpulsesParallel();
+    }
+
+    /**
+     * Reduces normal velocity of each body contact, used by both serial and parallel solving.
+     */
+    private void solveDampingBodyContacts() {
+        final float damping = m_dampingStrength;
+        final float[] positionX = m_positionX;
+        final float[] positionY = m_positionY;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
         for (int k = 0; k < m_bodyContactCount; k++) {
             final ParticleBodyContact contact = m_bodyContactBuffer[k];
             int a = contact.index;
@@ -784,13 +1207,11 @@ public class ParticleSystem {
             float w = contact.weight;
             float m = contact.mass;
             Vec2 n = contact.normal;
-            Vec2 p = m_positionBuffer.data[a];
-            final float tempX = p.x - b.m_sweep.c.x;
-            final float tempY = p.y - b.m_sweep.c.y;
-            final Vec2 velA = m_velocityBuffer.data[a];
+            final float tempX = positionX[a] - b.m_sweep.c.x;
+            final float tempY = positionY[a] - b.m_sweep.c.y;
             // getLinearVelocityFromWorldPointToOut, with -= velA
-            float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - velA.x;
-            float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - velA.y;
+            float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - velocityX[a];
+            float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - velocityY[a];
             // done
             float vn = vx * n.x + vy * n.y;
             if (vn < 0) {
@@ -798,31 +1219,11 @@ public class ParticleSystem {
                 f.x = damping * w * m * vn * n.x;
                 f.y = damping * w * m * vn * n.y;
                 final float invMass = getParticleInvMass();
-                velA.x += invMass * f.x;
-                velA.y += invMass * f.y;
+                velocityX[a] += invMass * f.x;
+                velocityY[a] += invMass * f.y;
                 f.x = -f.x;
                 f.y = -f.y;
-                b.applyLinearImpulse(f, p, true);
-            }
-        }
-        for (int k = 0; k < m_contactCount; k++) {
-            final ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
-            float w = contact.weight;
-            Vec2 n = contact.normal;
-            final Vec2 velA = m_velocityBuffer.data[a];
-            final Vec2 velB = m_velocityBuffer.data[b];
-            final float vx = velB.x - velA.x;
-            final float vy = velB.y - velA.y;
-            float vn = vx * n.x + vy * n.y;
-            if (vn < 0) {
-                float fx = damping * w * vn * n.x;
-                float fy = damping * w * vn * n.y;
-                velA.x += fx;
-                velA.y += fy;
-                velB.x -= fx;
-                velB.y -= fy;
+                b.applyLinearImpulse(f, getPosition(a, tempVec2), true);
             }
         }
     }
@@ -831,9 +1232,8 @@ public class ParticleSystem {
     private void solveWall(TimeStep step) {
         for (int i = 0; i < m_count; i++) {
             if ((m_flagsBuffer.data[i] & ParticleTypeInternal.b2_wallParticle) != 0) {
-                final Vec2 r = m_velocityBuffer.data[i];
-                r.x = 0.0f;
-                r.y = 0.0f;
+                m_velocityX[i] = 0.0f;
+                m_velocityY[i] = 0.0f;
             }
         }
     }
@@ -861,9 +1261,15 @@ public class ParticleSystem {
                 velocityTransform.p.y = step.inv_dt * tempXf.p.y;
                 velocityTransform.q.s = step.inv_dt * tempXf.q.s;
                 velocityTransform.q.c = step.inv_dt * (tempXf.q.c - 1);
+                final float c = velocityTransform.q.c;
+                final float s = velocityTransform.q.s;
+                final float tx = velocityTransform.p.x;
+                final float ty = velocityTransform.p.y;
                 for (int i = group.m_firstIndex; i < group.m_lastIndex; i++) {
-                    Transform.mulToOutUnsafe(velocityTransform, m_positionBuffer.data[i],
-                            m_velocityBuffer.data[i]);
+                    final float px = m_positionX[i];
+                    final float py = m_positionY[i];
+                    m_velocityX[i] = c * px - s * py + tx;
+                    m_velocityY[i] = s * px + c * py + ty;
                 }
             }
         }
@@ -880,13 +1286,16 @@ public class ParticleSystem {
                 final Vec2 oa = triad.pa;
                 final Vec2 ob = triad.pb;
                 final Vec2 oc = triad.pc;
-                final Vec2 pa = m_positionBuffer.data[a];
-                final Vec2 pb = m_positionBuffer.data[b];
-                final Vec2 pc = m_positionBuffer.data[c];
-                final float px = 1f / 3 * (pa.x + pb.x + pc.x);
-                final float py = 1f / 3 * (pa.y + pb.y + pc.y);
-                float rs = Vec2.cross(oa, pa) + Vec2.cross(ob, pb) + Vec2.cross(oc, pc);
-                float rc = Vec2.dot(oa, pa) + Vec2.dot(ob, pb) + Vec2.dot(oc, pc);
+                final float pax = m_positionX[a];
+                final float pay = m_positionY[a];
+                final float pbx = m_positionX[b];
+                final float pby = m_positionY[b];
+                final float pcx = m_positionX[c];
+                final float pcy = m_positionY[c];
+                final float px = 1f / 3 * (pax + pbx + pcx);
+                final float py = 1f / 3 * (pay + pby + pcy);
+                float rs = (oa.x * pay - oa.y * pax) + (ob.x * pby - ob.y * pbx) + (oc.x * pcy - oc.y * pcx);
+                float rc = (oa.x * pax + oa.y * pay) + (ob.x * pbx + ob.y * pby) + (oc.x * pcx + oc.y * pcy);
                 float r2 = rs * rs + rc * rc;
                 float invR = r2 == 0 ? Float.MAX_VALUE : FXGLMath.sqrtF(1f / r2);
                 rs *= invR;
@@ -898,15 +1307,12 @@ public class ParticleSystem {
                 final float roby = rs * ob.x + rc * ob.y;
                 final float rocx = rc * oc.x - rs * oc.y;
                 final float rocy = rs * oc.x + rc * oc.y;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                final Vec2 vc = m_velocityBuffer.data[c];
-                va.x += strength * (roax - (pa.x - px));
-                va.y += strength * (roay - (pa.y - py));
-                vb.x += strength * (robx - (pb.x - px));
-                vb.y += strength * (roby - (pb.y - py));
-                vc.x += strength * (rocx - (pc.x - px));
-                vc.y += strength * (rocy - (pc.y - py));
+                m_velocityX[a] += strength * (roax - (pax - px));
+                m_velocityY[a] += strength * (roay - (pay - py));
+                m_velocityX[b] += strength * (robx - (pbx - px));
+                m_velocityY[b] += strength * (roby - (pby - py));
+                m_velocityX[c] += strength * (rocx - (pcx - px));
+                m_velocityY[c] += strength * (rocy - (pcy - py));
             }
         }
     }
@@ -918,32 +1324,28 @@ public class ParticleSystem {
             if ((pair.flags & ParticleTypeInternal.b2_springParticle) != 0) {
                 int a = pair.indexA;
                 int b = pair.indexB;
-                final Vec2 pa = m_positionBuffer.data[a];
-                final Vec2 pb = m_positionBuffer.data[b];
-                final float dx = pb.x - pa.x;
-                final float dy = pb.y - pa.y;
+                final float dx = m_positionX[b] - m_positionX[a];
+                final float dy = m_positionY[b] - m_positionY[a];
                 float r0 = pair.distance;
                 float r1 = FXGLMath.sqrtF(dx * dx + dy * dy);
                 if (r1 == 0) r1 = Float.MAX_VALUE;
                 float strength = springStrength * pair.strength;
                 final float fx = strength * (r0 - r1) / r1 * dx;
                 final float fy = strength * (r0 - r1) / r1 * dy;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
             }
         }
     }
 
     private void solveTensile(final TimeStep step) {
-        m_accumulation2Buffer = requestParticleBuffer(Vec2.class, m_accumulation2Buffer);
-        for (int i = 0; i < m_count; i++) {
-            m_accumulationBuffer[i] = 0;
-            m_accumulation2Buffer[i].setZero();
-        }
+        m_accumulation2X = requestParticleBuffer(m_accumulation2X);
+        m_accumulation2Y = requestParticleBuffer(m_accumulation2Y);
+        Arrays.fill(m_accumulationBuffer, 0, m_count, 0);
+        Arrays.fill(m_accumulation2X, 0, m_count, 0);
+        Arrays.fill(m_accumulation2Y, 0, m_count, 0);
         for (int k = 0; k < m_contactCount; k++) {
             final ParticleContact contact = m_contactBuffer[k];
             if ((contact.flags & ParticleTypeInternal.b2_tensileParticle) != 0) {
@@ -953,13 +1355,11 @@ public class ParticleSystem {
                 Vec2 n = contact.normal;
                 m_accumulationBuffer[a] += w;
                 m_accumulationBuffer[b] += w;
-                final Vec2 a2A = m_accumulation2Buffer[a];
-                final Vec2 a2B = m_accumulation2Buffer[b];
                 final float inter = (1 - w) * w;
-                a2A.x -= inter * n.x;
-                a2A.y -= inter * n.y;
-                a2B.x += inter * n.x;
-                a2B.y += inter * n.y;
+                m_accumulation2X[a] -= inter * n.x;
+                m_accumulation2Y[a] -= inter * n.y;
+                m_accumulation2X[b] += inter * n.x;
+                m_accumulation2Y[b] += inter * n.y;
             }
         }
         float strengthA = m_surfaceTensionStrengthA * getCriticalVelocity(step);
@@ -971,20 +1371,16 @@ public class ParticleSystem {
                 int b = contact.indexB;
                 float w = contact.weight;
                 Vec2 n = contact.normal;
-                final Vec2 a2A = m_accumulation2Buffer[a];
-                final Vec2 a2B = m_accumulation2Buffer[b];
                 float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-                final float sx = a2B.x - a2A.x;
-                final float sy = a2B.y - a2A.y;
+                final float sx = m_accumulation2X[b] - m_accumulation2X[a];
+                final float sy = m_accumulation2Y[b] - m_accumulation2Y[a];
                 float fn = (strengthA * (h - 2) + strengthB * (sx * n.x + sy * n.y)) * w;
                 final float fx = fn * n.x;
                 final float fy = fn * n.y;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
             }
         }
     }
@@ -992,6 +1388,62 @@ public class ParticleSystem {
     @SuppressWarnings("PMD.UnusedFormalParameter")
     private void solveViscous(final TimeStep step) {
         float viscousStrength = m_viscousStrength;
+        solveViscousBodyContacts();
+        for (int k = 0; k < m_contactCount; k++) {
+            final ParticleContact contact = m_contactBuffer[k];
+            if ((contact.flags & ParticleTypeInternal.b2_viscousParticle) != 0) {
+                int a = contact.indexA;
+                int b = contact.indexB;
+                float w = contact.weight;
+                final float vx = m_velocityX[b] - m_velocityX[a];
+                final float vy = m_velocityY[b] - m_velocityY[a];
+                final float fx = viscousStrength * w * vx;
+                final float fy = viscousStrength * w * vy;
+                m_velocityX[a] += fx;
+                m_velocityY[a] += fy;
+                m_velocityX[b] -= fx;
+                m_velocityY[b] -= fy;
+            }
+        }
+    }
+
+    /**
+     * Same as solveViscous(), except that impulses between particles are computed from velocities
+     * at the start of the pass and averaged per particle (see applyContactImpulsesParallel()),
+     * rather than computed from velocities already changed by preceding contacts.
+     */
+    private void solveViscousParallel() {
+        final float viscousStrength = m_viscousStrength;
+        solveViscousBodyContacts();
+        requestContactImpulses();
+        final float[] impulseX = m_contactImpulseX;
+        final float[] impulseY = m_contactImpulseY;
+        final float[] velocityX = m_velocityX;
+        final float[] velocityY = m_velocityY;
+        final ParticleContact[] contacts = m_contactBuffer;
+        ParallelParticleSolver.forEachRange(m_contactCount, (range, from, to) -> {
+            for (int k = from; k < to; k++) {
+                final ParticleContact contact = contacts[k];
+                if ((contact.flags & ParticleTypeInternal.b2_viscousParticle) != 0) {
+                    int a = contact.indexA;
+                    int b = contact.indexB;
+                    float w = contact.weight;
+                    impulseX[k] = viscousStrength * w * (velocityX[b] - velocityX[a]);
+                    impulseY[k] = viscousStrength * w * (velocityY[b] - velocityY[a]);
+                } else {
+                    impulseX[k] = 0;
+                    impulseY[k] = 0;
+                }
+            }
+        });
+        applyContactImpulsesParallel();
+    }
+
+    /**
+     * Applies viscosity between viscous particles and bodies, used by both serial and parallel solving.
+     */
+    private void solveViscousBodyContacts() {
+        final float viscousStrength = m_viscousStrength;
         for (int k = 0; k < m_bodyContactCount; k++) {
             final ParticleBodyContact contact = m_bodyContactBuffer[k];
             int a = contact.index;
@@ -999,39 +1451,19 @@ public class ParticleSystem {
                 Body b = contact.body;
                 float w = contact.weight;
                 float m = contact.mass;
-                Vec2 p = m_positionBuffer.data[a];
-                final Vec2 va = m_velocityBuffer.data[a];
-                final float tempX = p.x - b.m_sweep.c.x;
-                final float tempY = p.y - b.m_sweep.c.y;
-                final float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - va.x;
-                final float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - va.y;
+                final float tempX = m_positionX[a] - b.m_sweep.c.x;
+                final float tempY = m_positionY[a] - b.m_sweep.c.y;
+                final float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - m_velocityX[a];
+                final float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - m_velocityY[a];
                 final Vec2 f = tempVec;
                 final float pInvMass = getParticleInvMass();
                 f.x = viscousStrength * m * w * vx;
                 f.y = viscousStrength * m * w * vy;
-                va.x += pInvMass * f.x;
-                va.y += pInvMass * f.y;
+                m_velocityX[a] += pInvMass * f.x;
+                m_velocityY[a] += pInvMass * f.y;
                 f.x = -f.x;
                 f.y = -f.y;
-                b.applyLinearImpulse(f, p, true);
-            }
-        }
-        for (int k = 0; k < m_contactCount; k++) {
-            final ParticleContact contact = m_contactBuffer[k];
-            if ((contact.flags & ParticleTypeInternal.b2_viscousParticle) != 0) {
-                int a = contact.indexA;
-                int b = contact.indexB;
-                float w = contact.weight;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                final float vx = vb.x - va.x;
-                final float vy = vb.y - va.y;
-                final float fx = viscousStrength * w * vx;
-                final float fy = viscousStrength * w * vy;
-                va.x += fx;
-                va.y += fy;
-                vb.x -= fx;
-                vb.y -= fy;
+                b.applyLinearImpulse(f, getPosition(a, tempVec2), true);
             }
         }
     }
@@ -1047,17 +1479,15 @@ public class ParticleSystem {
                 if (w > minWeight) {
                     Body b = contact.body;
                     float m = contact.mass;
-                    Vec2 p = m_positionBuffer.data[a];
                     Vec2 n = contact.normal;
                     final Vec2 f = tempVec;
-                    final Vec2 va = m_velocityBuffer.data[a];
                     final float inter = powderStrength * m * (w - minWeight);
                     final float pInvMass = getParticleInvMass();
                     f.x = inter * n.x;
                     f.y = inter * n.y;
-                    va.x -= pInvMass * f.x;
-                    va.y -= pInvMass * f.y;
-                    b.applyLinearImpulse(f, p, true);
+                    m_velocityX[a] -= pInvMass * f.x;
+                    m_velocityY[a] -= pInvMass * f.y;
+                    b.applyLinearImpulse(f, getPosition(a, tempVec2), true);
                 }
             }
         }
@@ -1069,15 +1499,13 @@ public class ParticleSystem {
                     int a = contact.indexA;
                     int b = contact.indexB;
                     Vec2 n = contact.normal;
-                    final Vec2 va = m_velocityBuffer.data[a];
-                    final Vec2 vb = m_velocityBuffer.data[b];
                     final float inter = powderStrength * (w - minWeight);
                     final float fx = inter * n.x;
                     final float fy = inter * n.y;
-                    va.x -= fx;
-                    va.y -= fy;
-                    vb.x += fx;
-                    vb.y += fy;
+                    m_velocityX[a] -= fx;
+                    m_velocityY[a] -= fy;
+                    m_velocityX[b] += fx;
+                    m_velocityY[b] += fy;
                 }
             }
         }
@@ -1095,15 +1523,13 @@ public class ParticleSystem {
                 float w = contact.weight;
                 Vec2 n = contact.normal;
                 float h = m_depthBuffer[a] + m_depthBuffer[b];
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
                 final float inter = ejectionStrength * h * w;
                 final float fx = inter * n.x;
                 final float fy = inter * n.y;
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
             }
         }
     }
@@ -1153,8 +1579,10 @@ public class ParticleSystem {
                 newIndices[i] = newCount;
                 if (i != newCount) {
                     m_flagsBuffer.data[newCount] = m_flagsBuffer.data[i];
-                    m_positionBuffer.data[newCount].set(m_positionBuffer.data[i]);
-                    m_velocityBuffer.data[newCount].set(m_velocityBuffer.data[i]);
+                    m_positionX[newCount] = m_positionX[i];
+                    m_positionY[newCount] = m_positionY[i];
+                    m_velocityX[newCount] = m_velocityX[i];
+                    m_velocityY[newCount] = m_velocityY[i];
                     m_groupBuffer[newCount] = m_groupBuffer[i];
                     if (m_depthBuffer != null) {
                         m_depthBuffer[newCount] = m_depthBuffer[i];
@@ -1351,8 +1779,10 @@ public class ParticleSystem {
         newIndices.end = end;
 
         rotate(m_flagsBuffer.data, start, mid, end);
-        rotate(m_positionBuffer.data, start, mid, end);
-        rotate(m_velocityBuffer.data, start, mid, end);
+        rotate(m_positionX, start, mid, end);
+        rotate(m_positionY, start, mid, end);
+        rotate(m_velocityX, start, mid, end);
+        rotate(m_velocityY, start, mid, end);
         rotate(m_groupBuffer, start, mid, end);
         if (m_depthBuffer != null) {
             rotate(m_depthBuffer, start, mid, end);
@@ -1405,6 +1835,21 @@ public class ParticleSystem {
         }
     }
 
+    /**
+     * Enable/disable running contact finding, pressure, damping and viscous passes on multiple threads.
+     * Contacts and pressure are the same as when solving on a single thread.
+     * Damping and viscous impulses between particles are computed from velocities at the start of the pass,
+     * so the results differ slightly from single threaded solving,
+     * but they do not depend on the number of threads and are the same on every run.
+     */
+    public void setParallelSolving(boolean parallelSolving) {
+        m_parallelSolving = parallelSolving;
+    }
+
+    public boolean isParallelSolving() {
+        return m_parallelSolving;
+    }
+
     public void setParticleRadius(float radius) {
         m_particleDiameter = 2 * radius;
         m_squaredDiameter = m_particleDiameter * m_particleDiameter;
@@ -1470,12 +1915,68 @@ public class ParticleSystem {
         return m_flagsBuffer.data;
     }
 
+    /**
+     * Particles store x and y of positions in separate arrays, see {@link #getParticlePositionX()}.
+     * This copies positions into vectors, so changing the vectors does not move particles.
+     *
+     * @return particle positions, valid for indices [0, getParticleCount())
+     */
     public Vec2[] getParticlePositionBuffer() {
-        return m_positionBuffer.data;
+        m_positionVectors = copyToVectors(m_positionX, m_positionY, m_positionVectors);
+        return m_positionVectors;
     }
 
+    /**
+     * Particles store x and y of velocities in separate arrays, see {@link #getParticleVelocityX()}.
+     * This copies velocities into vectors, so changing the vectors does not affect particles.
+     *
+     * @return particle velocities, valid for indices [0, getParticleCount())
+     */
     public Vec2[] getParticleVelocityBuffer() {
-        return m_velocityBuffer.data;
+        m_velocityVectors = copyToVectors(m_velocityX, m_velocityY, m_velocityVectors);
+        return m_velocityVectors;
+    }
+
+    private Vec2[] copyToVectors(float[] x, float[] y, Vec2[] vectors) {
+        if (x == null) {
+            return null;
+        }
+        if (vectors == null || vectors.length < x.length) {
+            vectors = reallocateBuffer(Vec2.class, vectors, vectors == null ? 0 : vectors.length, x.length);
+        }
+        for (int i = 0; i < m_count; i++) {
+            vectors[i].x = x[i];
+            vectors[i].y = y[i];
+        }
+        return vectors;
+    }
+
+    /**
+     * @return x of particle positions, valid for indices [0, getParticleCount())
+     */
+    public float[] getParticlePositionX() {
+        return m_positionX;
+    }
+
+    /**
+     * @return y of particle positions, valid for indices [0, getParticleCount())
+     */
+    public float[] getParticlePositionY() {
+        return m_positionY;
+    }
+
+    /**
+     * @return x of particle velocities, valid for indices [0, getParticleCount())
+     */
+    public float[] getParticleVelocityX() {
+        return m_velocityX;
+    }
+
+    /**
+     * @return y of particle velocities, valid for indices [0, getParticleCount())
+     */
+    public float[] getParticleVelocityY() {
+        return m_velocityY;
     }
 
     public ParticleColor[] getParticleColorBuffer() {
@@ -1505,6 +2006,102 @@ public class ParticleSystem {
         return m_groupCount;
     }
 
+    /**
+     * Writes particle flags, positions, velocities, colors, the order of proxies and transforms of groups
+     * to given buffer.
+     * Contacts are not written, since they are found again in each step.
+     */
+    public void saveState(ByteBuffer buffer) {
+        buffer.putInt(m_timestamp);
+        buffer.putInt(m_count);
+        if (m_count > 0) {
+            putInts(buffer, m_flagsBuffer.data, m_count);
+            putFloats(buffer, m_positionX, m_count);
+            putFloats(buffer, m_positionY, m_count);
+            putFloats(buffer, m_velocityX, m_count);
+            putFloats(buffer, m_velocityY, m_count);
+        }
+        buffer.put((byte) (m_colorBuffer.data != null ? 1 : 0));
+        if (m_colorBuffer.data != null) {
+            for (int i = 0; i < m_count; i++) {
+                ParticleColor color = m_colorBuffer.data[i];
+                buffer.put(color.r);
+                buffer.put(color.g);
+                buffer.put(color.b);
+                buffer.put(color.a);
+            }
+        }
+        // proxies are sorted by a stable sort, so the order of proxies with equal tags is kept between steps
+        buffer.putInt(m_proxyCount);
+        for (int i = 0; i < m_proxyCount; i++) {
+            buffer.putInt(m_proxyBuffer[i].index);
+        }
+        buffer.putInt(m_groupCount);
+        for (ParticleGroup group = m_groupList; group != null; group = group.getNext()) {
+            group.saveState(buffer);
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #saveState(ByteBuffer)}.
+     * Particles and groups must be the same as when the state was saved.
+     */
+    public void restoreState(ByteBuffer buffer) {
+        int timestamp = buffer.getInt();
+        int count = buffer.getInt();
+        if (count != m_count) {
+            throw new IllegalArgumentException("Particle system has " + m_count + " particles, but state has " + count);
+        }
+        m_timestamp = timestamp;
+        if (m_count > 0) {
+            getInts(buffer, m_flagsBuffer.data, m_count);
+            getFloats(buffer, m_positionX, m_count);
+            getFloats(buffer, m_positionY, m_count);
+            getFloats(buffer, m_velocityX, m_count);
+            getFloats(buffer, m_velocityY, m_count);
+        }
+        if (buffer.get() != 0) {
+            m_colorBuffer.data = requestParticleBuffer(m_colorBuffer.dataClass, m_colorBuffer.data);
+            for (int i = 0; i < m_count; i++) {
+                m_colorBuffer.data[i].set(buffer.get(), buffer.get(), buffer.get(), buffer.get());
+            }
+        }
+        int proxyCount = buffer.getInt();
+        if (proxyCount != m_proxyCount) {
+            throw new IllegalArgumentException("Particle system has " + m_proxyCount + " proxies, but state has " + proxyCount);
+        }
+        for (int i = 0; i < m_proxyCount; i++) {
+            m_proxyBuffer[i].index = buffer.getInt();
+        }
+        int groupCount = buffer.getInt();
+        if (groupCount != m_groupCount) {
+            throw new IllegalArgumentException("Particle system has " + m_groupCount + " groups, but state has " + groupCount);
+        }
+        for (ParticleGroup group = m_groupList; group != null; group = group.getNext()) {
+            group.restoreState(buffer);
+        }
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + 4 * count);
+    }
+
+    private static void getInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + 4 * count);
+    }
+
+    private static void putFloats(ByteBuffer buffer, float[] values, int count) {
+        buffer.asFloatBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + 4 * count);
+    }
+
+    private static void getFloats(ByteBuffer buffer, float[] values, int count) {
+        buffer.asFloatBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + 4 * count);
+    }
+
     public ParticleGroup[] getParticleGroupList() {
         return m_groupBuffer;
     }
@@ -1562,8 +2159,9 @@ public class ParticleSystem {
                         computeTag(m_inverseDiameter * upperBoundX, m_inverseDiameter * upperBoundY));
         for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
             int i = m_proxyBuffer[proxy].index;
-            final Vec2 p = m_positionBuffer.data[i];
-            if (lowerBoundX < p.x && p.x < upperBoundX && lowerBoundY < p.y && p.y < upperBoundY && !callback.reportParticle(i)) {
+            final float px = m_positionX[i];
+            final float py = m_positionY[i];
+            if (lowerBoundX < px && px < upperBoundX && lowerBoundY < py && py < upperBoundY && !callback.reportParticle(i)) {
                 break;
             }
         }
@@ -1595,9 +2193,8 @@ public class ParticleSystem {
         if (v2 == 0) v2 = Float.MAX_VALUE;
         for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
             int i = m_proxyBuffer[proxy].index;
-            final Vec2 posI = m_positionBuffer.data[i];
-            final float px = point1.x - posI.x;
-            final float py = point1.y - posI.y;
+            final float px = point1.x - m_positionX[i];
+            final float py = point1.y - m_positionY[i];
             float pv = px * vx + py * vy;
             float p2 = px * px + py * py;
             float determinant = pv * pv - v2 * (p2 - m_squaredDiameter);
@@ -1637,10 +2234,8 @@ public class ParticleSystem {
             int a = contact.indexA;
             int b = contact.indexB;
             Vec2 n = contact.normal;
-            final Vec2 va = m_velocityBuffer.data[a];
-            final Vec2 vb = m_velocityBuffer.data[b];
-            final float vx = vb.x - va.x;
-            final float vy = vb.y - va.y;
+            final float vx = m_velocityX[b] - m_velocityX[a];
+            final float vy = m_velocityY[b] - m_velocityY[a];
             float vn = vx * n.x + vy * n.y;
             if (vn < 0) {
                 sum_v2 += vn * vn;
@@ -1745,15 +2340,18 @@ public class ParticleSystem {
         int firstIndex;
 
         public void callback(int a, int b, int c) {
-            final Vec2 pa = system.m_positionBuffer.data[a];
-            final Vec2 pb = system.m_positionBuffer.data[b];
-            final Vec2 pc = system.m_positionBuffer.data[c];
-            final float dabx = pa.x - pb.x;
-            final float daby = pa.y - pb.y;
-            final float dbcx = pb.x - pc.x;
-            final float dbcy = pb.y - pc.y;
-            final float dcax = pc.x - pa.x;
-            final float dcay = pc.y - pa.y;
+            final float pax = system.m_positionX[a];
+            final float pay = system.m_positionY[a];
+            final float pbx = system.m_positionX[b];
+            final float pby = system.m_positionY[b];
+            final float pcx = system.m_positionX[c];
+            final float pcy = system.m_positionY[c];
+            final float dabx = pax - pbx;
+            final float daby = pay - pby;
+            final float dbcx = pbx - pcx;
+            final float dbcy = pby - pcy;
+            final float dcax = pcx - pax;
+            final float dcay = pcy - pay;
             float maxDistanceSquared = maxTriadDistanceSquared * system.m_squaredDiameter;
             if (dabx * dabx + daby * daby < maxDistanceSquared
                     && dbcx * dbcx + dbcy * dbcy < maxDistanceSquared
@@ -1777,18 +2375,18 @@ public class ParticleSystem {
                         system.m_flagsBuffer.data[a] | system.m_flagsBuffer.data[b]
                                 | system.m_flagsBuffer.data[c];
                 triad.strength = def.getStrength();
-                final float midPointx = (float) 1 / 3 * (pa.x + pb.x + pc.x);
-                final float midPointy = (float) 1 / 3 * (pa.y + pb.y + pc.y);
-                triad.pa.x = pa.x - midPointx;
-                triad.pa.y = pa.y - midPointy;
-                triad.pb.x = pb.x - midPointx;
-                triad.pb.y = pb.y - midPointy;
-                triad.pc.x = pc.x - midPointx;
-                triad.pc.y = pc.y - midPointy;
+                final float midPointx = (float) 1 / 3 * (pax + pbx + pcx);
+                final float midPointy = (float) 1 / 3 * (pay + pby + pcy);
+                triad.pa.x = pax - midPointx;
+                triad.pa.y = pay - midPointy;
+                triad.pb.x = pbx - midPointx;
+                triad.pb.y = pby - midPointy;
+                triad.pc.x = pcx - midPointx;
+                triad.pc.y = pcy - midPointy;
                 triad.ka = -(dcax * dabx + dcay * daby);
                 triad.kb = -(dabx * dbcx + daby * dbcy);
                 triad.kc = -(dbcx * dcax + dbcy * dcay);
-                triad.s = Vec2.cross(pa, pb) + Vec2.cross(pb, pc) + Vec2.cross(pc, pa);
+                triad.s = (pax * pby - pay * pbx) + (pbx * pcy - pby * pcx) + (pcx * pay - pcy * pax);
                 system.m_triadCount++;
             }
         }
@@ -1805,15 +2403,18 @@ public class ParticleSystem {
                 int bf = system.m_flagsBuffer.data[b];
                 int cf = system.m_flagsBuffer.data[c];
                 if ((af & bf & cf & k_triadFlags) != 0) {
-                    final Vec2 pa = system.m_positionBuffer.data[a];
-                    final Vec2 pb = system.m_positionBuffer.data[b];
-                    final Vec2 pc = system.m_positionBuffer.data[c];
-                    final float dabx = pa.x - pb.x;
-                    final float daby = pa.y - pb.y;
-                    final float dbcx = pb.x - pc.x;
-                    final float dbcy = pb.y - pc.y;
-                    final float dcax = pc.x - pa.x;
-                    final float dcay = pc.y - pa.y;
+                    final float pax = system.m_positionX[a];
+                    final float pay = system.m_positionY[a];
+                    final float pbx = system.m_positionX[b];
+                    final float pby = system.m_positionY[b];
+                    final float pcx = system.m_positionX[c];
+                    final float pcy = system.m_positionY[c];
+                    final float dabx = pax - pbx;
+                    final float daby = pay - pby;
+                    final float dbcx = pbx - pcx;
+                    final float dbcy = pby - pcy;
+                    final float dcax = pcx - pax;
+                    final float dcay = pcy - pay;
                     float maxDistanceSquared = maxTriadDistanceSquared * system.m_squaredDiameter;
                     if (dabx * dabx + daby * daby < maxDistanceSquared
                             && dbcx * dbcx + dbcy * dbcy < maxDistanceSquared
@@ -1835,18 +2436,18 @@ public class ParticleSystem {
                         triad.indexC = c;
                         triad.flags = af | bf | cf;
                         triad.strength = Math.min(groupA.m_strength, groupB.m_strength);
-                        final float midPointx = (float) 1 / 3 * (pa.x + pb.x + pc.x);
-                        final float midPointy = (float) 1 / 3 * (pa.y + pb.y + pc.y);
-                        triad.pa.x = pa.x - midPointx;
-                        triad.pa.y = pa.y - midPointy;
-                        triad.pb.x = pb.x - midPointx;
-                        triad.pb.y = pb.y - midPointy;
-                        triad.pc.x = pc.x - midPointx;
-                        triad.pc.y = pc.y - midPointy;
+                        final float midPointx = (float) 1 / 3 * (pax + pbx + pcx);
+                        final float midPointy = (float) 1 / 3 * (pay + pby + pcy);
+                        triad.pa.x = pax - midPointx;
+                        triad.pa.y = pay - midPointy;
+                        triad.pb.x = pbx - midPointx;
+                        triad.pb.y = pby - midPointy;
+                        triad.pc.x = pcx - midPointx;
+                        triad.pc.y = pcy - midPointy;
                         triad.ka = -(dcax * dabx + dcay * daby);
                         triad.kb = -(dabx * dbcx + daby * dbcy);
                         triad.kc = -(dbcx * dcax + dbcy * dcay);
-                        triad.s = Vec2.cross(pa, pb) + Vec2.cross(pb, pc) + Vec2.cross(pc, pa);
+                        triad.s = (pax * pby - pay * pbx) + (pbx * pcy - pby * pcx) + (pcx * pay - pcy * pax);
                         system.m_triadCount++;
                     }
                 }
@@ -1865,6 +2466,8 @@ public class ParticleSystem {
         boolean callDestructionListener;
         int destroyed;
 
+        private final Vec2 position = new Vec2();
+
         public void init(ParticleSystem system, Shape shape, Transform xf, boolean callDestructionListener) {
             this.system = system;
             this.shape = shape;
@@ -1876,7 +2479,7 @@ public class ParticleSystem {
         @Override
         public boolean reportParticle(int index) {
             assert index >= 0 && index < system.m_count;
-            if (shape.containsPoint(xf, system.m_positionBuffer.data[index])) {
+            if (shape.containsPoint(xf, system.getPosition(index, position))) {
                 system.destroyParticle(index, callDestructionListener);
                 destroyed++;
             }
@@ -1888,6 +2491,7 @@ public class ParticleSystem {
         ParticleSystem system;
 
         private final Vec2 tempVec = new Vec2();
+        private final Vec2 ap = new Vec2();
 
         @Override
         public boolean reportFixture(Fixture fixture) {
@@ -1922,14 +2526,17 @@ public class ParticleSystem {
 
                 for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
                     int a = system.m_proxyBuffer[proxy].index;
-                    Vec2 ap = system.m_positionBuffer.data[a];
-                    if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y && ap.y <= aabbupperBoundy) {
+                    final float apx = system.m_positionX[a];
+                    final float apy = system.m_positionY[a];
+                    if (aabblowerBoundx <= apx && apx <= aabbupperBoundx && aabblowerBoundy <= apy && apy <= aabbupperBoundy) {
+                        ap.x = apx;
+                        ap.y = apy;
                         final Vec2 n = tempVec;
                         float d = fixture.computeDistance(ap, childIndex, n);
                         if (d < system.m_particleDiameter) {
                             float invAm = (system.m_flagsBuffer.data[a] & ParticleTypeInternal.b2_wallParticle) != 0 ? 0 : system.getParticleInvMass();
-                            final float rpx = ap.x - bp.x;
-                            final float rpy = ap.y - bp.y;
+                            final float rpx = apx - bp.x;
+                            final float rpy = apy - bp.y;
                             float rpn = rpx * n.y - rpy * n.x;
                             if (system.m_bodyContactCount >= system.m_bodyContactCapacity) {
                                 int oldCapacity = system.m_bodyContactCapacity;
@@ -1962,6 +2569,7 @@ public class ParticleSystem {
         private final RayCastOutput output = new RayCastOutput();
         private final Vec2 tempVec = new Vec2();
         private final Vec2 tempVec2 = new Vec2();
+        private final Vec2 ap = new Vec2();
 
         @Override
         public boolean reportFixture(Fixture fixture) {
@@ -1991,27 +2599,29 @@ public class ParticleSystem {
 
                 for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
                     int a = system.m_proxyBuffer[proxy].index;
-                    Vec2 ap = system.m_positionBuffer.data[a];
-                    if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y && ap.y <= aabbupperBoundy) {
-                        Vec2 av = system.m_velocityBuffer.data[a];
+                    final float apx = system.m_positionX[a];
+                    final float apy = system.m_positionY[a];
+                    if (aabblowerBoundx <= apx && apx <= aabbupperBoundx && aabblowerBoundy <= apy && apy <= aabbupperBoundy) {
+                        ap.x = apx;
+                        ap.y = apy;
                         final Vec2 temp = tempVec;
                         Transform.mulTransToOutUnsafe(body.m_xf0, ap, temp);
                         Transform.mulToOutUnsafe(body.m_xf, temp, input.p1);
-                        input.p2.x = ap.x + step.dt * av.x;
-                        input.p2.y = ap.y + step.dt * av.y;
+                        input.p2.x = apx + step.dt * system.m_velocityX[a];
+                        input.p2.y = apy + step.dt * system.m_velocityY[a];
                         input.maxFraction = 1;
                         if (fixture.raycast(output, input, childIndex)) {
                             final Vec2 p = tempVec;
                             p.x = (1 - output.fraction) * input.p1.x + output.fraction * input.p2.x + linearSlop * output.normal.x;
                             p.y = (1 - output.fraction) * input.p1.y + output.fraction * input.p2.y + linearSlop * output.normal.y;
 
-                            final float vx = step.inv_dt * (p.x - ap.x);
-                            final float vy = step.inv_dt * (p.y - ap.y);
-                            av.x = vx;
-                            av.y = vy;
+                            final float vx = step.inv_dt * (p.x - apx);
+                            final float vy = step.inv_dt * (p.y - apy);
+                            system.m_velocityX[a] = vx;
+                            system.m_velocityY[a] = vy;
                             final float particleMass = system.getParticleMass();
-                            final float ax = particleMass * (av.x - vx);
-                            final float ay = particleMass * (av.y - vy);
+                            final float ax = particleMass * (system.m_velocityX[a] - vx);
+                            final float ay = particleMass * (system.m_velocityY[a] - vy);
                             Vec2 b = output.normal;
                             final float fdn = ax * b.x + ay * b.y;
                             final Vec2 f = tempVec2;
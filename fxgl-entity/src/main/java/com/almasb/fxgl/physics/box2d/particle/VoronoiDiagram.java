@@ -77,9 +77,13 @@ public class VoronoiDiagram {
     }
 
     public void addGenerator(Vec2 center, int tag) {
+        addGenerator(center.x, center.y, tag);
+    }
+
+    public void addGenerator(float x, float y, int tag) {
         Generator g = m_generatorBuffer[m_generatorCount++];
-        g.center.x = center.x;
-        g.center.y = center.y;
+        g.center.x = x;
+        g.center.y = y;
         g.tag = tag;
     }
 
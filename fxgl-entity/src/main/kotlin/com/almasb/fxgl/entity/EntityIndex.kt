@@ -0,0 +1,155 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.ComponentListener
+import javafx.beans.value.ChangeListener
+import java.io.Serializable
+import java.util.*
+
+/**
+ * Maintains per-type and per-component-class indexes of entities in a [GameWorld].
+ * The indexes are updated incrementally when an entity is added to / removed from the world,
+ * when its type changes and when its components are added / removed.
+ * Within each index entities are kept in world order, i.e. the order they were added to the world,
+ * including entities whose type changes or whose components are added later.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntityIndex {
+
+    private val byType = hashMapOf<Any, MutableList<Entity>>()
+    private val byComponent = hashMapOf<Class<out Component>, MutableList<Entity>>()
+
+    /**
+     * Read-only views over the index lists, created once per key.
+     */
+    private val byTypeViews = hashMapOf<Any, List<Entity>>()
+    private val byComponentViews = hashMapOf<Class<out Component>, List<Entity>>()
+
+    private val typeListeners = IdentityHashMap<Entity, ChangeListener<Serializable>>()
+
+    /**
+     * Sequence number of each indexed entity, increasing in the order entities are added to the world.
+     */
+    private val order = IdentityHashMap<Entity, Long>()
+    private var nextOrder = 0L
+
+    private val worldOrder = Comparator<Entity> { e1, e2 -> order.getValue(e1).compareTo(order.getValue(e2)) }
+
+    private val componentListener = object : ComponentListener {
+        override fun onAdded(component: Component) {
+            add(byComponent, component.javaClass, component.entity)
+        }
+
+        override fun onRemoved(component: Component) {
+            remove(byComponent, component.javaClass, component.entity)
+        }
+    }
+
+    fun add(entity: Entity) {
+        order[entity] = nextOrder++
+
+        add(byType, entity.type, entity)
+
+        entity.components.forEach {
+            add(byComponent, it.javaClass, entity)
+        }
+
+        val typeListener = ChangeListener<Serializable> { _, oldType, newType ->
+            remove(byType, oldType, entity)
+            add(byType, newType, entity)
+        }
+
+        typeListeners[entity] = typeListener
+
+        entity.typeProperty().addListener(typeListener)
+        entity.addComponentListener(componentListener)
+    }
+
+    fun remove(entity: Entity) {
+        typeListeners.remove(entity)?.let {
+            entity.typeProperty().removeListener(it)
+        }
+
+        entity.removeComponentListener(componentListener)
+
+        remove(byType, entity.type, entity)
+
+        entity.components.forEach {
+            remove(byComponent, it.javaClass, entity)
+        }
+
+        order.remove(entity)
+    }
+
+    fun clear() {
+        typeListeners.forEach { (entity, listener) ->
+            entity.typeProperty().removeListener(listener)
+            entity.removeComponentListener(componentListener)
+        }
+
+        typeListeners.clear()
+        order.clear()
+        byType.values.forEach { it.clear() }
+        byComponent.values.forEach { it.clear() }
+    }
+
+    /**
+     * @return read-only live view of entities with given type
+     */
+    fun getByType(type: Any): List<Entity> {
+        return byTypeViews.getOrPut(type) {
+            Collections.unmodifiableList(byType.getOrPut(type) { ArrayList() })
+        }
+    }
+
+    /**
+     * @return read-only live view of entities with given component type
+     */
+    fun getByComponent(type: Class<out Component>): List<Entity> {
+        return byComponentViews.getOrPut(type) {
+            Collections.unmodifiableList(byComponent.getOrPut(type) { ArrayList() })
+        }
+    }
+
+    /**
+     * @return new list of entities with any of given types, in world order
+     */
+    fun getByTypes(types: Array<out Enum<*>>): List<Entity> {
+        val result = ArrayList<Entity>()
+
+        types.distinct().forEach {
+            byType[it]?.let { result.addAll(it) }
+        }
+
+        result.sortWith(worldOrder)
+
+        return result
+    }
+
+    private fun <K : Any> add(index: MutableMap<K, MutableList<Entity>>, key: K, entity: Entity) {
+        val list = index.getOrPut(key) { ArrayList() }
+
+        // entities are mostly added in world order, i.e. at the end
+        if (list.isEmpty() || worldOrder.compare(list.last(), entity) < 0) {
+            list.add(entity)
+        } else {
+            list.add(-Collections.binarySearch(list, entity, worldOrder) - 1, entity)
+        }
+    }
+
+    private fun <K : Any> remove(index: MutableMap<K, MutableList<Entity>>, key: K, entity: Entity) {
+        val list = index[key] ?: return
+
+        val i = Collections.binarySearch(list, entity, worldOrder)
+        if (i >= 0) {
+            list.removeAt(i)
+        }
+    }
+}
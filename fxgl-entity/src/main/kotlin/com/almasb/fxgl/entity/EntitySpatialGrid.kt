@@ -0,0 +1,483 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import com.almasb.fxgl.core.math.FXGLMath.cosDeg
+import com.almasb.fxgl.core.math.FXGLMath.sinDeg
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+import java.util.*
+import java.util.function.Consumer
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.sqrt
+
+/**
+ * A hashed uniform grid of entities, used by [GameWorld] to answer spatial queries.
+ *
+ * Each entity is stored in every cell covered by its world bounds, which is the
+ * axis-aligned box of its (scaled and rotated) bounding box extended to include its
+ * untransformed bounding box and its position.
+ * Entities that change their transform or bounding box are marked dirty and are
+ * re-inserted lazily before the next query.
+ * Entities covering more than [MAX_CELLS_PER_ENTITY] cells are kept in a separate list
+ * and are always considered as candidates.
+ *
+ * Queries only return candidates, callers are expected to apply exact checks.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntitySpatialGrid(val cellSize: Double) {
+
+    companion object {
+        private const val MAX_CELLS_PER_ENTITY = 64
+
+        /**
+         * Hit boxes are checked in float precision, so bounds are padded to stay conservative.
+         */
+        private const val BOUNDS_PADDING = 1.0
+
+        private fun key(cellX: Int, cellY: Int): Long = (cellX.toLong() shl 32) or (cellY.toLong() and 0xFFFFFFFFL)
+    }
+
+    private class Entry(val entity: Entity) {
+        var minCellX = 0
+        var minCellY = 0
+        var maxCellX = -1
+        var maxCellY = -1
+
+        var isLarge = false
+        var isDirty = false
+
+        /**
+         * Id of the last query that visited this entry, used to avoid duplicates
+         * when an entity occupies multiple cells.
+         */
+        var queryStamp = 0
+
+        lateinit var listener: InvalidationListener
+
+        val isInserted: Boolean
+            get() = maxCellX >= minCellX
+    }
+
+    private val cells = hashMapOf<Long, ArrayList<Entry>>()
+    private val entries = IdentityHashMap<Entity, Entry>()
+
+    private val largeEntries = ArrayList<Entry>()
+    private val dirtyEntries = ArrayList<Entry>()
+
+    private var queryStamp = 0
+
+    // bounds (in cells) of all occupied cells, used to terminate ring searches
+    private var occupiedMinX = 0
+    private var occupiedMinY = 0
+    private var occupiedMaxX = -1
+    private var occupiedMaxY = -1
+
+    val size: Int
+        get() = entries.size
+
+    fun add(entity: Entity) {
+        val entry = Entry(entity)
+        entry.listener = InvalidationListener { markDirty(entry) }
+
+        entries[entity] = entry
+
+        observables(entity).forEach { it.addListener(entry.listener) }
+
+        update(entry)
+    }
+
+    fun remove(entity: Entity) {
+        val entry = entries.remove(entity) ?: return
+
+        observables(entity).forEach { it.removeListener(entry.listener) }
+
+        removeFromCells(entry)
+
+        if (entry.isDirty) {
+            dirtyEntries.remove(entry)
+        }
+    }
+
+    fun clear() {
+        entries.forEach { (entity, entry) ->
+            observables(entity).forEach { it.removeListener(entry.listener) }
+        }
+
+        entries.clear()
+        cells.clear()
+        largeEntries.clear()
+        dirtyEntries.clear()
+
+        occupiedMinX = 0
+        occupiedMinY = 0
+        occupiedMaxX = -1
+        occupiedMaxY = -1
+    }
+
+    /**
+     * Passes to [action] each entity (once) whose world bounds may overlap given rectangle.
+     */
+    fun query(minX: Double, minY: Double, maxX: Double, maxY: Double, action: Consumer<Entity>) {
+        flush()
+
+        queryCells(minX, minY, maxX, maxY, action)
+    }
+
+    /**
+     * Passes to [action] each entity (once) whose world bounds may overlap world bounds of given entity.
+     * Given entity itself may also be passed.
+     */
+    fun queryOverlapping(entity: Entity, action: Consumer<Entity>) {
+        flush()
+
+        computeBounds(entity)
+
+        queryCells(boundsMinX, boundsMinY, boundsMaxX, boundsMaxY, action)
+    }
+
+    private fun queryCells(minX: Double, minY: Double, maxX: Double, maxY: Double, action: Consumer<Entity>) {
+        val stamp = nextQueryStamp()
+
+        largeEntries.forEach { visit(it, stamp, action) }
+
+        val minCellX = cell(minX)
+        val minCellY = cell(minY)
+        val maxCellX = cell(maxX)
+        val maxCellY = cell(maxY)
+
+        if (cellCount(minCellX, minCellY, maxCellX, maxCellY) > cells.size) {
+            // the query area is larger than the occupied area, so just go through occupied cells
+            cells.forEach { (key, list) ->
+                val cellX = (key shr 32).toInt()
+                val cellY = key.toInt()
+
+                if (cellX in minCellX..maxCellX && cellY in minCellY..maxCellY) {
+                    list.forEach { visit(it, stamp, action) }
+                }
+            }
+
+            return
+        }
+
+        for (cellY in minCellY..maxCellY) {
+            for (cellX in minCellX..maxCellX) {
+                cells[key(cellX, cellY)]?.forEach { visit(it, stamp, action) }
+            }
+        }
+    }
+
+    /**
+     * Finds up to [k] entities closest (by position) to given point that satisfy [filter].
+     * Cells are searched in rings around the point until no unvisited cell can contain a closer entity.
+     *
+     * @return entities sorted by distance, closest first
+     */
+    fun queryClosest(x: Double, y: Double, k: Int, filter: (Entity) -> Boolean): List<Entity> {
+        if (k <= 0)
+            return emptyList()
+
+        flush()
+
+        val stamp = nextQueryStamp()
+
+        // max heap by distance, so that the furthest of the k best is at the top
+        val best = PriorityQueue<Pair<Entity, Double>>(k + 1, compareByDescending { it.second })
+
+        val consider: (Entry) -> Unit = { entry ->
+            if (entry.queryStamp != stamp) {
+                entry.queryStamp = stamp
+
+                val e = entry.entity
+
+                if (filter(e)) {
+                    val dx = e.x - x
+                    val dy = e.y - y
+                    val dist = sqrt(dx * dx + dy * dy)
+
+                    if (best.size < k) {
+                        best.add(e to dist)
+                    } else if (dist < best.peek().second) {
+                        best.poll()
+                        best.add(e to dist)
+                    }
+                }
+            }
+        }
+
+        largeEntries.forEach(consider)
+
+        val centerX = cell(x)
+        val centerY = cell(y)
+
+        val maxRadius = maxOf(
+                centerX - occupiedMinX,
+                occupiedMaxX - centerX,
+                centerY - occupiedMinY,
+                occupiedMaxY - centerY
+        )
+
+        var radius = 0
+        var numCellsVisited = 0L
+
+        while (radius <= maxRadius) {
+            numCellsVisited += if (radius == 0) 1 else 8L * radius
+
+            if (numCellsVisited > cells.size) {
+                // the search area is larger than the occupied area, so just go through occupied cells
+                cells.values.forEach { list -> list.forEach(consider) }
+                break
+            }
+
+            forEachCellInRing(centerX, centerY, radius) { list -> list.forEach(consider) }
+
+            // any entity in an unvisited cell is at least this far away
+            if (best.size == k && best.peek().second <= radius * cellSize)
+                break
+
+            radius++
+        }
+
+        val result = ArrayList<Entity>(best.size)
+        while (best.isNotEmpty()) {
+            result.add(best.poll().first)
+        }
+        result.reverse()
+
+        return result
+    }
+
+    private fun forEachCellInRing(centerX: Int, centerY: Int, radius: Int, action: (ArrayList<Entry>) -> Unit) {
+        if (radius == 0) {
+            cells[key(centerX, centerY)]?.let(action)
+            return
+        }
+
+        for (cellX in centerX - radius..centerX + radius) {
+            cells[key(cellX, centerY - radius)]?.let(action)
+            cells[key(cellX, centerY + radius)]?.let(action)
+        }
+
+        for (cellY in centerY - radius + 1 until centerY + radius) {
+            cells[key(centerX - radius, cellY)]?.let(action)
+            cells[key(centerX + radius, cellY)]?.let(action)
+        }
+    }
+
+    private fun visit(entry: Entry, stamp: Int, action: Consumer<Entity>) {
+        if (entry.queryStamp != stamp) {
+            entry.queryStamp = stamp
+            action.accept(entry.entity)
+        }
+    }
+
+    private fun nextQueryStamp(): Int {
+        queryStamp++
+
+        if (queryStamp == 0) {
+            // wrapped around, so reset all stamps to avoid false positives
+            entries.values.forEach { it.queryStamp = 0 }
+            queryStamp = 1
+        }
+
+        return queryStamp
+    }
+
+    private fun markDirty(entry: Entry) {
+        if (!entry.isDirty) {
+            entry.isDirty = true
+            dirtyEntries.add(entry)
+        }
+    }
+
+    private fun flush() {
+        if (dirtyEntries.isEmpty())
+            return
+
+        dirtyEntries.forEach { update(it) }
+        dirtyEntries.clear()
+    }
+
+    private fun update(entry: Entry) {
+        entry.isDirty = false
+
+        // reading values here also revalidates observables, so further changes are reported
+        computeBounds(entry.entity)
+
+        val minCellX = cell(boundsMinX)
+        val minCellY = cell(boundsMinY)
+        val maxCellX = cell(boundsMaxX)
+        val maxCellY = cell(boundsMaxY)
+
+        val isLarge = cellCount(minCellX, minCellY, maxCellX, maxCellY) > MAX_CELLS_PER_ENTITY
+
+        if (entry.isInserted && entry.isLarge == isLarge && (isLarge || (entry.minCellX == minCellX
+                        && entry.minCellY == minCellY && entry.maxCellX == maxCellX && entry.maxCellY == maxCellY))) {
+            return
+        }
+
+        removeFromCells(entry)
+
+        entry.minCellX = minCellX
+        entry.minCellY = minCellY
+        entry.maxCellX = maxCellX
+        entry.maxCellY = maxCellY
+        entry.isLarge = isLarge
+
+        if (isLarge) {
+            largeEntries.add(entry)
+            return
+        }
+
+        for (cellY in minCellY..maxCellY) {
+            for (cellX in minCellX..maxCellX) {
+                cells.getOrPut(key(cellX, cellY)) { ArrayList(4) }.add(entry)
+            }
+        }
+
+        if (occupiedMaxX < occupiedMinX) {
+            occupiedMinX = minCellX
+            occupiedMinY = minCellY
+            occupiedMaxX = maxCellX
+            occupiedMaxY = maxCellY
+        } else {
+            occupiedMinX = min(occupiedMinX, minCellX)
+            occupiedMinY = min(occupiedMinY, minCellY)
+            occupiedMaxX = max(occupiedMaxX, maxCellX)
+            occupiedMaxY = max(occupiedMaxY, maxCellY)
+        }
+    }
+
+    private fun removeFromCells(entry: Entry) {
+        if (!entry.isInserted)
+            return
+
+        if (entry.isLarge) {
+            largeEntries.remove(entry)
+        } else {
+            for (cellY in entry.minCellY..entry.maxCellY) {
+                for (cellX in entry.minCellX..entry.maxCellX) {
+                    val key = key(cellX, cellY)
+                    val list = cells[key] ?: continue
+
+                    val index = list.indexOf(entry)
+                    if (index != -1) {
+                        // order within a cell does not matter, so swap with last
+                        list[index] = list[list.size - 1]
+                        list.removeAt(list.size - 1)
+                    }
+
+                    if (list.isEmpty()) {
+                        cells.remove(key)
+                    }
+                }
+            }
+        }
+
+        entry.maxCellX = entry.minCellX - 1
+    }
+
+    private var boundsMinX = 0.0
+    private var boundsMinY = 0.0
+    private var boundsMaxX = 0.0
+    private var boundsMaxY = 0.0
+
+    /**
+     * Computes world bounds of the entity's bounding box (with scale and rotation applied)
+     * extended to include the untransformed bounding box and the entity position.
+     * This mirrors [com.almasb.fxgl.physics.HitBox.applyTransform].
+     */
+    private fun computeBounds(entity: Entity) {
+        val t = entity.transformComponent
+        val bbox = entity.boundingBoxComponent
+
+        val x = t.x
+        val y = t.y
+
+        val scaleOriginX = t.scaleOriginXProperty().get()
+        val scaleOriginY = t.scaleOriginYProperty().get()
+
+        val localMinX = bbox.getMinXLocal()
+        val localMinY = bbox.getMinYLocal()
+        val localMaxX = localMinX + bbox.getWidth()
+        val localMaxY = localMinY + bbox.getHeight()
+
+        val x1 = scaleOriginX - (scaleOriginX - localMinX) * t.scaleX + x
+        val x2 = scaleOriginX - (scaleOriginX - localMaxX) * t.scaleX + x
+        val y1 = scaleOriginY - (scaleOriginY - localMinY) * t.scaleY + y
+        val y2 = scaleOriginY - (scaleOriginY - localMaxY) * t.scaleY + y
+
+        var minX = min(x1, x2)
+        var minY = min(y1, y2)
+        var maxX = max(x1, x2)
+        var maxY = max(y1, y2)
+
+        val angle = t.angleProperty().get()
+
+        // read origins regardless of the angle, so that they are revalidated
+        val originX = t.rotationOriginXProperty().get() + x
+        val originY = t.rotationOriginYProperty().get() + y
+
+        if (angle != 0.0) {
+            val cos = cosDeg(angle)
+            val sin = sinDeg(angle)
+
+            val rMinX = minX - originX
+            val rMinY = minY - originY
+            val rMaxX = maxX - originX
+            val rMaxY = maxY - originY
+
+            minX = Double.MAX_VALUE
+            minY = Double.MAX_VALUE
+            maxX = -Double.MAX_VALUE
+            maxY = -Double.MAX_VALUE
+
+            for (i in 0..3) {
+                val cx = if (i == 0 || i == 3) rMinX else rMaxX
+                val cy = if (i < 2) rMinY else rMaxY
+
+                val rx = originX + cx * cos - cy * sin
+                val ry = originY + cx * sin + cy * cos
+
+                minX = min(minX, rx)
+                minY = min(minY, ry)
+                maxX = max(maxX, rx)
+                maxY = max(maxY, ry)
+            }
+        }
+
+        // range queries use the untransformed bounding box, which starts at the position if there are no hit boxes
+        boundsMinX = min(minX, x + min(localMinX, 0.0)) - BOUNDS_PADDING
+        boundsMinY = min(minY, y + min(localMinY, 0.0)) - BOUNDS_PADDING
+        boundsMaxX = max(maxX, x + max(localMaxX, 0.0)) + BOUNDS_PADDING
+        boundsMaxY = max(maxY, y + max(localMaxY, 0.0)) + BOUNDS_PADDING
+    }
+
+    private fun observables(entity: Entity): Array<Observable> {
+        val t = entity.transformComponent
+        val bbox = entity.boundingBoxComponent
+
+        return arrayOf(
+                t.xProperty(), t.yProperty(),
+                t.scaleXProperty(), t.scaleYProperty(),
+                t.scaleOriginXProperty(), t.scaleOriginYProperty(),
+                t.angleProperty(),
+                t.rotationOriginXProperty(), t.rotationOriginYProperty(),
+                bbox.minXLocalProperty(), bbox.minYLocalProperty(),
+                bbox.widthProperty(), bbox.heightProperty()
+        )
+    }
+
+    private fun cell(value: Double): Int = floor(value / cellSize).toInt()
+
+    private fun cellCount(minCellX: Int, minCellY: Int, maxCellX: Int, maxCellY: Int): Long {
+        return (maxCellX.toLong() - minCellX + 1) * (maxCellY.toLong() - minCellY + 1)
+    }
+}
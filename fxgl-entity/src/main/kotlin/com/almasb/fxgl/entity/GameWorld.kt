@@ -62,6 +62,48 @@ class GameWorld {
 
     private val pool = EntityPool()
 
+    private val index = EntityIndex()
+
+    /**
+     * Optional spatial index used by spatial queries, null if disabled.
+     */
+    private var spatialGrid: EntitySpatialGrid? = null
+
+    /**
+     * @return true if spatial queries are backed by a spatial index
+     */
+    val isSpatialIndexEnabled: Boolean
+        get() = spatialGrid != null
+
+    /**
+     * Enables a hashed grid spatial index with given cell size (in pixels) for this world.
+     * Range, point, colliding and closest entity queries will then only check entities
+     * in nearby cells instead of all entities.
+     * The index tracks changes to entity transforms and bounding boxes.
+     * Ideally, the cell size is about the size of a typical entity.
+     * When enabled, results of spatial queries are not ordered by the order in which entities were added.
+     *
+     * @param cellSize size of a grid cell
+     */
+    fun enableSpatialIndex(cellSize: Double) {
+        require(cellSize > 0) { "Cell size must be positive: $cellSize" }
+
+        spatialGrid?.clear()
+
+        val grid = EntitySpatialGrid(cellSize)
+        entities.forEach { grid.add(it) }
+
+        spatialGrid = grid
+    }
+
+    /**
+     * Disables the spatial index, so that spatial queries check all entities.
+     */
+    fun disableSpatialIndex() {
+        spatialGrid?.clear()
+        spatialGrid = null
+    }
+
     init {
         log.debug("Game world initialized")
     }
@@ -81,6 +123,8 @@ class GameWorld {
             waitingList.add(entity)
 
         entities.add(entity)
+        index.add(entity)
+        spatialGrid?.add(entity)
 
         add(entity)
     }
@@ -116,6 +160,8 @@ class GameWorld {
         }
 
         entities.remove(entity)
+        index.remove(entity)
+        spatialGrid?.remove(entity)
 
         entity.markForRemoval()
         notifyEntityRemoved(entity)
@@ -204,6 +250,9 @@ class GameWorld {
             }
         }
 
+        index.clear()
+        spatialGrid?.clear()
+
         // entities list does not contain "not active" entities, so we do full clean
         // also we copy since during removal notification components may remove other entities
         entitiesCopy.forEach { e ->
@@ -284,6 +333,9 @@ class GameWorld {
             val e = it.next()
 
             if (canRemove(e)) {
+                index.remove(e)
+                spatialGrid?.remove(e)
+
                 e.markForRemoval()
                 notifyEntityRemoved(e)
                 e.clean()
@@ -431,7 +483,7 @@ class GameWorld {
     /* QUERIES */
 
     fun getSingleton(type: Enum<*>): Entity {
-        return getSingleton(Predicate { it.isType(type) })
+        return index.getByType(type).firstOrNull() ?: throw NoSuchElementException("No entity found with type: $type")
     }
 
     fun getSingleton(predicate: Predicate<Entity>): Entity {
@@ -444,7 +496,7 @@ class GameWorld {
      * @return first occurrence matching given type
      */
     fun getSingletonOptional(type: Enum<*>): Optional<Entity> {
-        return getSingletonOptional(Predicate { it.isType(type) })
+        return Optional.ofNullable(index.getByType(type).firstOrNull())
     }
 
     /**
@@ -471,7 +523,19 @@ class GameWorld {
      * @return array of entities that have given component
      */
     fun getEntitiesByComponent(type: Class<out Component>): List<Entity> {
-        return entities.filter { it.hasComponent(type) }
+        return ArrayList(index.getByComponent(type))
+    }
+
+    /**
+     * Unlike [getEntitiesByComponent], no new list is created.
+     * The returned view is updated as entities are added / removed and
+     * components are added / removed, so do NOT add or remove entities while iterating it.
+     *
+     * @param type component type
+     * @return read-only live view of entities that have given component
+     */
+    fun getEntitiesByComponentView(type: Class<out Component>): List<Entity> {
+        return index.getByComponent(type)
     }
 
     /**
@@ -479,7 +543,7 @@ class GameWorld {
      * @return entities that have given component mapped to component instance
      */
     fun <T : Component> getEntitiesByComponentMapped(type: Class<T>): Map<Entity, T> {
-        return entities.filter { it.hasComponent(type) }.associateWith { it.getComponent(type) }
+        return index.getByComponent(type).associateWith { it.getComponent(type) }
     }
 
     /**
@@ -495,6 +559,7 @@ class GameWorld {
 
     /**
      * If called with no arguments, all entities are returned.
+     * Entities are returned in the order they were added to the world.
      *
      * @param types entity types
      * @return new list containing entities that satisfy query filters
@@ -503,11 +568,22 @@ class GameWorld {
         if (types.isEmpty())
             return entitiesCopy
 
-        return entities.filter { isOneOfTypes(it, *types) }
+        if (types.size == 1)
+            return ArrayList(index.getByType(types[0]))
+
+        return index.getByTypes(types)
     }
 
-    private fun isOneOfTypes(entity: Entity, vararg types: Enum<*>): Boolean {
-        return types.any { entity.isType(it) }
+    /**
+     * Unlike [getEntitiesByType], no new list is created.
+     * The returned view is updated as entities are added / removed and
+     * their types change, so do NOT add or remove entities while iterating it.
+     *
+     * @param type entity type
+     * @return read-only live view of entities with given type
+     */
+    fun getEntitiesByTypeView(type: Enum<*>): List<Entity> {
+        return index.getByType(type)
     }
 
     /**
@@ -520,7 +596,38 @@ class GameWorld {
      * @return new list containing entities that satisfy query filters
      */
     fun getEntitiesInRange(selection: Rectangle2D): List<Entity> {
-        return entities.filter { it.boundingBoxComponent.isWithin(selection) }
+        val grid = spatialGrid ?: return entities.filter { it.boundingBoxComponent.isWithin(selection) }
+
+        val result = ArrayList<Entity>()
+
+        grid.query(selection.minX, selection.minY, selection.maxX, selection.maxY) {
+            if (it.boundingBoxComponent.isWithin(selection)) {
+                result.add(it)
+            }
+        }
+
+        return result
+    }
+
+    /**
+     * Returns a list of entities whose position is within given radius of given point.
+     *
+     * @param center point in the world
+     * @param radius max distance from center
+     * @return new list containing entities that satisfy query filters
+     */
+    fun getEntitiesInRadius(center: Point2D, radius: Double): List<Entity> {
+        val grid = spatialGrid ?: return entities.filter { it.position.distance(center) <= radius }
+
+        val result = ArrayList<Entity>()
+
+        grid.query(center.x - radius, center.y - radius, center.x + radius, center.y + radius) {
+            if (it.position.distance(center) <= radius) {
+                result.add(it)
+            }
+        }
+
+        return result
     }
 
     /**
@@ -533,7 +640,17 @@ class GameWorld {
      * @return new list containing entities that satisfy query filters
      */
     fun getCollidingEntities(entity: Entity): List<Entity> {
-        return entities.filter { it.isColliding(entity) && it !== entity }
+        val grid = spatialGrid ?: return entities.filter { it.isColliding(entity) && it !== entity }
+
+        val result = ArrayList<Entity>()
+
+        grid.queryOverlapping(entity) {
+            if (it !== entity && it.isColliding(entity)) {
+                result.add(it)
+            }
+        }
+
+        return result
     }
 
     /**
@@ -544,7 +661,17 @@ class GameWorld {
      * @return entities at given point
      */
     fun getEntitiesAt(position: Point2D): List<Entity> {
-        return entities.filter { it.position == position }
+        val grid = spatialGrid ?: return entities.filter { it.position == position }
+
+        val result = ArrayList<Entity>()
+
+        grid.query(position.x, position.y, position.x, position.y) {
+            if (it.position == position) {
+                result.add(it)
+            }
+        }
+
+        return result
     }
 
     /**
@@ -560,13 +687,32 @@ class GameWorld {
      * @return closest entity to selected entity with type
      */
     fun getClosestEntity(entity: Entity, filter: Predicate<Entity>): Optional<Entity> {
-        return Optional.ofNullable(
+        val grid = spatialGrid ?: return Optional.ofNullable(
                 entities.filter { filter.test(it) && it !== entity }
-                        .sortedBy { entity.distance(it) }
-                        .firstOrNull()
+                        .minByOrNull { entity.distance(it) }
+        )
+
+        return Optional.ofNullable(
+                grid.queryClosest(entity.x, entity.y, 1) { filter.test(it) && it !== entity }.firstOrNull()
         )
     }
 
+    /**
+     * Returns at most [k] entities closest (by position) to given point that satisfy given filter.
+     *
+     * @param position point in the world
+     * @param k max number of entities to return
+     * @param filter requirements
+     * @return new list of entities sorted by distance to position, closest first
+     */
+    fun getClosestEntities(position: Point2D, k: Int, filter: Predicate<Entity>): List<Entity> {
+        val grid = spatialGrid ?: return entities.filter { filter.test(it) }
+                .sortedBy { it.position.distance(position) }
+                .take(k)
+
+        return grid.queryClosest(position.x, position.y, k) { filter.test(it) }
+    }
+
     /**
      * Returns an entity whose IDComponent matches given name and id.
      *
@@ -580,7 +726,7 @@ class GameWorld {
      */
     fun getEntityByID(name: String, id: Int): Optional<Entity> {
         return Optional.ofNullable(
-                getEntitiesByComponent(IDComponent::class.java).find {
+                index.getByComponent(IDComponent::class.java).find {
                     val idComponent = it.getComponent(IDComponent::class.java)
 
                     return@find idComponent.name == name && idComponent.id == id
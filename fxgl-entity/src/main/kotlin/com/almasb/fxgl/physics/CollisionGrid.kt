@@ -10,29 +10,101 @@ import com.almasb.fxgl.core.collection.Array
 import com.almasb.fxgl.core.math.FXGLMath.max
 import com.almasb.fxgl.core.math.FXGLMath.min
 import com.almasb.fxgl.entity.Entity
-import javafx.geometry.Point2D
 
 /**
+ * A uniform grid used for broad phase collision detection.
+ * Cells are addressed by packed long keys in an open-addressing table.
+ * Cells (and their entity arrays) are kept across frames and reused after [clear],
+ * so once the grid has grown to accommodate a scene, inserting entities does not allocate.
+ * Entities that span several cells share more than one cell with their neighbours,
+ * so [collectPairs] reports each pair only once per frame.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
-internal class CollisionGrid(val cellWidth: Int, val cellHeight: Int) {
+internal class CollisionGrid(cellWidth: Int, cellHeight: Int) {
 
-    val cells = hashMapOf<Point2D, CollisionCell>()
+    var cellWidth = cellWidth
+        private set
+
+    var cellHeight = cellHeight
+        private set
+
+    /**
+     * Cells in use this frame are in [0, numCells).
+     * Cells past that are spare and are reused on subsequent frames.
+     */
+    private val cells = Array<CollisionCell>()
+
+    var numCells = 0
+        private set
+
+    /**
+     * Entities inserted this frame, indexed by their frame-local id.
+     */
+    private val entities = Array<Entity>()
+
+    private val visitedPairs = PairSet()
+
+    // open-addressing table: key -> cell index, a slot is used iff its stamp equals current stamp
+    private var keys = LongArray(INITIAL_CAPACITY)
+    private var cellIndices = IntArray(INITIAL_CAPACITY)
+    private var stamps = IntArray(INITIAL_CAPACITY)
+    private var mask = INITIAL_CAPACITY - 1
+
+    private var stamp = 1
+
+    fun setCellSize(cellWidth: Int, cellHeight: Int) {
+        require(cellWidth > 0 && cellHeight > 0) { "Cell size must be positive: $cellWidth x $cellHeight" }
+
+        this.cellWidth = cellWidth
+        this.cellHeight = cellHeight
+
+        clear()
+    }
+
+    /**
+     * @return cell at [index], where index is in [0, numCells)
+     */
+    fun getCell(index: Int): CollisionCell = cells[index]
+
+    /**
+     * Empties all cells in use, keeping them for reuse.
+     * This is O(cells in use).
+     */
+    fun clear() {
+        for (i in 0 until numCells) {
+            cells[i].entities.clear()
+        }
+
+        numCells = 0
+
+        entities.clear()
+        visitedPairs.clear()
+
+        stamp++
+
+        // on overflow, stale stamps could match again, so reset them
+        if (stamp == 0) {
+            stamps.fill(0)
+            stamp = 1
+        }
+    }
 
     fun insert(e: Entity) {
-        if (e.boundingBoxComponent.hitBoxesProperty().isEmpty())
+        val hitBoxes = e.boundingBoxComponent.hitBoxesProperty()
+
+        if (hitBoxes.isEmpty())
             return
 
-        var box = e.boundingBoxComponent.hitBoxesProperty()[0]
+        var box = hitBoxes[0]
 
         var minX = box.fastMinX
         var minY = box.fastMinY
         var maxX = box.fastMaxX
         var maxY = box.fastMaxY
 
-        for (i in 1 until e.boundingBoxComponent.hitBoxesProperty().size) {
-            box = e.boundingBoxComponent.hitBoxesProperty()[i]
+        for (i in 1 until hitBoxes.size) {
+            box = hitBoxes[i]
 
             minX = min(minX, box.fastMinX)
             minY = min(minY, box.fastMinY)
@@ -41,32 +113,234 @@ internal class CollisionGrid(val cellWidth: Int, val cellHeight: Int) {
             maxY = max(maxY, box.fastMaxY)
         }
 
-        val tl = Point2D(minX.toDouble(), minY.toDouble())
-        val br = Point2D(maxX.toDouble(), maxY.toDouble())
+        val tlX = Math.floor(minX.toDouble() / cellWidth).toInt()
+        val tlY = Math.floor(minY.toDouble() / cellHeight).toInt()
 
-        val tlX = Math.floor(tl.x / cellWidth).toInt()
-        val tlY = Math.floor(tl.y / cellHeight).toInt()
+        val brX = Math.ceil(maxX.toDouble() / cellWidth).toInt()
+        val brY = Math.ceil(maxY.toDouble() / cellHeight).toInt()
 
-        val brX = Math.ceil(br.x / cellWidth).toInt()
-        val brY = Math.ceil(br.y / cellHeight).toInt()
+        val id = entities.size()
+        entities.add(e)
 
         for (x in tlX..brX) {
             for (y in tlY..brY) {
-                val point = Point2D(x.toDouble(), y.toDouble())
+                getOrCreateCell(x, y).add(e, id)
+            }
+        }
+    }
+
+    /**
+     * Appends to [pairs] each pair (e1, e2) of entities that share at least one cell.
+     * Each pair is reported once, regardless of how many cells the entities share.
+     */
+    fun collectPairs(pairs: Array<Entity>) {
+        for (i in 0 until numCells) {
+            val cell = cells[i]
+            val size = cell.entities.size()
+
+            for (j in 0 until size - 1) {
+                val id1 = cell.getId(j)
 
-                var cell = cells[point]
+                for (k in j + 1 until size) {
+                    val id2 = cell.getId(k)
 
-                if (cell == null) {
-                    cell = CollisionCell(x, y)
-                    cells[point] = cell
+                    if (visitedPairs.add(id1, id2)) {
+                        pairs.add(entities[id1])
+                        pairs.add(entities[id2])
+                    }
                 }
+            }
+        }
+    }
+
+    private fun getOrCreateCell(x: Int, y: Int): CollisionCell {
+        val key = key(x, y)
 
-                cell.entities.add(e)
+        var slot = slot(key)
+
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key)
+                return cells[cellIndices[slot]]
+
+            slot = (slot + 1) and mask
+        }
+
+        // not found, so claim this slot
+        val index = numCells++
+
+        if (index == cells.size()) {
+            cells.add(CollisionCell(x, y))
+        } else {
+            cells[index].set(x, y)
+        }
+
+        keys[slot] = key
+        cellIndices[slot] = index
+        stamps[slot] = stamp
+
+        // keep load factor at most 0.5
+        if (numCells * 2 > keys.size) {
+            grow()
+        }
+
+        return cells[index]
+    }
+
+    private fun grow() {
+        val oldKeys = keys
+        val oldIndices = cellIndices
+        val oldStamps = stamps
+
+        val capacity = oldKeys.size * 2
+
+        keys = LongArray(capacity)
+        cellIndices = IntArray(capacity)
+        stamps = IntArray(capacity)
+        mask = capacity - 1
+
+        for (i in oldKeys.indices) {
+            if (oldStamps[i] == stamp) {
+                var slot = slot(oldKeys[i])
+
+                while (stamps[slot] == stamp) {
+                    slot = (slot + 1) and mask
+                }
+
+                keys[slot] = oldKeys[i]
+                cellIndices[slot] = oldIndices[i]
+                stamps[slot] = stamp
             }
         }
     }
+
+    private fun slot(key: Long): Int {
+        // mix bits, so that neighbouring cells do not cluster
+        var h = key * -0x61c8864680b583ebL
+        h = h xor (h ushr 32)
+        return h.toInt() and mask
+    }
+
+    private fun key(x: Int, y: Int): Long = (x.toLong() shl 32) or (y.toLong() and 0xFFFFFFFFL)
+
+    companion object {
+        private const val INITIAL_CAPACITY = 256
+    }
 }
 
-internal class CollisionCell(val x: Int, val y: Int) {
+internal class CollisionCell(x: Int, y: Int) {
+
+    var x = x
+        private set
+
+    var y = y
+        private set
+
     val entities = Array<Entity>()
-}
\ No newline at end of file
+
+    /**
+     * Frame-local ids of [entities], in the same order.
+     */
+    private var ids = IntArray(8)
+
+    fun set(x: Int, y: Int) {
+        this.x = x
+        this.y = y
+    }
+
+    fun add(e: Entity, id: Int) {
+        val index = entities.size()
+
+        if (index == ids.size) {
+            ids = ids.copyOf(ids.size * 2)
+        }
+
+        ids[index] = id
+        entities.add(e)
+    }
+
+    fun getId(index: Int): Int = ids[index]
+}
+
+/**
+ * A set of unordered int pairs, with O(1) [clear] and no allocations once grown.
+ */
+internal class PairSet {
+
+    private var keys = LongArray(INITIAL_CAPACITY)
+    private var stamps = IntArray(INITIAL_CAPACITY)
+    private var mask = INITIAL_CAPACITY - 1
+
+    private var stamp = 1
+
+    var size = 0
+        private set
+
+    /**
+     * @return true if the pair was not in the set
+     */
+    fun add(id1: Int, id2: Int): Boolean {
+        val key = if (id1 < id2) pack(id1, id2) else pack(id2, id1)
+
+        if (!insert(key))
+            return false
+
+        size++
+
+        // keep load factor at most 0.5
+        if (size * 2 > keys.size) {
+            grow()
+        }
+
+        return true
+    }
+
+    fun clear() {
+        size = 0
+
+        stamp++
+
+        if (stamp == 0) {
+            stamps.fill(0)
+            stamp = 1
+        }
+    }
+
+    private fun insert(key: Long): Boolean {
+        var h = key * -0x61c8864680b583ebL
+        h = h xor (h ushr 32)
+
+        var slot = h.toInt() and mask
+
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key)
+                return false
+
+            slot = (slot + 1) and mask
+        }
+
+        keys[slot] = key
+        stamps[slot] = stamp
+        return true
+    }
+
+    private fun grow() {
+        val oldKeys = keys
+        val oldStamps = stamps
+
+        keys = LongArray(oldKeys.size * 2)
+        stamps = IntArray(oldKeys.size * 2)
+        mask = keys.size - 1
+
+        for (i in oldKeys.indices) {
+            if (oldStamps[i] == stamp) {
+                insert(oldKeys[i])
+            }
+        }
+    }
+
+    private fun pack(id1: Int, id2: Int): Long = (id1.toLong() shl 32) or (id2.toLong() and 0xFFFFFFFFL)
+
+    companion object {
+        private const val INITIAL_CAPACITY = 256
+    }
+}
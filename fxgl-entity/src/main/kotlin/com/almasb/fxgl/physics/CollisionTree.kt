@@ -0,0 +1,162 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.physics.box2d.callbacks.TreeCallback
+import com.almasb.fxgl.physics.box2d.collision.AABB
+import com.almasb.fxgl.physics.box2d.collision.broadphase.DynamicTree
+
+/**
+ * Broad phase for collision detection of entities (in pixel space), backed by a [DynamicTree].
+ * Each collidable entity has a proxy whose (fat) AABB is moved incrementally,
+ * so only entities that moved out of their fat AABB are re-inserted.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class CollisionTree {
+
+    private class Proxy(val entity: Entity) {
+        var id = -1
+
+        /**
+         * Lower bound of the AABB in the previous frame, used to predict displacement.
+         */
+        var prevX = 0f
+        var prevY = 0f
+    }
+
+    private val tree = DynamicTree()
+    private val proxies = hashMapOf<Entity, Proxy>()
+
+    private val aabb = AABB()
+    private val displacement = Vec2()
+
+    private var queryProxy: Proxy? = null
+    private var pairsBuffer: Array<Entity>? = null
+
+    private val queryCallback = TreeCallback { proxyId ->
+        val proxy = queryProxy!!
+
+        // each overlapping pair is reported twice, once for each proxy, so only keep one
+        if (proxyId > proxy.id) {
+            val other = tree.getUserData(proxyId) as Proxy
+
+            pairsBuffer!!.add(proxy.entity)
+            pairsBuffer!!.add(other.entity)
+        }
+
+        true
+    }
+
+    val size: Int
+        get() = proxies.size
+
+    /**
+     * Creates or moves the proxy of given entity.
+     * Hit boxes of the entity must have transforms applied.
+     * Entities without hit boxes have no proxy.
+     */
+    fun update(e: Entity) {
+        if (!computeAABB(e)) {
+            remove(e)
+            return
+        }
+
+        var proxy = proxies[e]
+
+        if (proxy == null) {
+            proxy = Proxy(e)
+            proxy.id = tree.createProxy(aabb, proxy)
+
+            proxies[e] = proxy
+        } else {
+            displacement.set(aabb.lowerBound.x - proxy.prevX, aabb.lowerBound.y - proxy.prevY)
+
+            tree.moveProxy(proxy.id, aabb, displacement)
+        }
+
+        proxy.prevX = aabb.lowerBound.x
+        proxy.prevY = aabb.lowerBound.y
+    }
+
+    fun remove(e: Entity) {
+        val proxy = proxies.remove(e) ?: return
+
+        tree.destroyProxy(proxy.id)
+    }
+
+    fun clear() {
+        proxies.values.forEach { tree.destroyProxy(it.id) }
+        proxies.clear()
+    }
+
+    fun contains(e: Entity): Boolean = proxies.containsKey(e)
+
+    /**
+     * Appends to [pairs] each pair (e1, e2) of entities whose fat AABBs overlap.
+     * Each pair is reported once.
+     */
+    fun collectPairs(pairs: Array<Entity>) {
+        pairsBuffer = pairs
+
+        for (proxy in proxies.values) {
+            queryProxy = proxy
+
+            tree.query(queryCallback, tree.getFatAABB(proxy.id))
+        }
+
+        queryProxy = null
+        pairsBuffer = null
+    }
+
+    /**
+     * @return true if both entities have proxies and their fat AABBs overlap
+     */
+    fun isOverlapping(e1: Entity, e2: Entity): Boolean {
+        val p1 = proxies[e1] ?: return false
+        val p2 = proxies[e2] ?: return false
+
+        return AABB.testOverlap(tree.getFatAABB(p1.id), tree.getFatAABB(p2.id))
+    }
+
+    /**
+     * Computes AABB of all (transformed and rotated) hit boxes of the entity.
+     *
+     * @return false if entity has no hit boxes
+     */
+    private fun computeAABB(e: Entity): Boolean {
+        val hitBoxes = e.boundingBoxComponent.hitBoxesProperty()
+
+        if (hitBoxes.isEmpty())
+            return false
+
+        var minX = Float.MAX_VALUE
+        var minY = Float.MAX_VALUE
+        var maxX = -Float.MAX_VALUE
+        var maxY = -Float.MAX_VALUE
+
+        for (i in hitBoxes.indices) {
+            val box = hitBoxes[i]
+
+            // if the entity is not rotated, corners are the same as fast bounds
+            for (corner in box.corners) {
+                minX = minOf(minX, corner.x)
+                minY = minOf(minY, corner.y)
+                maxX = maxOf(maxX, corner.x)
+                maxY = maxOf(maxY, corner.y)
+            }
+        }
+
+        aabb.lowerBound.set(minX, minY)
+        aabb.upperBound.set(maxX, maxY)
+
+        return true
+    }
+}
@@ -39,6 +39,19 @@ class EntityTest {
         entity = Entity()
     }
 
+    @Test
+    fun `Runtime ID is unique and stable`() {
+        val e2 = Entity()
+
+        assertThat(entity.runtimeID, `is`(not(e2.runtimeID)))
+        assertTrue(entity.runtimeID >= 0)
+
+        val id = entity.runtimeID
+        entity.type = TT.O
+
+        assertThat(entity.runtimeID, `is`(id))
+    }
+
     @Test
     fun `Add component`() {
         val comp = TestComponent()
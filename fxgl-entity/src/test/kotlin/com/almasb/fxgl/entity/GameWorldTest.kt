@@ -628,6 +628,98 @@ class GameWorldTest {
         assertThat(map[e1], `is`(c1))
     }
 
+    @Test
+    fun `By type index is updated when type changes or entity is removed`() {
+        val e1 = Entity()
+        e1.type = TestType.T1
+
+        val e2 = Entity()
+        e2.type = TestType.T1
+
+        gameWorld.addEntities(e1, e2)
+
+        val view = gameWorld.getEntitiesByTypeView(TestType.T1)
+
+        assertThat(view, contains(e1, e2))
+
+        e1.type = TestType.T2
+
+        assertThat(view, contains(e2))
+        assertThat(gameWorld.getEntitiesByType(TestType.T2), contains(e1))
+
+        gameWorld.removeEntity(e2)
+
+        assertTrue(view.isEmpty())
+        assertThrows<UnsupportedOperationException> { (view as MutableList<Entity>).add(e1) }
+
+        // not in world, so type changes are not tracked
+        e2.type = TestType.T2
+
+        assertThat(gameWorld.getEntitiesByType(TestType.T2), contains(e1))
+    }
+
+    @Test
+    fun `By type queries return entities in world order`() {
+        val e1 = Entity()
+        e1.type = TestType.T2
+
+        val e2 = Entity()
+        e2.type = TestType.T1
+
+        val e3 = Entity()
+        e3.type = TestType.T2
+
+        val e4 = Entity()
+        e4.type = TestType.T1
+
+        gameWorld.addEntities(e1, e2, e3, e4)
+
+        assertThat(gameWorld.getEntitiesByType(TestType.T1, TestType.T2), contains(e1, e2, e3, e4))
+        assertThat(gameWorld.getEntitiesByType(TestType.T2, TestType.T1, TestType.T2), contains(e1, e2, e3, e4))
+
+        // changing type does not move entity to the end
+        e1.type = TestType.T1
+
+        assertThat(gameWorld.getEntitiesByType(TestType.T1), contains(e1, e2, e4))
+        assertThat(gameWorld.getSingleton(TestType.T1), `is`(e1))
+
+        e1.type = TestType.T2
+        e3.type = TestType.T1
+
+        assertThat(gameWorld.getEntitiesByType(TestType.T1), contains(e2, e3, e4))
+        assertThat(gameWorld.getEntitiesByType(TestType.T2), contains(e1))
+        assertThat(gameWorld.getSingleton(TestType.T2), `is`(e1))
+    }
+
+    @Test
+    fun `By component index is updated when components are added or removed`() {
+        val e1 = Entity()
+        val e2 = Entity()
+
+        gameWorld.addEntities(e1, e2)
+
+        val view = gameWorld.getEntitiesByComponentView(TestValueComponent::class.java)
+
+        assertTrue(view.isEmpty())
+
+        e2.addComponent(TestValueComponent())
+        e1.addComponent(TestValueComponent())
+
+        assertThat(view, contains(e1, e2))
+
+        e2.removeComponent(TestValueComponent::class.java)
+
+        assertThat(view, contains(e1))
+
+        gameWorld.reset()
+
+        assertTrue(view.isEmpty())
+
+        e1.addComponent(TestValueComponent())
+
+        assertTrue(view.isEmpty())
+    }
+
     @Test
     fun `Singleton`() {
         val e1 = Entity()
@@ -808,6 +900,101 @@ class GameWorldTest {
         )
     }
 
+    @Test
+    fun `Spatial queries with spatial index match queries without index`() {
+        val random = Random(5)
+
+        val specs = (0 until 300).map {
+            doubleArrayOf(
+                    random.nextDouble() * 1000, random.nextDouble() * 1000,
+                    if (it % 3 != 0) random.nextDouble() * 80 + 1 else 0.0,
+                    random.nextDouble() * 80 + 1,
+                    if (it % 5 == 0) random.nextDouble() * 360 else 0.0
+            )
+        }
+
+        fun create(spec: DoubleArray): Entity {
+            val e = Entity()
+            e.setPosition(spec[0], spec[1])
+            e.rotation = spec[4]
+
+            if (spec[2] > 0) {
+                e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(spec[2], spec[3])))
+            }
+
+            return e
+        }
+
+        val entities = specs.map { create(it) }.toMutableList()
+
+        gameWorld.addEntities(*entities.toTypedArray())
+
+        val indexedWorld = GameWorld()
+        indexedWorld.enableSpatialIndex(50.0)
+        indexedWorld.addEntities(*specs.map { create(it) }.toTypedArray())
+
+        // one very large entity
+        entities[1].boundingBoxComponent.addHitBox(HitBox("big", BoundingShape.box(1500.0, 1500.0)))
+        indexedWorld.entities[1].boundingBoxComponent.addHitBox(HitBox("big", BoundingShape.box(1500.0, 1500.0)))
+
+        fun assertSameResults() {
+            val copies = indexedWorld.entities
+
+            fun toCopies(list: List<Entity>) = list.map { copies[entities.indexOf(it)] }
+
+            for (i in 0 until 20) {
+                val range = Rectangle2D(random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 300, random.nextDouble() * 300)
+                val point = Point2D(random.nextDouble() * 1000, random.nextDouble() * 1000)
+                val e = entities[random.nextInt(entities.size)]
+                val copy = copies[entities.indexOf(e)]
+
+                assertThat(indexedWorld.getEntitiesInRange(range), containsInAnyOrder(*toCopies(gameWorld.getEntitiesInRange(range)).toTypedArray()))
+                assertThat(indexedWorld.getEntitiesInRadius(point, 100.0), containsInAnyOrder(*toCopies(gameWorld.getEntitiesInRadius(point, 100.0)).toTypedArray()))
+                assertThat(indexedWorld.getEntitiesAt(e.position), containsInAnyOrder(*toCopies(gameWorld.getEntitiesAt(e.position)).toTypedArray()))
+                assertThat(indexedWorld.getCollidingEntities(copy), containsInAnyOrder(*toCopies(gameWorld.getCollidingEntities(e)).toTypedArray()))
+
+                assertThat(indexedWorld.getClosestEntity(copy, Predicate { true }).get().position, `is`(gameWorld.getClosestEntity(e, Predicate { true }).get().position))
+
+                val closest = gameWorld.getClosestEntities(point, 5, Predicate { it.x > 500 }).map { it.position }
+                assertThat(indexedWorld.getClosestEntities(point, 5, Predicate { it.x > 500 }).map { it.position }, `is`(closest))
+            }
+        }
+
+        assertSameResults()
+
+        // move, scale and rotate entities
+        entities.forEachIndexed { i, e ->
+            val copy = indexedWorld.entities[i]
+
+            val x = random.nextDouble() * 1000
+            val y = random.nextDouble() * 1000
+            val angle = random.nextDouble() * 360
+            val scale = random.nextDouble() * 2 + 0.5
+
+            listOf(e, copy).forEach {
+                it.setPosition(x, y)
+                it.rotation = angle
+                it.scaleX = scale
+            }
+        }
+
+        entities[2].boundingBoxComponent.clearHitBoxes()
+        indexedWorld.entities[2].boundingBoxComponent.clearHitBoxes()
+
+        assertSameResults()
+
+        gameWorld.removeEntity(entities[3])
+        indexedWorld.removeEntity(indexedWorld.entities[3])
+        entities.removeAt(3)
+
+        assertSameResults()
+
+        indexedWorld.disableSpatialIndex()
+        assertFalse(indexedWorld.isSpatialIndexEnabled)
+
+        assertSameResults()
+    }
+
     /* SPECIAL CASES */
 
     @Test
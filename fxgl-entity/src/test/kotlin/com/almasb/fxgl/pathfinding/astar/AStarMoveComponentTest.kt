@@ -188,6 +188,47 @@ class AStarMoveComponentTest {
         assertThat(count, `is`(1))
     }
 
+    @Test
+    fun `Paths can be computed asynchronously`() {
+        val queue = AStarPathRequestQueue(grid, { it.run() }, 10)
+
+        e.removeComponent(AStarMoveComponent::class.java)
+
+        aStarMoveComponent = AStarMoveComponent(queue)
+        e.addComponent(aStarMoveComponent)
+
+        aStarMoveComponent.moveToCell(3, 2)
+
+        assertTrue(aStarMoveComponent.isPathPending)
+
+        // path is not yet available, but the component is not at destination
+        aStarMoveComponent.onUpdate(STEP_SIZE)
+
+        assertFalse(aStarMoveComponent.isAtDestination)
+
+        // request is submitted, then result is delivered on the next update
+        queue.onUpdate(STEP_SIZE)
+        queue.onUpdate(STEP_SIZE)
+
+        assertFalse(aStarMoveComponent.isPathPending)
+        assertFalse(aStarMoveComponent.isPathEmpty)
+
+        finishMotion()
+
+        assertThat(cellMoveComponent.cellX, `is`(3))
+        assertThat(cellMoveComponent.cellY, `is`(2))
+
+        // results of requests made before stopping are ignored
+        aStarMoveComponent.moveToCell(0, 0)
+        aStarMoveComponent.stopMovement()
+
+        queue.onUpdate(STEP_SIZE)
+        queue.onUpdate(STEP_SIZE)
+
+        assertTrue(aStarMoveComponent.isPathEmpty)
+        assertTrue(aStarMoveComponent.isAtDestination)
+    }
+
     private fun putComponentInMotion(x: Int, y: Int) {
         aStarMoveComponent.moveToCell(x, y)
         aStarMoveComponent.onUpdate(STEP_SIZE)
@@ -0,0 +1,202 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.pathfinding.CellState
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.sameInstance
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AStarPathRequestQueueTest {
+
+    private lateinit var grid: AStarGrid
+    private var numTasks = 0
+
+    private val directExecutor = Executor {
+        numTasks++
+        it.run()
+    }
+
+    @BeforeEach
+    fun setUp() {
+        grid = AStarGrid(20, 20)
+        numTasks = 0
+    }
+
+    @Test
+    fun `Identical requests are merged`() {
+        val queue = AStarPathRequestQueue(grid, directExecutor, 10)
+
+        val results = arrayListOf<List<AStarCell>>()
+
+        repeat(3) {
+            queue.requestPath(0, 0, 5, 0) { results += it }
+        }
+
+        queue.requestPath(0, 0, 5, 0, NeighborDirection.EIGHT_DIRECTIONS) { results += it }
+
+        assertThat(queue.numActiveRequests, `is`(2))
+
+        // nothing is delivered before requests are submitted
+        queue.onUpdate(0.016)
+
+        assertTrue(results.isEmpty())
+        assertThat(numTasks, `is`(1))
+
+        queue.onUpdate(0.016)
+
+        assertThat(results.size, `is`(4))
+        assertThat(queue.numActiveRequests, `is`(0))
+
+        results.forEach {
+            assertThat(it.size, `is`(5))
+
+            // cells are from the original grid, not the snapshot
+            assertThat(it.last(), sameInstance(grid[5, 0]))
+        }
+
+        // each callback gets its own list
+        assertFalse(results[0] === results[1])
+    }
+
+    @Test
+    fun `Results are delivered within the per frame budget`() {
+        val queue = AStarPathRequestQueue(grid, directExecutor, 2)
+
+        var numResults = 0
+
+        repeat(5) {
+            queue.requestPath(0, 0, it + 1, 3) { numResults++ }
+        }
+
+        queue.onUpdate(0.016)
+
+        queue.onUpdate(0.016)
+        assertThat(numResults, `is`(2))
+
+        queue.onUpdate(0.016)
+        assertThat(numResults, `is`(4))
+
+        queue.onUpdate(0.016)
+        assertThat(numResults, `is`(5))
+
+        assertThrows<IllegalArgumentException> {
+            queue.maxResultsPerFrame = 0
+        }
+    }
+
+    @Test
+    fun `Grid changes are visible to subsequent requests`() {
+        val queue = AStarPathRequestQueue(grid, directExecutor, 10)
+
+        var path = listOf<AStarCell>()
+
+        queue.requestPath(0, 0, 5, 0) { path = it }
+        queue.onUpdate(0.016)
+        queue.onUpdate(0.016)
+
+        assertThat(path.size, `is`(5))
+
+        for (y in 0..18) grid[3, y].state = CellState.NOT_WALKABLE
+
+        queue.requestPath(0, 0, 5, 0) { path = it }
+        queue.onUpdate(0.016)
+        queue.onUpdate(0.016)
+
+        assertThat(path.size, `is`(5 + 19 * 2))
+        assertTrue(grid[3, 19] in path)
+
+        // invalid requests give empty paths
+        queue.requestPath(0, 0, 50, 0) { path = it }
+        queue.onUpdate(0.016)
+        queue.onUpdate(0.016)
+
+        assertTrue(path.isEmpty())
+    }
+
+    @Test
+    fun `Paths are the same as paths found on the grid`() {
+        val random = java.util.Random(7)
+
+        grid.forEach {
+            if (random.nextInt(5) == 0) it.state = CellState.NOT_WALKABLE
+            it.movementCost = 1 + random.nextInt(5)
+        }
+
+        val queue = AStarPathRequestQueue(grid, directExecutor, 100)
+        val pathfinder = AStarPathfinder(grid)
+
+        // changes after the queue is created are tracked
+        grid[10, 10].movementCost = 50
+        grid[11, 10].state = CellState.NOT_WALKABLE
+
+        repeat(50) {
+            val sx = random.nextInt(20)
+            val sy = random.nextInt(20)
+            val tx = random.nextInt(20)
+            val ty = random.nextInt(20)
+            val direction = if (it % 2 == 0) NeighborDirection.FOUR_DIRECTIONS else NeighborDirection.EIGHT_DIRECTIONS
+
+            var path = listOf<AStarCell>()
+
+            queue.requestPath(sx, sy, tx, ty, direction) { path = it }
+            queue.onUpdate(0.016)
+            queue.onUpdate(0.016)
+
+            assertThat(path, `is`(pathfinder.findPath(sx, sy, tx, ty, direction)))
+        }
+    }
+
+    @Test
+    fun `Paths are computed on background threads`() {
+        val executor = Executors.newFixedThreadPool(4)
+
+        try {
+            val queue = AStarPathRequestQueue(grid, executor, 1000)
+
+            val results = HashMap<Int, List<AStarCell>>()
+            val callingThreads = hashSetOf<Thread>()
+
+            for (i in 0 until 300) {
+                queue.requestPath(0, 0, i % 20, (i / 20) % 20) {
+                    results[i] = it
+                    callingThreads += Thread.currentThread()
+                }
+            }
+
+            queue.onUpdate(0.016)
+
+            val deadline = System.currentTimeMillis() + 10000
+
+            while (results.size < 300 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5)
+                queue.onUpdate(0.016)
+            }
+
+            assertThat(results.size, `is`(300))
+            assertThat(callingThreads, `is`(setOf(Thread.currentThread())))
+
+            results.forEach { (i, path) ->
+                val x = i % 20
+                val y = (i / 20) % 20
+
+                assertThat(path.size, `is`(x + y))
+            }
+        } finally {
+            executor.shutdownNow()
+            executor.awaitTermination(1, TimeUnit.SECONDS)
+        }
+    }
+}
@@ -15,7 +15,9 @@ import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.util.*
 import java.util.function.Supplier
+import kotlin.math.abs
 
 class AStarPathfinderTest {
     private lateinit var grid: AStarGrid
@@ -210,6 +212,134 @@ class AStarPathfinderTest {
         assertThat(last.y, `is`(5))
     }
 
+    @Test
+    fun `Repeated searches on a large grid return valid paths`() {
+        val random = Random(17)
+
+        val largeGrid = AStarGrid(128, 128)
+        largeGrid.forEach {
+            if (random.nextDouble() < 0.25)
+                it.state = CellState.NOT_WALKABLE
+        }
+
+        val largePathfinder = AStarPathfinder(largeGrid)
+
+        repeat(200) {
+            val start = largeGrid.getRandomCell(random) { it.isWalkable }.get()
+            val target = largeGrid.getRandomCell(random) { it.isWalkable }.get()
+
+            val direction = if (it % 2 == 0) NeighborDirection.FOUR_DIRECTIONS else NeighborDirection.EIGHT_DIRECTIONS
+
+            val path = largePathfinder.findPath(start.x, start.y, target.x, target.y, direction)
+
+            // same search gives same result, since data from previous searches is not reused
+            assertThat(largePathfinder.findPath(start.x, start.y, target.x, target.y, direction), `is`(path))
+
+            if (path.isNotEmpty()) {
+                assertThat(path.last(), `is`(target))
+
+                var prev = start
+
+                path.forEach { cell ->
+                    assertTrue(cell.isWalkable)
+                    assertTrue(abs(cell.x - prev.x) <= 1 && abs(cell.y - prev.y) <= 1)
+
+                    if (direction == NeighborDirection.FOUR_DIRECTIONS)
+                        assertThat(abs(cell.x - prev.x) + abs(cell.y - prev.y), `is`(1))
+
+                    prev = cell
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `No path if target is enclosed`() {
+        grid[9, 10].state = CellState.NOT_WALKABLE
+        grid[11, 10].state = CellState.NOT_WALKABLE
+        grid[10, 9].state = CellState.NOT_WALKABLE
+        grid[10, 11].state = CellState.NOT_WALKABLE
+
+        assertTrue(pathfinder.findPath(0, 0, 10, 10).isEmpty())
+        assertThat(pathfinder.findPath(0, 0, 10, 10, NeighborDirection.EIGHT_DIRECTIONS).size, `is`(10))
+
+        // busy cells are only busy for the search they are passed to
+        assertTrue(pathfinder.findPath(0, 0, 5, 5, listOf(grid[4, 5], grid[5, 4], grid[6, 5], grid[5, 6])).isEmpty())
+        assertThat(pathfinder.findPath(0, 0, 5, 5).size, `is`(10))
+    }
+
+    @Test
+    fun `Cached paths are invalidated when a cell on the path changes`() {
+        pathfinder.isCachingPaths = true
+
+        val path = pathfinder.findPath(0, 0, 5, 0)
+        assertThat(path.size, `is`(5))
+        assertThat(pathfinder.numCacheMisses, `is`(1L))
+
+        assertThat(pathfinder.findPath(0, 0, 5, 0), `is`(path))
+        assertThat(pathfinder.numCacheHits, `is`(1L))
+
+        // direction is part of the key
+        pathfinder.findPath(0, 0, 5, 0, NeighborDirection.EIGHT_DIRECTIONS)
+        assertThat(pathfinder.numCacheMisses, `is`(2L))
+
+        // a cell not on the path does not invalidate it
+        grid[10, 10].state = CellState.NOT_WALKABLE
+        pathfinder.findPath(0, 0, 5, 0)
+        assertThat(pathfinder.numCacheHits, `is`(2L))
+
+        grid[3, 0].state = CellState.NOT_WALKABLE
+
+        val newPath = pathfinder.findPath(0, 0, 5, 0)
+        assertTrue(newPath.none { it.x == 3 && it.y == 0 })
+        assertThat(pathfinder.numCacheInvalidations, `is`(1L))
+        assertThat(pathfinder.numCacheMisses, `is`(3L))
+
+        grid[3, 0].state = CellState.WALKABLE
+        newPath[1].movementCost = 5
+
+        pathfinder.findPath(0, 0, 5, 0)
+        assertThat(pathfinder.numCacheInvalidations, `is`(2L))
+
+        // busy cells are not cached
+        pathfinder.findPath(0, 0, 5, 0, listOf(grid[19, 19]))
+        assertThat(pathfinder.numCacheHits + pathfinder.numCacheMisses, `is`(6L))
+
+        pathfinder.resetCacheStatistics()
+        assertThat(pathfinder.numCacheHits, `is`(0L))
+    }
+
+    @Test
+    fun `Path cache evicts least recently used paths`() {
+        pathfinder.isCachingPaths = true
+        pathfinder.maxCacheSize = 3
+
+        pathfinder.findPath(0, 0, 1, 0)
+        pathfinder.findPath(0, 0, 2, 0)
+        pathfinder.findPath(0, 0, 3, 0)
+
+        // (0, 0) -> (1, 0) is now most recently used
+        pathfinder.findPath(0, 0, 1, 0)
+        pathfinder.findPath(0, 0, 4, 0)
+
+        assertThat(pathfinder.cacheSize, `is`(3))
+        assertThat(pathfinder.numCacheEvictions, `is`(1L))
+
+        pathfinder.resetCacheStatistics()
+
+        pathfinder.findPath(0, 0, 1, 0)
+        pathfinder.findPath(0, 0, 2, 0)
+
+        assertThat(pathfinder.numCacheHits, `is`(1L))
+        assertThat(pathfinder.numCacheMisses, `is`(1L))
+
+        pathfinder.maxCacheSize = 1
+        assertThat(pathfinder.cacheSize, `is`(1))
+
+        pathfinder.clearCache()
+        assertThat(pathfinder.cacheSize, `is`(0))
+    }
+
     private fun assertPathEquals(path: List<AStarCell>, vararg points: Int) {
         val pointsList = points.toList().chunked(2) { it[0] to it[1] }
         val errorMsg = reportNotMatchingPaths(path, pointsList)
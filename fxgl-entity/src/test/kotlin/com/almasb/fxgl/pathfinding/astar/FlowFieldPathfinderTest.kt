@@ -0,0 +1,185 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.pathfinding.CellMoveComponent
+import com.almasb.fxgl.pathfinding.CellState
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
+import java.util.*
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class FlowFieldPathfinderTest {
+
+    @Test
+    fun `Field has costs and directions to target`() {
+        val grid = AStarGrid(10, 10)
+        val field = FlowFieldPathfinder(grid)
+
+        assertFalse(field.hasTarget())
+        assertFalse(field.isReachable(0, 0))
+
+        field.setTarget(5, 5)
+
+        assertThat(field.targetX, `is`(5))
+        assertThat(field.targetY, `is`(5))
+        assertThat(field.getCost(5, 5), `is`(0))
+        // 10 moves with weight 10 and default movement cost 30
+        assertThat(field.getCost(0, 0), `is`(3000))
+        assertThat(field.getCost(-1, 0), `is`(-1))
+        assertThat(field.findPath(0, 0).size, `is`(10))
+        assertTrue(field.findPath(5, 5).isEmpty())
+        assertFalse(field.getNextCell(5, 5).isPresent)
+
+        // walls around the target
+        grid[4, 5].state = CellState.NOT_WALKABLE
+        grid[6, 5].state = CellState.NOT_WALKABLE
+        grid[5, 4].state = CellState.NOT_WALKABLE
+
+        assertThat(field.getCost(5, 3), `is`(2400))
+        assertThat(field.findPath(5, 3).size, `is`(8))
+        assertThat(field.getNextCell(5, 3).get().y, `is`(3))
+
+        grid[5, 6].state = CellState.NOT_WALKABLE
+
+        assertFalse(field.isReachable(0, 0))
+        assertTrue(field.findPath(0, 0).isEmpty())
+        assertTrue(field.isReachable(5, 5))
+
+        grid[5, 4].state = CellState.WALKABLE
+
+        assertThat(field.findPath(5, 3).size, `is`(2))
+
+        // target is not walkable
+        grid[5, 5].state = CellState.NOT_WALKABLE
+
+        assertFalse(field.isReachable(5, 4))
+    }
+
+    @ParameterizedTest
+    @EnumSource(NeighborDirection::class)
+    fun `Incremental updates match full recomputation`(direction: NeighborDirection) {
+        val random = Random(13)
+        val size = 40
+
+        val grid = AStarGrid(size, size)
+        grid.forEach {
+            if (random.nextInt(100) < 25) {
+                it.state = CellState.NOT_WALKABLE
+            }
+        }
+
+        grid[20, 20].state = CellState.WALKABLE
+
+        val field = FlowFieldPathfinder(grid, direction)
+        field.setTarget(20, 20)
+
+        repeat(100) {
+            repeat(1 + random.nextInt(5)) {
+                val cell = grid[random.nextInt(size), random.nextInt(size)]
+
+                if (cell.x == 20 && cell.y == 20)
+                    return@repeat
+
+                if (random.nextBoolean()) {
+                    cell.state = if (cell.isWalkable) CellState.NOT_WALKABLE else CellState.WALKABLE
+                } else {
+                    cell.movementCost = 1 + random.nextInt(4)
+                }
+            }
+
+            val expected = FlowFieldPathfinder(grid.copy(), direction)
+            expected.setTarget(20, 20)
+
+            for (y in 0 until size) {
+                for (x in 0 until size) {
+                    assertThat("$x,$y", field.getCost(x, y), `is`(expected.getCost(x, y)))
+
+                    // path cost must match the integrated cost
+                    val path = field.findPath(x, y)
+                    var cost = 0
+                    var prev = grid[x, y]
+
+                    for (cell in path) {
+                        assertTrue(cell.isWalkable)
+
+                        val isDiagonal = cell.x != prev.x && cell.y != prev.y
+                        cost += (if (isDiagonal) 14 else 10) * cell.movementCost
+                        prev = cell
+                    }
+
+                    if (path.isNotEmpty()) {
+                        assertThat(cost, `is`(field.getCost(x, y)))
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Many entities follow the same field to target`() {
+        val grid = AStarGrid(20, 20)
+        for (y in 0..15) {
+            grid[10, y].state = CellState.NOT_WALKABLE
+        }
+
+        val field = FlowFieldPathfinder(grid)
+        field.setTarget(15, 2)
+
+        val entities = (0 until 50).map {
+            val e = Entity()
+            val move = CellMoveComponent(40, 40, 400.0)
+            e.addComponent(move)
+            e.addComponent(FlowFieldMoveComponent(field))
+
+            move.setPositionToCell(it % 10, it / 10)
+            e
+        }
+
+        repeat(2000) {
+            entities.forEach { update(it) }
+        }
+
+        entities.forEach {
+            val move = it.getComponent(FlowFieldMoveComponent::class.java)
+
+            assertTrue(move.isAtTarget)
+            assertFalse(move.isMoving)
+            assertTrue(move.isTargetReachable)
+        }
+
+        // a new target for all entities
+        val field2 = FlowFieldPathfinder(grid)
+        field2.setTarget(0, 0)
+
+        entities.forEach { it.getComponent(FlowFieldMoveComponent::class.java).flowField = field2 }
+
+        repeat(2000) {
+            entities.forEach { update(it) }
+        }
+
+        entities.forEach {
+            assertThat(it.getComponent(CellMoveComponent::class.java).cellX, `is`(0))
+            assertThat(it.getComponent(CellMoveComponent::class.java).cellY, `is`(0))
+        }
+    }
+
+    private fun update(e: Entity) {
+        e.getComponent(CellMoveComponent::class.java).onUpdate(0.016)
+        e.getComponent(FlowFieldMoveComponent::class.java).onUpdate(0.016)
+    }
+}
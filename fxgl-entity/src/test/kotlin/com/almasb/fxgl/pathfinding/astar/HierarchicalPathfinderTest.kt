@@ -0,0 +1,163 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.astar.JumpPointPathfinderTest.Companion.assertValidPath
+import com.almasb.fxgl.pathfinding.astar.JumpPointPathfinderTest.Companion.pathCost
+import com.almasb.fxgl.pathfinding.astar.JumpPointPathfinderTest.Companion.shortestPathCost
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.*
+
+class HierarchicalPathfinderTest {
+
+    @Test
+    fun `Find path across clusters`() {
+        val grid = AStarGrid(40, 40)
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        // on an open grid, paths are optimal
+        val path = pathfinder.findPath(1, 1, 38, 30)
+
+        assertThat(path.size, `is`(37 + 29))
+        assertThat(path.last(), `is`(grid[38, 30]))
+        assertValidPath(grid[1, 1], path, NeighborDirection.FOUR_DIRECTIONS)
+
+        val diagonalPath = pathfinder.findPath(1, 1, 38, 30, NeighborDirection.EIGHT_DIRECTIONS)
+
+        assertThat(diagonalPath.last(), `is`(grid[38, 30]))
+        assertValidPath(grid[1, 1], diagonalPath, NeighborDirection.EIGHT_DIRECTIONS)
+
+        // same cluster
+        assertThat(pathfinder.findPath(1, 1, 3, 1).size, `is`(2))
+
+        assertThrows<IllegalArgumentException> {
+            HierarchicalPathfinder(grid, 1)
+        }
+    }
+
+    @Test
+    fun `Changes in walkability update precomputed entrances`() {
+        val grid = AStarGrid(32, 32)
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        assertFalse(pathfinder.findPath(0, 0, 31, 0).isEmpty())
+
+        // wall along x = 16 with a single gap at y = 20
+        for (y in 0 until 32) {
+            if (y != 20)
+                grid[16, y].state = CellState.NOT_WALKABLE
+        }
+
+        var path = pathfinder.findPath(0, 0, 31, 0)
+
+        assertValidPath(grid[0, 0], path, NeighborDirection.FOUR_DIRECTIONS)
+        assertTrue(grid[16, 20] in path)
+
+        // close the gap
+        grid[16, 20].state = CellState.NOT_WALKABLE
+
+        assertTrue(pathfinder.findPath(0, 0, 31, 0).isEmpty())
+
+        // open a gap in the middle of a cluster border
+        grid[16, 4].state = CellState.WALKABLE
+
+        path = pathfinder.findPath(0, 0, 31, 0)
+
+        assertValidPath(grid[0, 0], path, NeighborDirection.FOUR_DIRECTIONS)
+        assertTrue(grid[16, 4] in path)
+        assertThat(path.size, `is`(31 + 8))
+    }
+
+    @Test
+    fun `Disposed pathfinders stop listening to cell changes`() {
+        val grid = AStarGrid(32, 32)
+
+        repeat(100) {
+            val pathfinder = HierarchicalPathfinder(grid, 8)
+            val flowField = FlowFieldPathfinder(grid)
+            val queue = AStarPathRequestQueue(grid)
+            val cachingPathfinder = AStarPathfinder(grid)
+            cachingPathfinder.isCachingPaths = true
+
+            assertThat(grid.numCellChangeListeners, `is`(4))
+
+            pathfinder.dispose()
+            flowField.dispose()
+            queue.dispose()
+            cachingPathfinder.isCachingPaths = false
+
+            assertThat(grid.numCellChangeListeners, `is`(0))
+        }
+
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        grid[16, 4].state = CellState.NOT_WALKABLE
+
+        assertFalse(pathfinder.findPath(0, 4, 31, 4).contains(grid[16, 4]))
+    }
+
+    @Test
+    fun `Busy cells are not walkable`() {
+        val grid = AStarGrid(32, 3)
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        val path = pathfinder.findPath(0, 1, 31, 1, listOf(grid[16, 1]))
+
+        assertValidPath(grid[0, 1], path, NeighborDirection.FOUR_DIRECTIONS)
+        assertTrue(grid[16, 1] !in path)
+    }
+
+    @Test
+    fun `Paths exist iff a path exists on random grids and are near-optimal`() {
+        val random = Random(5)
+
+        repeat(5) { iteration ->
+            val grid = AStarGrid(50, 45)
+            grid.forEach {
+                if (random.nextDouble() < 0.25)
+                    it.state = CellState.NOT_WALKABLE
+            }
+
+            val clusterSize = 4 + iteration * 3
+            val pathfinder = HierarchicalPathfinder(grid, clusterSize)
+
+            repeat(40) { query ->
+                // change walkability between searches
+                if (query % 10 == 0) {
+                    repeat(30) {
+                        val cell = grid.getRandomCell(random)
+                        cell.state = if (cell.isWalkable) CellState.NOT_WALKABLE else CellState.WALKABLE
+                    }
+                }
+
+                val start = grid.getRandomCell(random) { it.isWalkable }.get()
+                val target = grid.getRandomCell(random) { it.isWalkable }.get()
+
+                NeighborDirection.values().forEach { direction ->
+                    val path = pathfinder.findPath(start.x, start.y, target.x, target.y, direction)
+                    val expected = shortestPathCost(grid, start, target, direction)
+
+                    if (start === target || expected == Int.MAX_VALUE) {
+                        assertTrue(path.isEmpty())
+                    } else {
+                        assertValidPath(start, path, direction)
+                        assertThat(path.last(), `is`(target))
+                        // paths cross cluster borders only at entrances, so short paths may have a detour
+                        assertThat(pathCost(start, path), lessThanOrEqualTo(expected * 2 + clusterSize * 40))
+                    }
+                }
+            }
+        }
+    }
+}
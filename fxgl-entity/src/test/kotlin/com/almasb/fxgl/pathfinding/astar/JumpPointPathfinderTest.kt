@@ -0,0 +1,155 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.pathfinding.CellState
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.*
+import kotlin.math.abs
+
+class JumpPointPathfinderTest {
+
+    @Test
+    fun `Find path around a wall`() {
+        val grid = AStarGrid(20, 20)
+        val pathfinder = JumpPointPathfinder(grid)
+
+        for (i in 0..4) grid[4, i].state = CellState.NOT_WALKABLE
+
+        val path = pathfinder.findPath(3, 0, 5, 0)
+
+        assertThat(path.size, `is`(12))
+        assertThat(path.last(), `is`(grid[5, 0]))
+        assertValidPath(grid[3, 0], path, NeighborDirection.FOUR_DIRECTIONS)
+
+        val diagonalPath = pathfinder.findPath(3, 0, 5, 0, NeighborDirection.EIGHT_DIRECTIONS)
+
+        assertThat(diagonalPath.size, `is`(10))
+        assertValidPath(grid[3, 0], diagonalPath, NeighborDirection.EIGHT_DIRECTIONS)
+
+        // make passing impossible
+        for (i in 0..19) grid[4, i].state = CellState.NOT_WALKABLE
+
+        assertTrue(pathfinder.findPath(3, 0, 5, 0).isEmpty())
+        assertTrue(pathfinder.findPath(3, 0, 5, 0, NeighborDirection.EIGHT_DIRECTIONS).isEmpty())
+    }
+
+    @Test
+    fun `Busy cells are not walkable`() {
+        val grid = AStarGrid(5, 3)
+        val pathfinder = JumpPointPathfinder(grid)
+
+        assertThat(pathfinder.findPath(0, 1, 4, 1).size, `is`(4))
+
+        val path = pathfinder.findPath(0, 1, 4, 1, listOf(grid[2, 1]))
+
+        assertThat(path.size, `is`(6))
+        assertTrue(grid[2, 1] !in path)
+
+        assertTrue(pathfinder.findPath(0, 1, 4, 1, listOf(grid[2, 0], grid[2, 1], grid[2, 2])).isEmpty())
+        assertTrue(pathfinder.findPath(0, 1, 4, 1, listOf(grid[4, 1])).isEmpty())
+    }
+
+    @Test
+    fun `Paths are optimal on random grids`() {
+        val random = Random(3)
+
+        repeat(5) {
+            val grid = AStarGrid(64, 64)
+            grid.forEach {
+                if (random.nextDouble() < 0.3)
+                    it.state = CellState.NOT_WALKABLE
+            }
+
+            val pathfinder = JumpPointPathfinder(grid)
+
+            repeat(50) {
+                val start = grid.getRandomCell(random) { it.isWalkable }.get()
+                val target = grid.getRandomCell(random) { it.isWalkable }.get()
+
+                NeighborDirection.values().forEach { direction ->
+                    val path = pathfinder.findPath(start.x, start.y, target.x, target.y, direction)
+                    val expected = shortestPathCost(grid, start, target, direction)
+
+                    if (start === target || expected == Int.MAX_VALUE) {
+                        assertTrue(path.isEmpty())
+                    } else {
+                        assertValidPath(start, path, direction)
+                        assertThat(path.last(), `is`(target))
+                        assertThat(pathCost(start, path), `is`(expected))
+                    }
+                }
+            }
+        }
+    }
+
+    companion object {
+
+        fun assertValidPath(start: AStarCell, path: List<AStarCell>, direction: NeighborDirection) {
+            var prev = start
+
+            path.forEach { cell ->
+                assertTrue(cell.isWalkable)
+                assertTrue(abs(cell.x - prev.x) <= 1 && abs(cell.y - prev.y) <= 1)
+                assertTrue(cell !== prev)
+
+                if (direction == NeighborDirection.FOUR_DIRECTIONS)
+                    assertThat(abs(cell.x - prev.x) + abs(cell.y - prev.y), `is`(1))
+
+                prev = cell
+            }
+        }
+
+        /**
+         * Uniform cost of a path: 10 for a straight move, 14 for a diagonal move.
+         */
+        fun pathCost(start: AStarCell, path: List<AStarCell>): Int {
+            var prev = start
+
+            return path.sumOf { cell ->
+                val cost = if (cell.x != prev.x && cell.y != prev.y) 14 else 10
+                prev = cell
+                cost
+            }
+        }
+
+        /**
+         * Dijkstra with uniform costs.
+         */
+        fun shortestPathCost(grid: AStarGrid, start: AStarCell, target: AStarCell, direction: NeighborDirection): Int {
+            val costs = HashMap<AStarCell, Int>()
+            val queue = PriorityQueue<Pair<AStarCell, Int>>(compareBy { it.second })
+
+            costs[start] = 0
+            queue.add(start to 0)
+
+            while (queue.isNotEmpty()) {
+                val (cell, cost) = queue.poll()
+
+                if (cell === target)
+                    return cost
+
+                if (cost > costs[cell]!!)
+                    continue
+
+                grid.getNeighbors(cell.x, cell.y, direction).filter { it.isWalkable }.forEach { neighbor ->
+                    val newCost = cost + if (neighbor.x != cell.x && neighbor.y != cell.y) 14 else 10
+
+                    if (newCost < costs.getOrDefault(neighbor, Int.MAX_VALUE)) {
+                        costs[neighbor] = newCost
+                        queue.add(neighbor to newCost)
+                    }
+                }
+            }
+
+            return Int.MAX_VALUE
+        }
+    }
+}
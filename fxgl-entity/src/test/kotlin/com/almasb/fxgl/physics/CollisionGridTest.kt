@@ -0,0 +1,136 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.entity.Entity
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.hamcrest.Matchers.sameInstance
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class CollisionGridTest {
+
+    @Test
+    fun `Entities are inserted into all covered cells`() {
+        val grid = CollisionGrid(64, 64)
+
+        val e1 = newEntity(10.0, 10.0, 20.0)
+        val e2 = newEntity(70.0, 10.0, 20.0)
+
+        grid.insert(e1)
+        grid.insert(e2)
+
+        // e1 covers cells x 0..1, y 0..1; e2 covers cells x 1..2, y 0..1
+        assertThat(grid.numCells, `is`(6))
+
+        val cellsWithBoth = (0 until grid.numCells)
+                .map { grid.getCell(it) }
+                .filter { it.entities.size() == 2 }
+
+        assertThat(cellsWithBoth.map { it.x to it.y }, containsInAnyOrder(1 to 0, 1 to 1))
+    }
+
+    @Test
+    fun `Entities without hit boxes are ignored`() {
+        val grid = CollisionGrid(64, 64)
+
+        grid.insert(Entity())
+
+        assertThat(grid.numCells, `is`(0))
+    }
+
+    @Test
+    fun `Cells are reused after clear`() {
+        val grid = CollisionGrid(32, 32)
+
+        val entities = (0 until 500).map { newEntity(it * 40.0, (it % 7) * 40.0, 10.0) }
+
+        entities.forEach { grid.insert(it) }
+
+        val numCells = grid.numCells
+        val numEntries = (0 until numCells).sumOf { grid.getCell(it).entities.size() }
+        val cells = (0 until numCells).map { grid.getCell(it) }
+
+        grid.clear()
+
+        assertThat(grid.numCells, `is`(0))
+
+        entities.forEach { grid.insert(it) }
+
+        assertThat(grid.numCells, `is`(numCells))
+
+        (0 until numCells).forEach {
+            assertThat(grid.getCell(it), sameInstance(cells[it]))
+        }
+
+        assertThat((0 until numCells).sumOf { grid.getCell(it).entities.size() }, `is`(numEntries))
+    }
+
+    @Test
+    fun `Negative coordinates and cell size change`() {
+        val grid = CollisionGrid(64, 64)
+
+        val e1 = newEntity(-100.0, -100.0, 10.0)
+
+        grid.insert(e1)
+
+        assertThat(grid.numCells, `is`(4))
+        assertThat(grid.getCell(0).x, `is`(-2))
+        assertThat(grid.getCell(0).y, `is`(-2))
+
+        grid.setCellSize(200, 200)
+
+        assertThat(grid.numCells, `is`(0))
+
+        grid.insert(e1)
+
+        assertThat(grid.numCells, `is`(4))
+    }
+
+    @Test
+    fun `Pairs sharing several cells are collected once`() {
+        val grid = CollisionGrid(64, 64)
+
+        val boss = newEntity(0.0, 0.0, 190.0)
+        val e1 = newEntity(30.0, 30.0, 100.0)
+        val e2 = newEntity(1000.0, 1000.0, 10.0)
+
+        grid.insert(boss)
+        grid.insert(e1)
+        grid.insert(e2)
+
+        val pairs = Array<Entity>()
+        grid.collectPairs(pairs)
+
+        assertThat(pairs.size(), `is`(2))
+        assertThat(listOf(pairs[0], pairs[1]), containsInAnyOrder(boss, e1))
+
+        // pairs are collected again in the next frame
+        grid.clear()
+        pairs.clear()
+
+        grid.insert(boss)
+        grid.insert(e1)
+        grid.collectPairs(pairs)
+
+        assertThat(pairs.size(), `is`(2))
+    }
+
+    private fun newEntity(x: Double, y: Double, size: Double): Entity {
+        val e = Entity()
+        e.setPosition(x, y)
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(size, size)))
+        e.boundingBoxComponent.applyTransformToHitBoxes()
+        return e
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.entity.Entity
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class CollisionTreeTest {
+
+    @Test
+    fun `Overlapping pairs are collected once`() {
+        val tree = CollisionTree()
+
+        val e1 = newEntity(0.0, 0.0)
+        val e2 = newEntity(30.0, 0.0)
+        val e3 = newEntity(500.0, 0.0)
+
+        listOf(e1, e2, e3).forEach { tree.update(it) }
+
+        assertThat(tree.size, `is`(3))
+
+        val pairs = Array<Entity>()
+        tree.collectPairs(pairs)
+
+        assertThat(pairs.size(), `is`(2))
+        assertThat(listOf(pairs[0], pairs[1]), containsInAnyOrder(e1, e2))
+        assertThat(tree.isOverlapping(e1, e2), `is`(true))
+        assertThat(tree.isOverlapping(e1, e3), `is`(false))
+    }
+
+    @Test
+    fun `Moved entities are updated in the tree`() {
+        val tree = CollisionTree()
+
+        val e1 = newEntity(0.0, 0.0)
+        val e2 = newEntity(500.0, 0.0)
+
+        tree.update(e1)
+        tree.update(e2)
+
+        assertThat(tree.isOverlapping(e1, e2), `is`(false))
+
+        e2.translateX(-480.0)
+        e2.boundingBoxComponent.applyTransformToHitBoxes()
+        tree.update(e2)
+
+        assertThat(tree.isOverlapping(e1, e2), `is`(true))
+
+        e2.translateX(1000.0)
+        e2.boundingBoxComponent.applyTransformToHitBoxes()
+        tree.update(e2)
+
+        assertThat(tree.isOverlapping(e1, e2), `is`(false))
+    }
+
+    @Test
+    fun `Entities without hit boxes are removed`() {
+        val tree = CollisionTree()
+
+        val e1 = newEntity(0.0, 0.0)
+
+        tree.update(e1)
+
+        assertThat(tree.contains(e1), `is`(true))
+
+        e1.boundingBoxComponent.clearHitBoxes()
+        tree.update(e1)
+
+        assertThat(tree.contains(e1), `is`(false))
+
+        tree.update(newEntity(0.0, 0.0))
+        tree.clear()
+
+        assertThat(tree.size, `is`(0))
+    }
+
+    private fun newEntity(x: Double, y: Double): Entity {
+        val e = Entity()
+        e.setPosition(x, y)
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+        e.boundingBoxComponent.applyTransformToHitBoxes()
+        return e
+    }
+}
@@ -198,6 +198,107 @@ class PhysicsWorldTest {
         assertThat(collisionEndCount, `is`(1))
     }
 
+    @Test
+    fun `Moving entities far apart triggers onCollisionEnd`() {
+        listOf(CollisionDetectionStrategy.BRUTE_FORCE, CollisionDetectionStrategy.BROAD_PHASE_TREE).forEach { strategy ->
+            physicsWorld = PhysicsWorld(600, 50.0, strategy)
+
+            val e1 = Entity()
+            e1.type = EntityType.TYPE1
+            e1.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+            e1.addComponent(CollidableComponent(true))
+
+            val e2 = Entity()
+            e2.type = EntityType.TYPE2
+            e2.position = Point2D(20.0, 0.0)
+            e2.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+            e2.addComponent(CollidableComponent(true))
+
+            val gameWorld = GameWorld()
+            gameWorld.addEntity(e1)
+            gameWorld.addEntity(e2)
+
+            var collisionBeginCount = 0
+            var collisionEndCount = 0
+
+            physicsWorld.addCollisionHandler(object : CollisionHandler(EntityType.TYPE1, EntityType.TYPE2) {
+                override fun onCollisionBegin(a: Entity, b: Entity) {
+                    collisionBeginCount++
+                }
+
+                override fun onCollisionEnd(a: Entity, b: Entity) {
+                    collisionEndCount++
+                }
+            })
+
+            physicsWorld.onEntityAdded(e1)
+            physicsWorld.onEntityAdded(e2)
+            physicsWorld.onUpdate(0.016)
+
+            assertThat(collisionBeginCount, `is`(1))
+            assertThat(collisionEndCount, `is`(0))
+
+            e2.translateX(5000.0)
+
+            physicsWorld.onUpdate(0.016)
+
+            assertThat(collisionBeginCount, `is`(1))
+            assertThat(collisionEndCount, `is`(1))
+
+            physicsWorld.onUpdate(0.016)
+
+            assertThat(collisionEndCount, `is`(1))
+        }
+    }
+
+    @Test
+    fun `Grid indexing checks each pair once per frame`() {
+        physicsWorld = PhysicsWorld(600, 50.0, CollisionDetectionStrategy.GRID_INDEXING)
+
+        // boss spans many grid cells, as does the other entity
+        val boss = Entity()
+        boss.type = EntityType.TYPE1
+        boss.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(400.0, 400.0)))
+        boss.addComponent(CollidableComponent(true))
+
+        val e2 = Entity()
+        e2.type = EntityType.TYPE2
+        e2.position = Point2D(50.0, 50.0)
+        e2.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(200.0, 200.0)))
+        e2.addComponent(CollidableComponent(true))
+
+        val gameWorld = GameWorld()
+        gameWorld.addEntity(boss)
+        gameWorld.addEntity(e2)
+
+        var collisionBeginCount = 0
+        var collisionCount = 0
+
+        physicsWorld.addCollisionHandler(object : CollisionHandler(EntityType.TYPE1, EntityType.TYPE2) {
+            override fun onCollisionBegin(a: Entity, b: Entity) {
+                collisionBeginCount++
+            }
+
+            override fun onCollision(a: Entity, b: Entity) {
+                collisionCount++
+            }
+        })
+
+        physicsWorld.onEntityAdded(boss)
+        physicsWorld.onEntityAdded(e2)
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(physicsWorld.numNarrowPhaseChecks, `is`(1))
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionCount, `is`(1))
+
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(physicsWorld.numNarrowPhaseChecks, `is`(1))
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionCount, `is`(2))
+    }
+
     @Test
     fun `Collision notification`() {
         val e1 = Entity()
@@ -778,4 +879,235 @@ class PhysicsWorldTest {
             assertThat(numCollisions, `is`(970))
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Fixed time step accumulates time and caps sub steps`() {
+        assertFalse(physicsWorld.isFixedTimeStep)
+
+        physicsWorld.setFixedTimeStep(0.1)
+        physicsWorld.setMaxSubSteps(3)
+        physicsWorld.velocityIterations = 6
+        physicsWorld.positionIterations = 2
+
+        assertTrue(physicsWorld.isFixedTimeStep)
+        assertThat(physicsWorld.maxSubSteps, `is`(3))
+        assertThat(physicsWorld.velocityIterations, `is`(6))
+        assertThat(physicsWorld.positionIterations, `is`(2))
+
+        val e = Entity()
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(10.0, 10.0)))
+        e.addComponent(PhysicsComponent().also { it.setBodyType(BodyType.DYNAMIC) })
+
+        physicsWorld.onEntityAdded(e)
+
+        val body = e.getComponent(PhysicsComponent::class.java).body
+
+        // not enough time for a step
+        physicsWorld.onUpdate(0.05)
+
+        assertThat(physicsWorld.interpolationAlpha, closeTo(0.5, 0.0001))
+        assertThat(body.linearVelocity.y.toDouble(), `is`(0.0))
+
+        // one step, with 0.05 left over
+        physicsWorld.onUpdate(0.1)
+
+        assertThat(physicsWorld.interpolationAlpha, closeTo(0.5, 0.0001))
+        assertThat(body.linearVelocity.y.toDouble(), closeTo(-1.0, 0.0001))
+
+        // only 3 steps, the rest is dropped
+        physicsWorld.onUpdate(1.0)
+
+        assertThat(physicsWorld.interpolationAlpha, closeTo(0.5, 0.0001))
+        assertThat(body.linearVelocity.y.toDouble(), closeTo(-4.0, 0.0001))
+
+        assertThrows<IllegalArgumentException> {
+            physicsWorld.setMaxSubSteps(0)
+        }
+
+        physicsWorld.setFixedTimeStep(0.0)
+
+        assertFalse(physicsWorld.isFixedTimeStep)
+        assertThat(physicsWorld.interpolationAlpha, `is`(1.0))
+    }
+
+    @Test
+    fun `Entity is interpolated between body states`() {
+        physicsWorld.setFixedTimeStep(0.1)
+        physicsWorld.setGravity(0.0, 0.0)
+
+        val e = Entity()
+        e.position = Point2D(100.0, 100.0)
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(10.0, 10.0)))
+
+        val physics = PhysicsComponent()
+        physics.setBodyType(BodyType.DYNAMIC)
+        e.addComponent(physics)
+
+        physicsWorld.onEntityAdded(e)
+
+        // 100 px/s is 10 px per step
+        physics.setLinearVelocity(100.0, 0.0)
+
+        // one step, half a step left over
+        physicsWorld.onUpdate(0.15)
+        physics.onUpdate(0.15)
+
+        assertThat(e.x, closeTo(105.0, 1.0))
+
+        // one step, 0.025 left over
+        physicsWorld.onUpdate(0.075)
+        physics.onUpdate(0.075)
+
+        assertThat(e.x, closeTo(112.5, 1.0))
+    }
+
+    @Test
+    fun `Restoring snapshot rolls back simulation`() {
+        physicsWorld.setFixedTimeStep(0.1)
+
+        val ground = Entity()
+        ground.position = Point2D(0.0, 500.0)
+        ground.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(600.0, 20.0)))
+        ground.addComponent(PhysicsComponent())
+
+        physicsWorld.onEntityAdded(ground)
+
+        val bodies = (0 until 5).map {
+            val e = Entity()
+            e.position = Point2D(100.0 + it * 5.0, 400.0 - it * 30.0)
+            e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(20.0, 20.0)))
+            e.addComponent(PhysicsComponent().also { it.setBodyType(BodyType.DYNAMIC) })
+
+            physicsWorld.onEntityAdded(e)
+
+            e.getComponent(PhysicsComponent::class.java).body
+        }
+
+        physicsWorld.onUpdate(0.25)
+
+        val snapshot = PhysicsSnapshot.fromByteArray(physicsWorld.takeSnapshot().toByteArray())
+
+        assertTrue(snapshot.size > 0)
+
+        repeat(20) { physicsWorld.onUpdate(0.1) }
+
+        val positions = bodies.map { Vec2(it.position) }
+        val velocities = bodies.map { Vec2(it.linearVelocity) }
+
+        physicsWorld.restoreSnapshot(snapshot)
+
+        assertThat(physicsWorld.interpolationAlpha, closeTo(0.5, 0.0001))
+
+        repeat(20) { physicsWorld.onUpdate(0.1) }
+
+        bodies.forEachIndexed { i, body ->
+            assertThat(body.position, `is`(positions[i]))
+            assertThat(body.linearVelocity, `is`(velocities[i]))
+        }
+    }
+
+    @Test
+    fun `Restoring snapshot restores active collisions`() {
+        val e1 = Entity()
+        e1.type = EntityType.TYPE1
+        e1.position = Point2D(100.0, 100.0)
+        e1.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+        e1.addComponent(CollidableComponent(true))
+        e1.addComponent(PhysicsComponent())
+
+        val c2 = PhysicsComponent()
+        c2.setBodyType(BodyType.DYNAMIC)
+
+        val e2 = Entity()
+        e2.type = EntityType.TYPE2
+        e2.position = Point2D(150.0, 100.0)
+        e2.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+        e2.addComponent(CollidableComponent(true))
+        e2.addComponent(c2)
+
+        val gameWorld = GameWorld()
+        gameWorld.addEntity(e1)
+        gameWorld.addEntity(e2)
+
+        var collisionBeginCount = 0
+        var collisionCount = 0
+        var collisionEndCount = 0
+
+        physicsWorld.setGravity(0.0, 0.0)
+        physicsWorld.addCollisionHandler(object : CollisionHandler(EntityType.TYPE1, EntityType.TYPE2) {
+            override fun onCollisionBegin(a: Entity, b: Entity) {
+                collisionBeginCount++
+            }
+
+            override fun onCollision(a: Entity, b: Entity) {
+                collisionCount++
+            }
+
+            override fun onCollisionEnd(a: Entity, b: Entity) {
+                collisionEndCount++
+            }
+        })
+
+        physicsWorld.onEntityAdded(e1)
+        physicsWorld.onEntityAdded(e2)
+        physicsWorld.onUpdate(0.016)
+
+        val apart = physicsWorld.takeSnapshot()
+
+        c2.velocityX = (-30.0) * 60
+
+        physicsWorld.onUpdate(0.016)
+        c2.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionCount, `is`(1))
+
+        val colliding = physicsWorld.takeSnapshot()
+
+        // separate the entities
+        c2.overwritePosition(Point2D(150.0, 100.0))
+
+        physicsWorld.onUpdate(0.016)
+        c2.onUpdate(0.016)
+
+        assertThat(collisionCount, `is`(1))
+        assertThat(collisionEndCount, `is`(1))
+
+        // the collision continues, without beginning again
+        physicsWorld.restoreSnapshot(colliding)
+
+        physicsWorld.onUpdate(0.016)
+        c2.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionCount, `is`(2))
+        assertThat(collisionEndCount, `is`(1))
+
+        // and ends when the entities separate
+        c2.overwritePosition(Point2D(150.0, 100.0))
+
+        physicsWorld.onUpdate(0.016)
+        c2.onUpdate(0.016)
+
+        assertThat(collisionCount, `is`(2))
+        assertThat(collisionEndCount, `is`(2))
+
+        // the collision is dropped when restoring to before it began
+        c2.velocityX = (-30.0) * 60
+
+        physicsWorld.onUpdate(0.016)
+        c2.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(2))
+        assertThat(collisionCount, `is`(3))
+
+        physicsWorld.restoreSnapshot(apart)
+
+        physicsWorld.onUpdate(0.016)
+        c2.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(2))
+        assertThat(collisionCount, `is`(3))
+        assertThat(collisionEndCount, `is`(2))
+    }
+}
@@ -7,13 +7,19 @@
 package com.almasb.fxgl.physics.box2d.dynamics
 
 import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape
 import com.almasb.fxgl.physics.box2d.dynamics.joints.RevoluteJointDef
+import com.almasb.fxgl.physics.box2d.particle.ParticleDef
+import com.almasb.fxgl.physics.box2d.particle.ParticleGroupDef
+import com.almasb.fxgl.physics.box2d.particle.ParticleType
 import org.hamcrest.CoreMatchers
 import org.hamcrest.CoreMatchers.*
 import org.hamcrest.MatcherAssert
 import org.hamcrest.MatcherAssert.*
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import java.util.*
 
 /**
  *
@@ -43,4 +49,318 @@ class WorldTest {
 
         assertThat(world.jointCount, `is`(0))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `parallel island solving gives same results as serial`() {
+        val serial = createPiles()
+        val parallel = createPiles()
+        parallel.isParallelIslandSolving = true
+
+        assertTrue(parallel.isParallelIslandSolving)
+
+        repeat(120) {
+            serial.step(1 / 60f, 8, 3)
+            parallel.step(1 / 60f, 8, 3)
+        }
+
+        val serialBodies = serial.bodies
+        val parallelBodies = parallel.bodies
+
+        assertThat(parallelBodies.size(), `is`(serialBodies.size()))
+
+        for (i in 0 until serialBodies.size()) {
+            val b1 = serialBodies[i]
+            val b2 = parallelBodies[i]
+
+            assertThat(b2.position, `is`(b1.position))
+            assertThat(b2.angle, `is`(b1.angle))
+            assertThat(b2.linearVelocity, `is`(b1.linearVelocity))
+            assertThat(b2.isAwake, `is`(b1.isAwake))
+        }
+    }
+
+    @Test
+    fun `particle position and velocity buffers are copies of particle data`() {
+        val world = World(Vec2(0f, -10f))
+
+        assertNull(world.particlePositionBuffer)
+
+        val def = ParticleDef()
+
+        for (i in 0 until 300) {
+            def.position.set(i * 0.5f, 1f)
+            world.createParticle(def)
+        }
+
+        world.step(1 / 60f, 8, 3)
+
+        val positions = world.particlePositionBuffer
+        val velocities = world.particleVelocityBuffer
+
+        assertThat(world.particleCount, `is`(300))
+
+        for (i in 0 until world.particleCount) {
+            assertThat(positions[i], `is`(Vec2(world.particlePositionX[i], world.particlePositionY[i])))
+            assertThat(velocities[i], `is`(Vec2(world.particleVelocityX[i], world.particleVelocityY[i])))
+        }
+
+        // falling
+        assertTrue(world.particleVelocityY[0] < 0)
+
+        positions[0].set(100f, 100f)
+
+        assertThat(world.particlePositionX[0], `is`(0f))
+    }
+
+    @Test
+    fun `parallel particle solving finds same contacts as serial and is deterministic`() {
+        val serial = createLiquid()
+        val parallel1 = createLiquid()
+        val parallel2 = createLiquid()
+
+        parallel1.isParallelParticleSolving = true
+        parallel2.isParallelParticleSolving = true
+
+        assertTrue(parallel1.isParallelParticleSolving)
+
+        serial.step(1 / 60f, 8, 3)
+        parallel1.step(1 / 60f, 8, 3)
+
+        // contacts are found after particles move, so after the first step contacts are identical
+        assertTrue(serial.particleContactCount > 0)
+        assertThat(parallel1.particleContactCount, `is`(serial.particleContactCount))
+
+        val serialContacts = serial.particleContacts
+        val parallelContacts = parallel1.particleContacts
+
+        for (i in 0 until serial.particleContactCount) {
+            assertThat(parallelContacts[i].indexA, `is`(serialContacts[i].indexA))
+            assertThat(parallelContacts[i].indexB, `is`(serialContacts[i].indexB))
+            assertThat(parallelContacts[i].weight, `is`(serialContacts[i].weight))
+        }
+
+        parallel2.step(1 / 60f, 8, 3)
+
+        repeat(60) {
+            parallel1.step(1 / 60f, 8, 3)
+            parallel2.step(1 / 60f, 8, 3)
+        }
+
+        for (i in 0 until parallel1.particleCount) {
+            assertThat(parallel1.particlePositionX[i], `is`(parallel2.particlePositionX[i]))
+            assertThat(parallel1.particlePositionY[i], `is`(parallel2.particlePositionY[i]))
+            assertThat(parallel1.particleVelocityX[i], `is`(parallel2.particleVelocityX[i]))
+            assertThat(parallel1.particleVelocityY[i], `is`(parallel2.particleVelocityY[i]))
+
+            // resting on the ground
+            assertTrue(parallel1.particlePositionY[i] > -0.1f)
+        }
+    }
+
+    @Test
+    fun `parallel pressure solving gives same results as serial`() {
+        val serial = createLiquid()
+        val parallel = createLiquid()
+
+        // without damping and viscosity, pressure is the only parallel pass that changes velocities
+        serial.setParticleDamping(0f)
+        parallel.setParticleDamping(0f)
+        parallel.isParallelParticleSolving = true
+
+        repeat(60) {
+            serial.step(1 / 60f, 8, 3)
+            parallel.step(1 / 60f, 8, 3)
+        }
+
+        assertThat(parallel.particleContactCount, `is`(serial.particleContactCount))
+
+        for (i in 0 until serial.particleCount) {
+            assertThat(parallel.particlePositionX[i], `is`(serial.particlePositionX[i]))
+            assertThat(parallel.particlePositionY[i], `is`(serial.particlePositionY[i]))
+            assertThat(parallel.particleVelocityX[i], `is`(serial.particleVelocityX[i]))
+            assertThat(parallel.particleVelocityY[i], `is`(serial.particleVelocityY[i]))
+        }
+    }
+
+    @Test
+    fun `parallel damping and viscous solving give results close to serial`() {
+        val viscousFlags = ParticleGroupDef().also { it.setTypes(EnumSet.of(ParticleType.VISCOUS)) }.typeFlags
+
+        for (typeFlags in listOf(0, viscousFlags)) {
+            val serial = createLiquid(typeFlags)
+            val parallel = createLiquid(typeFlags)
+
+            parallel.isParallelParticleSolving = true
+
+            repeat(60) {
+                serial.step(1 / 60f, 8, 3)
+                parallel.step(1 / 60f, 8, 3)
+            }
+
+            // individual particles take different paths, but the liquid as a whole settles the same way
+            val serialCenter = centerOfParticles(serial)
+            val parallelCenter = centerOfParticles(parallel)
+
+            assertEquals(serialCenter.x.toDouble(), parallelCenter.x.toDouble(), 0.1)
+            assertEquals(serialCenter.y.toDouble(), parallelCenter.y.toDouble(), 0.1)
+
+            val serialSpeed = meanParticleSpeed(serial)
+
+            assertEquals(serialSpeed, meanParticleSpeed(parallel), serialSpeed * 0.2)
+
+            for (i in 0 until parallel.particleCount) {
+                assertTrue(parallel.particlePositionY[i] > -0.1f)
+            }
+        }
+    }
+
+    @Test
+    fun `restoring saved state gives identical steps`() {
+        val world = createPiles()
+
+        repeat(30) { world.step(1 / 60f, 8, 3) }
+
+        val buffer = ByteBuffer.allocate(1 shl 16)
+        world.saveState(buffer)
+        buffer.flip()
+
+        repeat(60) { world.step(1 / 60f, 8, 3) }
+
+        val positions = world.bodies.map { Vec2(it.position) }
+        val velocities = world.bodies.map { Vec2(it.linearVelocity) }
+        val angles = world.bodies.map { it.angle }
+        val contactCount = world.contactCount
+
+        // restore into the same world and into a new world with the same bodies
+        val other = createPiles()
+
+        for (w in listOf(world, other)) {
+            w.restoreState(buffer.duplicate())
+
+            repeat(60) { w.step(1 / 60f, 8, 3) }
+
+            assertThat(w.contactCount, `is`(contactCount))
+
+            w.bodies.forEachIndexed { i, body ->
+                assertThat(body.position, `is`(positions[i]))
+                assertThat(body.linearVelocity, `is`(velocities[i]))
+                assertThat(body.angle, `is`(angles[i]))
+            }
+        }
+    }
+
+    @Test
+    fun `restoring saved state gives identical particle steps`() {
+        val world = createLiquid()
+
+        repeat(10) { world.step(1 / 60f, 8, 3) }
+
+        val buffer = ByteBuffer.allocate(1 shl 20)
+        world.saveState(buffer)
+        buffer.flip()
+
+        repeat(20) { world.step(1 / 60f, 8, 3) }
+
+        val x = world.particlePositionX.copyOf(world.particleCount)
+        val y = world.particlePositionY.copyOf(world.particleCount)
+
+        world.restoreState(buffer)
+
+        repeat(20) { world.step(1 / 60f, 8, 3) }
+
+        for (i in 0 until world.particleCount) {
+            assertThat(world.particlePositionX[i], `is`(x[i]))
+            assertThat(world.particlePositionY[i], `is`(y[i]))
+        }
+    }
+
+    @Test
+    fun `restoring state into a different world fails`() {
+        val world = createPiles()
+
+        val buffer = ByteBuffer.allocate(1 shl 16)
+        world.saveState(buffer)
+        buffer.flip()
+
+        assertThrows(IllegalArgumentException::class.java) {
+            World(Vec2(0f, -10f)).restoreState(buffer)
+        }
+    }
+
+    /**
+     * A block of liquid particles over ground.
+     */
+    private fun centerOfParticles(world: World): Vec2 {
+        val center = Vec2()
+
+        for (i in 0 until world.particleCount) {
+            center.x += world.particlePositionX[i]
+            center.y += world.particlePositionY[i]
+        }
+
+        return center.mulLocal(1.0 / world.particleCount)
+    }
+
+    private fun meanParticleSpeed(world: World): Double {
+        return (0 until world.particleCount)
+                .map { i -> Math.hypot(world.particleVelocityX[i].toDouble(), world.particleVelocityY[i].toDouble()) }
+                .average()
+    }
+
+    private fun createLiquid(typeFlags: Int = 0): World {
+        val world = World(Vec2(0f, -10f))
+        world.particleRadius = 0.05f
+
+        val ground = world.createBody(BodyDef())
+        ground.createFixture(PolygonShape().also { it.setAsBox(50f, 1f, Vec2(0f, -1f), 0f) }, 0f)
+
+        val def = ParticleDef()
+        def.typeFlags = typeFlags
+
+        for (i in 0 until 5000) {
+            def.position.set((i % 100) * 0.08f - 4f, 0.1f + (i / 100) * 0.08f)
+            world.createParticle(def)
+        }
+
+        return world
+    }
+
+    /**
+     * Independent piles of boxes on shared ground, some joined to each other and one joined to the ground.
+     */
+    private fun createPiles(): World {
+        val world = World(Vec2(0f, -10f))
+
+        val ground = world.createBody(BodyDef())
+        ground.createFixture(PolygonShape().also { it.setAsBox(200f, 1f) }, 0f)
+
+        for (x in 0 until 30) {
+            var prev: Body? = null
+
+            for (y in 0 until 5) {
+                val bd = BodyDef()
+                bd.type = BodyType.DYNAMIC
+                bd.position = Vec2(x * 6f - 90f, 2f + y * 1.1f)
+
+                val body = world.createBody(bd)
+                body.createFixture(PolygonShape().also { it.setAsBox(0.5f, 0.5f) }, 1f)
+
+                if (x % 3 == 0 && prev != null) {
+                    val jointDef = RevoluteJointDef()
+                    jointDef.initialize(prev, body, Vec2(bd.position.x, bd.position.y - 0.55f))
+                    world.createJoint(jointDef)
+                }
+
+                prev = body
+            }
+
+            if (x == 0) {
+                val jointDef = RevoluteJointDef()
+                jointDef.initialize(ground, prev!!, Vec2(prev.position.x, prev.position.y + 0.5f))
+                world.createJoint(jointDef)
+            }
+        }
+
+        return world
+    }
+}
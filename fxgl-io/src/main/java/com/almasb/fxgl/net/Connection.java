@@ -78,12 +78,20 @@ public abstract class Connection<T> {
         }
 
         try {
-            messageQueue.put(message);
+            sendImpl(message);
         } catch (InterruptedException e) {
             log.warning("send() was interrupted while waiting for messageQueue to clear some space", e);
         }
     }
 
+    /**
+     * Queues given message to be sent.
+     * By default, the message is put in the message queue, which blocks while the queue is full.
+     */
+    protected void sendImpl(T message) throws InterruptedException {
+        messageQueue.put(message);
+    }
+
     private boolean isJavaFXExceptionLogged = false;
 
     void notifyMessageReceived(T message) {
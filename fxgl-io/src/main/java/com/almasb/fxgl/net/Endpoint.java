@@ -161,7 +161,7 @@ public abstract class Endpoint<T> {
         }).start();
     }
 
-    private void onConnectionOpened(Connection<T> connection) {
+    protected final void onConnectionOpened(Connection<T> connection) {
         log.debug(getClass().getSimpleName() + " successfully opened connection (" + connection.getConnectionNum() + ")");
 
         connections.add(connection);
@@ -181,6 +181,13 @@ public abstract class Endpoint<T> {
         onDisconnected.accept(connection);
     }
 
+    /**
+     * Passes given message, received from the remote endpoint, to message handlers of given connection.
+     */
+    protected final void onMessageReceived(Connection<T> connection, T message) {
+        connection.notifyMessageReceived(message);
+    }
+
     /**
      * @return unmodifiable list of active connections (for clients, max size is 1)
      */
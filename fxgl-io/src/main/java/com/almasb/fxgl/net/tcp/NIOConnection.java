@@ -0,0 +1,337 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net.tcp;
+
+import com.almasb.fxgl.core.serialization.Bundle;
+import com.almasb.fxgl.net.BundleTCPMessageReader;
+import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.Readers;
+import com.almasb.fxgl.net.TCPMessageReader;
+import com.almasb.fxgl.net.TCPMessageWriter;
+import com.almasb.fxgl.net.Writers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A TCP connection served by a {@link NIOEventLoop} instead of dedicated send and receive threads.
+ * Messages are encoded by the registered {@link TCPMessageWriter} when sent,
+ * and each is framed with its length as a 4-byte int.
+ * The frame is kept even though built-in writers prefix messages with their own length:
+ * writers are pluggable and their encoding need not be length-prefixed,
+ * so the frame is what lets the connection find message boundaries and enforce the inbound limit
+ * without decoding partially received messages.
+ * Encoded messages are appended to an outbound buffer, which is written to the channel in as few writes as possible.
+ * If the outbound buffer grows beyond its limit, because the remote endpoint does not read fast enough,
+ * the connection is terminated, rather than blocking the sender or dropping messages.
+ * Similarly, if a received message is longer than its limit, the connection is terminated
+ * before any space for the message is allocated.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class NIOConnection<T> extends Connection<T> {
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Largest message length for which the frame (length and message) fits into an array.
+     */
+    private static final int MAX_FRAME_LENGTH = Integer.MAX_VALUE - 8 - 4;
+
+    private final SocketChannel channel;
+    private final NIOEventLoop loop;
+    private final int maxOutboundBytes;
+    private final int maxInboundBytes;
+
+    private final FrameOutputStream outbound = new FrameOutputStream();
+    private final FrameInputStream frame = new FrameInputStream();
+
+    private final TCPMessageWriter<T> writer;
+    private final TCPMessageReader<T> reader;
+
+    private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    private Consumer<T> onMessage = m -> {};
+    private Runnable onClosed = () -> {};
+
+    private boolean isClosedNotified = false;
+
+    SelectionKey key;
+
+    @SuppressWarnings("unchecked")
+    NIOConnection(SocketChannel channel, int connectionNum, Class<T> messageType, NIOEventLoop loop, int maxOutboundBytes, int maxInboundBytes) {
+        super(connectionNum);
+        this.channel = channel;
+        this.loop = loop;
+        this.maxOutboundBytes = maxOutboundBytes;
+        this.maxInboundBytes = Math.min(maxInboundBytes, MAX_FRAME_LENGTH);
+
+        writer = Writers.INSTANCE.getTCPWriter(messageType, outbound);
+        reader = messageType == Bundle.class
+                // the frame is already checked against maxInboundBytes, so the bundle length must not be held to a lower limit
+                ? (TCPMessageReader<T>) new BundleTCPMessageReader(frame, this.maxInboundBytes)
+                : Readers.INSTANCE.getTCPReader(messageType, frame);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return number of bytes sent but not yet written to the channel
+     */
+    public int getNumPendingBytes() {
+        synchronized (outbound) {
+            return outbound.numPending();
+        }
+    }
+
+    void setCallbacks(Consumer<T> onMessage, Runnable onClosed) {
+        this.onMessage = onMessage;
+        this.onClosed = onClosed;
+    }
+
+    @Override
+    protected void sendImpl(T message) {
+        boolean wasEmpty;
+        boolean isOverflow;
+
+        synchronized (outbound) {
+            wasEmpty = outbound.numPending() == 0;
+
+            int start = outbound.size;
+
+            try {
+                // reserve space for the length
+                outbound.writeInt(0);
+
+                writer.write(message);
+
+                outbound.setInt(start, outbound.size - start - 4);
+            } catch (Exception e) {
+                outbound.size = start;
+
+                log.warning("Failed to write message: " + message, e);
+                return;
+            }
+
+            isOverflow = outbound.numPending() > maxOutboundBytes;
+        }
+
+        if (isOverflow) {
+            log.warning("Connection " + getConnectionNum() + " has over " + maxOutboundBytes + " bytes pending, terminating");
+            terminate();
+            return;
+        }
+
+        // if there was pending data, the loop is already waiting to write it
+        if (wasEmpty) {
+            loop.requestWrite(this);
+        }
+    }
+
+    /**
+     * Called by the event loop when the channel can be read.
+     */
+    void onReadable() throws Exception {
+        int numRead = channel.read(inbound);
+
+        if (numRead == -1) {
+            log.debug("Connection " + getConnectionNum() + " was correctly closed from remote endpoint.");
+            terminate();
+            return;
+        }
+
+        inbound.flip();
+
+        while (inbound.remaining() >= 4) {
+            int position = inbound.position();
+            int length = inbound.getInt(position);
+
+            if (length < 0 || length > maxInboundBytes) {
+                log.warning("Connection " + getConnectionNum() + " received message length " + length
+                        + ", max is " + maxInboundBytes + ", terminating");
+                terminate();
+                return;
+            }
+
+            // length + 4 does not overflow, since length <= MAX_FRAME_LENGTH
+            if (inbound.remaining() < length + 4) {
+                if (inbound.capacity() < length + 4) {
+                    int capacity = (int) Math.min((long) inbound.capacity() * 2, MAX_FRAME_LENGTH + 4);
+
+                    var buffer = ByteBuffer.allocate(Math.max(length + 4, capacity));
+                    buffer.put(inbound);
+                    inbound = buffer;
+                    return;
+                }
+
+                break;
+            }
+
+            frame.set(inbound.array(), position + 4, length);
+
+            T message = reader.read();
+
+            inbound.position(position + 4 + length);
+
+            onMessage.accept(message);
+
+            if (!isConnected())
+                return;
+        }
+
+        inbound.compact();
+    }
+
+    /**
+     * Called by the event loop when the channel can be written.
+     *
+     * @return true if all pending data was written
+     */
+    boolean onWritable() throws IOException {
+        synchronized (outbound) {
+            if (outbound.numPending() > 0) {
+                var buffer = ByteBuffer.wrap(outbound.buffer, outbound.start, outbound.numPending());
+
+                channel.write(buffer);
+
+                outbound.start = buffer.position();
+                outbound.compactIfNeeded();
+            }
+
+            return outbound.numPending() == 0;
+        }
+    }
+
+    @Override
+    protected boolean isClosedLocally() {
+        return !channel.isOpen();
+    }
+
+    @Override
+    protected void terminateImpl() throws Exception {
+        channel.close();
+
+        loop.wakeup();
+
+        synchronized (this) {
+            if (isClosedNotified)
+                return;
+
+            isClosedNotified = true;
+        }
+
+        onClosed.run();
+    }
+
+    /**
+     * Collects encoded messages, starting at {@link #start} and ending at {@link #size}.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private int start = 0;
+        private int size = 0;
+
+        int numPending() {
+            return size - start;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            setInt(size, value);
+            size += 4;
+        }
+
+        void setInt(int index, int value) {
+            buffer[index] = (byte) (value >>> 24);
+            buffer[index + 1] = (byte) (value >>> 16);
+            buffer[index + 2] = (byte) (value >>> 8);
+            buffer[index + 3] = (byte) value;
+        }
+
+        void compactIfNeeded() {
+            if (start == size) {
+                start = 0;
+                size = 0;
+            } else if (start > buffer.length / 2) {
+                System.arraycopy(buffer, start, buffer, 0, size - start);
+                size -= start;
+                start = 0;
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Provides the bytes of a single received message to the message reader.
+     */
+    private static final class FrameInputStream extends InputStream {
+
+        private byte[] buffer = new byte[0];
+        private int position = 0;
+        private int limit = 0;
+
+        void set(byte[] buffer, int offset, int length) {
+            this.buffer = buffer;
+            position = offset;
+            limit = offset + length;
+        }
+
+        @Override
+        public int read() {
+            if (position >= limit)
+                return -1;
+
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+
+            if (position >= limit)
+                return -1;
+
+            int n = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+    }
+}
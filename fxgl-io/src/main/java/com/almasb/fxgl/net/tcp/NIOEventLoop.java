@@ -0,0 +1,157 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net.tcp;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves all connections of an endpoint on a single thread using a selector.
+ * Message handlers of these connections are called on this thread, so they should not block.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class NIOEventLoop {
+
+    private static final Logger log = Logger.get(NIOEventLoop.class);
+
+    private final Selector selector;
+    private final Thread thread;
+
+    /**
+     * Changes to registrations, which are only made on the loop thread.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isRunning = true;
+
+    NIOEventLoop(String name) throws IOException {
+        selector = Selector.open();
+
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void register(NIOConnection<?> connection) {
+        submit(() -> {
+            try {
+                int ops = SelectionKey.OP_READ;
+
+                // messages sent before registration
+                if (connection.getNumPendingBytes() > 0) {
+                    ops |= SelectionKey.OP_WRITE;
+                }
+
+                connection.key = connection.getChannel().register(selector, ops, connection);
+            } catch (Exception e) {
+                log.warning("Failed to register connection " + connection.getConnectionNum(), e);
+
+                connection.terminate();
+            }
+        });
+    }
+
+    /**
+     * Writes pending data of given connection as soon as the channel can be written.
+     */
+    void requestWrite(NIOConnection<?> connection) {
+        submit(() -> {
+            var key = connection.key;
+
+            if (key != null && key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        });
+    }
+
+    void wakeup() {
+        selector.wakeup();
+    }
+
+    /**
+     * Stops the loop thread.
+     * Connections should be terminated before this call.
+     */
+    void close() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    private void submit(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (isRunning) {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                var iterator = selector.selectedKeys().iterator();
+
+                while (iterator.hasNext()) {
+                    var key = iterator.next();
+                    iterator.remove();
+
+                    handle(key);
+                }
+            }
+        } catch (Exception e) {
+            log.warning(thread.getName() + " crashed", e);
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warning("Failed to close selector", e);
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        var connection = (NIOConnection<?>) key.attachment();
+
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                boolean isDone = connection.onWritable();
+
+                if (isDone) {
+                    key.interestOps(SelectionKey.OP_READ);
+
+                    // new data may have been sent after the buffer was checked but before OP_WRITE was cleared
+                    if (connection.getNumPendingBytes() > 0) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (connection.isConnected()) {
+                if (connection.isClosedLocally()) {
+                    log.debug("Connection " + connection.getConnectionNum() + " was closed: " + e.getMessage());
+                } else {
+                    log.warning("Connection " + connection.getConnectionNum() + " had error during IO", e);
+                }
+
+                connection.terminate();
+            }
+        }
+    }
+}
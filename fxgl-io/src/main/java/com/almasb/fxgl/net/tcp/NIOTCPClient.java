@@ -0,0 +1,101 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net.tcp;
+
+import com.almasb.fxgl.logging.Logger;
+import com.almasb.fxgl.net.Client;
+import com.almasb.fxgl.net.Connection;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A TCP client that uses non-blocking IO on a single thread,
+ * instead of separate send and receive threads as {@link TCPClient} does.
+ * Message handlers are called on that thread, so they should not block.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class NIOTCPClient<T> extends Client<T> {
+
+    private static final Logger log = Logger.get(NIOTCPClient.class);
+
+    private String ip;
+    private int port;
+    private Class<T> messageType;
+    private int maxOutboundBytes;
+    private int maxInboundBytes;
+
+    private NIOEventLoop loop;
+
+    /**
+     * @param maxOutboundBytes maximum number of bytes sent but not yet written to the connection,
+     *                         after which the connection is terminated
+     * @param maxInboundBytes maximum length in bytes of a message received from the connection,
+     *                        above which the connection is terminated
+     */
+    public NIOTCPClient(String ip, int port, Class<T> messageType, int maxOutboundBytes, int maxInboundBytes) {
+        this.ip = ip;
+        this.port = port;
+        this.messageType = messageType;
+        this.maxOutboundBytes = maxOutboundBytes;
+        this.maxInboundBytes = maxInboundBytes;
+    }
+
+    @Override
+    public void connect() {
+        log.debug("Connecting to " + ip + ":" + port + " type: " + messageType);
+
+        SocketChannel channel;
+
+        try {
+            channel = SocketChannel.open(new InetSocketAddress(ip, port));
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+
+            log.debug("Created channel to " + ip + ":" + port);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create a socket to address " + ip + " : " + port + " Error: " + e, e);
+        }
+
+        try {
+            loop = new NIOEventLoop("NIOTCPClient_EventLoop");
+
+            var connection = new NIOConnection<>(channel, 1, messageType, loop, maxOutboundBytes, maxInboundBytes);
+            connection.setCallbacks(
+                    message -> onMessageReceived(connection, message),
+                    () -> {
+                        onConnectionClosed(connection);
+                        loop.close();
+                    }
+            );
+
+            onConnectionOpened(connection);
+
+            loop.register(connection);
+        } catch (Exception e) {
+            // in case we managed to partially open the connection
+            disconnect();
+
+            try {
+                channel.close();
+            } catch (Exception ignored) { }
+
+            if (loop != null) {
+                loop.close();
+            }
+
+            throw new RuntimeException("Failed to open TCP connection to " + ip + ":" + port + " Error: " + e, e);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        getConnections().forEach(Connection::terminate);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net.tcp;
+
+import com.almasb.fxgl.logging.Logger;
+import com.almasb.fxgl.net.Server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * A TCP server that serves all connections on a single thread with non-blocking IO,
+ * instead of two threads per connection as {@link TCPServer} does.
+ * Message handlers are called on that thread, so they should not block.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class NIOTCPServer<T> extends Server<T> {
+
+    private static final Logger log = Logger.get(NIOTCPServer.class);
+
+    private volatile boolean isStopped = false;
+
+    private int port;
+    private Class<T> messageType;
+    private int maxOutboundBytes;
+    private int maxInboundBytes;
+
+    private ServerSocketChannel serverChannel;
+    private NIOEventLoop loop;
+
+    /**
+     * @param maxOutboundBytes maximum number of bytes sent but not yet written to a connection,
+     *                         after which the connection is terminated
+     * @param maxInboundBytes maximum length in bytes of a message received from a connection,
+     *                        above which the connection is terminated
+     */
+    public NIOTCPServer(int port, Class<T> messageType, int maxOutboundBytes, int maxInboundBytes) {
+        this.port = port;
+        this.messageType = messageType;
+        this.maxOutboundBytes = maxOutboundBytes;
+        this.maxInboundBytes = maxInboundBytes;
+    }
+
+    @Override
+    protected void start() {
+        log.debug("Starting to listen at: " + port + " type: " + messageType);
+
+        try (var serverChannel = ServerSocketChannel.open()) {
+            this.serverChannel = serverChannel;
+
+            serverChannel.bind(new InetSocketAddress(port));
+
+            loop = new NIOEventLoop("NIOTCPServer_EventLoop-" + port);
+
+            onStartedListening();
+
+            int connectionNum = 1;
+
+            while (!isStopped) {
+                var channel = serverChannel.accept();
+
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+
+                log.debug("Opening new connection (" + connectionNum + ") from " + channel.getRemoteAddress() + " type: " + messageType);
+
+                var connection = new NIOConnection<>(channel, connectionNum++, messageType, loop, maxOutboundBytes, maxInboundBytes);
+                connection.setCallbacks(
+                        message -> onMessageReceived(connection, message),
+                        () -> onClosed(connection)
+                );
+
+                onConnectionOpened(connection);
+
+                loop.register(connection);
+            }
+
+        } catch (Exception e) {
+            if (!isStopped) {
+                throw new RuntimeException("Failed to start: " + e.getMessage(), e);
+            }
+        }
+
+        onStoppedListening();
+
+        stopLoopIfUnused();
+    }
+
+    private void onClosed(NIOConnection<T> connection) {
+        onConnectionClosed(connection);
+
+        stopLoopIfUnused();
+    }
+
+    private void stopLoopIfUnused() {
+        if (isStopped && loop != null && getConnections().isEmpty()) {
+            loop.close();
+        }
+    }
+
+    /**
+     * Stops accepting incoming connections.
+     * Existing connections remain active.
+     */
+    @Override
+    public void stop() {
+        isStopped = true;
+
+        try {
+            if (serverChannel != null)
+                serverChannel.close();
+        } catch (IOException e) {
+            log.warning("IOException when closing server channel: " + e.getMessage(), e);
+        }
+    }
+}
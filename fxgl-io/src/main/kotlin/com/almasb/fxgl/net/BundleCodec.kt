@@ -0,0 +1,533 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net
+
+import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.core.serialization.Bundle
+import java.io.*
+
+/**
+ * Binary format of [Bundle] messages.
+ *
+ * Each value is written as a one-byte tag followed by its data.
+ * Integers and lengths use variable-length encoding (zig-zag for signed values),
+ * so small values, which are the most common, take 1 or 2 bytes.
+ * Primitives, strings, primitive arrays, String arrays, [Vec2], nested bundles and
+ * [ArrayList]s of those are written directly.
+ * Any other [Serializable] value is written with Java serialization.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+object BundleCodec {
+
+    private const val VERSION = 1
+
+    private const val TAG_NULL = 0
+    private const val TAG_TRUE = 1
+    private const val TAG_FALSE = 2
+    private const val TAG_BYTE = 3
+    private const val TAG_SHORT = 4
+    private const val TAG_CHAR = 5
+    private const val TAG_INT = 6
+    private const val TAG_LONG = 7
+    private const val TAG_FLOAT = 8
+    private const val TAG_DOUBLE = 9
+    private const val TAG_STRING = 10
+    private const val TAG_BYTE_ARRAY = 11
+    private const val TAG_BOOLEAN_ARRAY = 12
+    private const val TAG_INT_ARRAY = 13
+    private const val TAG_LONG_ARRAY = 14
+    private const val TAG_FLOAT_ARRAY = 15
+    private const val TAG_DOUBLE_ARRAY = 16
+    private const val TAG_STRING_ARRAY = 17
+    private const val TAG_VEC2 = 18
+    private const val TAG_BUNDLE = 19
+    private const val TAG_LIST = 20
+    private const val TAG_OBJECT = 21
+
+    private val buffers = ThreadLocal.withInitial { BinaryWriter() }
+
+    /**
+     * @return [bundle] in binary format
+     */
+    fun encode(bundle: Bundle): ByteArray {
+        val writer = buffers.get()
+        writer.reset()
+
+        encode(bundle, writer)
+
+        return writer.toByteArray()
+    }
+
+    /**
+     * Writes [bundle] in binary format to the end of [writer].
+     */
+    internal fun encode(bundle: Bundle, writer: BinaryWriter) {
+        writer.writeVarInt(VERSION)
+        writeBundle(bundle, writer)
+    }
+
+    @JvmOverloads
+    fun decode(data: ByteArray, offset: Int = 0, length: Int = data.size - offset): Bundle {
+        val reader = BinaryReader(data, offset, offset + length)
+
+        val version = reader.readVarInt()
+        if (version != VERSION)
+            throw IOException("Unsupported bundle format version: $version")
+
+        return readBundle(reader)
+    }
+
+    private fun writeBundle(bundle: Bundle, writer: BinaryWriter) {
+        writer.writeString(bundle.name)
+        writer.writeVarInt(bundle.data.size)
+
+        bundle.data.forEach { (key, value) ->
+            writer.writeString(key)
+            writeValue(value, writer)
+        }
+    }
+
+    private fun readBundle(reader: BinaryReader): Bundle {
+        val bundle = Bundle(reader.readString())
+
+        repeat(reader.readLength()) {
+            val key = reader.readString()
+
+            bundle.data[key] = readValue(reader) as Serializable
+        }
+
+        return bundle
+    }
+
+    private fun writeValue(value: Any?, writer: BinaryWriter) {
+        when (value) {
+            null -> writer.writeByte(TAG_NULL)
+
+            is Boolean -> writer.writeByte(if (value) TAG_TRUE else TAG_FALSE)
+
+            is Byte -> {
+                writer.writeByte(TAG_BYTE)
+                writer.writeByte(value.toInt())
+            }
+
+            is Short -> {
+                writer.writeByte(TAG_SHORT)
+                writer.writeSignedVarInt(value.toInt())
+            }
+
+            is Char -> {
+                writer.writeByte(TAG_CHAR)
+                writer.writeVarInt(value.code)
+            }
+
+            is Int -> {
+                writer.writeByte(TAG_INT)
+                writer.writeSignedVarInt(value)
+            }
+
+            is Long -> {
+                writer.writeByte(TAG_LONG)
+                writer.writeSignedVarLong(value)
+            }
+
+            is Float -> {
+                writer.writeByte(TAG_FLOAT)
+                writer.writeFloat(value)
+            }
+
+            is Double -> {
+                writer.writeByte(TAG_DOUBLE)
+                writer.writeDouble(value)
+            }
+
+            is String -> {
+                writer.writeByte(TAG_STRING)
+                writer.writeString(value)
+            }
+
+            is ByteArray -> {
+                writer.writeByte(TAG_BYTE_ARRAY)
+                writer.writeVarInt(value.size)
+                writer.writeBytes(value, 0, value.size)
+            }
+
+            is BooleanArray -> {
+                writer.writeByte(TAG_BOOLEAN_ARRAY)
+                writer.writeVarInt(value.size)
+                value.forEach { writer.writeByte(if (it) 1 else 0) }
+            }
+
+            is IntArray -> {
+                writer.writeByte(TAG_INT_ARRAY)
+                writer.writeVarInt(value.size)
+                value.forEach { writer.writeSignedVarInt(it) }
+            }
+
+            is LongArray -> {
+                writer.writeByte(TAG_LONG_ARRAY)
+                writer.writeVarInt(value.size)
+                value.forEach { writer.writeSignedVarLong(it) }
+            }
+
+            is FloatArray -> {
+                writer.writeByte(TAG_FLOAT_ARRAY)
+                writer.writeVarInt(value.size)
+                value.forEach { writer.writeFloat(it) }
+            }
+
+            is DoubleArray -> {
+                writer.writeByte(TAG_DOUBLE_ARRAY)
+                writer.writeVarInt(value.size)
+                value.forEach { writer.writeDouble(it) }
+            }
+
+            else -> writeObject(value, writer)
+        }
+    }
+
+    private fun writeObject(value: Any, writer: BinaryWriter) {
+        when {
+            value.javaClass == Array<String>::class.java && (value as Array<*>).all { it != null } -> {
+                writer.writeByte(TAG_STRING_ARRAY)
+                writer.writeVarInt(value.size)
+                value.forEach { writer.writeString(it as String) }
+            }
+
+            value.javaClass == Vec2::class.java -> {
+                writer.writeByte(TAG_VEC2)
+                writer.writeFloat((value as Vec2).x)
+                writer.writeFloat(value.y)
+            }
+
+            value.javaClass == Bundle::class.java -> {
+                writer.writeByte(TAG_BUNDLE)
+                writeBundle(value as Bundle, writer)
+            }
+
+            value.javaClass == ArrayList::class.java && (value as ArrayList<*>).all { isDirectlyWritable(it) } -> {
+                writer.writeByte(TAG_LIST)
+                writer.writeVarInt(value.size)
+                value.forEach { writeValue(it, writer) }
+            }
+
+            else -> {
+                writer.writeByte(TAG_OBJECT)
+
+                // reserve space for the length, which is not known until the object is written
+                val start = writer.size
+                writer.writeFixedInt(0)
+
+                ObjectOutputStream(writer.asOutputStream()).use { it.writeObject(value) }
+
+                writer.setFixedInt(start, writer.size - start - 4)
+            }
+        }
+    }
+
+    /**
+     * @return true if [value] is written without Java serialization
+     */
+    private fun isDirectlyWritable(value: Any?): Boolean {
+        return when (value) {
+            null, is Boolean, is Byte, is Short, is Char, is Int, is Long, is Float, is Double, is String,
+            is ByteArray, is BooleanArray, is IntArray, is LongArray, is FloatArray, is DoubleArray -> true
+
+            else -> value.javaClass == Vec2::class.java
+                    || value.javaClass == Bundle::class.java
+                    || (value.javaClass == Array<String>::class.java && (value as Array<*>).all { it != null })
+                    || (value.javaClass == ArrayList::class.java && (value as ArrayList<*>).all { isDirectlyWritable(it) })
+        }
+    }
+
+    private fun readValue(reader: BinaryReader): Any? {
+        return when (val tag = reader.readByte()) {
+            TAG_NULL -> null
+            TAG_TRUE -> true
+            TAG_FALSE -> false
+            TAG_BYTE -> reader.readByte().toByte()
+            TAG_SHORT -> reader.readSignedVarInt().toShort()
+            TAG_CHAR -> reader.readVarInt().toChar()
+            TAG_INT -> reader.readSignedVarInt()
+            TAG_LONG -> reader.readSignedVarLong()
+            TAG_FLOAT -> reader.readFloat()
+            TAG_DOUBLE -> reader.readDouble()
+            TAG_STRING -> reader.readString()
+            TAG_BYTE_ARRAY -> reader.readBytes(reader.readLength())
+            TAG_BOOLEAN_ARRAY -> BooleanArray(reader.readLength()) { reader.readByte() != 0 }
+            TAG_INT_ARRAY -> IntArray(reader.readLength()) { reader.readSignedVarInt() }
+            TAG_LONG_ARRAY -> LongArray(reader.readLength()) { reader.readSignedVarLong() }
+            TAG_FLOAT_ARRAY -> FloatArray(reader.readLength()) { reader.readFloat() }
+            TAG_DOUBLE_ARRAY -> DoubleArray(reader.readLength()) { reader.readDouble() }
+            TAG_STRING_ARRAY -> Array(reader.readLength()) { reader.readString() }
+            TAG_VEC2 -> Vec2(reader.readFloat(), reader.readFloat())
+            TAG_BUNDLE -> readBundle(reader)
+
+            TAG_LIST -> {
+                val size = reader.readLength()
+                val list = ArrayList<Any?>(size)
+
+                repeat(size) {
+                    list += readValue(reader)
+                }
+
+                list
+            }
+
+            TAG_OBJECT -> {
+                val length = reader.readFixedInt()
+                val stream = reader.asInputStream(length)
+
+                ObjectInputStream(stream).use { it.readObject() }
+            }
+
+            else -> throw IOException("Unknown value tag: $tag")
+        }
+    }
+}
+
+/**
+ * A growable byte buffer, which can be reused for multiple messages.
+ */
+internal class BinaryWriter(initialCapacity: Int = 256) {
+
+    private var buffer = ByteArray(initialCapacity)
+
+    var size = 0
+        private set
+
+    val bytes: ByteArray
+        get() = buffer
+
+    fun reset() {
+        size = 0
+    }
+
+    fun toByteArray(): ByteArray = buffer.copyOf(size)
+
+    fun writeByte(value: Int) {
+        ensureCapacity(1)
+        buffer[size++] = value.toByte()
+    }
+
+    fun writeBytes(bytes: ByteArray, offset: Int, length: Int) {
+        ensureCapacity(length)
+        System.arraycopy(bytes, offset, buffer, size, length)
+        size += length
+    }
+
+    /**
+     * Writes [value] as unsigned, 7 bits per byte, least significant first.
+     */
+    fun writeVarInt(value: Int) {
+        ensureCapacity(5)
+
+        var v = value
+        while (v and 0x7F.inv() != 0) {
+            buffer[size++] = ((v and 0x7F) or 0x80).toByte()
+            v = v ushr 7
+        }
+
+        buffer[size++] = v.toByte()
+    }
+
+    fun writeSignedVarInt(value: Int) {
+        writeVarInt((value shl 1) xor (value shr 31))
+    }
+
+    fun writeSignedVarLong(value: Long) {
+        ensureCapacity(10)
+
+        var v = (value shl 1) xor (value shr 63)
+        while (v and 0x7FL.inv() != 0L) {
+            buffer[size++] = ((v and 0x7F) or 0x80).toByte()
+            v = v ushr 7
+        }
+
+        buffer[size++] = v.toByte()
+    }
+
+    fun writeFixedInt(value: Int) {
+        ensureCapacity(4)
+        setFixedInt(size, value)
+        size += 4
+    }
+
+    fun setFixedInt(index: Int, value: Int) {
+        buffer[index] = (value ushr 24).toByte()
+        buffer[index + 1] = (value ushr 16).toByte()
+        buffer[index + 2] = (value ushr 8).toByte()
+        buffer[index + 3] = value.toByte()
+    }
+
+    fun writeFloat(value: Float) {
+        writeFixedInt(value.toRawBits())
+    }
+
+    fun writeDouble(value: Double) {
+        val bits = value.toRawBits()
+
+        writeFixedInt((bits ushr 32).toInt())
+        writeFixedInt(bits.toInt())
+    }
+
+    fun writeString(value: String) {
+        val length = value.length
+
+        // fast path for ASCII, which is most keys and names
+        ensureCapacity(length + 5)
+
+        val start = size
+        writeVarInt(length)
+
+        for (i in 0 until length) {
+            val c = value[i].code
+
+            if (c >= 0x80) {
+                size = start
+
+                val bytes = value.toByteArray(Charsets.UTF_8)
+                writeVarInt(bytes.size)
+                writeBytes(bytes, 0, bytes.size)
+                return
+            }
+
+            buffer[size++] = c.toByte()
+        }
+    }
+
+    fun asOutputStream(): OutputStream = object : OutputStream() {
+        override fun write(b: Int) {
+            writeByte(b)
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            writeBytes(b, off, len)
+        }
+    }
+
+    private fun ensureCapacity(extra: Int) {
+        if (size + extra > buffer.size) {
+            buffer = buffer.copyOf(maxOf(buffer.size * 2, size + extra))
+        }
+    }
+}
+
+/**
+ * Reads values written by [BinaryWriter] from [data] between [position] and [limit].
+ */
+internal class BinaryReader(private val data: ByteArray, private var position: Int, private val limit: Int) {
+
+    fun readByte(): Int {
+        require(1)
+        return data[position++].toInt() and 0xFF
+    }
+
+    fun readBytes(length: Int): ByteArray {
+        require(length)
+
+        val bytes = data.copyOfRange(position, position + length)
+        position += length
+        return bytes
+    }
+
+    fun readVarInt(): Int {
+        var result = 0
+        var shift = 0
+
+        while (shift < 35) {
+            val b = readByte()
+            result = result or ((b and 0x7F) shl shift)
+
+            if (b and 0x80 == 0)
+                return result
+
+            shift += 7
+        }
+
+        throw IOException("Malformed varint")
+    }
+
+    /**
+     * @return a non-negative length that does not exceed the remaining data
+     */
+    fun readLength(): Int {
+        val length = readVarInt()
+
+        if (length < 0 || length > limit - position)
+            throw IOException("Malformed length: $length")
+
+        return length
+    }
+
+    fun readSignedVarInt(): Int {
+        val v = readVarInt()
+        return (v ushr 1) xor -(v and 1)
+    }
+
+    fun readSignedVarLong(): Long {
+        var v = 0L
+        var shift = 0
+
+        while (shift < 70) {
+            val b = readByte()
+            v = v or ((b and 0x7F).toLong() shl shift)
+
+            if (b and 0x80 == 0)
+                return (v ushr 1) xor -(v and 1)
+
+            shift += 7
+        }
+
+        throw IOException("Malformed varint")
+    }
+
+    fun readFixedInt(): Int {
+        require(4)
+
+        val value = ((data[position].toInt() and 0xFF) shl 24) or
+                ((data[position + 1].toInt() and 0xFF) shl 16) or
+                ((data[position + 2].toInt() and 0xFF) shl 8) or
+                (data[position + 3].toInt() and 0xFF)
+
+        position += 4
+        return value
+    }
+
+    fun readFloat(): Float = Float.fromBits(readFixedInt())
+
+    fun readDouble(): Double {
+        val high = readFixedInt().toLong()
+        val low = readFixedInt().toLong() and 0xFFFFFFFFL
+
+        return Double.fromBits((high shl 32) or low)
+    }
+
+    fun readString(): String {
+        val length = readLength()
+
+        val value = String(data, position, length, Charsets.UTF_8)
+        position += length
+        return value
+    }
+
+    /**
+     * @return stream over the next [length] bytes, which are then skipped
+     */
+    fun asInputStream(length: Int): InputStream {
+        require(length)
+
+        val stream = ByteArrayInputStream(data, position, length)
+        position += length
+        return stream
+    }
+
+    private fun require(length: Int) {
+        if (length < 0 || length > limit - position)
+            throw EOFException("Unexpected end of bundle data")
+    }
+}
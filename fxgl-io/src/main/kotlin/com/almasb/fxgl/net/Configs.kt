@@ -11,12 +11,50 @@ package com.almasb.fxgl.net
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 
-data class ServerConfig<T>(
-        val messageType: Class<T>
+data class ServerConfig<T>
+@JvmOverloads constructor(
+        val messageType: Class<T>,
+
+        /**
+         * If true, all connections are served on a single thread with non-blocking IO,
+         * instead of two threads per connection.
+         */
+        val isNonBlocking: Boolean = false,
+
+        /**
+         * Non-blocking only: maximum number of bytes sent but not yet written to a connection,
+         * after which the connection is terminated.
+         */
+        val maxOutboundBytes: Int = DEFAULT_MAX_OUTBOUND_BYTES,
+
+        /**
+         * Non-blocking only: maximum length in bytes of a message received from a connection,
+         * above which the connection is terminated.
+         */
+        val maxInboundBytes: Int = DEFAULT_MAX_MESSAGE_SIZE
 )
 
-data class ClientConfig<T>(
-        val messageType: Class<T>
+data class ClientConfig<T>
+@JvmOverloads constructor(
+        val messageType: Class<T>,
+
+        /**
+         * If true, the connection is served on a single thread with non-blocking IO,
+         * instead of separate send and receive threads.
+         */
+        val isNonBlocking: Boolean = false,
+
+        /**
+         * Non-blocking only: maximum number of bytes sent but not yet written to the connection,
+         * after which the connection is terminated.
+         */
+        val maxOutboundBytes: Int = DEFAULT_MAX_OUTBOUND_BYTES,
+
+        /**
+         * Non-blocking only: maximum length in bytes of a message received from the connection,
+         * above which the connection is terminated.
+         */
+        val maxInboundBytes: Int = DEFAULT_MAX_MESSAGE_SIZE
 )
 
 data class UDPServerConfig<T>
@@ -29,4 +67,11 @@ data class UDPClientConfig<T>
 @JvmOverloads constructor(
         val messageType: Class<T>,
         val bufferSize: Int = 2048
-)
\ No newline at end of file
+)
+
+private const val DEFAULT_MAX_OUTBOUND_BYTES = 4 * 1024 * 1024
+
+/**
+ * Default maximum length in bytes of a received message, shared by all TCP connections and readers.
+ */
+internal const val DEFAULT_MAX_MESSAGE_SIZE = 4 * 1024 * 1024
@@ -10,6 +10,8 @@ import com.almasb.fxgl.core.EngineService
 import com.almasb.fxgl.core.concurrent.IOTask
 import com.almasb.fxgl.core.serialization.Bundle
 import com.almasb.fxgl.logging.Logger
+import com.almasb.fxgl.net.tcp.NIOTCPClient
+import com.almasb.fxgl.net.tcp.NIOTCPServer
 import com.almasb.fxgl.net.tcp.TCPClient
 import com.almasb.fxgl.net.tcp.TCPServer
 import com.almasb.fxgl.net.udp.UDPClient
@@ -44,10 +46,20 @@ class NetService : EngineService() {
     }
 
     fun newTCPServer(port: Int): Server<Bundle> = TCPServer(port, Bundle::class.java)
-    fun <T> newTCPServer(port: Int, config: ServerConfig<T>): Server<T> = TCPServer(port, config.messageType)
+    fun <T> newTCPServer(port: Int, config: ServerConfig<T>): Server<T> {
+        if (config.isNonBlocking)
+            return NIOTCPServer(port, config.messageType, config.maxOutboundBytes, config.maxInboundBytes)
+
+        return TCPServer(port, config.messageType)
+    }
 
     fun newTCPClient(ip: String, port: Int): Client<Bundle> = TCPClient(ip, port, Bundle::class.java)
-    fun <T> newTCPClient(ip: String, port: Int,  config: ClientConfig<T>): Client<T> = TCPClient(ip, port, config.messageType)
+    fun <T> newTCPClient(ip: String, port: Int,  config: ClientConfig<T>): Client<T> {
+        if (config.isNonBlocking)
+            return NIOTCPClient(ip, port, config.messageType, config.maxOutboundBytes, config.maxInboundBytes)
+
+        return TCPClient(ip, port, config.messageType)
+    }
 
     fun newUDPServer(port: Int): Server<Bundle> = UDPServer(port, UDPServerConfig(Bundle::class.java))
     fun <T> newUDPServer(port: Int, config: UDPServerConfig<T>): Server<T> = UDPServer(port, config)
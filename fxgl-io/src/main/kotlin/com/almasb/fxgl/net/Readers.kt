@@ -88,11 +88,34 @@ object Readers {
     }
 }
 
-class BundleTCPMessageReader(stream: InputStream) : TCPMessageReader<Bundle> {
-    private val inputStream = ObjectInputStream(stream)
+/**
+ * Reads bundles written by [BundleTCPMessageWriter].
+ * Messages longer than [maxMessageSize] bytes are rejected, so that a malformed or malicious
+ * length cannot make the reader allocate an arbitrarily large buffer.
+ */
+class BundleTCPMessageReader
+@JvmOverloads constructor(
+        stream: InputStream,
+        private val maxMessageSize: Int = DEFAULT_MAX_MESSAGE_SIZE
+) : TCPMessageReader<Bundle> {
+
+    private val stream = DataInputStream(stream)
+
+    private var buffer = ByteArray(256)
 
     override fun read(): Bundle {
-        return inputStream.readObject() as Bundle
+        val len = stream.readInt()
+
+        if (len < 0 || len > maxMessageSize)
+            throw IOException("Malformed message length: $len, max: $maxMessageSize")
+
+        if (len > buffer.size) {
+            buffer = ByteArray(minOf(maxOf(len, buffer.size * 2), maxMessageSize))
+        }
+
+        stream.readFully(buffer, 0, len)
+
+        return BundleCodec.decode(buffer, 0, len)
     }
 }
 
@@ -129,8 +152,6 @@ class StringTCPMessageReader(inputStream: InputStream) : TCPMessageReader<String
 
 class BundleUDPMessageReader : UDPMessageReader<Bundle> {
     override fun read(data: ByteArray): Bundle {
-        ObjectInputStream(ByteArrayInputStream(data)).use {
-            return it.readObject() as Bundle
-        }
+        return BundleCodec.decode(data)
     }
-}
\ No newline at end of file
+}
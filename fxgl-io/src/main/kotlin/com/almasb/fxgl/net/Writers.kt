@@ -90,12 +90,23 @@ object Writers {
     }
 }
 
-class BundleTCPMessageWriter(out: OutputStream) : TCPMessageWriter<Bundle> {
+/**
+ * Writes each bundle in [BundleCodec] format, prefixed by its length as a 4-byte int.
+ */
+class BundleTCPMessageWriter(private val out: OutputStream) : TCPMessageWriter<Bundle> {
 
-    private val out = ObjectOutputStream(out)
+    private val buffer = BinaryWriter()
 
     override fun write(message: Bundle) {
-        out.writeObject(message)
+        buffer.reset()
+        buffer.writeFixedInt(0)
+
+        BundleCodec.encode(message, buffer)
+
+        buffer.setFixedInt(0, buffer.size - 4)
+
+        // a single write, so that the message is not split into multiple packets
+        out.write(buffer.bytes, 0, buffer.size)
     }
 }
 
@@ -120,12 +131,6 @@ class StringTCPMessageWriter(out: OutputStream) : TCPMessageWriter<String> {
 
 class BundleUDPMessageWriter : UDPMessageWriter<Bundle> {
     override fun write(data: Bundle): ByteArray {
-        return toByteArray(data)
-    }
-
-    private fun toByteArray(data: Serializable): ByteArray {
-        val baos = ByteArrayOutputStream()
-        ObjectOutputStream(baos).use { it.writeObject(data) }
-        return baos.toByteArray()
+        return BundleCodec.encode(data)
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net
+
+import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.core.serialization.Bundle
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.Serializable
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class BundleCodecTest {
+
+    @Test
+    fun `Encode and decode primitives and strings`() {
+        val bundle = Bundle("Test")
+        bundle.put("boolean", true)
+        bundle.put("byte", (-5).toByte())
+        bundle.put("short", Short.MIN_VALUE)
+        bundle.put("char", 'Ж')
+        bundle.put("int", -123456)
+        bundle.put("intMax", Int.MAX_VALUE)
+        bundle.put("long", Long.MIN_VALUE)
+        bundle.put("float", 3.5f)
+        bundle.put("double", -0.1)
+        bundle.put("nan", Double.NaN)
+        bundle.put("string", "Hello World")
+        bundle.put("unicode", "Привет, 世界 😀")
+        bundle.put("empty", "")
+
+        val copy = roundTrip(bundle)
+
+        assertThat(copy.name, `is`("Test"))
+        assertThat(copy.data.size, `is`(bundle.data.size))
+
+        bundle.data.forEach { (key, value) ->
+            assertThat(key, copy.get<Any>(key), `is`(value))
+            assertThat(key, copy.get<Any>(key).javaClass, equalTo<Class<*>>(value.javaClass))
+        }
+    }
+
+    @Test
+    fun `Encode and decode arrays`() {
+        val bundle = Bundle("Arrays")
+        bundle.put("bytes", byteArrayOf(1, -2, 3))
+        bundle.put("booleans", booleanArrayOf(true, false, true))
+        bundle.put("ints", intArrayOf(0, -1, Int.MIN_VALUE, Int.MAX_VALUE))
+        bundle.put("longs", longArrayOf(0, -1, Long.MIN_VALUE, Long.MAX_VALUE))
+        bundle.put("floats", floatArrayOf(0.5f, -1f))
+        bundle.put("doubles", doubleArrayOf(0.25, Double.MAX_VALUE))
+        bundle.put("strings", arrayOf("a", "bb", "ccc"))
+
+        val copy = roundTrip(bundle)
+
+        assertThat(copy.get<ByteArray>("bytes").toList(), contains<Byte>(1, -2, 3))
+        assertThat(copy.get<BooleanArray>("booleans").toList(), contains(true, false, true))
+        assertThat(copy.get<IntArray>("ints").toList(), contains(0, -1, Int.MIN_VALUE, Int.MAX_VALUE))
+        assertThat(copy.get<LongArray>("longs").toList(), contains(0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE))
+        assertThat(copy.get<FloatArray>("floats").toList(), contains(0.5f, -1f))
+        assertThat(copy.get<DoubleArray>("doubles").toList(), contains(0.25, Double.MAX_VALUE))
+        assertThat(copy.get<Array<String>>("strings").toList(), contains("a", "bb", "ccc"))
+    }
+
+    @Test
+    fun `Encode and decode nested bundles, lists and vectors`() {
+        val inner = Bundle("Inner")
+        inner.put("vec", Vec2(1.5f, -2f))
+
+        val bundle = Bundle("Outer")
+        bundle.put("inner", inner)
+        bundle.put("list", arrayListOf<Any?>(1, "two", null, Vec2(3f, 4f), arrayListOf(5L)))
+
+        val copy = roundTrip(bundle)
+
+        val innerCopy = copy.get<Bundle>("inner")
+
+        assertThat(innerCopy.name, `is`("Inner"))
+        assertThat(innerCopy.get<Vec2>("vec"), `is`(Vec2(1.5f, -2f)))
+        assertThat(copy.get<ArrayList<Any?>>("list"), contains(1, "two", null, Vec2(3f, 4f), arrayListOf(5L)))
+    }
+
+    @Test
+    fun `Other serializable values use Java serialization`() {
+        val bundle = Bundle("Objects")
+        bundle.put("data", TestData("name", 3))
+        bundle.put("list", arrayListOf(TestData("a", 1), TestData("b", 2)))
+        bundle.put("after", 42)
+
+        val copy = roundTrip(bundle)
+
+        assertThat(copy.get<TestData>("data"), `is`(TestData("name", 3)))
+        assertThat(copy.get<List<TestData>>("list"), contains(TestData("a", 1), TestData("b", 2)))
+        assertThat(copy.get<Int>("after"), `is`(42))
+    }
+
+    @Test
+    fun `Small values are encoded compactly`() {
+        val bundle = Bundle("B")
+        bundle.put("x", 1)
+
+        // version, name length, name, size, key length, key, tag, value
+        assertThat(BundleCodec.encode(bundle).size, `is`(8))
+    }
+
+    @Test
+    fun `Decode at offset`() {
+        val bundle = Bundle("B")
+        bundle.put("x", "y")
+
+        val bytes = BundleCodec.encode(bundle)
+        val data = ByteArray(bytes.size + 10)
+        System.arraycopy(bytes, 0, data, 5, bytes.size)
+
+        assertThat(BundleCodec.decode(data, 5, bytes.size).get<String>("x"), `is`("y"))
+    }
+
+    @Test
+    fun `Throw if data is malformed`() {
+        val bundle = Bundle("B")
+        bundle.put("x", "some string")
+
+        val bytes = BundleCodec.encode(bundle)
+
+        assertThrows(IOException::class.java) {
+            BundleCodec.decode(bytes, 0, bytes.size - 1)
+        }
+
+        assertThrows(IOException::class.java) {
+            BundleCodec.decode(byteArrayOf(99))
+        }
+
+        // unknown tag
+        val badTag = bytes.copyOf()
+        badTag[6] = 100
+
+        assertThrows(IOException::class.java) {
+            BundleCodec.decode(badTag)
+        }
+    }
+
+    @Test
+    fun `TCP writer and reader`() {
+        val out = ByteArrayOutputStream()
+        val writer = BundleTCPMessageWriter(out)
+
+        repeat(3) {
+            val bundle = Bundle("Message$it")
+            bundle.put("data", ByteArray(it * 300) { i -> i.toByte() })
+            writer.write(bundle)
+        }
+
+        val reader = BundleTCPMessageReader(ByteArrayInputStream(out.toByteArray()))
+
+        repeat(3) {
+            val bundle = reader.read()
+
+            assertThat(bundle.name, `is`("Message$it"))
+            assertThat(bundle.get<ByteArray>("data").size, `is`(it * 300))
+        }
+
+        assertThrows(EOFException::class.java) {
+            reader.read()
+        }
+    }
+
+    @Test
+    fun `TCP reader rejects messages that are too long`() {
+        val out = ByteArrayOutputStream()
+        BundleTCPMessageWriter(out).write(Bundle("Message").also { it.put("data", ByteArray(300)) })
+
+        val reader = BundleTCPMessageReader(ByteArrayInputStream(out.toByteArray()), 256)
+
+        assertThrows(IOException::class.java) {
+            reader.read()
+        }
+
+        // length of Int.MAX_VALUE, which must not be allocated
+        val huge = BundleTCPMessageReader(ByteArrayInputStream(byteArrayOf(0x7F, -1, -1, -1)))
+
+        assertThrows(IOException::class.java) {
+            huge.read()
+        }
+    }
+
+    private fun roundTrip(bundle: Bundle): Bundle {
+        val bytes = BundleUDPMessageWriter().write(bundle)
+
+        return BundleUDPMessageReader().read(bytes)
+    }
+
+    private data class TestData(val name: String, val value: Int) : Serializable
+}
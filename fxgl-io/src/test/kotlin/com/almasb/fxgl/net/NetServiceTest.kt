@@ -273,6 +273,122 @@ class NetServiceTest {
         }
     }
 
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `Non-blocking TCP Bundle messages`() {
+        val numMessages = 2000
+        val numReceived = AtomicInteger()
+        val numEchoed = AtomicInteger()
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5)) {
+            val server = net.newTCPServer(TEST_PORT, ServerConfig(Bundle::class.java, isNonBlocking = true))
+
+            // echo all messages back
+            server.setOnConnected {
+                it.addMessageHandler { connection, message ->
+                    connection.send(message)
+                }
+            }
+
+            val client = net.newTCPClient("localhost", TEST_PORT, ClientConfig(Bundle::class.java, isNonBlocking = true))
+
+            client.setOnConnected {
+                it.addMessageHandler { _, message ->
+                    // messages arrive in order
+                    assertThat(message.get<Int>("index"), `is`(numEchoed.get()))
+
+                    if (message.exists("data")) {
+                        assertThat(message.get<ByteArray>("data"), `is`(LARGE_DATA))
+                    }
+
+                    numEchoed.incrementAndGet()
+                }
+
+                it.send(Bundle("Large").also { b -> b.put("index", 0); b.put("data", LARGE_DATA) })
+
+                for (i in 1 until numMessages) {
+                    it.send(Bundle("Message").also { b -> b.put("index", i) })
+                }
+
+                numReceived.set(numMessages)
+            }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (isListening) {
+                    client.connectAsync()
+                }
+            }
+
+            server.startAsync()
+
+            while (numEchoed.get() < numMessages) {
+                Thread.sleep(10)
+            }
+
+            assertThat(numReceived.get(), `is`(numMessages))
+            assertThat(server.connections.size, `is`(1))
+
+            val clientConnection = client.connections[0]
+
+            server.stop()
+            server.connections[0].terminate()
+
+            // remote close is detected by the client
+            while (clientConnection.isConnected) {
+                Thread.sleep(10)
+            }
+
+            assertThat(client.connections.size, `is`(0))
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `Non-blocking TCP connection is terminated if message is too long`() {
+        val numReceived = AtomicInteger()
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5)) {
+            val server = net.newTCPServer(TEST_PORT, ServerConfig(Bundle::class.java, isNonBlocking = true, maxInboundBytes = 1024))
+
+            server.setOnConnected {
+                it.addMessageHandler { _, _ ->
+                    numReceived.incrementAndGet()
+                }
+            }
+
+            val client = net.newTCPClient("localhost", TEST_PORT, ClientConfig(Bundle::class.java, isNonBlocking = true))
+
+            client.setOnConnected {
+                it.send(Bundle("Small").also { b -> b.put("data", ByteArray(100)) })
+                it.send(Bundle("Large").also { b -> b.put("data", LARGE_DATA) })
+            }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (isListening) {
+                    client.connectAsync()
+                }
+            }
+
+            server.startAsync()
+
+            while (client.connections.isEmpty()) {
+                Thread.sleep(10)
+            }
+
+            val clientConnection = client.connections[0]
+
+            // server closes the connection without reading the large message
+            while (clientConnection.isConnected) {
+                Thread.sleep(10)
+            }
+
+            assertThat(numReceived.get(), `is`(1))
+            assertThat(server.connections.size, `is`(0))
+
+            server.stop()
+        }
+    }
+
     @Test
     @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
     fun `UDP Bundle message test`() {
@@ -0,0 +1,213 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+import com.almasb.fxgl.pathfinding.astar.AStarGrid;
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder;
+import com.almasb.fxgl.pathfinding.astar.HierarchicalPathfinder;
+import com.almasb.fxgl.pathfinding.astar.JumpPointPathfinder;
+import com.almasb.fxgl.pathfinding.heuristic.ManhattanDistance;
+
+import java.util.*;
+
+/**
+ * Compares AStarPathfinder with the previous implementation
+ * (full grid reset, HashSet open list with a linear scan for the min F cost),
+ * JumpPointPathfinder and HierarchicalPathfinder
+ * on 128x128, 256x256, 512x512 and 1024x1024 grids with random obstacles.
+ * The previous implementation is skipped on the largest grid, since it is too slow.
+ * Does not require the JavaFX toolkit, so can be run as a plain Java app.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class AStarBenchmark {
+
+    private static final int NUM_QUERIES = 20;
+    private static final int NUM_RUNS = 5;
+
+    public static void main(String[] args) {
+        for (int size : new int[] { 128, 256, 512, 1024 }) {
+            var grid = createGrid(size);
+            var queries = createQueries(grid);
+
+            var pathfinder = new AStarPathfinder(grid);
+            var legacy = new LegacyAStarPathfinder(grid);
+            var jps = new JumpPointPathfinder(grid);
+            var hpa = new HierarchicalPathfinder(grid);
+
+            boolean isLegacyEnabled = size <= 512;
+
+            System.out.println("Grid: " + size + "x" + size);
+
+            for (int run = 0; run < NUM_RUNS; run++) {
+                boolean isLastRun = run == NUM_RUNS - 1;
+
+                long[] legacyResult = isLegacyEnabled ? runQueries(queries, (s, t) -> legacy.findPath(s, t)) : null;
+                long[] result = runQueries(queries, (s, t) -> pathfinder.findPath(s.getX(), s.getY(), t.getX(), t.getY()));
+                long[] jpsResult = runQueries(queries, (s, t) -> jps.findPath(s.getX(), s.getY(), t.getX(), t.getY()));
+                long[] hpaResult = runQueries(queries, (s, t) -> hpa.findPath(s.getX(), s.getY(), t.getX(), t.getY()));
+
+                if (legacyResult != null && legacyResult[1] != result[1]) {
+                    System.out.println("  WARNING: path lengths differ: " + legacyResult[1] + " vs " + result[1]);
+                }
+
+                // earlier runs are warm-up
+                if (isLastRun) {
+                    if (legacyResult != null)
+                        System.out.printf("  legacy: %.3f ms per query%n", legacyResult[0] / 1_000_000.0);
+
+                    System.out.printf("  heap:   %.3f ms per query%n", result[0] / 1_000_000.0);
+                    System.out.printf("  jps:    %.3f ms per query, total path length %d vs %d%n", jpsResult[0] / 1_000_000.0, jpsResult[1], result[1]);
+                    System.out.printf("  hpa:    %.3f ms per query, total path length %d vs %d%n", hpaResult[0] / 1_000_000.0, hpaResult[1], result[1]);
+                }
+            }
+        }
+    }
+
+    private static AStarGrid createGrid(int size) {
+        var random = new Random(size);
+        var grid = new AStarGrid(size, size);
+
+        grid.forEach(cell -> {
+            if (random.nextDouble() < 0.2)
+                cell.setState(CellState.NOT_WALKABLE);
+        });
+
+        return grid;
+    }
+
+    private static List<AStarCell[]> createQueries(AStarGrid grid) {
+        var random = new Random(42);
+        var queries = new ArrayList<AStarCell[]>();
+
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            var start = grid.getRandomCell(random, AStarCell::isWalkable).get();
+            var target = grid.getRandomCell(random, AStarCell::isWalkable).get();
+
+            queries.add(new AStarCell[] { start, target });
+        }
+
+        return queries;
+    }
+
+    /**
+     * @return average time in nanoseconds per query and total length of found paths
+     */
+    private static long[] runQueries(List<AStarCell[]> queries, Search search) {
+        long totalLength = 0;
+
+        long start = System.nanoTime();
+
+        for (var query : queries) {
+            totalLength += search.findPath(query[0], query[1]).size();
+        }
+
+        long time = (System.nanoTime() - start) / queries.size();
+
+        return new long[] { time, totalLength };
+    }
+
+    private interface Search {
+        List<AStarCell> findPath(AStarCell start, AStarCell target);
+    }
+
+    /**
+     * The previous implementation, 4 directions only.
+     */
+    private static final class LegacyAStarPathfinder {
+
+        private final AStarGrid grid;
+        private final ManhattanDistance<AStarCell> heuristic = new ManhattanDistance<>();
+
+        LegacyAStarPathfinder(AStarGrid grid) {
+            this.grid = grid;
+        }
+
+        List<AStarCell> findPath(AStarCell start, AStarCell target) {
+            if (start == target || target.getState() == CellState.NOT_WALKABLE)
+                return Collections.emptyList();
+
+            var data = grid.getData();
+
+            for (int y = 0; y < data[0].length; y++) {
+                for (int x = 0; x < data.length; x++) {
+                    data[x][y].setHCost(heuristic.getCost(x, y, target.getX(), target.getY()));
+                    data[x][y].setParent(null);
+                    data[x][y].setGCost(0);
+                }
+            }
+
+            Set<AStarCell> open = new HashSet<>();
+            Set<AStarCell> closed = new HashSet<>();
+
+            AStarCell current = start;
+
+            boolean found = false;
+
+            while (!found && !closed.contains(target)) {
+                var neighbors = grid.getNeighbors(current.getX(), current.getY(), NeighborDirection.FOUR_DIRECTIONS);
+                neighbors.removeIf(cell -> !cell.isWalkable());
+
+                for (AStarCell neighbor : neighbors) {
+                    if (neighbor == target) {
+                        target.setParent(current);
+                        found = true;
+                        closed.add(target);
+                        break;
+                    }
+
+                    if (!closed.contains(neighbor)) {
+                        int newGCost = current.getGCost() + heuristic.getWeight() * neighbor.getMovementCost();
+
+                        if (open.contains(neighbor)) {
+                            if (newGCost < neighbor.getGCost()) {
+                                neighbor.setParent(current);
+                                neighbor.setGCost(newGCost);
+                            }
+                        } else {
+                            neighbor.setParent(current);
+                            neighbor.setGCost(newGCost);
+                            open.add(neighbor);
+                        }
+                    }
+                }
+
+                if (!found) {
+                    closed.add(current);
+                    open.remove(current);
+
+                    if (open.isEmpty())
+                        return Collections.emptyList();
+
+                    AStarCell acc = null;
+
+                    for (AStarCell a : open) {
+                        if (acc == null || a.getFCost() < acc.getFCost()) {
+                            acc = a;
+                        }
+                    }
+
+                    current = acc;
+                }
+            }
+
+            List<AStarCell> path = new ArrayList<>();
+
+            AStarCell tmp = target;
+            do {
+                path.add(tmp);
+                tmp = tmp.getParent();
+            } while (tmp != start);
+
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
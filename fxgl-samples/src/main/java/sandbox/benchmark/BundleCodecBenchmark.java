@@ -0,0 +1,146 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.core.serialization.Bundle;
+import com.almasb.fxgl.multiplayer.EntityDeltaUpdateEvent;
+import com.almasb.fxgl.multiplayer.PingReplicationEvent;
+import com.almasb.fxgl.multiplayer.ReplicationEvent;
+import com.almasb.fxgl.multiplayer.ReplicationEventCodec;
+import com.almasb.fxgl.net.BundleCodec;
+
+import java.io.*;
+import java.util.ArrayList;
+
+/**
+ * Compares message size and encode + decode time of BundleCodec with Java serialization,
+ * which was previously used to send bundles.
+ * Like the UDP transport, Java serialization uses a new stream per message.
+ * The replication message is what MultiplayerService sends each tick for 50 moving entities,
+ * with events as plain bundles and, for comparison, as event objects, which BundleCodec can only write
+ * with Java serialization.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class BundleCodecBenchmark {
+
+    private static final int NUM_MESSAGES = 100_000;
+    private static final int NUM_RUNS = 5;
+
+    private static long sink = 0;
+
+    public static void main(String[] args) throws Exception {
+        var small = new Bundle("PlayerInput");
+        small.put("id", 3);
+        small.put("x", 120.5);
+        small.put("y", 64.25);
+        small.put("isShooting", true);
+
+        var medium = new Bundle("GameState");
+        var positions = new ArrayList<Vec2>();
+        for (int i = 0; i < 20; i++) {
+            positions.add(new Vec2(i * 10f, i * 5f));
+        }
+        medium.put("positions", positions);
+        medium.put("ids", new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+        medium.put("player", small);
+        medium.put("time", System.nanoTime());
+        medium.put("message", "Level 2 started");
+
+        var events = replicationEvents();
+
+        var replication = new Bundle("REPLICATION_EVENT");
+        var eventBundles = new ArrayList<Bundle>();
+        for (var event : events) {
+            eventBundles.add(ReplicationEventCodec.INSTANCE.toBundle(event));
+        }
+        replication.put("events", eventBundles);
+
+        var replicationObjects = new Bundle("REPLICATION_EVENT");
+        replicationObjects.put("events", events);
+
+        var bundles = new Bundle[] { small, medium, replication, replicationObjects };
+        var names = new String[] { "PlayerInput", "GameState", "Replication", "Replication (event objects)" };
+
+        for (int i = 0; i < bundles.length; i++) {
+            System.out.printf("%s: Java serialization %d bytes, BundleCodec %d bytes%n",
+                    names[i], javaEncode(bundles[i]).length, BundleCodec.INSTANCE.encode(bundles[i]).length);
+        }
+
+        for (int run = 0; run < NUM_RUNS; run++) {
+            boolean isLastRun = run == NUM_RUNS - 1;
+
+            for (int i = 0; i < bundles.length; i++) {
+                var bundle = bundles[i];
+
+                long javaTime = measure(() -> sink += javaDecode(javaEncode(bundle)).getData().size());
+                long codecTime = measure(() -> sink += BundleCodec.INSTANCE.decode(BundleCodec.INSTANCE.encode(bundle)).getData().size());
+
+                // earlier runs are warm-up
+                if (isLastRun) {
+                    System.out.printf("%s: Java serialization %.2f us, BundleCodec %.2f us per message%n",
+                            names[i], javaTime / 1000.0 / NUM_MESSAGES, codecTime / 1000.0 / NUM_MESSAGES);
+                }
+            }
+        }
+
+        System.out.println(sink);
+    }
+
+    /**
+     * @return events of a single replication tick: quantized position deltas of 50 entities and a ping
+     */
+    private static ArrayList<ReplicationEvent> replicationEvents() {
+        int numEntities = 50;
+
+        var ids = new long[numEntities];
+        var positions = new int[numEntities * 3];
+
+        for (int i = 0; i < numEntities; i++) {
+            ids[i] = 1000 + i;
+            positions[i * 3] = i % 7 - 3;
+            positions[i * 3 + 1] = i % 5 - 2;
+        }
+
+        var events = new ArrayList<ReplicationEvent>();
+        events.add(new EntityDeltaUpdateEvent(ids, positions, 0.01, false));
+        events.add(new PingReplicationEvent(System.nanoTime()));
+        return events;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * @return time in nanoseconds to run [action] for each message
+     */
+    private static long measure(Action action) throws Exception {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < NUM_MESSAGES; i++) {
+            action.run();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static byte[] javaEncode(Bundle bundle) throws IOException {
+        var baos = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(baos)) {
+            out.writeObject(bundle);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Bundle javaDecode(byte[] data) throws Exception {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (Bundle) in.readObject();
+        }
+    }
+}
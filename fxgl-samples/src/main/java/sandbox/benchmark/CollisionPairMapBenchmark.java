@@ -0,0 +1,246 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.collection.UnorderedPairMap;
+import com.almasb.fxgl.entity.Entity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares collision pair lookups in UnorderedPairMap with the previous implementation,
+ * which keyed a HashMap by a combined hash code of both keys.
+ * Each frame checks 10k candidate pairs, similar to what PhysicsWorld does:
+ * a handler lookup by entity types, then an active collision lookup by entities,
+ * where a small fraction of pairs begin or end colliding.
+ * Also counts lookups that returned a wrong value, since combined hash codes can collide.
+ * PhysicsWorld uses entity runtime ids as keys of active collisions.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class CollisionPairMapBenchmark {
+
+    private enum Type {
+        PLAYER, ENEMY, BULLET, WALL, COIN
+    }
+
+    private static final int NUM_ENTITIES = 5000;
+    private static final int NUM_CANDIDATE_PAIRS = 10_000;
+    private static final int NUM_FRAMES = 1000;
+    private static final int NUM_RUNS = 5;
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+
+        var entities = new Entity[NUM_ENTITIES];
+        for (int i = 0; i < NUM_ENTITIES; i++) {
+            entities[i] = new Entity();
+            entities[i].setType(Type.values()[random.nextInt(Type.values().length)]);
+        }
+
+        int[] pairsA = new int[NUM_CANDIDATE_PAIRS];
+        int[] pairsB = new int[NUM_CANDIDATE_PAIRS];
+
+        for (int i = 0; i < NUM_CANDIDATE_PAIRS; i++) {
+            pairsA[i] = random.nextInt(NUM_ENTITIES);
+            pairsB[i] = random.nextInt(NUM_ENTITIES);
+        }
+
+        for (int run = 0; run < NUM_RUNS; run++) {
+            boolean isLastRun = run == NUM_RUNS - 1;
+
+            var legacy = new LegacyAdapter();
+            var map = new CurrentAdapter(new UnorderedPairMap<>(128));
+            var mapWithIDs = new CurrentAdapter(new UnorderedPairMap<>(128, Entity::getRuntimeID));
+
+            long legacyTime = runFrames(legacy, entities, pairsA, pairsB);
+            long mapTime = runFrames(map, entities, pairsA, pairsB);
+            long mapWithIDsTime = runFrames(mapWithIDs, entities, pairsA, pairsB);
+
+            // earlier runs are warm-up
+            if (isLastRun) {
+                print("hash-keyed HashMap:            ", legacyTime, legacy);
+                print("UnorderedPairMap:              ", mapTime, map);
+                print("UnorderedPairMap (runtime IDs):", mapWithIDsTime, mapWithIDs);
+            }
+        }
+
+        System.out.println(sink);
+    }
+
+    private static void print(String name, long time, Adapter maps) {
+        System.out.printf("%s %.3f ms per frame, %d wrong lookups%n", name, time / 1_000_000.0 / NUM_FRAMES, maps.numWrong);
+    }
+
+    /**
+     * @return time in nanoseconds to run all frames
+     */
+    private static long runFrames(Adapter maps, Entity[] entities, int[] pairsA, int[] pairsB) {
+        for (Type a : Type.values()) {
+            for (Type b : Type.values()) {
+                if (a.ordinal() <= b.ordinal() && (a.ordinal() + b.ordinal()) % 2 == 0) {
+                    maps.putHandler(a, b, a.name() + b.name());
+                }
+            }
+        }
+
+        // entity types and the sequence of collisions are the same for both maps,
+        // so only the map operations are measured
+        var types = new Object[entities.length];
+        for (int i = 0; i < entities.length; i++) {
+            types[i] = entities[i].getType();
+        }
+
+        var random = new Random(7);
+        var isColliding = new boolean[NUM_FRAMES * NUM_CANDIDATE_PAIRS];
+
+        // about 1 in 20 pairs changes state each frame
+        for (int i = 0; i < isColliding.length; i++) {
+            isColliding[i] = random.nextInt(20) != 0;
+        }
+
+        long start = System.nanoTime();
+
+        for (int frame = 0; frame < NUM_FRAMES; frame++) {
+            for (int i = 0; i < NUM_CANDIDATE_PAIRS; i++) {
+                Entity e1 = entities[pairsA[i]];
+                Entity e2 = entities[pairsB[i]];
+
+                String handler = maps.getHandler(types[pairsA[i]], types[pairsB[i]]);
+                if (handler == null)
+                    continue;
+
+                Entity[] pair = maps.getPair(e1, e2);
+
+                if (pair != null && pair[0] != e1 && pair[0] != e2) {
+                    maps.numWrong++;
+                }
+
+                if (isColliding[frame * NUM_CANDIDATE_PAIRS + i]) {
+                    if (pair == null) {
+                        maps.putPair(e1, e2, new Entity[] { e1, e2 });
+                    } else {
+                        sink++;
+                    }
+                } else if (pair != null) {
+                    maps.removePair(e1, e2);
+                }
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static abstract class Adapter {
+        long numWrong = 0;
+
+        abstract void putHandler(Object type1, Object type2, String handler);
+        abstract String getHandler(Object type1, Object type2);
+
+        abstract Entity[] getPair(Entity e1, Entity e2);
+        abstract void putPair(Entity e1, Entity e2, Entity[] pair);
+        abstract void removePair(Entity e1, Entity e2);
+    }
+
+    private static final class CurrentAdapter extends Adapter {
+        private final UnorderedPairMap<Object, String> handlers = new UnorderedPairMap<>(16);
+        private final UnorderedPairMap<Entity, Entity[]> pairs;
+
+        CurrentAdapter(UnorderedPairMap<Entity, Entity[]> pairs) {
+            this.pairs = pairs;
+        }
+
+        @Override
+        void putHandler(Object type1, Object type2, String handler) {
+            handlers.put(type1, type2, handler);
+        }
+
+        @Override
+        String getHandler(Object type1, Object type2) {
+            return handlers.get(type1, type2);
+        }
+
+        @Override
+        Entity[] getPair(Entity e1, Entity e2) {
+            return pairs.get(e1, e2);
+        }
+
+        @Override
+        void putPair(Entity e1, Entity e2, Entity[] pair) {
+            pairs.put(e1, e2, pair);
+        }
+
+        @Override
+        void removePair(Entity e1, Entity e2) {
+            pairs.remove(e1, e2);
+        }
+    }
+
+    private static final class LegacyAdapter extends Adapter {
+        private final LegacyPairMap<Object, String> handlers = new LegacyPairMap<>(16);
+        private final LegacyPairMap<Entity, Entity[]> pairs = new LegacyPairMap<>(128);
+
+        @Override
+        void putHandler(Object type1, Object type2, String handler) {
+            handlers.put(type1, type2, handler);
+        }
+
+        @Override
+        String getHandler(Object type1, Object type2) {
+            return handlers.get(type1, type2);
+        }
+
+        @Override
+        Entity[] getPair(Entity e1, Entity e2) {
+            return pairs.get(e1, e2);
+        }
+
+        @Override
+        void putPair(Entity e1, Entity e2, Entity[] pair) {
+            pairs.put(e1, e2, pair);
+        }
+
+        @Override
+        void removePair(Entity e1, Entity e2) {
+            pairs.remove(e1, e2);
+        }
+    }
+
+    /**
+     * The previous implementation of UnorderedPairMap.
+     */
+    private static final class LegacyPairMap<K, V> {
+        private final Map<Integer, V> map;
+
+        LegacyPairMap(int capacity) {
+            map = new HashMap<>(capacity);
+        }
+
+        V get(K key1, K key2) {
+            return map.get(hash(key1, key2));
+        }
+
+        void put(K key1, K key2, V value) {
+            map.put(hash(key1, key2), value);
+        }
+
+        void remove(K key1, K key2) {
+            map.remove(hash(key1, key2));
+        }
+
+        private int hash(K key1, K key2) {
+            int hash1 = key1.hashCode();
+            int hash2 = key2.hashCode();
+
+            return hash1 > hash2 ? 31 * (31 + hash1) + hash2 : 31 * (31 + hash2) + hash1;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.event.EventBus;
+import javafx.event.Event;
+import javafx.event.EventType;
+
+/**
+ * Compares firing events through the scene graph and direct dispatch modes of EventBus.
+ * Each bus has handlers for the event type, its super type and an unrelated type,
+ * similar to a game with a few gameplay event types.
+ * Does not require the JavaFX toolkit, so can be run as a plain Java app.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class EventBusBenchmark {
+
+    private static final EventType<Event> GAME_EVENT = new EventType<>(Event.ANY, "BENCHMARK_GAME_EVENT");
+    private static final EventType<Event> DAMAGE = new EventType<>(GAME_EVENT, "BENCHMARK_DAMAGE");
+    private static final EventType<Event> PICKUP = new EventType<>(GAME_EVENT, "BENCHMARK_PICKUP");
+
+    private static final int NUM_EVENTS = 1_000_000;
+    private static final int NUM_RUNS = 10;
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        for (boolean isLoggingEnabled : new boolean[] { true, false }) {
+            var sceneGraphBus = createBus(EventBus.DispatchMode.SCENE_GRAPH, isLoggingEnabled);
+            var directBus = createBus(EventBus.DispatchMode.DIRECT, isLoggingEnabled);
+
+            System.out.println("Logging enabled: " + isLoggingEnabled);
+
+            for (int run = 0; run < NUM_RUNS; run++) {
+                boolean isLastRun = run == NUM_RUNS - 1;
+
+                long sceneGraph = fireEvents(sceneGraphBus);
+                long direct = fireEvents(directBus);
+
+                // earlier runs are warm-up
+                if (isLastRun) {
+                    System.out.printf("  scene graph: %.1f ns per event%n", sceneGraph / (double) NUM_EVENTS);
+                    System.out.printf("  direct:      %.1f ns per event%n", direct / (double) NUM_EVENTS);
+                }
+            }
+        }
+
+        System.out.println(sink);
+    }
+
+    private static EventBus createBus(EventBus.DispatchMode mode, boolean isLoggingEnabled) {
+        var bus = new EventBus(mode);
+        bus.setLoggingEnabled(isLoggingEnabled);
+
+        bus.addEventHandler(DAMAGE, e -> sink++);
+        bus.addEventHandler(DAMAGE, e -> sink += 2);
+        bus.addEventHandler(GAME_EVENT, e -> sink++);
+        bus.addEventHandler(PICKUP, e -> sink--);
+
+        return bus;
+    }
+
+    /**
+     * @return time in nanoseconds to fire all events
+     */
+    private static long fireEvents(EventBus bus) {
+        var event = new Event(DAMAGE);
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < NUM_EVENTS; i++) {
+            bus.fireEvent(event);
+        }
+
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape;
+import com.almasb.fxgl.physics.box2d.dynamics.Body;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyDef;
+import com.almasb.fxgl.physics.box2d.dynamics.World;
+import com.almasb.fxgl.physics.box2d.particle.ParticleDef;
+
+/**
+ * Measures the time of a world step with a pile of liquid particles settling in a box,
+ * with particles solved on a single thread and then on multiple threads.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class ParticleSystemBenchmark {
+
+    private static final int[] NUM_PARTICLES = { 5_000, 20_000, 50_000 };
+    private static final int NUM_WARMUP_STEPS = 60;
+    private static final int NUM_STEPS = 200;
+
+    private static final float PARTICLE_RADIUS = 0.05f;
+
+    private static double sink = 0;
+
+    public static void main(String[] args) {
+        for (int numParticles : NUM_PARTICLES) {
+            run(numParticles, false);
+            run(numParticles, true);
+        }
+
+        System.out.println(sink);
+    }
+
+    private static void run(int numParticles, boolean parallel) {
+        World world = createWorld(numParticles);
+        world.setParallelParticleSolving(parallel);
+
+        for (int i = 0; i < NUM_WARMUP_STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < NUM_STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        long time = System.nanoTime() - start;
+
+        float[] y = world.getParticlePositionY();
+        for (int i = 0; i < world.getParticleCount(); i++) {
+            sink += y[i];
+        }
+
+        System.out.printf("%d particles%s: %.2f ms per step, %d contacts%n",
+                world.getParticleCount(), parallel ? " (parallel)" : "",
+                time / 1_000_000.0 / NUM_STEPS, world.getParticleContactCount());
+    }
+
+    /**
+     * Creates a square block of particles in an open box that is wide enough to hold them.
+     */
+    private static World createWorld(int numParticles) {
+        World world = new World(new Vec2(0, -10));
+        world.setParticleRadius(PARTICLE_RADIUS);
+
+        int side = (int) Math.ceil(Math.sqrt(numParticles));
+        float spacing = PARTICLE_RADIUS * 1.5f;
+        float size = side * spacing;
+
+        Body box = world.createBody(new BodyDef());
+
+        var shape = new PolygonShape();
+        shape.setAsBox(size, 0.5f, new Vec2(0, -0.5f), 0);
+        box.createFixture(shape, 0);
+
+        shape.setAsBox(0.5f, size, new Vec2(-size - 0.5f, size), 0);
+        box.createFixture(shape, 0);
+
+        shape.setAsBox(0.5f, size, new Vec2(size + 0.5f, size), 0);
+        box.createFixture(shape, 0);
+
+        var def = new ParticleDef();
+
+        for (int i = 0; i < numParticles; i++) {
+            def.position.set(-size / 2 + (i % side) * spacing, spacing + (i / side) * spacing);
+            world.createParticle(def);
+        }
+
+        return world;
+    }
+}
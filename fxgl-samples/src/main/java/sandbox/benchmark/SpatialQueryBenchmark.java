@@ -0,0 +1,111 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.physics.BoundingShape;
+import com.almasb.fxgl.physics.HitBox;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+
+import java.util.Random;
+
+/**
+ * Compares GameWorld spatial queries with and without the spatial index
+ * at 1k, 10k and 100k entities.
+ * Does not require the JavaFX toolkit, so can be run as a plain Java app.
+ * For 100k entities, run with a larger heap, e.g. -Xmx4g.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class SpatialQueryBenchmark {
+
+    private static final int NUM_QUERIES = 1000;
+    private static final int NUM_RUNS = 5;
+
+    public static void main(String[] args) {
+        for (int numEntities : new int[] { 1_000, 10_000, 100_000 }) {
+            // world size grows with the number of entities, so density stays the same
+            double worldSize = Math.sqrt(numEntities) * 64;
+
+            var linearWorld = createWorld(numEntities, worldSize);
+            var indexedWorld = createWorld(numEntities, worldSize);
+            indexedWorld.enableSpatialIndex(64);
+
+            System.out.println("Entities: " + numEntities);
+
+            for (int run = 0; run < NUM_RUNS; run++) {
+                boolean isLastRun = run == NUM_RUNS - 1;
+
+                long linear = runQueries(linearWorld, worldSize);
+                long indexed = runQueries(indexedWorld, worldSize);
+
+                // earlier runs are warm-up
+                if (isLastRun) {
+                    System.out.printf("  linear:  %.3f ms per query batch%n", linear / 1_000_000.0);
+                    System.out.printf("  indexed: %.3f ms per query batch%n", indexed / 1_000_000.0);
+                }
+            }
+        }
+    }
+
+    private static GameWorld createWorld(int numEntities, double worldSize) {
+        var random = new Random(numEntities);
+        var world = new GameWorld();
+
+        for (int i = 0; i < numEntities; i++) {
+            var e = new Entity();
+            e.setPosition(random.nextDouble() * worldSize, random.nextDouble() * worldSize);
+            e.getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.box(32, 32)));
+
+            world.addEntity(e);
+        }
+
+        return world;
+    }
+
+    /**
+     * Runs range, point, radius, colliding and closest queries, moving some entities in between.
+     *
+     * @return average time in nanoseconds to run one batch of queries
+     */
+    private static long runQueries(GameWorld world, double worldSize) {
+        var random = new Random(42);
+        var entities = world.getEntities();
+
+        long start = System.nanoTime();
+        int numBatches = Math.max(1, NUM_QUERIES / 10);
+
+        int checksum = 0;
+
+        for (int i = 0; i < numBatches; i++) {
+            // move 1% of entities, as they would during gameplay
+            for (int j = 0; j < entities.size() / 100; j++) {
+                var e = entities.get(random.nextInt(entities.size()));
+                e.translate(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5);
+            }
+
+            var e = entities.get(random.nextInt(entities.size()));
+            var point = new Point2D(random.nextDouble() * worldSize, random.nextDouble() * worldSize);
+
+            checksum += world.getEntitiesInRange(new Rectangle2D(point.getX(), point.getY(), 200, 200)).size();
+            checksum += world.getEntitiesInRadius(point, 100).size();
+            checksum += world.getEntitiesAt(e.getPosition()).size();
+            checksum += world.getCollidingEntities(e).size();
+            checksum += world.getClosestEntity(e, it -> true).isPresent() ? 1 : 0;
+            checksum += world.getClosestEntities(point, 10, it -> true).size();
+        }
+
+        long time = (System.nanoTime() - start) / numBatches;
+
+        if (checksum == -1)
+            System.out.println("Unreachable: " + checksum);
+
+        return time;
+    }
+}
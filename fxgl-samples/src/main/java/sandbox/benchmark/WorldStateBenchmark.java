@@ -0,0 +1,112 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape;
+import com.almasb.fxgl.physics.box2d.dynamics.Body;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyDef;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyType;
+import com.almasb.fxgl.physics.box2d.dynamics.World;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measures the time to save and restore the state of a world with piles of boxes in contact,
+ * as done each frame by rollback netcode.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class WorldStateBenchmark {
+
+    private static final int[] NUM_BODIES = { 100, 500, 2_000 };
+    private static final int NUM_SETTLE_STEPS = 120;
+    private static final int NUM_WARMUP_ITERATIONS = 1_000;
+    private static final int NUM_ITERATIONS = 5_000;
+
+    private static double sink = 0;
+
+    public static void main(String[] args) {
+        for (int numBodies : NUM_BODIES) {
+            run(numBodies);
+        }
+
+        System.out.println(sink);
+    }
+
+    private static void run(int numBodies) {
+        World world = createWorld(numBodies);
+
+        for (int i = 0; i < NUM_SETTLE_STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+        for (int i = 0; i < NUM_WARMUP_ITERATIONS; i++) {
+            saveAndRestore(world, buffer);
+        }
+
+        long saveTime = 0;
+        long restoreTime = 0;
+
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            long start = System.nanoTime();
+
+            buffer.clear();
+            world.saveState(buffer);
+            buffer.flip();
+
+            long saved = System.nanoTime();
+
+            world.restoreState(buffer);
+
+            restoreTime += System.nanoTime() - saved;
+            saveTime += saved - start;
+        }
+
+        sink += world.getBodies().get(numBodies).getPosition().y;
+
+        System.out.printf("%d bodies, %d contacts: %d bytes, save %.1f us, restore %.1f us%n",
+                numBodies, world.getContactCount(), buffer.limit(),
+                saveTime / 1_000.0 / NUM_ITERATIONS, restoreTime / 1_000.0 / NUM_ITERATIONS);
+    }
+
+    private static void saveAndRestore(World world, ByteBuffer buffer) {
+        buffer.clear();
+        world.saveState(buffer);
+        buffer.flip();
+        world.restoreState(buffer);
+    }
+
+    /**
+     * Creates piles of 10 boxes on ground.
+     */
+    private static World createWorld(int numBodies) {
+        World world = new World(new Vec2(0, -10));
+
+        int numPiles = numBodies / 10;
+
+        Body ground = world.createBody(new BodyDef());
+
+        var shape = new PolygonShape();
+        shape.setAsBox(numPiles * 2f, 1f);
+        ground.createFixture(shape, 0);
+
+        shape.setAsBox(0.5f, 0.5f);
+
+        for (int i = 0; i < numBodies; i++) {
+            var def = new BodyDef();
+            def.setType(BodyType.DYNAMIC);
+            def.getPosition().set(-numPiles * 1.5f + (i / 10) * 3f, 1.5f + (i % 10) * 1.05f);
+
+            world.createBody(def).createFixture(shape, 1);
+        }
+
+        return world;
+    }
+}
@@ -138,7 +138,11 @@ public abstract class GameApplication {
         }
         Logger.addOutput(new ConsoleOutput(), settings.getApplicationMode().getLoggerLevel());
 
-        Logger.configure(new LoggerConfig());
+        var config = new LoggerConfig();
+        // messages are formatted and written on a background thread, so logging does not stall the game loop
+        config.setAsync(true);
+
+        Logger.configure(config);
 
         log.debug("Logging settings\n" + settings);
     }
@@ -285,6 +285,11 @@ class GameSettings(
          */
         var is3D: Boolean = false,
 
+        /**
+         * Maximum estimated size in bytes of loaded assets kept in the asset cache.
+         */
+        var assetCacheMaxSize: Long = 512L * 1024 * 1024,
+
         /* EXPERIMENTAL */
 
         var isExperimentalTiledLargeMap: Boolean = false,
@@ -408,6 +413,7 @@ class GameSettings(
                 defaultCursor,
                 isNative,
                 is3D,
+                assetCacheMaxSize,
                 isExperimentalTiledLargeMap,
                 configClass,
                 unmodifiableList(engineServices),
@@ -601,6 +607,8 @@ class ReadOnlyGameSettings internal constructor(
 
         val is3D: Boolean,
 
+        val assetCacheMaxSize: Long,
+
         /* EXPERIMENTAL */
 
         val isExperimentalTiledLargeMap: Boolean,
@@ -0,0 +1,244 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app.services
+
+import com.almasb.fxgl.core.asset.AssetType
+import java.util.*
+
+/**
+ * Keeps loaded assets within a memory budget, given as an estimated size in bytes.
+ * Each asset type has its own LRU order and, optionally, its own budget.
+ * When the whole cache is over budget, the least recently used asset of any type is evicted first.
+ * Pinned assets are never evicted, but count towards the budget.
+ * Pins are counted, so an asset stays pinned until it is unpinned as many times as it was pinned.
+ *
+ * Thread-safe.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class AssetCache(maxSize: Long) {
+
+    private class Entry(val asset: Any, val size: Long) {
+        var lastAccess = 0L
+    }
+
+    private class TypeData {
+
+        /**
+         * Evictable entries in access order, least recently used first.
+         */
+        val entries = LinkedHashMap<String, Entry>(16, 0.75f, true)
+
+        val pinnedEntries = hashMapOf<String, Entry>()
+
+        val pinCounts = hashMapOf<String, Int>()
+
+        var size = 0L
+        var maxSize = Long.MAX_VALUE
+    }
+
+    private val types = EnumMap<AssetType, TypeData>(AssetType::class.java)
+
+    private var accessCount = 0L
+
+    var maxSize: Long = maxSize
+        @Synchronized get
+        @Synchronized set(value) {
+            require(value >= 0) { "Cache size cannot be negative: $value" }
+
+            field = value
+            evictIfNeeded()
+        }
+
+    /**
+     * Estimated size in bytes of all cached assets.
+     */
+    var size = 0L
+        @Synchronized get
+        private set
+
+    @get:Synchronized
+    val numAssets: Int
+        get() = types.values.sumOf { it.entries.size + it.pinnedEntries.size }
+
+    var numHits = 0L
+        @Synchronized get
+        private set
+
+    var numMisses = 0L
+        @Synchronized get
+        private set
+
+    var numEvictions = 0L
+        @Synchronized get
+        private set
+
+    @Synchronized fun getMaxSize(assetType: AssetType): Long = typeData(assetType).maxSize
+
+    /**
+     * Sets the budget for assets of given type, which applies in addition to [maxSize].
+     */
+    @Synchronized fun setMaxSize(assetType: AssetType, maxSize: Long) {
+        require(maxSize >= 0) { "Cache size cannot be negative: $maxSize" }
+
+        typeData(assetType).maxSize = maxSize
+        evictIfNeeded()
+    }
+
+    /**
+     * @return cached asset or null if not cached
+     */
+    @Synchronized fun get(assetType: AssetType, key: String): Any? {
+        val data = typeData(assetType)
+
+        val entry = data.pinnedEntries[key] ?: data.entries[key]
+
+        if (entry == null) {
+            numMisses++
+            return null
+        }
+
+        entry.lastAccess = ++accessCount
+        numHits++
+
+        return entry.asset
+    }
+
+    /**
+     * Caches given [asset], unless it is not pinned and is larger than the budget.
+     */
+    @Synchronized fun put(assetType: AssetType, key: String, asset: Any, size: Long) {
+        val data = typeData(assetType)
+
+        remove(data, key)
+
+        val isPinned = key in data.pinCounts
+
+        if (!isPinned && (size > maxSize || size > data.maxSize))
+            return
+
+        val entry = Entry(asset, size)
+        entry.lastAccess = ++accessCount
+
+        if (isPinned) {
+            data.pinnedEntries[key] = entry
+        } else {
+            data.entries[key] = entry
+        }
+
+        data.size += size
+        this.size += size
+
+        evictIfNeeded()
+    }
+
+    @Synchronized fun isCached(assetType: AssetType, key: String): Boolean {
+        val data = typeData(assetType)
+
+        return key in data.pinnedEntries || key in data.entries
+    }
+
+    /**
+     * Pins the asset with given [key], so it is not evicted.
+     * The asset does not have to be cached yet.
+     */
+    @Synchronized fun pin(assetType: AssetType, key: String) {
+        val data = typeData(assetType)
+
+        data.pinCounts.merge(key, 1, Int::plus)
+
+        data.entries.remove(key)?.let {
+            data.pinnedEntries[key] = it
+        }
+    }
+
+    /**
+     * Undoes a previous call to [pin].
+     * Once all pins are undone, the asset can be evicted again.
+     */
+    @Synchronized fun unpin(assetType: AssetType, key: String) {
+        val data = typeData(assetType)
+
+        val count = data.pinCounts[key] ?: return
+
+        if (count > 1) {
+            data.pinCounts[key] = count - 1
+            return
+        }
+
+        data.pinCounts.remove(key)
+
+        data.pinnedEntries.remove(key)?.let {
+            data.entries[key] = it
+            evictIfNeeded()
+        }
+    }
+
+    @Synchronized fun isPinned(assetType: AssetType, key: String): Boolean {
+        return key in typeData(assetType).pinCounts
+    }
+
+    /**
+     * Removes all assets, including pinned ones.
+     * Pins are kept, so pinned assets are pinned again when cached.
+     */
+    @Synchronized fun clear() {
+        types.values.forEach {
+            it.entries.clear()
+            it.pinnedEntries.clear()
+            it.size = 0
+        }
+
+        size = 0
+    }
+
+    @Synchronized fun resetStatistics() {
+        numHits = 0
+        numMisses = 0
+        numEvictions = 0
+    }
+
+    private fun typeData(assetType: AssetType): TypeData {
+        return types.getOrPut(assetType) { TypeData() }
+    }
+
+    private fun remove(data: TypeData, key: String) {
+        val entry = data.entries.remove(key) ?: data.pinnedEntries.remove(key) ?: return
+
+        data.size -= entry.size
+        size -= entry.size
+    }
+
+    private fun evictIfNeeded() {
+        types.values.forEach { data ->
+            while (data.size > data.maxSize && data.entries.isNotEmpty()) {
+                evictOldest(data)
+            }
+        }
+
+        while (size > maxSize) {
+            // the least recently used entry of each type is first in its map
+            val data = types.values
+                    .filter { it.entries.isNotEmpty() }
+                    .minByOrNull { it.entries.values.first().lastAccess }
+                    ?: break
+
+            evictOldest(data)
+        }
+    }
+
+    private fun evictOldest(data: TypeData) {
+        val it = data.entries.values.iterator()
+        val entry = it.next()
+        it.remove()
+
+        data.size -= entry.size
+        size -= entry.size
+
+        numEvictions++
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app.services
+
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Runs asset loading jobs on a bounded number of threads.
+ * Waiting jobs with higher priority run first, jobs with the same priority run in submission order.
+ * Threads are started on demand and stop when idle.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class AssetLoadQueue(numThreads: Int) {
+
+    private class Job(val priority: Int, val sequence: Long, val action: Runnable) : Runnable, Comparable<Job> {
+
+        override fun run() {
+            action.run()
+        }
+
+        override fun compareTo(other: Job): Int {
+            if (priority != other.priority)
+                return other.priority.compareTo(priority)
+
+            return sequence.compareTo(other.sequence)
+        }
+    }
+
+    private val sequence = AtomicLong()
+
+    private val executor = ThreadPoolExecutor(
+            numThreads, numThreads,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            PriorityBlockingQueue(),
+            LoaderThreadFactory
+    )
+
+    init {
+        executor.allowCoreThreadTimeOut(true)
+    }
+
+    /**
+     * Number of jobs waiting to run.
+     */
+    val numPending: Int
+        get() = executor.queue.size
+
+    fun submit(priority: Int, action: Runnable) {
+        executor.execute(Job(priority, sequence.getAndIncrement(), action))
+    }
+
+    /**
+     * Stops all threads, jobs that have not started are not run.
+     */
+    fun shutdownNow() {
+        executor.shutdownNow()
+    }
+
+    private object LoaderThreadFactory : ThreadFactory {
+        private val threadNumber = AtomicInteger(1)
+
+        override fun newThread(r: Runnable): Thread {
+            val t = Thread(r, "FXGL Asset Loader " + threadNumber.andIncrement)
+            t.isDaemon = true
+            return t
+        }
+    }
+
+    companion object {
+        private const val KEEP_ALIVE_SECONDS = 5L
+    }
+}
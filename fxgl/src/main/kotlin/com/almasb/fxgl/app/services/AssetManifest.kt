@@ -0,0 +1,59 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app.services
+
+import com.almasb.fxgl.core.asset.AssetType
+
+/**
+ * A list of assets to be preloaded with [FXGLAssetLoaderService.preload].
+ * Assets with higher priority are loaded before assets with lower priority,
+ * including assets of other manifests that are being preloaded at the same time.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AssetManifest {
+
+    companion object {
+        const val PRIORITY_LOW = -10
+        const val PRIORITY_NORMAL = 0
+        const val PRIORITY_HIGH = 10
+    }
+
+    internal class Entry(val assetType: AssetType, val fileName: String, var priority: Int)
+
+    private val entriesMap = linkedMapOf<Pair<AssetType, String>, Entry>()
+
+    internal val entries: Collection<Entry>
+        get() = entriesMap.values
+
+    /**
+     * Number of distinct assets in this manifest.
+     */
+    val size: Int
+        get() = entriesMap.size
+
+    /**
+     * Adds an asset with given [fileName] (relative to its category directory), e.g.
+     * add(AssetType.IMAGE, "player.png").
+     * If the asset was already added, its priority is raised to [priority] if higher.
+     */
+    @JvmOverloads fun add(assetType: AssetType, fileName: String, priority: Int = PRIORITY_NORMAL): AssetManifest {
+        require(assetType != AssetType.UI && assetType != AssetType.RESIZABLE_IMAGE) {
+            "$assetType cannot be preloaded"
+        }
+
+        val entry = entriesMap.getOrPut(assetType to fileName) { Entry(assetType, fileName, priority) }
+        entry.priority = maxOf(entry.priority, priority)
+
+        return this
+    }
+
+    fun addAll(assetType: AssetType, vararg fileNames: String): AssetManifest {
+        fileNames.forEach { add(assetType, it) }
+        return this
+    }
+}
@@ -29,6 +29,7 @@ import com.almasb.fxgl.ui.FontFactory
 import com.almasb.fxgl.ui.UI
 import com.almasb.fxgl.ui.UIController
 import com.fasterxml.jackson.databind.ObjectMapper
+import javafx.concurrent.Task
 import javafx.fxml.FXMLLoader
 import javafx.scene.Parent
 import javafx.scene.image.Image
@@ -41,6 +42,8 @@ import java.io.InputStream
 import java.net.URL
 import java.nio.charset.StandardCharsets
 import java.util.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicLong
 
 // Directories that are used for specific assets
 private const val ASSETS_DIR = "/assets/"
@@ -80,6 +83,13 @@ private const val CURSORS_DIR = UI_DIR + "cursors/"
  * If you need to access the "raw" JavaFX objects (e.g. Image), you can use [getStream]
  * to obtain an InputStream and then parse into whatever resource you need.
  *
+ * Loaded assets are cached within a memory budget ([maxCacheSize]), based on estimated sizes,
+ * e.g. image dimensions or audio file size.
+ * When the budget is exceeded, least recently used assets are evicted and will be loaded again when needed.
+ * Assets that the current scene needs can be pinned with [pin], so they are never evicted.
+ *
+ * Assets can be loaded in the background ahead of time with [preload], e.g. during a level transition.
+ *
  * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
  */
 class FXGLAssetLoaderService : AssetLoaderService() {
@@ -112,17 +122,55 @@ class FXGLAssetLoaderService : AssetLoaderService() {
     @Inject("userAppClass")
     private lateinit var userAppClass: Class<*>
 
+    @Inject("assetCacheMaxSize")
+    private var assetCacheMaxSize = DEFAULT_CACHE_MAX_SIZE
+
     private lateinit var audioService: AudioPlayer
 
-    private val cachedAssets = hashMapOf<String, Any>()
+    private val cache = AssetCache(DEFAULT_CACHE_MAX_SIZE)
+
+    private val loadQueue = AssetLoadQueue(Runtime.getRuntime().availableProcessors().coerceIn(1, MAX_LOADER_THREADS))
+
+    /**
+     * Maximum estimated size in bytes of all cached assets.
+     */
+    var maxCacheSize: Long
+        get() = cache.maxSize
+        set(value) {
+            cache.maxSize = value
+        }
+
+    /**
+     * Estimated size in bytes of all cached assets.
+     */
+    val cacheSize: Long
+        get() = cache.size
+
+    val numCachedAssets: Int
+        get() = cache.numAssets
+
+    val numCacheHits: Long
+        get() = cache.numHits
+
+    val numCacheMisses: Long
+        get() = cache.numMisses
+
+    val numCacheEvictions: Long
+        get() = cache.numEvictions
 
     override fun onInit() {
+        cache.maxSize = assetCacheMaxSize
+
         assetData[SOUND] = SoundAssetLoader(audioService, isMobile)
         assetData[MUSIC] = MusicAssetLoader(audioService, isMobile)
 
         log.debug("User app class for loading assets: $userAppClass")
     }
 
+    override fun onExit() {
+        loadQueue.shutdownNow()
+    }
+
     /**
      * Loads an image with [loadImage] and wraps it with a [Texture].
      */
@@ -535,7 +583,7 @@ class FXGLAssetLoaderService : AssetLoaderService() {
 
         val cacheKey = loadParams.cacheKey
 
-        val asset = cachedAssets[cacheKey]
+        val asset = cache.get(assetType, cacheKey)
         if (asset != null) {
             // load from cache
             return data.cast(asset)
@@ -547,7 +595,7 @@ class FXGLAssetLoaderService : AssetLoaderService() {
             val loaded = data.load(loadParams)
 
             if (loadParams.isCacheEnabled) {
-                cachedAssets[cacheKey] = loaded as Any
+                cache.put(assetType, cacheKey, loaded as Any, data.estimateSize(loaded, loadParams))
             }
 
             data.cast(loaded as Any)
@@ -557,6 +605,49 @@ class FXGLAssetLoaderService : AssetLoaderService() {
         }
     }
 
+    /**
+     * Creates a task that loads all assets in [manifest] into the cache, using a bounded number of background threads.
+     * The task can be run on any executor or passed to a loading scene, e.g.
+     * getGameController().gotoLoading(task), which displays its progress.
+     * Progress is the fraction of assets loaded, and the message is the name of the last loaded asset.
+     * Assets that fail to load are logged and skipped.
+     * Cancelling the task skips assets that have not started loading.
+     *
+     * @return task that completes once all assets in [manifest] are loaded
+     */
+    fun preload(manifest: AssetManifest): Task<Void?> {
+        return PreloadTask(manifest.entries.toList())
+    }
+
+    private inner class PreloadTask(private val entries: List<AssetManifest.Entry>) : Task<Void?>() {
+
+        override fun call(): Void? {
+            val total = entries.size.toLong()
+            val numLoaded = AtomicLong()
+            val latch = CountDownLatch(entries.size)
+
+            updateProgress(0, total)
+
+            entries.forEach { entry ->
+                loadQueue.submit(entry.priority) {
+                    try {
+                        if (!isCancelled) {
+                            load<Any>(entry.assetType, entry.fileName)
+                            updateMessage(entry.fileName)
+                        }
+                    } finally {
+                        updateProgress(numLoaded.incrementAndGet(), total)
+                        latch.countDown()
+                    }
+                }
+            }
+
+            latch.await()
+
+            return null
+        }
+    }
+
     /**
      * Opens a stream to resource with given [name].
      * The caller is responsible for closing the stream.
@@ -599,14 +690,77 @@ class FXGLAssetLoaderService : AssetLoaderService() {
     }
 
     /**
-     * Release all cached assets.
+     * Sets the maximum estimated size in bytes of cached assets of given type.
+     * This applies in addition to [maxCacheSize].
+     */
+    fun setMaxCacheSize(assetType: AssetType, maxSize: Long) {
+        cache.setMaxSize(assetType, maxSize)
+    }
+
+    fun getMaxCacheSize(assetType: AssetType): Long = cache.getMaxSize(assetType)
+
+    /**
+     * Pins the asset with given [fileName] (relative to its category directory), so it is not evicted from the cache.
+     * The asset does not need to be loaded yet.
+     * Each call must be matched with a call to [unpin] once the asset is no longer needed, e.g. when a level ends.
+     */
+    fun pin(assetType: AssetType, fileName: String) {
+        pin(assetType, getURL(assetData[assetType]!!.directory + fileName))
+    }
+
+    fun pin(assetType: AssetType, url: URL) {
+        cache.pin(assetType, url.toExternalForm())
+    }
+
+    /**
+     * Undoes a previous call to [pin].
+     */
+    fun unpin(assetType: AssetType, fileName: String) {
+        unpin(assetType, getURL(assetData[assetType]!!.directory + fileName))
+    }
+
+    fun unpin(assetType: AssetType, url: URL) {
+        cache.unpin(assetType, url.toExternalForm())
+    }
+
+    fun isCached(assetType: AssetType, fileName: String): Boolean {
+        return isCached(assetType, getURL(assetData[assetType]!!.directory + fileName))
+    }
+
+    fun isCached(assetType: AssetType, url: URL): Boolean {
+        return cache.isCached(assetType, url.toExternalForm())
+    }
+
+    fun resetCacheStatistics() {
+        cache.resetStatistics()
+    }
+
+    /**
+     * Release all cached assets, including pinned ones.
+     * Pins are kept, so pinned assets are pinned again when loaded.
      */
     fun clearCache() {
         log.debug("Clearing assets cache")
-        cachedAssets.clear()
+        cache.clear()
     }
 }
 
+/**
+ * Default [FXGLAssetLoaderService.maxCacheSize] in bytes.
+ */
+internal const val DEFAULT_CACHE_MAX_SIZE = 512L * 1024 * 1024
+
+/**
+ * Maximum number of threads used by [FXGLAssetLoaderService.preload].
+ * Loading is mostly IO and decoding, so more threads only add memory pressure.
+ */
+private const val MAX_LOADER_THREADS = 4
+
+/**
+ * Size in bytes of assets whose size cannot be estimated.
+ */
+private const val DEFAULT_ASSET_SIZE = 1024L
+
 private open class LoadParams(
         val url: URL,
         val cacheKey: String = url.toExternalForm(),
@@ -648,6 +802,26 @@ private sealed class AssetLoader<T>(
      * @return a dummy for given [typeClass].
      */
     abstract fun getDummy(): T
+
+    /**
+     * @return estimated size in bytes of given loaded [asset]
+     */
+    open fun estimateSize(asset: T, params: LoadParams): Long = DEFAULT_ASSET_SIZE
+}
+
+private fun estimateSize(image: Image): Long = image.width.toLong() * image.height.toLong() * 4
+
+/**
+ * @return size of the resource at [url] or [DEFAULT_ASSET_SIZE] if not known
+ */
+private fun estimateSize(url: URL): Long {
+    return try {
+        val size = url.openConnection().contentLengthLong
+
+        if (size > 0) size else DEFAULT_ASSET_SIZE
+    } catch (e: Exception) {
+        DEFAULT_ASSET_SIZE
+    }
 }
 
 private class ImageAssetLoader : AssetLoader<Image>(
@@ -665,6 +839,8 @@ private class ImageAssetLoader : AssetLoader<Image>(
     }
 
     override fun getDummy(): Image = getDummyImage()
+
+    override fun estimateSize(asset: Image, params: LoadParams): Long = estimateSize(asset)
 }
 
 private class ResizableImageAssetLoader : AssetLoader<Image>(
@@ -689,6 +865,8 @@ private class ResizableImageAssetLoader : AssetLoader<Image>(
     }
 
     override fun getDummy(): Image = getDummyImage()
+
+    override fun estimateSize(asset: Image, params: LoadParams): Long = estimateSize(asset)
 }
 
 private class SoundAssetLoader(val audioService: AudioPlayer, val isMobile: Boolean) : AssetLoader<Sound>(
@@ -698,6 +876,8 @@ private class SoundAssetLoader(val audioService: AudioPlayer, val isMobile: Bool
     override fun load(url: URL): Sound = Sound(audioService.loadAudio(AudioType.SOUND, url, isMobile))
 
     override fun getDummy(): Sound = Sound(getDummyAudio())
+
+    override fun estimateSize(asset: Sound, params: LoadParams): Long = estimateSize(params.url)
 }
 
 private class MusicAssetLoader(val audioService: AudioPlayer, val isMobile: Boolean) : AssetLoader<Music>(
@@ -707,6 +887,8 @@ private class MusicAssetLoader(val audioService: AudioPlayer, val isMobile: Bool
     override fun load(url: URL): Music = Music(audioService.loadAudio(AudioType.MUSIC, url, isMobile))
 
     override fun getDummy(): Music = Music(getDummyAudio())
+
+    override fun estimateSize(asset: Music, params: LoadParams): Long = estimateSize(params.url)
 }
 
 private class TextAssetLoader : AssetLoader<List<*>>(
@@ -722,6 +904,10 @@ private class TextAssetLoader : AssetLoader<List<*>>(
     override fun load(url: URL): List<String> = url.openStream().bufferedReader().readLines()
 
     override fun getDummy(): List<String> = emptyList()
+
+    override fun estimateSize(asset: List<*>, params: LoadParams): Long {
+        return asset.sumOf { (it as String).length.toLong() * 2 }
+    }
 }
 
 private class DialogueGraphAssetLoader : AssetLoader<SerializableGraph>(
@@ -13,7 +13,8 @@ import com.almasb.fxgl.scene.SceneService
 
 /**
  * This service provides access to a range of profiling tools,
- * including CPU time it took to compute last frame, FPS and RAM.
+ * including CPU time it took to compute last frame, FPS, RAM
+ * and the number of narrow phase collision checks in last frame.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
@@ -33,6 +34,7 @@ class ProfilerService : EngineService() {
     private lateinit var cpuProfilerWindow: ProfilerWindow
     private lateinit var fpsProfilerWindow: ProfilerWindow
     private lateinit var ramProfilerWindow: ProfilerWindow
+    private lateinit var collisionsProfilerWindow: ProfilerWindow
 
     override fun onInit() {
         fpsProfilerWindow = ProfilerWindow(300.0, 100.0, "FPS")
@@ -49,16 +51,23 @@ class ProfilerService : EngineService() {
         ramProfilerWindow.preferredMaxValue = 300.0
         ramProfilerWindow.relocate(600.0, 0.0)
 
+        collisionsProfilerWindow = ProfilerWindow(300.0, 100.0, "Narrow phase checks")
+        collisionsProfilerWindow.numYTicks = 5
+        collisionsProfilerWindow.preferredMaxValue = 100.0
+        collisionsProfilerWindow.relocate(900.0, 0.0)
+
         sceneService.overlayRoot.children.addAll(
                 fpsProfilerWindow,
                 cpuProfilerWindow,
-                ramProfilerWindow
+                ramProfilerWindow,
+                collisionsProfilerWindow
         )
     }
 
     override fun onUpdate(tpf: Double) {
         fpsProfilerWindow.update(1.0 / tpf)
         cpuProfilerWindow.update(FXGL.cpuNanoTime() / 1_000_000.0)
+        collisionsProfilerWindow.update(FXGL.getPhysicsWorld().numNarrowPhaseChecks.toDouble())
 
         val used = runtime.totalMemory() - runtime.freeMemory()
 
@@ -81,6 +90,7 @@ class ProfilerService : EngineService() {
         fpsProfilerWindow.log()
         cpuProfilerWindow.log()
         ramProfilerWindow.log()
+        collisionsProfilerWindow.log()
 
         log.info("Estimated GC runs: $gcRuns")
     }
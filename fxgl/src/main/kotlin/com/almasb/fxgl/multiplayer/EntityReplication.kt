@@ -0,0 +1,242 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.entity.Entity
+import kotlin.math.roundToLong
+
+/**
+ * Tracks entities replicated to a single connection and produces the events to send each tick.
+ * Positions are quantized to multiples of [precision] and only entities whose quantized position
+ * has changed since it was last sent are included, as differences from the last sent position.
+ * Every [keyframeInterval] ticks, absolute positions of all relevant entities are sent instead,
+ * so that the other endpoint can recover if it missed an update.
+ * If [interestCenter] is set, only entities within [interestRadius] of it are relevant.
+ * Quantized positions are Ints, so coordinates are limited to Int.MAX_VALUE * [precision] in absolute value
+ * (about 21,474,836 with the default precision), and coordinates beyond that are clamped to the limit.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntityReplicationSender {
+
+    private class State(val entity: Entity, val networkID: Long) {
+
+        // last sent quantized position
+        var x = 0
+        var y = 0
+        var z = 0
+    }
+
+    private val states = ArrayList<State>()
+
+    private var networkIDs = LongArray(16)
+    private var positions = IntArray(16 * 3)
+
+    private var numTicks = 0L
+    private var isKeyframeRequired = false
+
+    var precision = DEFAULT_PRECISION
+        set(value) {
+            require(value > 0.0) { "Precision must be positive: $value" }
+
+            field = value
+            isKeyframeRequired = true
+        }
+
+    var keyframeInterval = DEFAULT_KEYFRAME_INTERVAL
+
+    var interestCenter: Entity? = null
+
+    var interestRadius = Double.MAX_VALUE
+
+    val numEntities: Int
+        get() = states.size
+
+    /**
+     * Starts replicating given [entity] from its current position,
+     * which the other endpoint receives with the spawn event.
+     */
+    fun add(entity: Entity, networkID: Long) {
+        val state = State(entity, networkID)
+        quantize(state)
+
+        states += state
+    }
+
+    /**
+     * Adds events for this tick to [events].
+     */
+    fun update(events: MutableList<ReplicationEvent>) {
+        numTicks++
+
+        // after a precision change, all entities need new positions, including irrelevant ones
+        val isAll = isKeyframeRequired
+        val isKeyframe = isAll || (keyframeInterval > 0 && numTicks % keyframeInterval == 0L)
+        isKeyframeRequired = false
+
+        if (networkIDs.size < states.size) {
+            networkIDs = LongArray(states.size)
+            positions = IntArray(states.size * 3)
+        }
+
+        var size = 0
+        var hasRemoved = false
+
+        for (state in states) {
+            val entity = state.entity
+
+            if (!entity.isActive) {
+                events += EntityRemoveEvent(state.networkID)
+                hasRemoved = true
+                continue
+            }
+
+            if (!isAll && !isRelevant(entity))
+                continue
+
+            val x = quantize(entity.x)
+            val y = quantize(entity.y)
+            val z = quantize(entity.z)
+
+            if (isKeyframe) {
+                positions[size * 3] = x
+                positions[size * 3 + 1] = y
+                positions[size * 3 + 2] = z
+            } else {
+                if (x == state.x && y == state.y && z == state.z)
+                    continue
+
+                positions[size * 3] = x - state.x
+                positions[size * 3 + 1] = y - state.y
+                positions[size * 3 + 2] = z - state.z
+            }
+
+            networkIDs[size] = state.networkID
+            size++
+
+            state.x = x
+            state.y = y
+            state.z = z
+        }
+
+        if (hasRemoved) {
+            states.removeIf { !it.entity.isActive }
+        }
+
+        if (size > 0) {
+            events += EntityDeltaUpdateEvent(networkIDs.copyOf(size), positions.copyOf(size * 3), precision, isKeyframe)
+        }
+    }
+
+    private fun isRelevant(entity: Entity): Boolean {
+        val center = interestCenter ?: return true
+
+        val dx = entity.x - center.x
+        val dy = entity.y - center.y
+        val dz = entity.z - center.z
+
+        return dx * dx + dy * dy + dz * dz <= interestRadius * interestRadius
+    }
+
+    private fun quantize(state: State) {
+        state.x = quantize(state.entity.x)
+        state.y = quantize(state.entity.y)
+        state.z = quantize(state.entity.z)
+    }
+
+    private fun quantize(value: Double): Int = quantize(value, precision)
+
+    companion object {
+        const val DEFAULT_PRECISION = 0.01
+        const val DEFAULT_KEYFRAME_INTERVAL = 60
+    }
+}
+
+/**
+ * Maps network IDs to entities spawned by the other endpoint and applies their position updates.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntityReplicationReceiver {
+
+    private class State(val entity: Entity, val spawnX: Double, val spawnY: Double, val spawnZ: Double) {
+
+        // last received quantized position
+        var x = 0
+        var y = 0
+        var z = 0
+
+        var precision = Double.NaN
+    }
+
+    private val states = hashMapOf<Long, State>()
+
+    val numEntities: Int
+        get() = states.size
+
+    fun getEntity(networkID: Long): Entity? = states[networkID]?.entity
+
+    fun onSpawn(networkID: Long, entity: Entity, x: Double, y: Double, z: Double) {
+        states[networkID] = State(entity, x, y, z)
+    }
+
+    fun onUpdate(event: EntityUpdateEvent) {
+        val entity = getEntity(event.networkID) ?: return
+
+        entity.setPosition3D(event.x, event.y, event.z)
+    }
+
+    fun onUpdate(event: EntityDeltaUpdateEvent) {
+        val precision = event.precision
+
+        for (i in event.networkIDs.indices) {
+            val state = states[event.networkIDs[i]] ?: continue
+
+            val x = event.positions[i * 3]
+            val y = event.positions[i * 3 + 1]
+            val z = event.positions[i * 3 + 2]
+
+            if (event.isKeyframe) {
+                state.x = x
+                state.y = y
+                state.z = z
+            } else {
+                if (state.precision != precision) {
+                    // first update since spawn, so the other endpoint quantized the spawn position
+                    state.x = quantize(state.spawnX, precision)
+                    state.y = quantize(state.spawnY, precision)
+                    state.z = quantize(state.spawnZ, precision)
+                }
+
+                state.x += x
+                state.y += y
+                state.z += z
+            }
+
+            state.precision = precision
+
+            state.entity.setPosition3D(state.x * precision, state.y * precision, state.z * precision)
+        }
+    }
+
+    fun onRemove(networkID: Long) {
+        val entity = states.remove(networkID)?.entity ?: return
+
+        if (entity.isActive) {
+            entity.removeFromWorld()
+        }
+    }
+}
+
+/**
+ * @return [value] as a multiple of [precision], clamped to the Int range
+ */
+private fun quantize(value: Double, precision: Double): Int {
+    return (value / precision).roundToLong()
+            .coerceIn(Int.MIN_VALUE.toLong(), Int.MAX_VALUE.toLong())
+            .toInt()
+}
@@ -22,6 +22,11 @@ import javafx.beans.property.ReadOnlyDoubleProperty
 import javafx.beans.property.ReadOnlyDoubleWrapper
 
 /**
+ * Entity positions are replicated per connection: each tick, only entities whose position has changed
+ * are sent, as quantized differences from the previously sent position.
+ * Every [keyframeInterval] ticks, absolute positions are sent instead.
+ * Use [setInterest] to only replicate entities near a given entity, e.g. the remote player.
+ *
  * TODO: symmetric remove API, e.g. removeReplicationSender()
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
@@ -32,8 +37,34 @@ class MultiplayerService : EngineService() {
 
     private val replicatedEntitiesMap = hashMapOf<Connection<Bundle>, ConnectionData>()
 
+    /**
+     * Replicated positions are rounded to multiples of this value.
+     */
+    var positionPrecision = EntityReplicationSender.DEFAULT_PRECISION
+        set(value) {
+            require(value > 0.0) { "Precision must be positive: $value" }
+
+            field = value
+            replicatedEntitiesMap.values.forEach { it.entities.precision = value }
+        }
+
+    /**
+     * Number of ticks between updates with absolute positions of all entities.
+     * 0 means only differences are sent.
+     */
+    var keyframeInterval = EntityReplicationSender.DEFAULT_KEYFRAME_INTERVAL
+        set(value) {
+            require(value >= 0) { "Keyframe interval cannot be negative: $value" }
+
+            field = value
+            replicatedEntitiesMap.values.forEach { it.entities.keyframeInterval = value }
+        }
+
     fun registerConnection(connection: Connection<Bundle>) {
         val data = ConnectionData(connection)
+        data.entities.precision = positionPrecision
+        data.entities.keyframeInterval = keyframeInterval
+
         setUpNewConnection(data)
 
         replicatedEntitiesMap[connection] = data
@@ -64,16 +95,48 @@ class MultiplayerService : EngineService() {
 
         val now = System.nanoTime()
 
-        // TODO: can (should) we move this to NetworkComponent to act on a per entity basis ...
         replicatedEntitiesMap.forEach { conn, data ->
             fire(conn, PingReplicationEvent(now))
 
-            if (data.entities.isNotEmpty()) {
+            if (data.entities.numEntities > 0) {
                 updateReplicatedEntities(conn, data.entities)
             }
         }
     }
 
+    /**
+     * Only entities within [radius] of [center] are replicated to given [connection].
+     * Entities outside are not updated until they come within [radius] again.
+     *
+     * @throws IllegalArgumentException if [connection] is not registered with this service
+     */
+    fun setInterest(connection: Connection<Bundle>, center: Entity, radius: Double) {
+        require(radius >= 0.0) { "Radius cannot be negative: $radius" }
+
+        val entities = getReplicatedEntities(connection)
+        entities.interestCenter = center
+        entities.interestRadius = radius
+    }
+
+    /**
+     * All entities are replicated to given [connection], which is the default.
+     *
+     * @throws IllegalArgumentException if [connection] is not registered with this service
+     */
+    fun clearInterest(connection: Connection<Bundle>) {
+        val entities = getReplicatedEntities(connection)
+        entities.interestCenter = null
+        entities.interestRadius = Double.MAX_VALUE
+    }
+
+    private fun getReplicatedEntities(connection: Connection<Bundle>): EntityReplicationSender {
+        val data = requireNotNull(replicatedEntitiesMap[connection]) {
+            "Connection $connection is not registered with MultiplayerService"
+        }
+
+        return data.entities
+    }
+
     /**
      * @return round-trip time from this endpoint to given [connection]
      */
@@ -82,25 +145,14 @@ class MultiplayerService : EngineService() {
         return replicatedEntitiesMap[connection]!!.ping.readOnlyProperty
     }
 
-    private fun updateReplicatedEntities(connection: Connection<Bundle>, entities: MutableList<Entity>) {
+    private fun updateReplicatedEntities(connection: Connection<Bundle>, entities: EntityReplicationSender) {
         val events = arrayListOf<ReplicationEvent>()
 
-        entities.forEach {
-            // TODO: if not present?
-            val networkID = it.getComponent(NetworkComponent::class.java).id
-
-            if (it.isActive) {
-                events += EntityUpdateEvent(networkID, it.x, it.y, it.z)
-            } else {
-                events += EntityRemoveEvent(networkID)
-            }
-        }
+        entities.update(events)
 
         if (events.isNotEmpty()) {
             fire(connection, *events.toTypedArray())
         }
-
-        entities.removeIf { !it.isActive }
     }
 
     fun spawn(connection: Connection<Bundle>, entity: Entity, entityName: String) {
@@ -115,12 +167,14 @@ class MultiplayerService : EngineService() {
 
         // TODO: if not available
         val data = replicatedEntitiesMap[connection]!!
-        data.entities += entity
+        data.entities.add(entity, networkComponent.id)
 
         fire(connection, event)
     }
 
     fun addEntityReplicationReceiver(connection: Connection<Bundle>, gameWorld: GameWorld) {
+        val entities = EntityReplicationReceiver()
+
         connection.addMessageHandlerFX { _, message ->
 
             handleIfReplicationBundle(message) { event ->
@@ -134,22 +188,20 @@ class MultiplayerService : EngineService() {
                         // TODO: show warning if not present
                         e.getComponentOptional(NetworkComponent::class.java)
                                 .ifPresent { it.id = id }
+
+                        entities.onSpawn(id, e, event.x, event.y, event.z)
                     }
 
                     is EntityUpdateEvent -> {
-                        val id = event.networkID
+                        entities.onUpdate(event)
+                    }
 
-                        gameWorld.getEntitiesByComponentMapped(NetworkComponent::class.java)
-                                .filterValues { it.id == id }
-                                .forEach { (e, _) -> e.setPosition3D(event.x, event.y, event.z) }
+                    is EntityDeltaUpdateEvent -> {
+                        entities.onUpdate(event)
                     }
 
                     is EntityRemoveEvent -> {
-                        val id = event.networkID
-
-                        gameWorld.getEntitiesByComponentMapped(NetworkComponent::class.java)
-                                .filterValues { it.id == id }
-                                .forEach { (e, _) -> e.removeFromWorld() }
+                        entities.onRemove(event.networkID)
                     }
                 }
             }
@@ -262,7 +314,9 @@ class MultiplayerService : EngineService() {
         // this is the only place where we create a replication event carrying bundle
         val bundle = Bundle("REPLICATION_EVENT")
 
-        val list = ArrayList<ReplicationEvent>(events.toList())
+        // events are sent as plain bundles, so they are encoded without Java serialization
+        val list = ArrayList<Bundle>(events.size)
+        events.mapTo(list) { ReplicationEventCodec.toBundle(it) }
 
         bundle.put("events", list)
 
@@ -271,15 +325,15 @@ class MultiplayerService : EngineService() {
 
     private fun handleIfReplicationBundle(bundle: Bundle, handler: (ReplicationEvent) -> Unit) {
         if (bundle.name == "REPLICATION_EVENT") {
-            val events: List<ReplicationEvent> = bundle.get("events")
+            val events: List<Bundle> = bundle.get("events")
 
-            events.forEach(handler)
+            events.forEach { handler(ReplicationEventCodec.fromBundle(it)) }
         }
     }
 
     private class ConnectionData(val connection: Connection<Bundle>) {
-        val entities = ArrayList<Entity>()
-        val eventBus = EventBus().also { it.isLoggingEnabled = false }
+        val entities = EntityReplicationSender()
+        val eventBus = EventBus(EventBus.DispatchMode.DIRECT).also { it.isLoggingEnabled = false }
 
         val pingBuffer = MovingAverageQueue(1000)
         val ping = ReadOnlyDoubleWrapper()
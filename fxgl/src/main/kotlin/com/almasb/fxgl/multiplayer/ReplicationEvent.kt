@@ -23,6 +23,7 @@ abstract class ReplicationEvent(eventType: EventType<out ReplicationEvent>) : Ev
 
         @JvmField val ENTITY_SPAWN = EventType(ANY, "ENTITY_SPAWN")
         @JvmField val ENTITY_UPDATE = EventType(ANY, "ENTITY_UPDATE")
+        @JvmField val ENTITY_DELTA_UPDATE = EventType(ANY, "ENTITY_DELTA_UPDATE")
         @JvmField val ENTITY_REMOVE = EventType(ANY, "ENTITY_REMOVE")
 
         @JvmField val INPUT_ACTION_BEGIN = EventType(ANY, "INPUT_ACTION_BEGIN")
@@ -52,6 +53,19 @@ class EntityUpdateEvent(
         val z: Double
 ) : ReplicationEvent(ENTITY_UPDATE)
 
+/**
+ * Positions of multiple entities, quantized to multiples of [precision].
+ * For entity networkIDs[i], positions[3i], positions[3i + 1] and positions[3i + 2] are x, y and z.
+ * If [isKeyframe], these are absolute quantized positions,
+ * otherwise they are differences from the previous quantized positions of those entities.
+ */
+class EntityDeltaUpdateEvent(
+        val networkIDs: LongArray,
+        val positions: IntArray,
+        val precision: Double,
+        val isKeyframe: Boolean
+) : ReplicationEvent(ENTITY_DELTA_UPDATE)
+
 class EntityRemoveEvent(
         val networkID: Long
 ) : ReplicationEvent(ENTITY_REMOVE)
@@ -0,0 +1,131 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.ENTITY_DELTA_UPDATE
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.ENTITY_REMOVE
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.ENTITY_SPAWN
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.ENTITY_UPDATE
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.INPUT_ACTION_BEGIN
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.INPUT_ACTION_END
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.PING
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.PONG
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.PROPERTY_REMOVE
+import com.almasb.fxgl.multiplayer.ReplicationEvent.Companion.PROPERTY_UPDATE
+import javafx.scene.input.KeyCode
+import javafx.scene.input.MouseButton
+import java.io.Serializable
+
+/**
+ * Converts replication events to and from bundles of plain values,
+ * so that they are sent by BundleCodec without Java serialization.
+ * Events of other (user-defined) types are stored as is and fall back to Java serialization.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+object ReplicationEventCodec {
+
+    private const val OTHER = "OTHER"
+
+    fun toBundle(event: ReplicationEvent): Bundle {
+        val bundle = Bundle(event.eventType.name)
+
+        when (event) {
+            is EntitySpawnEvent -> {
+                bundle.put("id", event.networkID)
+                bundle.put("name", event.entityName)
+                bundle.put("x", event.x)
+                bundle.put("y", event.y)
+                bundle.put("z", event.z)
+            }
+
+            is EntityUpdateEvent -> {
+                bundle.put("id", event.networkID)
+                bundle.put("x", event.x)
+                bundle.put("y", event.y)
+                bundle.put("z", event.z)
+            }
+
+            is EntityDeltaUpdateEvent -> {
+                bundle.put("ids", event.networkIDs)
+                bundle.put("positions", event.positions)
+                bundle.put("precision", event.precision)
+                bundle.put("isKeyframe", event.isKeyframe)
+            }
+
+            is EntityRemoveEvent -> {
+                bundle.put("id", event.networkID)
+            }
+
+            is ActionBeginReplicationEvent -> {
+                putTrigger(bundle, event.key, event.btn)
+            }
+
+            is ActionEndReplicationEvent -> {
+                putTrigger(bundle, event.key, event.btn)
+            }
+
+            is PropertyUpdateReplicationEvent -> {
+                bundle.put("name", event.propertyName)
+                bundle.put("value", event.propertyValue as Serializable)
+            }
+
+            is PropertyRemoveReplicationEvent -> {
+                bundle.put("name", event.propertyName)
+            }
+
+            is PingReplicationEvent -> {
+                bundle.put("timeSent", event.timeSent)
+            }
+
+            is PongReplicationEvent -> {
+                bundle.put("timeSent", event.timeSent)
+                bundle.put("timeReceived", event.timeReceived)
+            }
+
+            else -> {
+                val other = Bundle(OTHER)
+                other.put("event", event)
+                return other
+            }
+        }
+
+        return bundle
+    }
+
+    fun fromBundle(bundle: Bundle): ReplicationEvent {
+        return when (bundle.name) {
+            ENTITY_SPAWN.name -> EntitySpawnEvent(bundle.get("id"), bundle.get("name"), bundle.get("x"), bundle.get("y"), bundle.get("z"))
+            ENTITY_UPDATE.name -> EntityUpdateEvent(bundle.get("id"), bundle.get("x"), bundle.get("y"), bundle.get("z"))
+            ENTITY_DELTA_UPDATE.name -> EntityDeltaUpdateEvent(bundle.get("ids"), bundle.get("positions"), bundle.get("precision"), bundle.get("isKeyframe"))
+            ENTITY_REMOVE.name -> EntityRemoveEvent(bundle.get("id"))
+            INPUT_ACTION_BEGIN.name -> ActionBeginReplicationEvent(getKey(bundle), getButton(bundle))
+            INPUT_ACTION_END.name -> ActionEndReplicationEvent(getKey(bundle), getButton(bundle))
+            PROPERTY_UPDATE.name -> PropertyUpdateReplicationEvent(bundle.get("name"), bundle.get<Any>("value"))
+            PROPERTY_REMOVE.name -> PropertyRemoveReplicationEvent(bundle.get("name"))
+            PING.name -> PingReplicationEvent(bundle.get("timeSent"))
+            PONG.name -> PongReplicationEvent(bundle.get("timeSent"), bundle.get("timeReceived"))
+            OTHER -> bundle.get<ReplicationEvent>("event")
+
+            else -> throw IllegalArgumentException("Bundle ${bundle.name} is not a replication event")
+        }
+    }
+
+    private fun putTrigger(bundle: Bundle, key: KeyCode?, btn: MouseButton?) {
+        key?.let { bundle.put("key", it.name) }
+        btn?.let { bundle.put("btn", it.name) }
+    }
+
+    private fun getKey(bundle: Bundle): KeyCode? {
+        return if (bundle.exists("key")) KeyCode.valueOf(bundle.get("key")) else null
+    }
+
+    private fun getButton(bundle: Bundle): MouseButton? {
+        return if (bundle.exists("btn")) MouseButton.valueOf(bundle.get("btn")) else null
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app.services
+
+import com.almasb.fxgl.core.asset.AssetType
+import org.hamcrest.CoreMatchers.*
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AssetCacheTest {
+
+    private lateinit var cache: AssetCache
+
+    @BeforeEach
+    fun setUp() {
+        cache = AssetCache(100)
+    }
+
+    @Test
+    fun `Cached asset is returned`() {
+        cache.put(AssetType.IMAGE, "a", "A", 10)
+
+        assertThat(cache.get(AssetType.IMAGE, "a"), `is`<Any>("A"))
+        assertThat(cache.get(AssetType.IMAGE, "b"), `is`(nullValue()))
+
+        // same key but different type
+        assertThat(cache.get(AssetType.SOUND, "a"), `is`(nullValue()))
+
+        assertThat(cache.size, `is`(10L))
+        assertThat(cache.numAssets, `is`(1))
+    }
+
+    @Test
+    fun `Replacing an asset updates size`() {
+        cache.put(AssetType.IMAGE, "a", "A", 10)
+        cache.put(AssetType.IMAGE, "a", "A2", 30)
+
+        assertThat(cache.get(AssetType.IMAGE, "a"), `is`<Any>("A2"))
+        assertThat(cache.size, `is`(30L))
+        assertThat(cache.numAssets, `is`(1))
+    }
+
+    @Test
+    fun `Least recently used asset of any type is evicted when over budget`() {
+        cache.put(AssetType.IMAGE, "a", "A", 40)
+        cache.put(AssetType.SOUND, "b", "B", 40)
+
+        // a is now more recently used than b
+        cache.get(AssetType.IMAGE, "a")
+
+        cache.put(AssetType.TEXT, "c", "C", 40)
+
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(true))
+        assertThat(cache.isCached(AssetType.SOUND, "b"), `is`(false))
+        assertThat(cache.isCached(AssetType.TEXT, "c"), `is`(true))
+
+        assertThat(cache.size, `is`(80L))
+        assertThat(cache.numEvictions, `is`(1L))
+    }
+
+    @Test
+    fun `Reducing max size evicts assets`() {
+        cache.put(AssetType.IMAGE, "a", "A", 40)
+        cache.put(AssetType.IMAGE, "b", "B", 40)
+
+        cache.maxSize = 50
+
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(false))
+        assertThat(cache.isCached(AssetType.IMAGE, "b"), `is`(true))
+        assertThat(cache.size, `is`(40L))
+
+        cache.maxSize = 0
+
+        assertThat(cache.numAssets, `is`(0))
+        assertThat(cache.size, `is`(0L))
+    }
+
+    @Test
+    fun `Type budget only evicts assets of that type`() {
+        cache.setMaxSize(AssetType.IMAGE, 50)
+
+        assertThat(cache.getMaxSize(AssetType.IMAGE), `is`(50L))
+
+        cache.put(AssetType.SOUND, "s", "S", 30)
+        cache.put(AssetType.IMAGE, "a", "A", 30)
+        cache.put(AssetType.IMAGE, "b", "B", 30)
+
+        assertThat(cache.isCached(AssetType.SOUND, "s"), `is`(true))
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(false))
+        assertThat(cache.isCached(AssetType.IMAGE, "b"), `is`(true))
+    }
+
+    @Test
+    fun `Asset larger than budget is not cached`() {
+        cache.setMaxSize(AssetType.MUSIC, 20)
+
+        cache.put(AssetType.IMAGE, "a", "A", 10)
+        cache.put(AssetType.IMAGE, "big", "BIG", 101)
+        cache.put(AssetType.MUSIC, "m", "M", 21)
+
+        assertThat(cache.isCached(AssetType.IMAGE, "big"), `is`(false))
+        assertThat(cache.isCached(AssetType.MUSIC, "m"), `is`(false))
+
+        // existing assets are not evicted for an asset that would not fit anyway
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(true))
+        assertThat(cache.numEvictions, `is`(0L))
+    }
+
+    @Test
+    fun `Pinned assets are not evicted`() {
+        cache.pin(AssetType.IMAGE, "a")
+        cache.put(AssetType.IMAGE, "a", "A", 60)
+        cache.put(AssetType.IMAGE, "b", "B", 30)
+
+        cache.get(AssetType.IMAGE, "b")
+
+        cache.put(AssetType.IMAGE, "c", "C", 30)
+
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(true))
+        assertThat(cache.isCached(AssetType.IMAGE, "b"), `is`(false))
+        assertThat(cache.isCached(AssetType.IMAGE, "c"), `is`(true))
+
+        // pinned assets are cached even if larger than budget
+        cache.pin(AssetType.SOUND, "big")
+        cache.put(AssetType.SOUND, "big", "BIG", 200)
+
+        assertThat(cache.isCached(AssetType.SOUND, "big"), `is`(true))
+        assertThat(cache.isCached(AssetType.IMAGE, "c"), `is`(false))
+        assertThat(cache.size, `is`(260L))
+    }
+
+    @Test
+    fun `Pins are counted`() {
+        cache.put(AssetType.IMAGE, "a", "A", 60)
+
+        cache.pin(AssetType.IMAGE, "a")
+        cache.pin(AssetType.IMAGE, "a")
+
+        cache.unpin(AssetType.IMAGE, "a")
+
+        assertThat(cache.isPinned(AssetType.IMAGE, "a"), `is`(true))
+
+        cache.put(AssetType.IMAGE, "b", "B", 60)
+
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(true))
+        assertThat(cache.isCached(AssetType.IMAGE, "b"), `is`(false))
+
+        cache.unpin(AssetType.IMAGE, "a")
+
+        assertThat(cache.isPinned(AssetType.IMAGE, "a"), `is`(false))
+
+        // unpinned asset is evicted once over budget
+        cache.setMaxSize(AssetType.IMAGE, 50)
+
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(false))
+
+        // unpinning more times than pinned does nothing
+        cache.unpin(AssetType.IMAGE, "a")
+
+        assertThat(cache.isPinned(AssetType.IMAGE, "a"), `is`(false))
+    }
+
+    @Test
+    fun `Unpinning evicts if over budget`() {
+        cache.pin(AssetType.IMAGE, "a")
+        cache.put(AssetType.IMAGE, "a", "A", 150)
+
+        assertThat(cache.size, `is`(150L))
+
+        cache.unpin(AssetType.IMAGE, "a")
+
+        assertThat(cache.isCached(AssetType.IMAGE, "a"), `is`(false))
+        assertThat(cache.size, `is`(0L))
+    }
+
+    @Test
+    fun `Clear keeps pins`() {
+        cache.pin(AssetType.IMAGE, "a")
+        cache.put(AssetType.IMAGE, "a", "A", 10)
+        cache.put(AssetType.IMAGE, "b", "B", 10)
+
+        cache.clear()
+
+        assertThat(cache.numAssets, `is`(0))
+        assertThat(cache.size, `is`(0L))
+        assertThat(cache.isPinned(AssetType.IMAGE, "a"), `is`(true))
+    }
+
+    @Test
+    fun `Statistics`() {
+        cache.put(AssetType.IMAGE, "a", "A", 60)
+
+        cache.get(AssetType.IMAGE, "a")
+        cache.get(AssetType.IMAGE, "a")
+        cache.get(AssetType.IMAGE, "b")
+
+        cache.put(AssetType.IMAGE, "b", "B", 60)
+
+        assertThat(cache.numHits, `is`(2L))
+        assertThat(cache.numMisses, `is`(1L))
+        assertThat(cache.numEvictions, `is`(1L))
+
+        cache.resetStatistics()
+
+        assertThat(cache.numHits, `is`(0L))
+        assertThat(cache.numMisses, `is`(0L))
+        assertThat(cache.numEvictions, `is`(0L))
+    }
+
+    @Test
+    fun `Throw if max size is negative`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            cache.maxSize = -1
+        }
+
+        assertThrows(IllegalArgumentException::class.java) {
+            cache.setMaxSize(AssetType.IMAGE, -1)
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app.services
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AssetLoadQueueTest {
+
+    private lateinit var queue: AssetLoadQueue
+
+    @AfterEach
+    fun tearDown() {
+        queue.shutdownNow()
+    }
+
+    @Test
+    fun `Higher priority jobs run first`() {
+        queue = AssetLoadQueue(1)
+
+        val blocker = CountDownLatch(1)
+        val done = CountDownLatch(5)
+        val order = CopyOnWriteArrayList<String>()
+
+        // occupy the only thread, so that all other jobs are waiting
+        queue.submit(0) { blocker.await() }
+
+        queue.submit(AssetManifest.PRIORITY_LOW, job("low", order, done))
+        queue.submit(AssetManifest.PRIORITY_NORMAL, job("normal1", order, done))
+        queue.submit(AssetManifest.PRIORITY_NORMAL, job("normal2", order, done))
+        queue.submit(AssetManifest.PRIORITY_HIGH, job("high", order, done))
+        queue.submit(AssetManifest.PRIORITY_NORMAL, job("normal3", order, done))
+
+        assertThat(queue.numPending, `is`(5))
+
+        blocker.countDown()
+
+        assertThat(done.await(5, TimeUnit.SECONDS), `is`(true))
+        assertThat(order, contains("high", "normal1", "normal2", "normal3", "low"))
+    }
+
+    @Test
+    fun `Jobs run on multiple threads`() {
+        queue = AssetLoadQueue(4)
+
+        val numRunning = AtomicInteger()
+        val allRunning = CountDownLatch(4)
+        val release = CountDownLatch(1)
+
+        repeat(4) {
+            queue.submit(0) {
+                numRunning.incrementAndGet()
+                allRunning.countDown()
+                release.await()
+            }
+        }
+
+        assertThat(allRunning.await(5, TimeUnit.SECONDS), `is`(true))
+        assertThat(numRunning.get(), `is`(4))
+
+        release.countDown()
+    }
+
+    private fun job(name: String, order: MutableList<String>, done: CountDownLatch) = Runnable {
+        order += name
+        done.countDown()
+    }
+}
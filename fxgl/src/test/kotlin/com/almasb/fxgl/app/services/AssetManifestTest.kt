@@ -0,0 +1,46 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app.services
+
+import com.almasb.fxgl.core.asset.AssetType
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AssetManifestTest {
+
+    @Test
+    fun `Duplicate assets are added once with highest priority`() {
+        val manifest = AssetManifest()
+                .addAll(AssetType.IMAGE, "player.png", "enemy.png")
+                .add(AssetType.SOUND, "player.png")
+                .add(AssetType.IMAGE, "player.png", AssetManifest.PRIORITY_HIGH)
+                .add(AssetType.IMAGE, "player.png", AssetManifest.PRIORITY_LOW)
+
+        assertThat(manifest.size, `is`(3))
+
+        val player = manifest.entries.first { it.assetType == AssetType.IMAGE && it.fileName == "player.png" }
+
+        assertThat(player.priority, `is`(AssetManifest.PRIORITY_HIGH))
+    }
+
+    @Test
+    fun `Throw if asset type cannot be preloaded`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            AssetManifest().add(AssetType.UI, "menu.fxml")
+        }
+
+        assertThrows(IllegalArgumentException::class.java) {
+            AssetManifest().add(AssetType.RESIZABLE_IMAGE, "player.png")
+        }
+    }
+}
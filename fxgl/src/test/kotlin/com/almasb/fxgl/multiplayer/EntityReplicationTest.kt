@@ -0,0 +1,253 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.GameWorld
+import org.hamcrest.CoreMatchers.*
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.closeTo
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.*
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class EntityReplicationTest {
+
+    private lateinit var world: GameWorld
+    private lateinit var remoteWorld: GameWorld
+
+    private lateinit var sender: EntityReplicationSender
+    private lateinit var receiver: EntityReplicationReceiver
+
+    private val events = arrayListOf<ReplicationEvent>()
+
+    @BeforeEach
+    fun setUp() {
+        world = GameWorld()
+        remoteWorld = GameWorld()
+
+        sender = EntityReplicationSender()
+        receiver = EntityReplicationReceiver()
+
+        events.clear()
+    }
+
+    @Test
+    fun `Remote entities follow replicated entities`() {
+        val random = Random(5)
+
+        val pairs = (0 until 100).map { spawn(it.toLong(), random.nextDouble() * 1000, random.nextDouble() * 1000) }
+
+        repeat(200) {
+            pairs.forEach { (e, _) ->
+                if (random.nextInt(3) == 0) {
+                    e.translate(random.nextGaussian() * 5, random.nextGaussian() * 5)
+                }
+            }
+
+            tick()
+
+            pairs.forEach { (e, remote) ->
+                assertThat(remote.x, closeTo(e.x, sender.precision))
+                assertThat(remote.y, closeTo(e.y, sender.precision))
+                assertThat(remote.z, closeTo(e.z, sender.precision))
+            }
+        }
+    }
+
+    @Test
+    fun `Only changed entities are sent`() {
+        sender.keyframeInterval = 0
+
+        val (e1, _) = spawn(1, 10.0, 10.0)
+        spawn(2, 20.0, 20.0)
+
+        tick()
+
+        assertThat(events.isEmpty(), `is`(true))
+
+        // smaller than precision
+        e1.translateX(0.001)
+
+        tick()
+
+        assertThat(events.isEmpty(), `is`(true))
+
+        e1.translateX(5.0)
+
+        tick()
+
+        val event = events.single() as EntityDeltaUpdateEvent
+
+        assertThat(event.isKeyframe, `is`(false))
+        assertThat(event.networkIDs.toList(), `is`(listOf(1L)))
+        assertThat(event.positions.toList(), `is`(listOf(500, 0, 0)))
+    }
+
+    @Test
+    fun `Keyframes contain absolute positions`() {
+        sender.keyframeInterval = 2
+
+        spawn(1, 10.0, 20.0)
+
+        tick()
+
+        assertThat(events.isEmpty(), `is`(true))
+
+        tick()
+
+        val event = events.single() as EntityDeltaUpdateEvent
+
+        assertThat(event.isKeyframe, `is`(true))
+        assertThat(event.positions.toList(), `is`(listOf(1000, 2000, 0)))
+    }
+
+    @Test
+    fun `Keyframe corrects remote entity after missed update`() {
+        sender.keyframeInterval = 10
+
+        val (e, remote) = spawn(1, 0.0, 0.0)
+
+        e.translateX(5.0)
+
+        // update is lost
+        sender.update(events)
+        events.clear()
+
+        repeat(9) { tick() }
+
+        assertThat(remote.x, `is`(5.0))
+    }
+
+    @Test
+    fun `Coordinates beyond the quantized range are clamped`() {
+        sender.keyframeInterval = 0
+
+        val (e, remote) = spawn(1, 0.0, 0.0)
+
+        val max = Int.MAX_VALUE * sender.precision
+        val min = Int.MIN_VALUE * sender.precision
+
+        e.x = max * 10
+        e.y = min * 10
+
+        tick()
+
+        // clamped to the limit rather than wrapped around to the other side
+        assertThat(remote.x, closeTo(max, 1e-6))
+        assertThat(remote.y, closeTo(min, 1e-6))
+    }
+
+    @Test
+    fun `Entities outside interest radius are not updated`() {
+        sender.keyframeInterval = 0
+
+        val center = Entity()
+        world.addEntity(center)
+
+        sender.interestCenter = center
+        sender.interestRadius = 100.0
+
+        val (near, remoteNear) = spawn(1, 50.0, 0.0)
+        val (far, remoteFar) = spawn(2, 500.0, 0.0)
+
+        near.translateX(10.0)
+        far.translateX(10.0)
+
+        tick()
+
+        assertThat(remoteNear.x, closeTo(60.0, 0.01))
+        assertThat(remoteFar.x, `is`(500.0))
+
+        // far entity comes into range
+        center.translateX(450.0)
+        far.translateX(10.0)
+
+        tick()
+
+        assertThat(remoteFar.x, closeTo(520.0, 0.01))
+    }
+
+    @Test
+    fun `Precision change is applied to all entities`() {
+        sender.keyframeInterval = 0
+
+        val center = Entity()
+        world.addEntity(center)
+
+        sender.interestCenter = center
+        sender.interestRadius = 100.0
+
+        val (far, remoteFar) = spawn(1, 500.0, 0.0)
+
+        far.translateX(3.3)
+
+        sender.precision = 0.5
+
+        tick()
+
+        assertThat(remoteFar.x, `is`(503.5))
+
+        far.translateX(-2.0)
+        center.translateX(500.0)
+
+        tick()
+
+        assertThat(remoteFar.x, `is`(501.5))
+    }
+
+    @Test
+    fun `Removed entities are removed remotely`() {
+        val (e, remote) = spawn(1, 0.0, 0.0)
+
+        e.removeFromWorld()
+
+        tick()
+
+        assertThat(events.single(), `is`(instanceOf(EntityRemoveEvent::class.java)))
+        assertThat(remote.isActive, `is`(false))
+        assertThat(sender.numEntities, `is`(0))
+        assertThat(receiver.numEntities, `is`(0))
+        assertThat(receiver.getEntity(1), `is`(nullValue()))
+    }
+
+    /**
+     * @return local entity and its remote copy
+     */
+    private fun spawn(networkID: Long, x: Double, y: Double): Pair<Entity, Entity> {
+        val e = Entity()
+        e.setPosition(x, y)
+        world.addEntity(e)
+
+        sender.add(e, networkID)
+
+        val remote = Entity()
+        remote.setPosition(x, y)
+        remoteWorld.addEntity(remote)
+
+        receiver.onSpawn(networkID, remote, x, y, 0.0)
+
+        return e to remote
+    }
+
+    private fun tick() {
+        events.clear()
+
+        sender.update(events)
+
+        events.forEach {
+            when (it) {
+                is EntityDeltaUpdateEvent -> receiver.onUpdate(it)
+                is EntityRemoveEvent -> receiver.onRemove(it.networkID)
+            }
+        }
+    }
+}
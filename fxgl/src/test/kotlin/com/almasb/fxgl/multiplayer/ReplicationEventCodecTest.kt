@@ -0,0 +1,119 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.net.BundleCodec
+import javafx.event.EventType
+import javafx.scene.input.KeyCode
+import javafx.scene.input.MouseButton
+import org.hamcrest.CoreMatchers.*
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ReplicationEventCodecTest {
+
+    @Test
+    fun `Entity events are sent as plain bundles`() {
+        val spawn = roundTrip(EntitySpawnEvent(3L, "player", 1.5, -2.0, 7.0)) as EntitySpawnEvent
+
+        assertThat(spawn.networkID, `is`(3L))
+        assertThat(spawn.entityName, `is`("player"))
+        assertThat(spawn.x, `is`(1.5))
+        assertThat(spawn.y, `is`(-2.0))
+        assertThat(spawn.z, `is`(7.0))
+
+        val update = roundTrip(EntityUpdateEvent(4L, 10.0, 20.0, 30.0)) as EntityUpdateEvent
+
+        assertThat(update.networkID, `is`(4L))
+        assertThat(update.x, `is`(10.0))
+        assertThat(update.y, `is`(20.0))
+        assertThat(update.z, `is`(30.0))
+
+        val delta = roundTrip(EntityDeltaUpdateEvent(longArrayOf(1L, 2L), intArrayOf(1, -2, 3, 4, -5, 6), 0.01, true)) as EntityDeltaUpdateEvent
+
+        assertThat(delta.networkIDs.toList(), `is`(listOf(1L, 2L)))
+        assertThat(delta.positions.toList(), `is`(listOf(1, -2, 3, 4, -5, 6)))
+        assertThat(delta.precision, `is`(0.01))
+        assertThat(delta.isKeyframe, `is`(true))
+
+        val remove = roundTrip(EntityRemoveEvent(5L)) as EntityRemoveEvent
+
+        assertThat(remove.networkID, `is`(5L))
+    }
+
+    @Test
+    fun `Input, property and ping events are sent as plain bundles`() {
+        val begin = roundTrip(ActionBeginReplicationEvent(key = KeyCode.W)) as ActionBeginReplicationEvent
+
+        assertThat(begin.key, `is`(KeyCode.W))
+        assertThat(begin.btn, `is`(nullValue()))
+
+        val end = roundTrip(ActionEndReplicationEvent(btn = MouseButton.SECONDARY)) as ActionEndReplicationEvent
+
+        assertThat(end.key, `is`(nullValue()))
+        assertThat(end.btn, `is`(MouseButton.SECONDARY))
+
+        val property = roundTrip(PropertyUpdateReplicationEvent("score", 100)) as PropertyUpdateReplicationEvent
+
+        assertThat(property.propertyName, `is`("score"))
+        assertThat(property.propertyValue, `is`<Any>(100))
+
+        val propertyRemove = roundTrip(PropertyRemoveReplicationEvent("score")) as PropertyRemoveReplicationEvent
+
+        assertThat(propertyRemove.propertyName, `is`("score"))
+
+        val pong = roundTrip(PongReplicationEvent(123L, 456L)) as PongReplicationEvent
+
+        assertThat(pong.timeSent, `is`(123L))
+        assertThat(pong.timeReceived, `is`(456L))
+    }
+
+    @Test
+    fun `Known events do not use Java serialization`() {
+        val bundle = ReplicationEventCodec.toBundle(EntityDeltaUpdateEvent(longArrayOf(1L), intArrayOf(1, 2, 3), 0.01, false))
+
+        assertThat(bundle.data.values.all { it is LongArray || it is IntArray || it is Double || it is Boolean }, `is`(true))
+    }
+
+    @Test
+    fun `Other events are stored as is`() {
+        val event = CustomEvent("hello")
+
+        val bundle = ReplicationEventCodec.toBundle(event)
+
+        assertThat(ReplicationEventCodec.fromBundle(bundle), `is`<ReplicationEvent>(event))
+
+        assertThat((roundTrip(event) as CustomEvent).message, `is`("hello"))
+    }
+
+    @Test
+    fun `Throw if bundle is not a replication event`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            ReplicationEventCodec.fromBundle(Bundle("Test"))
+        }
+    }
+
+    private fun roundTrip(event: ReplicationEvent): ReplicationEvent {
+        val message = Bundle("REPLICATION_EVENT")
+        message.put("events", arrayListOf(ReplicationEventCodec.toBundle(event)))
+
+        val events: List<Bundle> = BundleCodec.decode(BundleCodec.encode(message)).get("events")
+
+        return ReplicationEventCodec.fromBundle(events[0])
+    }
+
+    class CustomEvent(val message: String) : ReplicationEvent(CUSTOM) {
+        companion object {
+            @JvmField val CUSTOM = EventType<CustomEvent>(ReplicationEvent.ANY, "TEST_CUSTOM_EVENT")
+        }
+    }
+}